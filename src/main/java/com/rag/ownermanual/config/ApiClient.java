@@ -0,0 +1,26 @@
+package com.rag.ownermanual.config;
+
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Principal of a request authenticated by API key. Its string form, {@code apiKey:<name>}, is the
+ * identity requests are rate limited and logged by.
+ *
+ * @param name Client name of the key.
+ * @param tier Rate limit tier.
+ * @param scopes API areas the key may call.
+ */
+public record ApiClient(String name, String tier, Set<String> scopes) {
+
+    public ApiClient {
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(tier, "tier");
+        scopes = Set.copyOf(Objects.requireNonNull(scopes, "scopes"));
+    }
+
+    @Override
+    public String toString() {
+        return "apiKey:" + name;
+    }
+}
@@ -1,15 +1,22 @@
 package com.rag.ownermanual.config;
 
+import com.rag.ownermanual.domain.ApiKey;
+import com.rag.ownermanual.repository.ApiKeyRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
@@ -18,25 +25,87 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Simple API-key based authentication filter.
+ * API key authentication filter. Accepts the keys of the api_keys table, cached as an
+ * {@link ApiKeyIndex} and reloaded every key refresh interval so new and revoked keys take effect
+ * without a restart, plus the optional key from app.security.api-key. If a reload fails, the
+ * previous keys stay in use.
+ *
+ * <p>The request is authenticated as an {@link ApiClient} with ROLE_API_CLIENT and one SCOPE_
+ * authority per scope of the key; RateLimitingFilter applies the limit of its tier.
  */
 @Component
+@EnableConfigurationProperties(ApiKeyProperties.class)
 public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(ApiKeyAuthenticationFilter.class);
 
     private static final String API_KEY_HEADER = "X-Api-Key";
-    private static final String API_CLIENT_ROLE = "ROLE_API_CLIENT";
 
-    private final String expectedApiKey;
     private final RequestMatcher protectedEndpointsMatcher;
-
-    public ApiKeyAuthenticationFilter(@Value("${app.security.api-key}") String expectedApiKey) {
-        this.expectedApiKey = Objects.requireNonNull(expectedApiKey, "app.security.api-key must be configured");
+    private final ApiKeyProperties settings;
+    private final ObjectProvider<ApiKeyRepository> keyRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> requestsPerTier = new ConcurrentHashMap<>();
+    private final Counter missingKeys;
+    private final Counter invalidKeys;
+    private final MultiGauge keysPerTier;
+
+    private volatile ApiKeyIndex keys = ApiKeyIndex.empty();
+
+    /**
+     * @param keyRepository The api_keys table; if absent, only the configured key is accepted.
+     */
+    public ApiKeyAuthenticationFilter(ApiKeyProperties settings,
+                                      ObjectProvider<ApiKeyRepository> keyRepository,
+                                      MeterRegistry meterRegistry) {
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.keyRepository = Objects.requireNonNull(keyRepository, "keyRepository");
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
         this.protectedEndpointsMatcher = PathPatternRequestMatcher.withDefaults().matcher("/api/v1/**");
+        this.missingKeys = failureCounter("missing");
+        this.invalidKeys = failureCounter("invalid");
+        this.keysPerTier = MultiGauge.builder("http.api.keys")
+                .description("Accepted API keys per rate limit tier")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the keys before the first request.
+     */
+    @Override
+    protected void initFilterBean() {
+        refreshKeys();
+    }
+
+    /**
+     * Reloads the keys, picking up new and revoked ones.
+     */
+    @Scheduled(fixedDelayString = "${app.security.key-store.refresh-interval:30s}",
+            initialDelayString = "${app.security.key-store.refresh-interval:30s}")
+    public void refreshKeys() {
+        List<ApiKey> stored = List.of();
+        ApiKeyRepository repository = settings.getKeyStore().isEnabled() ? keyRepository.getIfAvailable() : null;
+        if (repository != null) {
+            try {
+                stored = repository.findActive();
+            } catch (RuntimeException e) {
+                log.warn("Could not reload API keys; keeping the {} loaded before: {}", keys.size(), e.getMessage());
+                return;
+            }
+        }
+        ApiKeyIndex index = ApiKeyIndex.of(settings.getApiKey(), stored);
+        if (index.size() != keys.size()) {
+            log.info("Accepting {} API keys", index.size());
+        }
+        keys = index;
+        keysPerTier.register(index.keysPerTier().entrySet().stream()
+                .map(tier -> MultiGauge.Row.of(Tags.of("tier", tier.getKey()), tier.getValue()))
+                .toList(), true);
     }
 
     @Override
@@ -51,18 +120,21 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
 
         String apiKeyHeader = request.getHeader(API_KEY_HEADER);
         if (apiKeyHeader == null || apiKeyHeader.isBlank()) {
+            missingKeys.increment();
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             return;
         }
 
-        if (!constantTimeEquals(apiKeyHeader, expectedApiKey)) {
+        ApiKeyIndex.Entry key = keys.find(apiKeyHeader);
+        if (key == null) {
+            invalidKeys.increment();
             log.warn("Invalid API key presented for path {}", request.getRequestURI());
             response.setStatus(HttpStatus.UNAUTHORIZED.value());
             return;
         }
 
-        AbstractAuthenticationToken authentication = new AbstractAuthenticationToken(
-                List.of(new SimpleGrantedAuthority(API_CLIENT_ROLE))) {
+        ApiClient client = key.client();
+        AbstractAuthenticationToken authentication = new AbstractAuthenticationToken(key.authorities()) {
 
             @Override
             public Object getCredentials() {
@@ -71,28 +143,24 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
 
             @Override
             public Object getPrincipal() {
-                return "apiKey:default";
+                return client;
             }
         };
         authentication.setAuthenticated(true);
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
+        requestsPerTier.computeIfAbsent(client.tier(), tier -> Counter.builder("http.api.requests")
+                .description("Requests authenticated by API key, per rate limit tier")
+                .tag("tier", tier)
+                .register(meterRegistry)).increment();
 
         filterChain.doFilter(request, response);
     }
 
-    private boolean constantTimeEquals(String a, String b) {
-        if (a == null || b == null) {
-            return false;
-        }
-        if (a.length() != b.length()) {
-            return false;
-        }
-        int result = 0;
-        for (int i = 0; i < a.length(); i++) {
-            result |= a.charAt(i) ^ b.charAt(i);
-        }
-        return result == 0;
+    private Counter failureCounter(String reason) {
+        return Counter.builder("http.api.auth.failures")
+                .description("Requests refused for a missing or unknown API key")
+                .tag("reason", reason)
+                .register(meterRegistry);
     }
 }
-
@@ -0,0 +1,131 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.ApiKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable snapshot of the accepted API keys, indexed by key prefix. Authenticating a key hashes
+ * it once and compares the hash with the few keys sharing its prefix (normally one) in constant
+ * time. The hash is computed even when no key has the prefix, so an unknown prefix takes as long as
+ * a wrong key; the prefix itself is not secret, it is the part of a key that may appear in logs.
+ */
+final class ApiKeyIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiKeyIndex.class);
+
+    static final String QUERY_SCOPE = "query";
+    static final String INGEST_SCOPE = "ingest";
+    private static final String API_CLIENT_ROLE = "ROLE_API_CLIENT";
+    private static final String SCOPE_AUTHORITY_PREFIX = "SCOPE_";
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    /**
+     * An accepted key: its hash and what a request presenting it is authenticated as.
+     */
+    record Entry(byte[] hash, ApiClient client, List<GrantedAuthority> authorities) {
+    }
+
+    private final Map<String, Entry[]> byPrefix;
+    private final Map<String, Integer> keysPerTier;
+
+    private ApiKeyIndex(Map<String, Entry[]> byPrefix, Map<String, Integer> keysPerTier) {
+        this.byPrefix = byPrefix;
+        this.keysPerTier = keysPerTier;
+    }
+
+    /**
+     * @param configuredKey Key from configuration, accepted as client "default"; blank = none.
+     * @param keys Active keys from the api_keys table.
+     */
+    static ApiKeyIndex of(String configuredKey, List<ApiKey> keys) {
+        Map<String, List<Entry>> entries = new HashMap<>();
+        Map<String, Integer> keysPerTier = new TreeMap<>();
+        if (configuredKey != null && !configuredKey.isBlank()) {
+            ApiClient client = new ApiClient("default", RateLimitingProperties.DEFAULT_TIER, Set.of(QUERY_SCOPE, INGEST_SCOPE));
+            add(entries, keysPerTier, ApiKey.prefixOf(configuredKey), sha256(configuredKey), client);
+        }
+        for (ApiKey key : keys) {
+            byte[] hash;
+            try {
+                hash = HexFormat.of().parseHex(key.keyHash());
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring API key {}: key_hash is not hex SHA-256", key.name());
+                continue;
+            }
+            add(entries, keysPerTier, key.prefix(), hash, new ApiClient(key.name(), key.tier(), key.scopes()));
+        }
+        Map<String, Entry[]> byPrefix = new HashMap<>();
+        entries.forEach((prefix, list) -> byPrefix.put(prefix, list.toArray(Entry[]::new)));
+        return new ApiKeyIndex(byPrefix, Map.copyOf(keysPerTier));
+    }
+
+    static ApiKeyIndex empty() {
+        return new ApiKeyIndex(Map.of(), Map.of());
+    }
+
+    /**
+     * The entry of the presented key, or null if it is not accepted.
+     */
+    Entry find(String presentedKey) {
+        byte[] hash = sha256(presentedKey);
+        Entry[] candidates = byPrefix.get(ApiKey.prefixOf(presentedKey));
+        if (candidates == null) {
+            return null;
+        }
+        Entry match = null;
+        for (Entry candidate : candidates) {
+            if (MessageDigest.isEqual(hash, candidate.hash())) {
+                match = candidate;
+            }
+        }
+        return match;
+    }
+
+    /** Accepted keys per rate limit tier. */
+    Map<String, Integer> keysPerTier() {
+        return keysPerTier;
+    }
+
+    int size() {
+        return keysPerTier.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /** Hex SHA-256 of a key, as stored in api_keys.key_hash. */
+    static String hashHex(String key) {
+        return HexFormat.of().formatHex(sha256(key));
+    }
+
+    private static byte[] sha256(String key) {
+        return SHA_256.get().digest(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void add(Map<String, List<Entry>> entries, Map<String, Integer> keysPerTier,
+                            String prefix, byte[] hash, ApiClient client) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority(API_CLIENT_ROLE));
+        client.scopes().forEach(scope -> authorities.add(new SimpleGrantedAuthority(SCOPE_AUTHORITY_PREFIX + scope)));
+        entries.computeIfAbsent(prefix, p -> new ArrayList<>(1)).add(new Entry(hash, client, List.copyOf(authorities)));
+        keysPerTier.merge(client.tier(), 1, Integer::sum);
+    }
+}
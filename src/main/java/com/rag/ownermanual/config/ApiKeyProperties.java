@@ -0,0 +1,72 @@
+package com.rag.ownermanual.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * API key authentication (prefix app.security): client keys from the api_keys table, plus an
+ * optional key from configuration for deployments without per-client keys.
+ */
+@Validated
+@ConfigurationProperties(prefix = "app.security")
+public class ApiKeyProperties {
+
+    /**
+     * Key accepted in addition to the api_keys table, as principal apiKey:default with the default
+     * rate limit tier and every scope. Blank = none.
+     */
+    private String apiKey = "";
+
+    @Valid
+    @NotNull
+    private KeyStore keyStore = new KeyStore();
+
+    public String getApiKey() {
+        return apiKey;
+    }
+
+    public void setApiKey(String apiKey) {
+        this.apiKey = apiKey;
+    }
+
+    public KeyStore getKeyStore() {
+        return keyStore;
+    }
+
+    public void setKeyStore(KeyStore keyStore) {
+        this.keyStore = keyStore;
+    }
+
+    /**
+     * The api_keys table, cached on every node and reloaded periodically so new and revoked keys
+     * take effect without a restart.
+     */
+    public static class KeyStore {
+
+        private boolean enabled = true;
+
+        /** Reload period; a revoked key keeps working on a node for up to this long. */
+        @NotNull
+        private Duration refreshInterval = Duration.ofSeconds(30);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getRefreshInterval() {
+            return refreshInterval;
+        }
+
+        public void setRefreshInterval(Duration refreshInterval) {
+            this.refreshInterval = refreshInterval;
+        }
+    }
+}
@@ -3,29 +3,117 @@ package com.rag.ownermanual.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 /**
- * Async configuration for ingestion and other background tasks.
+ * Async and scheduling configuration for ingestion and other background tasks.
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
     /**
-     * Thread pool used for ingestion jobs started by IngestionService.
+     * Thread pool running ingestion jobs claimed by IngestionWorker. The worker never claims more
+     * jobs than maxConcurrentJobs, so the pool needs no queue of its own: pending work waits in the
+     * ingestion_jobs table where any node can pick it up.
      */
     @Bean(name = "ingestionTaskExecutor")
-    public Executor ingestionTaskExecutor() {
+    public ThreadPoolTaskExecutor ingestionTaskExecutor(IngestionProperties ingestionProperties) {
+        return stageExecutor("ingestion-", ingestionProperties);
+    }
+
+    /**
+     * Stage executors for IngestionPipeline. Each job runs one task on each of them; IngestionPipeline
+     * admits at most maxConcurrentJobs jobs, so sizing every pool to that value means a stage never
+     * waits behind another job's stage (which could otherwise deadlock on the bounded queues).
+     */
+    @Bean(name = "ingestionParseExecutor")
+    public ThreadPoolTaskExecutor ingestionParseExecutor(IngestionProperties ingestionProperties) {
+        return stageExecutor("ingest-parse-", ingestionProperties);
+    }
+
+    @Bean(name = "ingestionChunkExecutor")
+    public ThreadPoolTaskExecutor ingestionChunkExecutor(IngestionProperties ingestionProperties) {
+        return stageExecutor("ingest-chunk-", ingestionProperties);
+    }
+
+    @Bean(name = "ingestionUpsertExecutor")
+    public ThreadPoolTaskExecutor ingestionUpsertExecutor(IngestionProperties ingestionProperties) {
+        return stageExecutor("ingest-upsert-", ingestionProperties);
+    }
+
+    /**
+     * Shared pool for PdfTextExtractor page-range workers; its size is the global cap on
+     * extraction threads across all concurrently parsing jobs.
+     */
+    @Bean(name = "pdfExtractionExecutor")
+    public ThreadPoolTaskExecutor pdfExtractionExecutor(IngestionProperties ingestionProperties) {
+        int threads = ingestionProperties.getExtraction().getThreads();
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("pdf-extract-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Shared pool for embedding batch requests issued by QdrantVectorStoreRepository; its size is
+     * the cap on concurrent embedding requests across all jobs.
+     */
+    @Bean(name = "embeddingBatchExecutor")
+    public ThreadPoolTaskExecutor embeddingBatchExecutor(IngestionProperties ingestionProperties) {
+        int threads = ingestionProperties.getEmbedding().getConcurrency();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("embed-batch-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs JobEventBus listeners: each re-reads a job and answers a waiting status request or writes
+     * to an event stream, off the thread that wrote the job. Bounded so a burst of events cannot
+     * grow the pool; an event over the queue capacity is dropped, which only delays its subscribers
+     * until the next change of the job or their timeout.
+     */
+    @Bean(name = "jobEventExecutor")
+    public ThreadPoolTaskExecutor jobEventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
         executor.setMaxPoolSize(4);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("ingestion-");
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("job-events-");
         executor.initialize();
         return executor;
     }
-}
 
+    /**
+     * Fetches and returns cluster-wide rate limit leases for LeasedRateLimiter, so requests never
+     * wait on the database. At most one lease per identity is in flight; a lease over the queue
+     * capacity is refused and requested again by a later request.
+     */
+    @Bean(name = "rateLimitLeaseExecutor")
+    public ThreadPoolTaskExecutor rateLimitLeaseExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(10_000);
+        executor.setThreadNamePrefix("rate-limit-lease-");
+        executor.initialize();
+        return executor;
+    }
+
+    private static ThreadPoolTaskExecutor stageExecutor(String threadNamePrefix, IngestionProperties ingestionProperties) {
+        int threads = ingestionProperties.getPipeline().getMaxConcurrentJobs();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+}
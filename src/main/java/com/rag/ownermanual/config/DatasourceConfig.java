@@ -2,29 +2,93 @@ package com.rag.ownermanual.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.sql.DataSource;
 
 /**
- * Datasource configuration: validates required DB settings and creates the DataSource bean.
+ * Datasource configuration: validates required DB settings and creates the primary DataSource and
+ * the read-only one used for replica reads, each a Hikari pool reporting hikaricp.* metrics tagged
+ * with its pool name.
  */
 @Configuration
 @EnableConfigurationProperties(DatasourceProperties.class)
 public class DatasourceConfig {
 
+    static final String PRIMARY_POOL = "primary";
+    static final String REPLICA_POOL = "replica";
+
     /**
      * Builds the DataSource from validated DatasourceProperties.
      * Called only after properties have been bound and validated (e.g. @NotBlank).
      */
     @Bean
-    public DataSource dataSource(DatasourceProperties props) {
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(props.getUrl());
-        config.setUsername(props.getUsername());
-        config.setPassword(props.getPassword());
+    @Primary
+    public DataSource dataSource(DatasourceProperties props, MeterRegistry meterRegistry) {
+        return new HikariDataSource(poolConfig(PRIMARY_POOL, props.getUrl(), props.getUsername(),
+                props.getPassword(), props.getPool(), meterRegistry));
+    }
+
+    /**
+     * The read replica's pool, read-only; the primary itself when no replica is configured. Only
+     * injected where asked for by name.
+     */
+    @Bean(defaultCandidate = false)
+    public DataSource readOnlyDataSource(DatasourceProperties props, DataSource dataSource, MeterRegistry meterRegistry) {
+        DatasourceProperties.Replica replica = props.getReplica();
+        if (!replica.isEnabled()) {
+            return dataSource;
+        }
+        HikariConfig config = poolConfig(REPLICA_POOL, replica.getUrl(),
+                replica.getUsername() != null ? replica.getUsername() : props.getUsername(),
+                replica.getPassword() != null ? replica.getPassword() : props.getPassword(),
+                replica.getPool(), meterRegistry);
+        config.setReadOnly(true);
         return new HikariDataSource(config);
     }
+
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * JdbcTemplate on {@link #readOnlyDataSource}, for reads that tolerate replication lag.
+     */
+    @Bean(defaultCandidate = false)
+    public JdbcTemplate readOnlyJdbcTemplate(@Qualifier("readOnlyDataSource") DataSource readOnlyDataSource) {
+        return new JdbcTemplate(readOnlyDataSource);
+    }
+
+    static HikariConfig poolConfig(String poolName, String url, String username, String password,
+                                   DatasourceProperties.Pool pool, MeterRegistry meterRegistry) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMinimumIdle(pool.getMinimumIdle());
+        config.setMaximumPoolSize(pool.getMaximumPoolSize());
+        config.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        config.setValidationTimeout(pool.getValidationTimeout().toMillis());
+        config.setIdleTimeout(pool.getIdleTimeout().toMillis());
+        config.setMaxLifetime(pool.getMaxLifetime().toMillis());
+        config.setKeepaliveTime(pool.getKeepaliveTime().toMillis());
+        config.setLeakDetectionThreshold(pool.getLeakDetectionThreshold().toMillis());
+        // Other drivers (H2 in tests) reject unknown connection properties.
+        if (url != null && url.startsWith("jdbc:postgresql:")) {
+            config.addDataSourceProperty("prepareThreshold", pool.getPrepareThreshold());
+            config.addDataSourceProperty("preparedStatementCacheQueries", pool.getStatementCacheQueries());
+            config.addDataSourceProperty("preparedStatementCacheSizeMiB", pool.getStatementCacheSizeMib());
+        }
+        config.setMetricRegistry(meterRegistry);
+        return config;
+    }
 }
@@ -1,11 +1,17 @@
 package com.rag.ownermanual.config;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 /**
- * Binds and validates datasource settings from application.yml (e.g. Supabase PostgreSQL).
+ * Binds and validates datasource settings from application.yml (e.g. Supabase PostgreSQL): the
+ * primary connection, its pool profile, and an optional read replica.
  */
 @Validated
 @ConfigurationProperties(prefix = "spring.datasource")
@@ -20,6 +26,20 @@ public class DatasourceProperties {
     @NotBlank(message = "Database password is required; set SUPABASE_DB_PASSWORD environment variable")
     private String password;
 
+    /**
+     * Pool of the primary connection.
+     */
+    @Valid
+    @NotNull
+    private Pool pool = new Pool();
+
+    /**
+     * Read-only replica for job status and list reads; unused when its URL is blank.
+     */
+    @Valid
+    @NotNull
+    private Replica replica = new Replica();
+
     public String getUrl() {
         return url;
     }
@@ -43,4 +63,219 @@ public class DatasourceProperties {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    public void setReplica(Replica replica) {
+        this.replica = replica;
+    }
+
+    /**
+     * Hikari pool profile, plus the pgjdbc statement cache of each connection (Postgres URLs only).
+     * Size maximumPoolSize for the concurrent ingestion jobs (each holds a connection per write) and
+     * the request threads; the job event listener uses a connection of its own outside the pool.
+     */
+    public static class Pool {
+
+        /** Idle connections kept open so a burst does not start with connection setup. */
+        @Min(0)
+        private int minimumIdle = 2;
+
+        @Min(1)
+        private int maximumPoolSize = 16;
+
+        /** Longest a caller waits for a connection before failing. */
+        @NotNull
+        private Duration connectionTimeout = Duration.ofSeconds(5);
+
+        /** Longest a connection liveness check may take. */
+        @NotNull
+        private Duration validationTimeout = Duration.ofSeconds(2);
+
+        /** Idle connections above minimumIdle are closed after this. */
+        @NotNull
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /** Connections are replaced after this; keep below any server or proxy connection limit. */
+        @NotNull
+        private Duration maxLifetime = Duration.ofMinutes(30);
+
+        /** Idle connections are pinged this often so proxies and NAT do not drop them; 0 = off. */
+        @NotNull
+        private Duration keepaliveTime = Duration.ofMinutes(2);
+
+        /** A connection out of the pool longer than this is logged as a possible leak; 0 = off. */
+        @NotNull
+        private Duration leakDetectionThreshold = Duration.ZERO;
+
+        /**
+         * pgjdbc prepareThreshold: executions of a statement before it becomes a server-side
+         * prepared statement. 0 disables server-side statements, required behind a transaction-mode
+         * pooler such as PgBouncer or the Supabase pooler on port 6543.
+         */
+        @Min(0)
+        private int prepareThreshold = 5;
+
+        /** pgjdbc preparedStatementCacheQueries: statements cached per connection. */
+        @Min(0)
+        private int statementCacheQueries = 256;
+
+        /** pgjdbc preparedStatementCacheSizeMiB: memory cap of that cache per connection. */
+        @Min(0)
+        private int statementCacheSizeMib = 5;
+
+        public int getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(int minimumIdle) {
+            this.minimumIdle = minimumIdle;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+
+        public Duration getValidationTimeout() {
+            return validationTimeout;
+        }
+
+        public void setValidationTimeout(Duration validationTimeout) {
+            this.validationTimeout = validationTimeout;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getMaxLifetime() {
+            return maxLifetime;
+        }
+
+        public void setMaxLifetime(Duration maxLifetime) {
+            this.maxLifetime = maxLifetime;
+        }
+
+        public Duration getKeepaliveTime() {
+            return keepaliveTime;
+        }
+
+        public void setKeepaliveTime(Duration keepaliveTime) {
+            this.keepaliveTime = keepaliveTime;
+        }
+
+        public Duration getLeakDetectionThreshold() {
+            return leakDetectionThreshold;
+        }
+
+        public void setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+            this.leakDetectionThreshold = leakDetectionThreshold;
+        }
+
+        public int getPrepareThreshold() {
+            return prepareThreshold;
+        }
+
+        public void setPrepareThreshold(int prepareThreshold) {
+            this.prepareThreshold = prepareThreshold;
+        }
+
+        public int getStatementCacheQueries() {
+            return statementCacheQueries;
+        }
+
+        public void setStatementCacheQueries(int statementCacheQueries) {
+            this.statementCacheQueries = statementCacheQueries;
+        }
+
+        public int getStatementCacheSizeMib() {
+            return statementCacheSizeMib;
+        }
+
+        public void setStatementCacheSizeMib(int statementCacheSizeMib) {
+            this.statementCacheSizeMib = statementCacheSizeMib;
+        }
+    }
+
+    /**
+     * Streaming replica of the primary. Reads routed here may lag the primary by the replication
+     * delay, so only reads that tolerate it use the replica; the rest stay on the primary.
+     */
+    public static class Replica {
+
+        /** JDBC URL of the replica; blank = all reads go to the primary. */
+        private String url;
+
+        /** Defaults to the primary's username. */
+        private String username;
+
+        /** Defaults to the primary's password. */
+        private String password;
+
+        @Valid
+        @NotNull
+        private Pool pool = new Pool();
+
+        public boolean isEnabled() {
+            return url != null && !url.isBlank();
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public Pool getPool() {
+            return pool;
+        }
+
+        public void setPool(Pool pool) {
+            this.pool = pool;
+        }
+    }
 }
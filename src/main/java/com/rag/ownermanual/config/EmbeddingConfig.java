@@ -1,15 +1,80 @@
 package com.rag.ownermanual.config;
 
+import com.rag.ownermanual.embedding.CachingEmbeddingModel;
+import com.rag.ownermanual.embedding.EmbeddingQuota;
+import com.rag.ownermanual.embedding.RateLimitedEmbeddingModel;
+import com.rag.ownermanual.repository.EmbeddingCacheRepository;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 /**
  * Enables OpenAI embedding configuration and validation.
- * The EmbeddingModel bean is created by Spring AI auto-configuration from
+ * The OpenAiEmbeddingModel bean is created by Spring AI auto-configuration from
  * spring.ai.openai.*; this config validates embedding api-key and options
- * at startup (fail-fast when OPENAI_API_KEY is missing).
+ * at startup (fail-fast when OPENAI_API_KEY is missing) and exposes it to the
+ * rest of the app (vector store, health check) through the embedding cache.
  */
 @Configuration
-@EnableConfigurationProperties(OpenAiEmbeddingProperties.class)
+@EnableConfigurationProperties({OpenAiEmbeddingProperties.class, EmbeddingQuotaProperties.class})
 public class EmbeddingConfig {
+
+    /** Path suffix of OpenAI embedding requests; other calls on the same RestClient are left alone. */
+    private static final String EMBEDDINGS_PATH_SUFFIX = "/embeddings";
+
+    /**
+     * Requests-per-minute and tokens-per-minute budget shared by every embedding call on this node.
+     */
+    @Bean
+    public EmbeddingQuota embeddingQuota(EmbeddingQuotaProperties quotaProperties, MeterRegistry meterRegistry) {
+        return new EmbeddingQuota(quotaProperties, meterRegistry);
+    }
+
+    /**
+     * Feeds the rate-limit headers of embedding responses (remaining budgets, Retry-After on 429)
+     * into the quota. Applies to the RestClient.Builder Spring AI builds the OpenAI client from.
+     */
+    @Bean
+    public RestClientCustomizer embeddingRateLimitHeaders(EmbeddingQuota embeddingQuota) {
+        return builder -> builder.requestInterceptor((request, body, execution) -> {
+            var response = execution.execute(request, body);
+            if (request.getURI().getPath().endsWith(EMBEDDINGS_PATH_SUFFIX)) {
+                embeddingQuota.onResponse(response.getStatusCode().value(), response.getHeaders());
+            }
+            return response;
+        });
+    }
+
+    /**
+     * Primary EmbeddingModel: the OpenAI model behind the content-addressed embedding cache. The
+     * cache namespace comes from the configured model and dimensions; ingestion calls to OpenAI are
+     * capped by the "embedding" bulkhead. Every call that reaches OpenAI (cache misses and queries)
+     * queues for the shared embedding quota first, so cache hits cost no quota.
+     */
+    @Bean
+    @Primary
+    public CachingEmbeddingModel cachingEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel,
+                                                       EmbeddingCacheRepository embeddingCacheRepository,
+                                                       OpenAiEmbeddingProperties embeddingProperties,
+                                                       IngestionProperties ingestionProperties,
+                                                       EmbeddingQuotaProperties quotaProperties,
+                                                       EmbeddingQuota embeddingQuota,
+                                                       BulkheadRegistry bulkheadRegistry,
+                                                       MeterRegistry meterRegistry) {
+        OpenAiEmbeddingProperties.Options options = embeddingProperties.getOptions();
+        return new CachingEmbeddingModel(
+                new RateLimitedEmbeddingModel(openAiEmbeddingModel, embeddingQuota,
+                        quotaProperties.getMaxRateLimitRetries(), quotaProperties.getDefaultRetryAfter()),
+                embeddingCacheRepository,
+                options.getModel(),
+                options.getDimensions(),
+                ingestionProperties.getEmbedding().isCacheEnabled(),
+                bulkheadRegistry.bulkhead("embedding"),
+                meterRegistry);
+    }
 }
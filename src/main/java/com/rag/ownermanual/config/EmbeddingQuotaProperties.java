@@ -0,0 +1,106 @@
+package com.rag.ownermanual.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Embedding provider quota shared by ingestion and queries on this node: requests and tokens per
+ * minute, the share kept free for interactive queries, and how long callers queue for it.
+ */
+@Validated
+@ConfigurationProperties(prefix = "app.embedding.quota")
+public class EmbeddingQuotaProperties {
+
+    /** When false, calls go to the provider unthrottled and rate-limit responses are not retried. */
+    private boolean enabled = true;
+
+    /** Embedding requests per minute allowed by the provider account. */
+    @Min(1)
+    private int requestsPerMinute = 3_000;
+
+    /** Embedding input tokens per minute allowed by the provider account. */
+    @Min(1)
+    private int tokensPerMinute = 1_000_000;
+
+    /**
+     * Share of both budgets that ingestion may not use, so queries still get embedded during a bulk
+     * ingest. Queries may use the whole budget.
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("0.9")
+    private double interactiveReserve = 0.1;
+
+    /** Longest a call queues for quota before it fails. */
+    @NotNull
+    private Duration maxWait = Duration.ofMinutes(10);
+
+    /** Rate-limited (429) responses a call waits out and retries before the error is returned. */
+    @Min(0)
+    private int maxRateLimitRetries = 5;
+
+    /** Pause after a rate-limited response that carries no Retry-After or reset header. */
+    @NotNull
+    private Duration defaultRetryAfter = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    public void setRequestsPerMinute(int requestsPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+    }
+
+    public int getTokensPerMinute() {
+        return tokensPerMinute;
+    }
+
+    public void setTokensPerMinute(int tokensPerMinute) {
+        this.tokensPerMinute = tokensPerMinute;
+    }
+
+    public double getInteractiveReserve() {
+        return interactiveReserve;
+    }
+
+    public void setInteractiveReserve(double interactiveReserve) {
+        this.interactiveReserve = interactiveReserve;
+    }
+
+    public Duration getMaxWait() {
+        return maxWait;
+    }
+
+    public void setMaxWait(Duration maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    public int getMaxRateLimitRetries() {
+        return maxRateLimitRetries;
+    }
+
+    public void setMaxRateLimitRetries(int maxRateLimitRetries) {
+        this.maxRateLimitRetries = maxRateLimitRetries;
+    }
+
+    public Duration getDefaultRetryAfter() {
+        return defaultRetryAfter;
+    }
+
+    public void setDefaultRetryAfter(Duration defaultRetryAfter) {
+        this.defaultRetryAfter = defaultRetryAfter;
+    }
+}
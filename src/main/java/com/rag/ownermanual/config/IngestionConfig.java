@@ -0,0 +1,9 @@
+package com.rag.ownermanual.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IngestionProperties.class)
+public class IngestionConfig {
+}
@@ -0,0 +1,871 @@
+package com.rag.ownermanual.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binds ingestion write-path settings from application.yml (prefix app.ingestion).
+ */
+@Validated
+@ConfigurationProperties(prefix = "app.ingestion")
+public class IngestionProperties {
+
+    /**
+     * Upper bound on a downloaded document. The download is aborted (and the job failed) as soon as
+     * the declared Content-Length or the bytes actually received exceed this size.
+     */
+    @NotNull
+    private DataSize maxDocumentSize = DataSize.ofMegabytes(512);
+
+    /**
+     * Directory for downloaded documents while they are parsed; null/blank = java.io.tmpdir.
+     */
+    private String tempDirectory;
+
+    /**
+     * Staged parse → chunk → upsert pipeline settings.
+     */
+    @Valid
+    @NotNull
+    private Pipeline pipeline = new Pipeline();
+
+    /**
+     * How page text is split into chunks.
+     */
+    @Valid
+    @NotNull
+    private Chunking chunking = new Chunking();
+
+    /**
+     * Removal of running headers, footers and page numbers before chunking.
+     */
+    @Valid
+    @NotNull
+    private Boilerplate boilerplate = new Boilerplate();
+
+    /**
+     * Suppression of near-duplicate chunks within a manual.
+     */
+    @Valid
+    @NotNull
+    private Dedup dedup = new Dedup();
+
+    /**
+     * Parallel PDF text extraction settings.
+     */
+    @Valid
+    @NotNull
+    private Extraction extraction = new Extraction();
+
+    /**
+     * Embedding request batching for the vector store write path.
+     */
+    @Valid
+    @NotNull
+    private Embedding embedding = new Embedding();
+
+    /**
+     * Local store of fetched documents and their parsed pages.
+     */
+    @Valid
+    @NotNull
+    private DocumentStore documentStore = new DocumentStore();
+
+    /**
+     * Durable job queue on the ingestion_jobs table.
+     */
+    @Valid
+    @NotNull
+    private Queue queue = new Queue();
+
+    /**
+     * Sharing of worker slots between tenants.
+     */
+    @Valid
+    @NotNull
+    private Scheduler scheduler = new Scheduler();
+
+    /**
+     * Progress reporting of running jobs.
+     */
+    @Valid
+    @NotNull
+    private Progress progress = new Progress();
+
+    /**
+     * Job status change events for long-polling and streaming clients.
+     */
+    @Valid
+    @NotNull
+    private Events events = new Events();
+
+    /**
+     * Monthly partitions of ingestion_jobs: creation ahead of time and retention.
+     */
+    @Valid
+    @NotNull
+    private Retention retention = new Retention();
+
+    public DataSize getMaxDocumentSize() {
+        return maxDocumentSize;
+    }
+
+    public void setMaxDocumentSize(DataSize maxDocumentSize) {
+        this.maxDocumentSize = maxDocumentSize;
+    }
+
+    public String getTempDirectory() {
+        return tempDirectory;
+    }
+
+    public void setTempDirectory(String tempDirectory) {
+        this.tempDirectory = tempDirectory;
+    }
+
+    public Pipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(Pipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    public Chunking getChunking() {
+        return chunking;
+    }
+
+    public void setChunking(Chunking chunking) {
+        this.chunking = chunking;
+    }
+
+    public Boilerplate getBoilerplate() {
+        return boilerplate;
+    }
+
+    public void setBoilerplate(Boilerplate boilerplate) {
+        this.boilerplate = boilerplate;
+    }
+
+    public Dedup getDedup() {
+        return dedup;
+    }
+
+    public void setDedup(Dedup dedup) {
+        this.dedup = dedup;
+    }
+
+    public Extraction getExtraction() {
+        return extraction;
+    }
+
+    public void setExtraction(Extraction extraction) {
+        this.extraction = extraction;
+    }
+
+    public Embedding getEmbedding() {
+        return embedding;
+    }
+
+    public void setEmbedding(Embedding embedding) {
+        this.embedding = embedding;
+    }
+
+    public DocumentStore getDocumentStore() {
+        return documentStore;
+    }
+
+    public void setDocumentStore(DocumentStore documentStore) {
+        this.documentStore = documentStore;
+    }
+
+    public Queue getQueue() {
+        return queue;
+    }
+
+    public void setQueue(Queue queue) {
+        this.queue = queue;
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public Progress getProgress() {
+        return progress;
+    }
+
+    public void setProgress(Progress progress) {
+        this.progress = progress;
+    }
+
+    public Events getEvents() {
+        return events;
+    }
+
+    public void setEvents(Events events) {
+        this.events = events;
+    }
+
+    public Retention getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Retention retention) {
+        this.retention = retention;
+    }
+
+    /**
+     * Bounds for the ingestion pipeline. Memory held per job is roughly
+     * pageQueueCapacity pages plus batchQueueCapacity × upsertBatchSize chunks.
+     */
+    public static class Pipeline {
+
+        /** Parsed pages buffered between the parse and chunk stages. */
+        @Min(1)
+        private int pageQueueCapacity = 16;
+
+        /** Chunk batches buffered between the chunk and upsert stages. */
+        @Min(1)
+        private int batchQueueCapacity = 4;
+
+        /** Chunks per vector store upsert; each batch is searchable as soon as it is written. */
+        @Min(1)
+        private int upsertBatchSize = 64;
+
+        /** Jobs allowed to run the pipeline at once; also the thread count of each stage executor. */
+        @Min(1)
+        private int maxConcurrentJobs = 4;
+
+        public int getPageQueueCapacity() {
+            return pageQueueCapacity;
+        }
+
+        public void setPageQueueCapacity(int pageQueueCapacity) {
+            this.pageQueueCapacity = pageQueueCapacity;
+        }
+
+        public int getBatchQueueCapacity() {
+            return batchQueueCapacity;
+        }
+
+        public void setBatchQueueCapacity(int batchQueueCapacity) {
+            this.batchQueueCapacity = batchQueueCapacity;
+        }
+
+        public int getUpsertBatchSize() {
+            return upsertBatchSize;
+        }
+
+        public void setUpsertBatchSize(int upsertBatchSize) {
+            this.upsertBatchSize = upsertBatchSize;
+        }
+
+        public int getMaxConcurrentJobs() {
+            return maxConcurrentJobs;
+        }
+
+        public void setMaxConcurrentJobs(int maxConcurrentJobs) {
+            this.maxConcurrentJobs = maxConcurrentJobs;
+        }
+    }
+
+    /**
+     * Bounds for parallel PDF text extraction. Threads are shared by all jobs; each document uses
+     * at most workersPerDocument of them.
+     */
+    public static class Extraction {
+
+        /** Size of the shared extraction pool, i.e. the global cap on extraction threads. */
+        @Min(1)
+        private int threads = Runtime.getRuntime().availableProcessors();
+
+        /** Page ranges of one document extracted concurrently; 1 = sequential. */
+        @Min(1)
+        private int workersPerDocument = 4;
+
+        /** Pages per range; each range re-opens the document, so keep this well above 1. */
+        @Min(1)
+        private int pagesPerTask = 16;
+
+        /**
+         * How page sections are found. A change applies to each manual on its next ingestion: the
+         * document store drops pages extracted with another mode, so the document is extracted
+         * again, and the manifest's processing fingerprint no longer matches, so it is re-chunked
+         * even when unchanged.
+         */
+        @NotNull
+        private SectionDetection sectionDetection = SectionDetection.AUTO;
+
+        public enum SectionDetection {
+            /** The outline (bookmarks) when the PDF has one, headings by font otherwise. */
+            AUTO,
+            /** Only the outline; pages of PDFs without one have no section. */
+            OUTLINE,
+            /** Headings recognised by font size and weight, ignoring any outline. */
+            LAYOUT,
+            /** No sections. */
+            NONE
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getWorkersPerDocument() {
+            return workersPerDocument;
+        }
+
+        public void setWorkersPerDocument(int workersPerDocument) {
+            this.workersPerDocument = workersPerDocument;
+        }
+
+        public int getPagesPerTask() {
+            return pagesPerTask;
+        }
+
+        public void setPagesPerTask(int pagesPerTask) {
+            this.pagesPerTask = pagesPerTask;
+        }
+
+        public SectionDetection getSectionDetection() {
+            return sectionDetection;
+        }
+
+        public void setSectionDetection(SectionDetection sectionDetection) {
+            this.sectionDetection = sectionDetection;
+        }
+    }
+
+    /**
+     * Chunking strategy. These settings are part of the processing fingerprint stored with each
+     * manifest, so after a change the next ingestion of each manual re-chunks its stored pages, even
+     * when the document is unchanged, and re-upserts the pages whose chunks came out differently.
+     */
+    public static class Chunking {
+
+        public enum Strategy {
+            /** Token budget per chunk, split at paragraph/sentence boundaries, never inside a procedure step. */
+            STRUCTURED,
+            /** Fixed 2,000-character windows with 200 characters of overlap. */
+            FIXED
+        }
+
+        @NotNull
+        private Strategy strategy = Strategy.STRUCTURED;
+
+        /** Target tokens per chunk (cl100k estimate); procedure steps and notices may exceed it. */
+        @Min(1)
+        private int maxTokens = 512;
+
+        /** Tokens of whole trailing sentences/steps repeated at the start of the next chunk. */
+        @Min(0)
+        private int overlapTokens = 64;
+
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        public void setStrategy(Strategy strategy) {
+            this.strategy = strategy;
+        }
+
+        public int getMaxTokens() {
+            return maxTokens;
+        }
+
+        public void setMaxTokens(int maxTokens) {
+            this.maxTokens = maxTokens;
+        }
+
+        public int getOverlapTokens() {
+            return overlapTokens;
+        }
+
+        public void setOverlapTokens(int overlapTokens) {
+            this.overlapTokens = overlapTokens;
+        }
+    }
+
+    /**
+     * Lines repeated at the top or bottom of most pages of a document (running headers, footers,
+     * page numbers, legal lines) are stripped before chunking. Stored pages keep the raw text, so
+     * changing these settings applies to the next ingestion without re-extracting documents.
+     */
+    public static class Boilerplate {
+
+        private boolean enabled = true;
+
+        /** Pages held back at the start of a document to learn its boilerplate lines. */
+        @Min(3)
+        private int samplePages = 40;
+
+        /** Share of sampled pages a line must appear on to be boilerplate. */
+        @DecimalMin("0.1")
+        @DecimalMax("1.0")
+        private double minPageFraction = 0.6;
+
+        /** Non-blank lines at the top and at the bottom of a page considered header or footer. */
+        @Min(1)
+        private int edgeLines = 3;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getSamplePages() {
+            return samplePages;
+        }
+
+        public void setSamplePages(int samplePages) {
+            this.samplePages = samplePages;
+        }
+
+        public double getMinPageFraction() {
+            return minPageFraction;
+        }
+
+        public void setMinPageFraction(double minPageFraction) {
+            this.minPageFraction = minPageFraction;
+        }
+
+        public int getEdgeLines() {
+            return edgeLines;
+        }
+
+        public void setEdgeLines(int edgeLines) {
+            this.edgeLines = edgeLines;
+        }
+    }
+
+    /**
+     * Near-duplicate chunks (repeated warnings and tables) are stored once; the stored chunk lists
+     * the other pages it appears on, and citations point at all of them.
+     */
+    public static class Dedup {
+
+        private boolean enabled = true;
+
+        /**
+         * Estimated Jaccard similarity of word 3-shingles from which two chunks are the same text.
+         * Below 0.5 the index no longer reliably finds the pairs.
+         */
+        @DecimalMin("0.5")
+        @DecimalMax("1.0")
+        private double minSimilarity = 0.8;
+
+        /** Chunks with fewer words are always kept: short texts give unstable signatures. */
+        @Min(1)
+        private int minWords = 12;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getMinSimilarity() {
+            return minSimilarity;
+        }
+
+        public void setMinSimilarity(double minSimilarity) {
+            this.minSimilarity = minSimilarity;
+        }
+
+        public int getMinWords() {
+            return minWords;
+        }
+
+        public void setMinWords(int minWords) {
+            this.minWords = minWords;
+        }
+    }
+
+    /**
+     * Bounds for embedding batches. Each batch is one embedding request followed by one upsert, and
+     * is retried on its own.
+     */
+    public static class Embedding {
+
+        /**
+         * Estimated tokens per embedding request. Keep headroom below the provider's per-request
+         * limit (8191 for OpenAI embedding models): the estimate uses the cl100k tokenizer on chunk
+         * text only.
+         */
+        @Min(1)
+        private int maxTokensPerBatch = 7_000;
+
+        /** Inputs per embedding request (OpenAI accepts up to 2048). */
+        @Min(1)
+        private int maxChunksPerBatch = 256;
+
+        /** Embedding batches in flight at once across all jobs. */
+        @Min(1)
+        private int concurrency = 4;
+
+        /** Reuse vectors from the embedding_cache table for chunk text embedded before. */
+        private boolean cacheEnabled = true;
+
+        public int getMaxTokensPerBatch() {
+            return maxTokensPerBatch;
+        }
+
+        public void setMaxTokensPerBatch(int maxTokensPerBatch) {
+            this.maxTokensPerBatch = maxTokensPerBatch;
+        }
+
+        public int getMaxChunksPerBatch() {
+            return maxChunksPerBatch;
+        }
+
+        public void setMaxChunksPerBatch(int maxChunksPerBatch) {
+            this.maxChunksPerBatch = maxChunksPerBatch;
+        }
+
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+
+        public boolean isCacheEnabled() {
+            return cacheEnabled;
+        }
+
+        public void setCacheEnabled(boolean cacheEnabled) {
+            this.cacheEnabled = cacheEnabled;
+        }
+    }
+
+    /**
+     * Local document store: raw bytes and parsed page text of fetched documents, keyed by content
+     * hash, plus the ETag/Last-Modified validators last seen per URL for conditional fetches.
+     */
+    public static class DocumentStore {
+
+        /** When false, every fetch is unconditional and every document is extracted again. */
+        private boolean enabled = true;
+
+        /** Store directory; null/blank = owner-manual-documents under java.io.tmpdir. */
+        private String directory;
+
+        /** Upper bound on stored documents and pages; least recently used documents are evicted first. */
+        @NotNull
+        private DataSize maxSize = DataSize.ofGigabytes(2);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    /**
+     * Job queue settings. Every node with the worker enabled polls ingestion_jobs and claims up to
+     * pipeline.maxConcurrentJobs jobs; a claimed job is leased to the node and heartbeats keep the
+     * lease alive, so a job whose node died is taken over once its lease expires.
+     */
+    public static class Queue {
+
+        /** When false this node only enqueues jobs; other nodes process them. */
+        private boolean workerEnabled = true;
+
+        /** Delay between claim attempts while the node has free slots. */
+        @NotNull
+        private Duration pollInterval = Duration.ofSeconds(1);
+
+        /** How long a claim stays valid without a heartbeat. */
+        @NotNull
+        private Duration leaseDuration = Duration.ofSeconds(60);
+
+        /** Delay between lease renewals; keep well below leaseDuration. */
+        @NotNull
+        private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+        /** Claims per job before it is failed for good, counting lease takeovers. */
+        @Min(1)
+        private int maxAttempts = 5;
+
+        /** Backoff before the first retry; doubled per attempt up to retryBackoffMax. */
+        @NotNull
+        private Duration retryBackoffInitial = Duration.ofSeconds(10);
+
+        @NotNull
+        private Duration retryBackoffMax = Duration.ofMinutes(10);
+
+        public boolean isWorkerEnabled() {
+            return workerEnabled;
+        }
+
+        public void setWorkerEnabled(boolean workerEnabled) {
+            this.workerEnabled = workerEnabled;
+        }
+
+        public Duration getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(Duration pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public Duration getLeaseDuration() {
+            return leaseDuration;
+        }
+
+        public void setLeaseDuration(Duration leaseDuration) {
+            this.leaseDuration = leaseDuration;
+        }
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public Duration getRetryBackoffInitial() {
+            return retryBackoffInitial;
+        }
+
+        public void setRetryBackoffInitial(Duration retryBackoffInitial) {
+            this.retryBackoffInitial = retryBackoffInitial;
+        }
+
+        public Duration getRetryBackoffMax() {
+            return retryBackoffMax;
+        }
+
+        public void setRetryBackoffMax(Duration retryBackoffMax) {
+            this.retryBackoffMax = retryBackoffMax;
+        }
+    }
+
+    /**
+     * Weighted round-robin between tenants with due jobs. A tenant with weight 3 is offered three
+     * free slots for every one offered to a tenant with weight 1, so a large batch from one tenant
+     * cannot starve the others.
+     */
+    public static class Scheduler {
+
+        /** Weight of tenants not listed in tenantWeights. */
+        @Min(1)
+        private int defaultWeight = 1;
+
+        /** Per-tenant weights, keyed by tenant name. */
+        @NotNull
+        private Map<String, @Min(1) Integer> tenantWeights = new HashMap<>();
+
+        public int getDefaultWeight() {
+            return defaultWeight;
+        }
+
+        public void setDefaultWeight(int defaultWeight) {
+            this.defaultWeight = defaultWeight;
+        }
+
+        public Map<String, Integer> getTenantWeights() {
+            return tenantWeights;
+        }
+
+        public void setTenantWeights(Map<String, Integer> tenantWeights) {
+            this.tenantWeights = tenantWeights;
+        }
+    }
+
+    /**
+     * Progress of running jobs is kept in memory and written to ingestion_jobs in one batch per
+     * interval, so the write rate does not grow with chunk throughput.
+     */
+    public static class Progress {
+
+        /** Delay between progress writes; also the staleness of progress seen through the API. */
+        @NotNull
+        private Duration flushInterval = Duration.ofSeconds(2);
+
+        public Duration getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(Duration flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    /**
+     * Writes to ingestion_jobs publish a change event per job. Waiting requests and event streams on
+     * this node are woken in process; with Postgres, events also reach other nodes through
+     * LISTEN/NOTIFY, so clients are told of changes made by any worker without polling the table.
+     */
+    public static class Events {
+
+        /** Relay events between nodes with Postgres LISTEN/NOTIFY; ignored on other databases. */
+        private boolean notifyEnabled = true;
+
+        /** Upper bound on waitForChange of GET /jobs/{id}; longer requests are capped. */
+        @NotNull
+        private Duration maxWait = Duration.ofSeconds(60);
+
+        /** Lifetime of a GET /jobs/{id}/events stream; clients reconnect with Last-Event-ID. */
+        @NotNull
+        private Duration streamTimeout = Duration.ofMinutes(30);
+
+        /** Delay before the listener reconnects after losing its database connection. */
+        @NotNull
+        private Duration reconnectDelay = Duration.ofSeconds(5);
+
+        /**
+         * JDBC URL of the listener's own connection; blank = the primary URL, with its credentials.
+         * LISTEN needs a session, so behind a transaction-mode pooler (Supabase port 6543) point this
+         * at the direct connection or the session-mode pooler (port 5432).
+         */
+        private String listenUrl;
+
+        public boolean isNotifyEnabled() {
+            return notifyEnabled;
+        }
+
+        public void setNotifyEnabled(boolean notifyEnabled) {
+            this.notifyEnabled = notifyEnabled;
+        }
+
+        public Duration getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public Duration getStreamTimeout() {
+            return streamTimeout;
+        }
+
+        public void setStreamTimeout(Duration streamTimeout) {
+            this.streamTimeout = streamTimeout;
+        }
+
+        public Duration getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        public void setReconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+        }
+
+        public String getListenUrl() {
+            return listenUrl;
+        }
+
+        public void setListenUrl(String listenUrl) {
+            this.listenUrl = listenUrl;
+        }
+    }
+
+    /**
+     * On Postgres, ingestion_jobs is partitioned by month of created_at. Maintenance keeps partitions
+     * for the coming months in place and drops whole months of finished jobs once they fall out of
+     * retention, instead of deleting rows. Ignored on other databases.
+     */
+    public static class Retention {
+
+        /** Run partition maintenance at startup and on maintenanceCron. */
+        private boolean enabled = true;
+
+        /** Months of jobs kept, counting the current one; older partitions are detached and dropped. */
+        @Min(1)
+        private int retentionMonths = 13;
+
+        /** Partitions created ahead of the current month, so inserts never lack one. */
+        @Min(1)
+        private int monthsAhead = 3;
+
+        /** Spring cron expression of the maintenance run; only one node runs it at a time. */
+        @NotNull
+        private String maintenanceCron = "0 30 3 * * *";
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getRetentionMonths() {
+            return retentionMonths;
+        }
+
+        public void setRetentionMonths(int retentionMonths) {
+            this.retentionMonths = retentionMonths;
+        }
+
+        public int getMonthsAhead() {
+            return monthsAhead;
+        }
+
+        public void setMonthsAhead(int monthsAhead) {
+            this.monthsAhead = monthsAhead;
+        }
+
+        public String getMaintenanceCron() {
+            return maintenanceCron;
+        }
+
+        public void setMaintenanceCron(String maintenanceCron) {
+            this.maintenanceCron = maintenanceCron;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.RateLimitLease;
+import com.rag.ownermanual.domain.RateLimitPolicy;
+import com.rag.ownermanual.repository.RateLimitLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide rate limits: each identity's bucket lives in a RateLimitLeaseRepository shared by all
+ * nodes, and every node serves requests from a local balance of tokens leased from it. A request
+ * only does a compare-and-set on that balance; when the balance drops below refreshBelow, or a
+ * request is refused, the next lease is fetched on the lease executor, one at a time per identity.
+ *
+ * <p>A node only spends tokens it has leased, so the cluster never admits more than the shared
+ * bucket allows, apart from the initial credit spent before an identity's first lease arrives. The
+ * price is under-admission: up to leaseSize + refreshBelow tokens per node can sit unused while
+ * another node is refused. Balances of identities idle for the idle timeout are returned to the
+ * shared bucket, as are all balances on shutdown.
+ *
+ * <p>If the store cannot be reached, requests are admitted by node-local buckets (the limit every
+ * node enforced before distributed mode) until a lease succeeds again.
+ */
+final class LeasedRateLimiter implements RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(LeasedRateLimiter.class);
+
+    private static final String OVERFLOW_IDENTITY = "*overflow*";
+    private static final long FULL_SWEEP_MICROS = TimeUnit.SECONDS.toMicros(1);
+    /** Pause after a failed lease, and the longest pause after an empty one. */
+    private static final long LEASE_BACKOFF_MICROS = TimeUnit.SECONDS.toMicros(1);
+
+    private final RateLimitLeaseRepository store;
+    private final Executor executor;
+    private final LongSupplier microClock;
+    private final LocalRateLimiter fallback;
+    private final int leaseSize;
+    private final int refreshBelow;
+    private final int initialCredit;
+    private final int maxIdentities;
+    private final long idleMicros;
+    private final Map<String, Allowance> allowances = new ConcurrentHashMap<>();
+    private final Allowance overflow;
+    private final AtomicLong lastFullSweep = new AtomicLong();
+    private volatile boolean storeDown;
+
+    private final Timer granted;
+    private final Timer exhausted;
+    private final Timer failed;
+
+    LeasedRateLimiter(RateLimitingProperties settings,
+                      RateLimitLeaseRepository store,
+                      Executor executor,
+                      MeterRegistry meterRegistry) {
+        this(settings, store, executor, meterRegistry, () -> TimeUnit.NANOSECONDS.toMicros(System.nanoTime()));
+    }
+
+    /** @param microClock Monotonic time in microseconds. */
+    LeasedRateLimiter(RateLimitingProperties settings,
+                      RateLimitLeaseRepository store,
+                      Executor executor,
+                      MeterRegistry meterRegistry,
+                      LongSupplier microClock) {
+        Objects.requireNonNull(settings, "settings");
+        this.store = Objects.requireNonNull(store, "store");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        this.microClock = Objects.requireNonNull(microClock, "microClock");
+        this.fallback = new LocalRateLimiter(settings, microClock);
+        this.leaseSize = settings.getDistributed().getLeaseSize();
+        this.refreshBelow = settings.getDistributed().getRefreshBelow();
+        this.initialCredit = settings.getDistributed().getInitialCredit();
+        this.maxIdentities = settings.getMaxIdentities();
+        this.idleMicros = settings.getIdleTimeout().toNanos() / 1_000;
+        long now = microClock.getAsLong();
+        this.overflow = new Allowance(OVERFLOW_IDENTITY, settings.toPolicy(), now);
+        this.lastFullSweep.set(now - FULL_SWEEP_MICROS);
+        this.granted = leaseTimer(meterRegistry, "granted");
+        this.exhausted = leaseTimer(meterRegistry, "exhausted");
+        this.failed = leaseTimer(meterRegistry, "failed");
+    }
+
+    @Override
+    public Decision tryConsume(String identity, RateLimitPolicy policy, int cost) {
+        long now = microClock.getAsLong();
+        Allowance allowance = allowances.get(identity);
+        boolean overflowed = false;
+        if (allowance != null && !allowance.policy.equals(policy)) {
+            // The identity moved to another tier; its balance was leased under the old limit.
+            if (allowances.remove(identity, allowance)) {
+                allowance.release(false);
+            }
+            allowance = null;
+        }
+        if (allowance == null) {
+            if (allowances.size() >= maxIdentities) {
+                long last = lastFullSweep.get();
+                if (now - last >= FULL_SWEEP_MICROS && lastFullSweep.compareAndSet(last, now)) {
+                    sweep();
+                }
+            }
+            if (allowances.size() >= maxIdentities) {
+                allowance = overflow;
+                overflowed = true;
+            } else {
+                allowance = allowances.computeIfAbsent(identity, k -> new Allowance(k, policy, now));
+            }
+        }
+        int tokens = Math.min(cost, allowance.policy.capacity());
+        if (!storeDown) {
+            TokenBucket.Result result = allowance.tryConsume(tokens, now);
+            if (result.allowed() || !storeDown) {
+                return new Decision(result, overflowed);
+            }
+        } else {
+            allowance.refresh(now);
+        }
+        return new Decision(fallback.tryConsume(allowance.identity, allowance.policy, tokens).result(), overflowed);
+    }
+
+    /**
+     * Drops identities unused for the idle timeout and returns their balances to the shared bucket.
+     * A request racing the removal may still spend from the dropped balance; the tokens it spends
+     * are then not returned, which errs on the side of admitting less.
+     */
+    @Override
+    public int sweep() {
+        long now = microClock.getAsLong();
+        int dropped = 0;
+        for (Allowance allowance : allowances.values()) {
+            if (now - allowance.lastUsedMicros >= idleMicros && !allowance.refreshing.get()
+                    && allowances.remove(allowance.identity, allowance)) {
+                dropped++;
+                allowance.release(false);
+            }
+        }
+        fallback.sweep();
+        return dropped;
+    }
+
+    @Override
+    public int size() {
+        return allowances.size();
+    }
+
+    /**
+     * Returns every balance to the shared bucket, on the calling thread.
+     */
+    @Override
+    public void close() {
+        for (Allowance allowance : allowances.values()) {
+            allowances.remove(allowance.identity, allowance);
+            allowance.release(true);
+        }
+        overflow.release(true);
+    }
+
+    private static Timer leaseTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("http.ratelimit.lease")
+                .description("Token leases from the cluster-wide rate limit store")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * One identity's locally held tokens. The balance is negative while spending initial credit.
+     */
+    private final class Allowance {
+
+        private final String identity;
+        private final RateLimitPolicy policy;
+        private final int leaseSize;
+        private final AtomicLong balance = new AtomicLong();
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private volatile boolean leased;
+        private volatile long lastUsedMicros;
+        /** After an empty or failed lease, no new lease is requested before this time. */
+        private volatile long nextLeaseMicros;
+        private volatile int sharedRemaining;
+        private volatile long sharedFullAtMicros;
+
+        private Allowance(String identity, RateLimitPolicy policy, long now) {
+            this.identity = identity;
+            this.policy = policy;
+            this.leaseSize = Math.min(LeasedRateLimiter.this.leaseSize, policy.capacity());
+            this.lastUsedMicros = now;
+            this.nextLeaseMicros = now;
+            this.sharedRemaining = policy.capacity();
+            this.sharedFullAtMicros = now;
+        }
+
+        TokenBucket.Result tryConsume(int tokens, long now) {
+            lastUsedMicros = now;
+            long floor = leased ? 0 : -initialCredit;
+            while (true) {
+                long current = balance.get();
+                long left = current - tokens;
+                long resetMicros = Math.max(0, sharedFullAtMicros - now);
+                if (left < floor) {
+                    refresh(now);
+                    long missing = tokens - Math.max(0, current);
+                    long retryAfter = Math.max(micros(policy.timeToRefill(missing)), nextLeaseMicros - now);
+                    return new TokenBucket.Result(false, Math.max(0, current), retryAfter, resetMicros);
+                }
+                if (balance.compareAndSet(current, left)) {
+                    if (left < refreshBelow) {
+                        refresh(now);
+                    }
+                    return new TokenBucket.Result(true, Math.max(0, left) + sharedRemaining, 0, resetMicros);
+                }
+            }
+        }
+
+        /** Requests the next lease unless one is in flight or backing off. */
+        void refresh(long now) {
+            if (now - nextLeaseMicros < 0 || !refreshing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                executor.execute(this::lease);
+            } catch (RejectedExecutionException e) {
+                refreshing.set(false);
+            }
+        }
+
+        private void lease() {
+            long start = System.nanoTime();
+            try {
+                // A full lease plus any initial credit already spent.
+                long wanted = leaseSize + Math.max(0, -balance.get());
+                RateLimitLease lease = store.lease(identity, policy, (int) Math.min(wanted, policy.capacity()));
+                long now = microClock.getAsLong();
+                balance.addAndGet(lease.granted());
+                leased = true;
+                sharedRemaining = lease.remaining();
+                sharedFullAtMicros = now + micros(lease.untilFull());
+                if (lease.granted() == 0) {
+                    // Tokens may come back earlier than the refill, returned by idle nodes.
+                    nextLeaseMicros = now + Math.min(micros(policy.timeToRefill(1)), LEASE_BACKOFF_MICROS);
+                    exhausted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                } else {
+                    granted.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                if (storeDown) {
+                    storeDown = false;
+                    log.info("Rate limit store reachable again; enforcing cluster-wide limits");
+                }
+            } catch (RuntimeException e) {
+                failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                nextLeaseMicros = microClock.getAsLong() + LEASE_BACKOFF_MICROS;
+                if (!storeDown) {
+                    storeDown = true;
+                    log.warn("Could not lease rate limit tokens; enforcing node-local limits until the store is back: {}",
+                            e.getMessage());
+                }
+            } finally {
+                refreshing.set(false);
+            }
+        }
+
+        /** Returns the positive balance to the shared bucket, now or on the lease executor. */
+        void release(boolean synchronous) {
+            long tokens = balance.getAndSet(0);
+            if (tokens <= 0 || !leased) {
+                return;
+            }
+            Runnable release = () -> {
+                try {
+                    store.release(identity, policy, (int) tokens);
+                } catch (RuntimeException e) {
+                    log.debug("Could not return {} rate limit tokens of {}: {}", tokens, identity, e.getMessage());
+                }
+            };
+            if (synchronous) {
+                release.run();
+                return;
+            }
+            try {
+                executor.execute(release);
+            } catch (RejectedExecutionException e) {
+                log.debug("Dropped return of {} rate limit tokens of {}", tokens, identity);
+            }
+        }
+    }
+
+    private static long micros(Duration duration) {
+        return duration.toNanos() / 1_000;
+    }
+}
@@ -0,0 +1,90 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.RateLimitPolicy;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded table of node-local per-identity token buckets. Buckets that are full again and idle for
+ * idleTimeout are dropped by {@link #sweep}, which loses nothing since a new bucket starts full.
+ * When maxIdentities buckets are live, a new identity first triggers a sweep and, if the table is
+ * still full, is charged against one shared overflow bucket with the default limit, so memory stays
+ * bounded however many identities appear. Sweeps triggered by a full table run at most once a
+ * second.
+ *
+ * <p>A request racing the sweep may be charged to a bucket that is being dropped; since only full
+ * buckets are dropped, that grants at most one extra request.
+ */
+final class LocalRateLimiter implements RateLimiter {
+
+    private static final long FULL_SWEEP_MICROS = TimeUnit.SECONDS.toMicros(1);
+
+    private final int maxIdentities;
+    private final long idleMicros;
+    private final LongSupplier microClock;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong lastFullSweep = new AtomicLong();
+
+    LocalRateLimiter(RateLimitingProperties settings) {
+        this(settings, () -> TimeUnit.NANOSECONDS.toMicros(System.nanoTime()));
+    }
+
+    /** @param microClock Monotonic time in microseconds. */
+    LocalRateLimiter(RateLimitingProperties settings, LongSupplier microClock) {
+        Objects.requireNonNull(settings, "settings");
+        this.microClock = Objects.requireNonNull(microClock, "microClock");
+        this.maxIdentities = settings.getMaxIdentities();
+        this.idleMicros = settings.getIdleTimeout().toNanos() / 1_000;
+        long now = microClock.getAsLong();
+        this.overflow = new TokenBucket(settings.toPolicy(), now);
+        this.lastFullSweep.set(now - FULL_SWEEP_MICROS);
+    }
+
+    @Override
+    public Decision tryConsume(String identity, RateLimitPolicy policy, int cost) {
+        long now = microClock.getAsLong();
+        TokenBucket bucket = buckets.get(identity);
+        if (bucket != null && !bucket.policy().equals(policy)) {
+            // The identity moved to another tier; start over under the new limit.
+            TokenBucket replaced = bucket;
+            bucket = buckets.compute(identity, (k, current) ->
+                    current == null || current == replaced ? new TokenBucket(policy, now) : current);
+        }
+        if (bucket == null) {
+            if (buckets.size() >= maxIdentities) {
+                long last = lastFullSweep.get();
+                if (now - last >= FULL_SWEEP_MICROS && lastFullSweep.compareAndSet(last, now)) {
+                    sweep();
+                }
+            }
+            if (buckets.size() >= maxIdentities) {
+                return new Decision(overflow.tryConsume(cost, now), true);
+            }
+            bucket = buckets.computeIfAbsent(identity, k -> new TokenBucket(policy, now));
+        }
+        return new Decision(bucket.tryConsume(cost, now), false);
+    }
+
+    /**
+     * Drops idle, full buckets.
+     */
+    @Override
+    public int sweep() {
+        long now = microClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isIdle(now, idleMicros));
+        return Math.max(0, before - buckets.size());
+    }
+
+    @Override
+    public int size() {
+        return buckets.size();
+    }
+
+}
@@ -10,6 +10,7 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -23,8 +24,8 @@ public class QdrantPayloadIndexInitializer implements ApplicationRunner {
 
     private static final Logger log = LoggerFactory.getLogger(QdrantPayloadIndexInitializer.class);
 
-    /** Must match payload key used in QdrantVectorStoreRepository */
-    private static final String VEHICLE_MODEL_FIELD = "vehicle_model";
+    /** Must match payload keys used in QdrantVectorStoreRepository search filters */
+    private static final List<String> KEYWORD_FIELDS = List.of("vehicle_model", "section_scope");
     private static final Duration INDEX_OPERATION_TIMEOUT = Duration.ofSeconds(10);
 
     private final QdrantClient qdrantClient;
@@ -38,25 +39,28 @@ public class QdrantPayloadIndexInitializer implements ApplicationRunner {
 
     @Override
     public void run(ApplicationArguments args) {
-        try {
-            ensureVehicleModelIndex();
-        } catch (Exception e) {
-            // Don't fail startup: collection might not exist yet (e.g. before first seed).
-            log.warn("Could not ensure payload index for {} on collection {}: {}. " +
-                            "Filtered search by vehicle_model may fail until the index exists.",
-                    VEHICLE_MODEL_FIELD, collectionName, e.getMessage());
+        for (String field : KEYWORD_FIELDS) {
+            try {
+                ensureKeywordIndex(field);
+            } catch (Exception e) {
+                // Don't fail startup: collection might not exist yet (e.g. before first seed).
+                log.warn("Could not ensure payload index for {} on collection {}: {}. " +
+                                "Filtered search by {} may fail until the index exists.",
+                        field, collectionName, e.getMessage(), field);
+            }
         }
     }
 
     /**
-     * Creates the vehicle_model keyword index if missing. Idempotent: if the index already exists,
-     * Qdrant may return an error we treat as success (already exists).
+     * Creates a keyword index on the field if missing. Idempotent: if the index already exists,
+     * Qdrant may return an error we treat as success (already exists). A keyword index on an array
+     * field (section_scope) indexes every element.
      */
-    private void ensureVehicleModelIndex() throws InterruptedException, ExecutionException, TimeoutException {
+    private void ensureKeywordIndex(String field) throws InterruptedException, ExecutionException, TimeoutException {
         try {
             var future = qdrantClient.createPayloadIndexAsync(
                     collectionName,
-                    VEHICLE_MODEL_FIELD,
+                    field,
                     PayloadSchemaType.Keyword,
                     null,  // indexParams: null for keyword is valid
                     true,  // wait for index to be created
@@ -69,14 +73,14 @@ public class QdrantPayloadIndexInitializer implements ApplicationRunner {
             }
             future.get(INDEX_OPERATION_TIMEOUT.toSeconds() + 2, TimeUnit.SECONDS);
             log.info("Payload index ensured for field '{}' on collection '{}' (keyword).",
-                    VEHICLE_MODEL_FIELD, collectionName);
+                    field, collectionName);
         } catch (ExecutionException e) {
             String msg = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
             // Index already exists or collection not found → treat as non-fatal (idempotent / not yet created).
             if (msg != null && (msg.contains("already exists") || msg.contains("AlreadyExists")
                     || msg.contains("NOT_FOUND") || msg.contains("not found"))) {
                 log.debug("Payload index for '{}' on collection '{}': {} (skipping).",
-                        VEHICLE_MODEL_FIELD, collectionName, msg);
+                        field, collectionName, msg);
                 return;
             }
             throw e;
@@ -0,0 +1,35 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.RateLimitPolicy;
+
+/**
+ * Per-identity request admission for RateLimitingFilter: node-local buckets
+ * ({@link LocalRateLimiter}) or buckets shared by the cluster ({@link LeasedRateLimiter}).
+ */
+interface RateLimiter extends AutoCloseable {
+
+    /**
+     * Outcome of one request: the bucket's result plus whether the shared overflow bucket was used.
+     */
+    record Decision(TokenBucket.Result result, boolean overflow) {
+    }
+
+    /**
+     * Take {@code cost} tokens from the identity's bucket if available. Never blocks.
+     * @param policy Limit of the identity's tier; a bucket created under another policy is replaced.
+     */
+    Decision tryConsume(String identity, RateLimitPolicy policy, int cost);
+
+    /**
+     * Drop identities idle for the idle timeout.
+     * @return Number of identities dropped.
+     */
+    int sweep();
+
+    /** Identities tracked. */
+    int size();
+
+    @Override
+    default void close() {
+    }
+}
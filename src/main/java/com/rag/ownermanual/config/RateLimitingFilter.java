@@ -1,50 +1,103 @@
 package com.rag.ownermanual.config;
 
+import com.rag.ownermanual.domain.RateLimitPolicy;
+import com.rag.ownermanual.repository.RateLimitLeaseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
 import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Per-identity rate limiting filter for protected RAG endpoints.
+ *
+ * <p>Each authenticated identity has a continuously refilling token bucket, on this node
+ * ({@link LocalRateLimiter}) or shared by the cluster ({@link LeasedRateLimiter}), sized by the
+ * rate limit tier of its API key; a request takes its route's cost, so a batch ingest weighs more
+ * than a query. Every limited
+ * response carries X-RateLimit-Limit, X-RateLimit-Remaining and X-RateLimit-Reset (seconds until the
+ * bucket is full); a 429 also carries Retry-After (seconds until the request would be admitted).
  */
 @Component
+@EnableConfigurationProperties(RateLimitingProperties.class)
 public class RateLimitingFilter extends OncePerRequestFilter {
 
     private static final Logger log = LoggerFactory.getLogger(RateLimitingFilter.class);
 
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+
     private final RequestMatcher protectedEndpointsMatcher =
             PathPatternRequestMatcher.withDefaults().matcher("/api/v1/**");
 
-    private final Map<String, RateWindow> windows = new ConcurrentHashMap<>();
-
-    private final int capacity;
-    private final int refillTokens;
-    private final long refillPeriodSeconds;
+    private final RateLimiter limiter;
+    private final Map<String, RateLimitPolicy> policies;
+    private final RateLimitPolicy defaultPolicy;
+    private final List<Route> routes;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> rejectedPerTier = new ConcurrentHashMap<>();
+    private final Counter overflowed;
+    /** Overflow requests since the last sweep; logged there once instead of per request. */
+    private final LongAdder overflowedSinceSweep = new LongAdder();
+
+    private record Route(RequestMatcher matcher, int cost) {
+    }
 
-    public RateLimitingFilter(
-            @Value("${app.security.rate-limiting.capacity}") int capacity,
-            @Value("${app.security.rate-limiting.refill-tokens}") int refillTokens,
-            @Value("${app.security.rate-limiting.refill-period-seconds}") long refillPeriodSeconds
-    ) {
-        this.capacity = capacity;
-        this.refillTokens = refillTokens;
-        this.refillPeriodSeconds = refillPeriodSeconds;
+    /**
+     * @param leaseRepository Shared buckets; only used with distributed limits enabled.
+     */
+    public RateLimitingFilter(RateLimitingProperties settings,
+                              ObjectProvider<RateLimitLeaseRepository> leaseRepository,
+                              @Qualifier("rateLimitLeaseExecutor") ObjectProvider<Executor> leaseExecutor,
+                              MeterRegistry meterRegistry) {
+        Objects.requireNonNull(settings, "settings");
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
+        this.policies = Map.copyOf(settings.toPolicies());
+        this.defaultPolicy = settings.toPolicy();
+        if (settings.getDistributed().isEnabled()) {
+            this.limiter = new LeasedRateLimiter(settings, leaseRepository.getObject(), leaseExecutor.getObject(),
+                    meterRegistry);
+            log.info("Rate limits are shared by the cluster (lease size {})", settings.getDistributed().getLeaseSize());
+        } else {
+            this.limiter = new LocalRateLimiter(settings);
+        }
+        this.routes = settings.getRouteCosts().stream()
+                .map(RateLimitingFilter::route)
+                .toList();
+        this.overflowed = Counter.builder("http.ratelimit.overflow")
+                .description("Requests charged to the shared overflow bucket because the identity table was full")
+                .register(meterRegistry);
+        Gauge.builder("http.ratelimit.identities", limiter, RateLimiter::size)
+                .description("Identities with a live rate limit bucket")
+                .register(meterRegistry);
     }
 
     @Override
@@ -63,10 +116,23 @@ public class RateLimitingFilter extends OncePerRequestFilter {
             return;
         }
 
-        String identity = String.valueOf(authentication.getPrincipal());
-        RateWindow window = windows.computeIfAbsent(identity, k -> new RateWindow(capacity, refillTokens, refillPeriodSeconds));
-        if (!window.tryConsume()) {
+        Object principal = authentication.getPrincipal();
+        String identity = String.valueOf(principal);
+        String tier = principal instanceof ApiClient client ? client.tier() : RateLimitingProperties.DEFAULT_TIER;
+        RateLimitPolicy policy = policies.getOrDefault(tier, defaultPolicy);
+        RateLimiter.Decision decision = limiter.tryConsume(identity, policy, cost(request));
+        TokenBucket.Result result = decision.result();
+        if (decision.overflow()) {
+            overflowed.increment();
+            overflowedSinceSweep.increment();
+        }
+        response.setHeader(LIMIT_HEADER, String.valueOf(policy.capacity()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(result.remaining()));
+        response.setHeader(RESET_HEADER, String.valueOf(seconds(result.resetMicros())));
+        if (!result.allowed()) {
+            rejected(tier).increment();
             log.warn("Rate limit exceeded for identity={} path={}", identity, request.getRequestURI());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds(result.retryAfterMicros()))));
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
             return;
         }
@@ -74,48 +140,56 @@ public class RateLimitingFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private static final class RateWindow {
-        private final int capacity;
-        private final int refillTokens;
-        private final long refillPeriodSeconds;
+    /**
+     * Drop buckets of identities that have been idle for the idle timeout, and report requests that
+     * found the identity table full since the previous sweep.
+     */
+    @Scheduled(fixedDelayString = "${app.security.rate-limiting.idle-timeout:10m}")
+    public void evictIdle() {
+        int dropped = limiter.sweep();
+        if (dropped > 0) {
+            log.debug("Dropped {} idle rate limit buckets", dropped);
+        }
+        long overflows = overflowedSinceSweep.sumThenReset();
+        if (overflows > 0) {
+            log.warn("Rate limit table full: {} request(s) since the last sweep were charged to the shared overflow bucket",
+                    overflows);
+        }
+    }
 
-        private final AtomicInteger tokens;
-        private volatile long windowStartEpochSeconds;
+    /**
+     * Returns leased tokens to the shared buckets on shutdown.
+     */
+    @Override
+    public void destroy() {
+        limiter.close();
+    }
 
-        private RateWindow(int capacity, int refillTokens, long refillPeriodSeconds) {
-            this.capacity = capacity;
-            this.refillTokens = refillTokens;
-            this.refillPeriodSeconds = refillPeriodSeconds;
-            this.tokens = new AtomicInteger(capacity);
-            this.windowStartEpochSeconds = currentEpochSeconds();
-        }
+    private Counter rejected(String tier) {
+        return rejectedPerTier.computeIfAbsent(tier, t -> Counter.builder("http.ratelimit.rejected")
+                .description("Requests refused with 429 by the per-identity rate limit, per API key tier")
+                .tag("tier", t)
+                .register(meterRegistry));
+    }
 
-        boolean tryConsume() {
-            long now = currentEpochSeconds();
-            long elapsed = now - windowStartEpochSeconds;
-            if (elapsed >= refillPeriodSeconds) {
-                synchronized (this) {
-                    if (now - windowStartEpochSeconds >= refillPeriodSeconds) {
-                        int newTokens = Math.min(capacity, tokens.get() + refillTokens);
-                        tokens.set(newTokens);
-                        windowStartEpochSeconds = now;
-                    }
-                }
-            }
-            while (true) {
-                int current = tokens.get();
-                if (current <= 0) {
-                    return false;
-                }
-                if (tokens.compareAndSet(current, current - 1)) {
-                    return true;
-                }
+    private int cost(HttpServletRequest request) {
+        for (Route route : routes) {
+            if (route.matcher().matches(request)) {
+                return route.cost();
             }
         }
+        return 1;
+    }
 
-        private long currentEpochSeconds() {
-            return System.currentTimeMillis() / 1000L;
-        }
+    private static Route route(RateLimitingProperties.RouteCost routeCost) {
+        PathPatternRequestMatcher.Builder builder = PathPatternRequestMatcher.withDefaults();
+        RequestMatcher matcher = StringUtils.hasText(routeCost.getMethod())
+                ? builder.matcher(HttpMethod.valueOf(routeCost.getMethod().toUpperCase()), routeCost.getPattern())
+                : builder.matcher(routeCost.getPattern());
+        return new Route(matcher, routeCost.getCost());
     }
-}
 
+    private static long seconds(long micros) {
+        return (micros + TimeUnit.SECONDS.toMicros(1) - 1) / TimeUnit.SECONDS.toMicros(1);
+    }
+}
@@ -0,0 +1,307 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.RateLimitPolicy;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-identity API rate limits (prefix app.security.rate-limiting): a token bucket per caller that
+ * refills continuously at refillTokens per refillPeriodSeconds, requests costing one token unless a
+ * route cost says otherwise.
+ */
+@Validated
+@ConfigurationProperties(prefix = "app.security.rate-limiting")
+public class RateLimitingProperties {
+
+    /** Tier of keys without one of their own, limited by the top-level settings. */
+    public static final String DEFAULT_TIER = "default";
+
+    /** Bucket size: the burst a caller may send after being idle. */
+    @Min(1)
+    @Max(TokenBucket.MAX_CAPACITY)
+    private int capacity = 60;
+
+    /** Tokens added per refill period, spread evenly over it. */
+    @Min(1)
+    private int refillTokens = 60;
+
+    @Min(1)
+    @Max(86_400)
+    private long refillPeriodSeconds = 60;
+
+    /**
+     * Identities tracked at once. When the table is full even after dropping idle buckets, new
+     * identities share one overflow bucket until entries expire.
+     */
+    @Min(1)
+    private int maxIdentities = 10_000;
+
+    /** A bucket untouched this long and full again is dropped; recreating it later is lossless. */
+    @NotNull
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Token cost per route, first match wins; unmatched routes cost 1. Costs above capacity are
+     * capped at capacity, so such requests are still admitted with a full bucket.
+     */
+    @Valid
+    @NotNull
+    private List<RouteCost> routeCosts = new ArrayList<>(List.of(
+            new RouteCost("POST", "/api/v1/ingest/batch", 10),
+            new RouteCost("POST", "/api/v1/ingest", 5)));
+
+    /**
+     * Limits of API key tiers (api_keys.tier) other than "default", which uses the settings above.
+     */
+    @NotNull
+    private Map<String, @Valid Tier> tiers = new LinkedHashMap<>();
+
+    @Valid
+    @NotNull
+    private Distributed distributed = new Distributed();
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getRefillTokens() {
+        return refillTokens;
+    }
+
+    public void setRefillTokens(int refillTokens) {
+        this.refillTokens = refillTokens;
+    }
+
+    public long getRefillPeriodSeconds() {
+        return refillPeriodSeconds;
+    }
+
+    public void setRefillPeriodSeconds(long refillPeriodSeconds) {
+        this.refillPeriodSeconds = refillPeriodSeconds;
+    }
+
+    public int getMaxIdentities() {
+        return maxIdentities;
+    }
+
+    public void setMaxIdentities(int maxIdentities) {
+        this.maxIdentities = maxIdentities;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public List<RouteCost> getRouteCosts() {
+        return routeCosts;
+    }
+
+    public void setRouteCosts(List<RouteCost> routeCosts) {
+        this.routeCosts = routeCosts;
+    }
+
+    public Distributed getDistributed() {
+        return distributed;
+    }
+
+    public void setDistributed(Distributed distributed) {
+        this.distributed = distributed;
+    }
+
+    public Map<String, Tier> getTiers() {
+        return tiers;
+    }
+
+    public void setTiers(Map<String, Tier> tiers) {
+        this.tiers = tiers;
+    }
+
+    /**
+     * The default limit as bucket parameters.
+     */
+    public RateLimitPolicy toPolicy() {
+        return new RateLimitPolicy(capacity, refillTokens, Duration.ofSeconds(refillPeriodSeconds));
+    }
+
+    /**
+     * Bucket parameters per tier, including "default".
+     */
+    public Map<String, RateLimitPolicy> toPolicies() {
+        Map<String, RateLimitPolicy> policies = new LinkedHashMap<>();
+        policies.put(DEFAULT_TIER, toPolicy());
+        tiers.forEach((name, tier) -> policies.putIfAbsent(name, tier.toPolicy()));
+        return policies;
+    }
+
+    /**
+     * Limit of one API key tier.
+     */
+    public static class Tier {
+
+        @Min(1)
+        @Max(TokenBucket.MAX_CAPACITY)
+        private int capacity = 60;
+
+        @Min(1)
+        private int refillTokens = 60;
+
+        @Min(1)
+        @Max(86_400)
+        private long refillPeriodSeconds = 60;
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public int getRefillTokens() {
+            return refillTokens;
+        }
+
+        public void setRefillTokens(int refillTokens) {
+            this.refillTokens = refillTokens;
+        }
+
+        public long getRefillPeriodSeconds() {
+            return refillPeriodSeconds;
+        }
+
+        public void setRefillPeriodSeconds(long refillPeriodSeconds) {
+            this.refillPeriodSeconds = refillPeriodSeconds;
+        }
+
+        RateLimitPolicy toPolicy() {
+            return new RateLimitPolicy(capacity, refillTokens, Duration.ofSeconds(refillPeriodSeconds));
+        }
+    }
+
+    /**
+     * Cluster-wide limits: each identity's bucket lives in the rate_limit_buckets table and nodes
+     * lease tokens from it in batches, serving requests from the lease without a database call.
+     * Larger leases mean fewer database round trips but more tokens idle on one node while another
+     * is refused; a node never spends tokens it has not leased, except the initial credit.
+     */
+    public static class Distributed {
+
+        /** false = every node enforces the full limit on its own. */
+        private boolean enabled = false;
+
+        /** Tokens requested per lease. */
+        @Min(1)
+        private int leaseSize = 10;
+
+        /** A new lease is requested in the background once the local balance drops below this. */
+        @Min(0)
+        private int refreshBelow = 5;
+
+        /**
+         * Tokens a node may spend for an identity before its first lease has arrived, so a new
+         * identity is not refused while the lease is fetched. Deducted from that lease; may exceed
+         * the cluster limit by this much per node when the shared bucket is already empty.
+         */
+        @Min(0)
+        private int initialCredit = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getLeaseSize() {
+            return leaseSize;
+        }
+
+        public void setLeaseSize(int leaseSize) {
+            this.leaseSize = leaseSize;
+        }
+
+        public int getRefreshBelow() {
+            return refreshBelow;
+        }
+
+        public void setRefreshBelow(int refreshBelow) {
+            this.refreshBelow = refreshBelow;
+        }
+
+        public int getInitialCredit() {
+            return initialCredit;
+        }
+
+        public void setInitialCredit(int initialCredit) {
+            this.initialCredit = initialCredit;
+        }
+    }
+
+    /**
+     * Tokens taken by requests matching method and path pattern (Spring path pattern syntax).
+     */
+    public static class RouteCost {
+
+        /** HTTP method; blank = any. */
+        private String method;
+
+        @NotBlank
+        private String pattern;
+
+        @Min(1)
+        private int cost = 1;
+
+        public RouteCost() {
+        }
+
+        public RouteCost(String method, String pattern, int cost) {
+            this.method = method;
+            this.pattern = pattern;
+            this.cost = cost;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public void setMethod(String method) {
+            this.method = method;
+        }
+
+        public String getPattern() {
+            return pattern;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = pattern;
+        }
+
+        public int getCost() {
+            return cost;
+        }
+
+        public void setCost(int cost) {
+            this.cost = cost;
+        }
+    }
+}
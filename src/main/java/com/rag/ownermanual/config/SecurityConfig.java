@@ -1,5 +1,6 @@
 package com.rag.ownermanual.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -25,6 +26,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> authorize
+                        // Long-polls and event streams resume on an async dispatch; the original request was authorized.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/actuator/health",
                                 "/actuator/metrics"
@@ -34,11 +37,14 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/swagger-ui/**"
                         ).permitAll()
+                        // API keys carry scopes (api_keys.scopes); a key without the area's scope gets 403.
+                        .requestMatchers("/api/v1/query").hasAuthority("SCOPE_query")
                         .requestMatchers(
-                                "/api/v1/query",
                                 "/api/v1/ingest",
-                                "/api/v1/jobs/**"
-                        ).authenticated()
+                                "/api/v1/ingest/**",
+                                "/api/v1/jobs/**",
+                                "/api/v1/batches/**"
+                        ).hasAuthority("SCOPE_ingest")
                         .anyRequest().permitAll()
                 )
                 .addFilterBefore(apiKeyAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
@@ -0,0 +1,129 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.RateLimitPolicy;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket with continuous refill. The whole state is one long, updated with a single
+ * compare-and-set per admitted request: the upper 24 bits hold the tokens in thousandths, the lower
+ * 40 bits the time (microseconds of System.nanoTime, wrapping every 12.7 days) up to which refill
+ * has been credited. Refill is computed from the elapsed time on each call rather than by a timer,
+ * and only whole thousandths are credited, with the stamp advanced by exactly the time they took,
+ * so frequent calls lose no refill to rounding. A rejected request writes nothing.
+ *
+ * <p>Buckets idle for longer than the wrap-around period would see a wrong elapsed time; the
+ * identity table drops idle buckets long before that.
+ */
+final class TokenBucket {
+
+    /** Fixed-point scale: tokens are counted in thousandths. */
+    static final long UNITS_PER_TOKEN = 1_000;
+    private static final int TIME_BITS = 40;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    /** Largest capacity whose thousandths fit in the upper 24 bits. */
+    static final int MAX_CAPACITY = (int) (((1L << (Long.SIZE - TIME_BITS)) - 1) / UNITS_PER_TOKEN);
+
+    private final RateLimitPolicy policy;
+    private final int capacity;
+    private final long capacityUnits;
+    private final long refillUnits;
+    private final long periodMicros;
+    private final long fullRefillMicros;
+    private final AtomicLong state;
+
+    /**
+     * Outcome of {@link #tryConsume}.
+     * @param allowed         Whether the tokens were taken.
+     * @param remaining       Whole tokens left after the call.
+     * @param retryAfterMicros When rejected, time until enough tokens have refilled; else 0.
+     * @param resetMicros     Time until the bucket is full again.
+     */
+    record Result(boolean allowed, long remaining, long retryAfterMicros, long resetMicros) {
+    }
+
+    /**
+     * A full bucket.
+     * @param nowMicros Current time, System.nanoTime() / 1000.
+     */
+    TokenBucket(RateLimitPolicy policy, long nowMicros) {
+        this.policy = Objects.requireNonNull(policy, "policy");
+        if (policy.capacity() > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be at most " + MAX_CAPACITY);
+        }
+        this.capacity = policy.capacity();
+        this.capacityUnits = capacity * UNITS_PER_TOKEN;
+        this.refillUnits = policy.refillTokens() * UNITS_PER_TOKEN;
+        this.periodMicros = Math.max(1, policy.refillPeriod().toNanos() / 1_000);
+        this.fullRefillMicros = ceilDiv(capacityUnits * periodMicros, refillUnits);
+        this.state = new AtomicLong(pack(capacityUnits, nowMicros));
+    }
+
+    /**
+     * Take {@code cost} tokens (capped at capacity) if available.
+     */
+    Result tryConsume(int cost, long nowMicros) {
+        long costUnits = Math.min(cost, capacity) * UNITS_PER_TOKEN;
+        while (true) {
+            long current = state.get();
+            long units = current >>> TIME_BITS;
+            long stamp = current & TIME_MASK;
+            long elapsed = (nowMicros - stamp) & TIME_MASK;
+            long available;
+            long newStamp;
+            if (elapsed >= fullRefillMicros) {
+                available = capacityUnits;
+                newStamp = nowMicros;
+            } else {
+                // elapsed < fullRefillMicros keeps these products below capacityUnits * periodMicros.
+                long added = elapsed * refillUnits / periodMicros;
+                available = units + added;
+                if (available >= capacityUnits) {
+                    available = capacityUnits;
+                    newStamp = nowMicros;
+                } else {
+                    newStamp = stamp + added * periodMicros / refillUnits;
+                }
+            }
+            if (available < costUnits) {
+                return new Result(false, available / UNITS_PER_TOKEN,
+                        ceilDiv((costUnits - available) * periodMicros, refillUnits), untilFull(available));
+            }
+            long left = available - costUnits;
+            if (state.compareAndSet(current, pack(left, newStamp))) {
+                return new Result(true, left / UNITS_PER_TOKEN, 0, untilFull(left));
+            }
+        }
+    }
+
+    /**
+     * Whether the bucket has not been credited for {@code idleMicros} and is full by now, i.e.
+     * indistinguishable from a new one.
+     */
+    boolean isIdle(long nowMicros, long idleMicros) {
+        long current = state.get();
+        long elapsed = (nowMicros - (current & TIME_MASK)) & TIME_MASK;
+        if (elapsed < idleMicros) {
+            return false;
+        }
+        return elapsed >= fullRefillMicros
+                || (current >>> TIME_BITS) + elapsed * refillUnits / periodMicros >= capacityUnits;
+    }
+
+    RateLimitPolicy policy() {
+        return policy;
+    }
+
+    private long untilFull(long units) {
+        return ceilDiv((capacityUnits - units) * periodMicros, refillUnits);
+    }
+
+    private static long pack(long units, long stampMicros) {
+        return (units << TIME_BITS) | (stampMicros & TIME_MASK);
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+}
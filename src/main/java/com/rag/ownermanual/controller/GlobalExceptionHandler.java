@@ -3,6 +3,7 @@ package com.rag.ownermanual.controller;
 import com.rag.ownermanual.dto.common.ApiErrorResponse;
 import com.rag.ownermanual.exception.DownstreamLlmException;
 import com.rag.ownermanual.exception.DownstreamVectorStoreException;
+import com.rag.ownermanual.exception.InvalidJobStateException;
 import com.rag.ownermanual.exception.ResourceNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,4 +94,19 @@ public class GlobalExceptionHandler {
         );
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
+
+    /**
+     * Handles operations that conflict with a job's current status.
+     */
+    @ExceptionHandler(InvalidJobStateException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidJobState(InvalidJobStateException ex) {
+        log.warn("Invalid job state: {}", ex.getMessage());
+
+        ApiErrorResponse body = ApiErrorResponse.of(
+                HttpStatus.CONFLICT.value(),
+                ex.getMessage(),
+                null
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
 }
@@ -1,43 +1,96 @@
 package com.rag.ownermanual.controller;
 
+import com.rag.ownermanual.config.IngestionProperties;
 import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.IngestionJobCursor;
+import com.rag.ownermanual.domain.IngestionJobFilter;
+import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionJobSummary;
+import com.rag.ownermanual.dto.ingest.BatchStatusResponse;
+import com.rag.ownermanual.dto.ingest.BulkIngestRequest;
+import com.rag.ownermanual.dto.ingest.BulkIngestResponse;
+import com.rag.ownermanual.dto.ingest.ChunkChangesResponse;
 import com.rag.ownermanual.dto.ingest.IngestRequest;
 import com.rag.ownermanual.dto.ingest.IngestResponse;
+import com.rag.ownermanual.dto.ingest.JobListResponse;
+import com.rag.ownermanual.dto.ingest.JobProgressResponse;
 import com.rag.ownermanual.dto.ingest.JobStatusResponse;
+import com.rag.ownermanual.dto.ingest.JobSummaryResponse;
+import com.rag.ownermanual.events.JobEventBus;
 import com.rag.ownermanual.exception.ResourceNotFoundException;
+import com.rag.ownermanual.repository.IngestionBatchRepository;
 import com.rag.ownermanual.repository.IngestionJobRepository;
 import com.rag.ownermanual.service.IngestionService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 /**
- * HTTP adapter for the ingestion pipeline: POST /api/v1/ingest and GET /api/v1/jobs/{id}.
+ * HTTP adapter for the ingestion pipeline: POST /api/v1/ingest, POST /api/v1/ingest/batch,
+ * GET /api/v1/jobs, GET /api/v1/jobs/{id}, GET /api/v1/jobs/{id}/events, POST /api/v1/jobs/{id}/resume and
+ * GET /api/v1/batches/{id}.
+ *
+ * <p>Job status carries an ETag derived from its content, so an unchanged poll is a 304. Clients
+ * that want the next change rather than the current state either long-poll with waitForChange or
+ * open the event stream; both wait on the JobEventBus and read the job only when it changed.
  */
 @RestController
 @RequestMapping("/api/v1")
 @Tag(name = "Ingest", description = "Ingest manuals via document URL and poll job status.")
 public class IngestController {
 
+    private static final Logger log = LoggerFactory.getLogger(IngestController.class);
+
     private final IngestionService ingestionService;
     private final IngestionJobRepository ingestionJobRepository;
+    private final IngestionBatchRepository ingestionBatchRepository;
+    private final JobEventBus jobEventBus;
+    private final IngestionProperties.Events eventProperties;
 
-    public IngestController(IngestionService ingestionService, IngestionJobRepository ingestionJobRepository) {
+    public IngestController(IngestionService ingestionService,
+                            IngestionJobRepository ingestionJobRepository,
+                            IngestionBatchRepository ingestionBatchRepository,
+                            JobEventBus jobEventBus,
+                            IngestionProperties ingestionProperties) {
         this.ingestionService = ingestionService;
         this.ingestionJobRepository = ingestionJobRepository;
+        this.ingestionBatchRepository = ingestionBatchRepository;
+        this.jobEventBus = Objects.requireNonNull(jobEventBus, "jobEventBus");
+        this.eventProperties = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getEvents();
     }
 
     /**
@@ -62,42 +115,370 @@ public class IngestController {
             )
     })
     public IngestResponse ingest(@Valid @RequestBody IngestRequest request) {
-        IngestResponse response = ingestionService.startIngestion(request);
-        ingestionService.processJobAsync(response.jobId(), request.documentUrl());
-        return response;
+        return ingestionService.startIngestion(request);
     }
 
     /**
-     * Get the current status of an ingestion job by id.
+     * Submit many manuals for one tenant; returns the batch id and one job id per manual.
+     */
+    @PostMapping(
+            value = "/ingest/batch",
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(summary = "Ingest a batch of documents", description = "Submit a tenant and up to 1000 manuals; returns batch_id and one job_id per manual. Poll GET /batches/{id} for aggregate status.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Batch and child jobs created.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BulkIngestResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Validation error (e.g. blank tenant, empty or oversized batch, duplicate manualId).",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    public BulkIngestResponse ingestBatch(@Valid @RequestBody BulkIngestRequest request) {
+        return ingestionService.startBatch(request);
+    }
+
+    /**
+     * List jobs newest first, filtered by manual, status and creation time, one keyset page at a time.
+     */
+    @GetMapping(
+            value = "/jobs",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(summary = "List jobs", description = "Returns jobs newest first, optionally filtered by manualId, status and creation time. "
+            + "Pass nextCursor back as cursor for the next page; pages stay consistent while new jobs are created.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "One page of jobs and the cursor of the next page.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = JobListResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid filter, cursor or limit.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    public JobListResponse listJobs(
+            @Parameter(description = "Only jobs of this manual.")
+            @RequestParam(value = "manualId", required = false) String manualId,
+            @Parameter(description = "Only jobs in this status.")
+            @RequestParam(value = "status", required = false) IngestionJobStatus status,
+            @Parameter(description = "Only jobs created at or after this time (ISO-8601).")
+            @RequestParam(value = "createdFrom", required = false) Instant createdFrom,
+            @Parameter(description = "Only jobs created before this time (ISO-8601).")
+            @RequestParam(value = "createdBefore", required = false) Instant createdBefore,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page.")
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @Parameter(description = "Jobs per page, 1 to 500.")
+            @RequestParam(value = "limit", defaultValue = "50") @Min(1) @Max(500) int limit) {
+        IngestionJobFilter filter;
+        IngestionJobCursor after;
+        try {
+            filter = new IngestionJobFilter(manualId, status, createdFrom, createdBefore);
+            after = cursor == null || cursor.isBlank() ? null : IngestionJobCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        // One extra row tells whether a next page exists without a count query.
+        List<IngestionJobSummary> page = ingestionJobRepository.findPage(filter, after, limit + 1);
+        boolean more = page.size() > limit;
+        List<IngestionJobSummary> jobs = more ? page.subList(0, limit) : page;
+        return new JobListResponse(
+                jobs.stream().map(JobSummaryResponse::from).toList(),
+                more ? jobs.get(jobs.size() - 1).cursor().encode() : null
+        );
+    }
+
+    /**
+     * Get the current status of an ingestion job by id; 304 when it still matches If-None-Match.
      */
     @GetMapping(
             value = "/jobs/{id}",
             produces = MediaType.APPLICATION_JSON_VALUE
     )
-    @Operation(summary = "Get job status", description = "Returns current status of an ingestion job (CREATED, PROCESSING, COMPLETED, FAILED).")
+    @Operation(summary = "Get job status", description = "Returns current status of an ingestion job (CREATED, PROCESSING, COMPLETED, FAILED). "
+            + "Send the ETag back in If-None-Match to get 304 while nothing changed; add waitForChange to wait for the next change.")
     @ApiResponses({
             @ApiResponse(
                     responseCode = "200",
-                    description = "Job status and optional error_message, created_at, updated_at.",
+                    description = "Job status and optional error_message, created_at, updated_at, chunk_changes.",
+                    headers = @Header(name = HttpHeaders.ETAG, description = "Version of this status; send in If-None-Match."),
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = JobStatusResponse.class))
             ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Status unchanged since the ETag in If-None-Match (after waitForChange, if given)."
+            ),
             @ApiResponse(
                     responseCode = "404",
                     description = "Job not found.",
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
             )
     })
-    public JobStatusResponse getJobStatus(@PathVariable("id") UUID jobId) {
-        IngestionJob job = ingestionJobRepository.findById(jobId)
+    public ResponseEntity<JobStatusResponse> getJobStatus(
+            @PathVariable("id") UUID jobId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Plain polls tolerate replication lag; waits and streams below read the primary, which the
+        // change events they wait for are about.
+        IngestionJob job = ingestionJobRepository.findByIdOnReplica(jobId)
                 .orElseThrow(() -> new ResourceNotFoundException("Job not found: " + jobId));
+        return conditional(toResponse(job), ifNoneMatch);
+    }
+
+    /**
+     * Long-poll variant of {@link #getJobStatus}: when the status still matches If-None-Match, the
+     * response is held until the job changes or waitForChange (capped at app.ingestion.events.max-wait)
+     * passes. The request thread is released while waiting.
+     */
+    @GetMapping(
+            value = "/jobs/{id}",
+            params = "waitForChange",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public DeferredResult<ResponseEntity<JobStatusResponse>> waitForJobStatus(
+            @PathVariable("id") UUID jobId,
+            @Parameter(description = "Longest time to hold the request for a change, e.g. 30s; needs If-None-Match.")
+            @RequestParam("waitForChange") String waitForChange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Duration wait;
+        try {
+            wait = DurationStyle.detectAndParse(waitForChange);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "waitForChange must be a duration such as 30s");
+        }
+        if (wait.isNegative()) {
+            wait = Duration.ZERO;
+        }
+        if (wait.compareTo(eventProperties.getMaxWait()) > 0) {
+            wait = eventProperties.getMaxWait();
+        }
+        DeferredResult<ResponseEntity<JobStatusResponse>> result = new DeferredResult<>(wait.toMillis());
+        // Subscribe before the first read so a change in between is not missed.
+        JobEventBus.Subscription subscription = jobEventBus.subscribe(jobId, () -> {
+            if (result.isSetOrExpired()) {
+                return;
+            }
+            JobStatusResponse current = toResponse(findJob(jobId));
+            if (!matches(ifNoneMatch, etag(current))) {
+                result.setResult(conditional(current, null));
+            }
+        });
+        result.onCompletion(subscription::close);
+        try {
+            JobStatusResponse current = toResponse(findJob(jobId));
+            String etag = etag(current);
+            if (!matches(ifNoneMatch, etag) || wait.isZero()) {
+                result.setResult(conditional(current, ifNoneMatch));
+            } else {
+                result.onTimeout(() -> result.setResult(notModified(etag)));
+            }
+        } catch (RuntimeException e) {
+            subscription.close();
+            throw e;
+        }
+        return result;
+    }
 
+    /**
+     * Stream status changes of an ingestion job as server-sent events until it is COMPLETED or FAILED.
+     */
+    @GetMapping(
+            value = "/jobs/{id}/events",
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE
+    )
+    @Operation(summary = "Stream job status", description = "Server-sent events named 'status', one per change of the job, starting with the current status. "
+            + "The event id is the status ETag; reconnect with Last-Event-ID to skip an unchanged status. The stream ends after COMPLETED or FAILED.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Event stream; each event's data is a job status.",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE, schema = @Schema(implementation = JobStatusResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Job not found.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    public SseEmitter streamJobStatus(
+            @PathVariable("id") UUID jobId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(eventProperties.getStreamTimeout().toMillis());
+        JobStatusStream stream = new JobStatusStream(jobId, emitter, lastEventId);
+        JobEventBus.Subscription subscription = jobEventBus.subscribe(jobId, stream::refresh);
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscription.close());
+        try {
+            stream.send(toResponse(findJob(jobId)));
+        } catch (RuntimeException e) {
+            subscription.close();
+            throw e;
+        }
+        return emitter;
+    }
+
+    /**
+     * Resume a FAILED ingestion job from its last checkpoint.
+     */
+    @PostMapping(
+            value = "/jobs/{id}/resume",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(summary = "Resume a failed job", description = "Requeues a FAILED job with a fresh attempt budget; the next attempt skips pages committed before the failure.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Job requeued; status is CREATED. Poll GET /jobs/{id} for progress.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = JobStatusResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Job not found.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            ),
+            @ApiResponse(
+                    responseCode = "409",
+                    description = "Job is not FAILED.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    public JobStatusResponse resumeJob(@PathVariable("id") UUID jobId) {
+        ingestionService.resumeJob(jobId);
+        return toResponse(findJob(jobId));
+    }
+
+    /**
+     * Get the status of a batch, aggregated over its child jobs.
+     */
+    @GetMapping(
+            value = "/batches/{id}",
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    @Operation(summary = "Get batch status", description = "Returns child job counts per status and summed chunk changes for a batch.")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Aggregate batch status.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = BatchStatusResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Batch not found.",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE)
+            )
+    })
+    public BatchStatusResponse getBatchStatus(@PathVariable("id") UUID batchId) {
+        return ingestionBatchRepository.findProgress(batchId)
+                .map(BatchStatusResponse::from)
+                .orElseThrow(() -> new ResourceNotFoundException("Batch not found: " + batchId));
+    }
+
+    private IngestionJob findJob(UUID jobId) {
+        return ingestionJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found: " + jobId));
+    }
+
+    /**
+     * Writes the job's status to one event stream whenever it differs from the last one sent.
+     * Refreshes come from event executor threads, so sends are serialized.
+     */
+    private final class JobStatusStream {
+
+        private final UUID jobId;
+        private final SseEmitter emitter;
+        private String lastEtag;
+        private boolean closed;
+
+        JobStatusStream(UUID jobId, SseEmitter emitter, String lastEventId) {
+            this.jobId = jobId;
+            this.emitter = emitter;
+            this.lastEtag = lastEventId;
+        }
+
+        void refresh() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+            }
+            send(toResponse(findJob(jobId)));
+        }
+
+        synchronized void send(JobStatusResponse status) {
+            if (closed) {
+                return;
+            }
+            String etag = etag(status);
+            try {
+                if (!etag.equals(lastEtag)) {
+                    emitter.send(SseEmitter.event().name("status").id(etag).data(status, MediaType.APPLICATION_JSON));
+                    lastEtag = etag;
+                }
+                if (status.status() == IngestionJobStatus.COMPLETED || status.status() == IngestionJobStatus.FAILED) {
+                    closed = true;
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the stream already ended; completion closes the subscription.
+                log.debug("Job event stream for {} closed: {}", jobId, e.getMessage());
+                closed = true;
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private static ResponseEntity<JobStatusResponse> conditional(JobStatusResponse status, String ifNoneMatch) {
+        String etag = etag(status);
+        if (matches(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok().eTag(etag).body(status);
+    }
+
+    private static ResponseEntity<JobStatusResponse> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    /**
+     * Strong ETag over everything the response shows, identical on every node for the same row.
+     */
+    static String etag(JobStatusResponse status) {
+        return "\"" + UUID.nameUUIDFromBytes(status.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    /** If-None-Match uses weak comparison: W/ prefixes are ignored and * matches any ETag. */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.strip();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static JobStatusResponse toResponse(IngestionJob job) {
         return new JobStatusResponse(
                 job.id(),
                 job.status(),
                 job.errorMessage(),
                 job.createdAt(),
-                job.updatedAt()
+                job.updatedAt(),
+                ChunkChangesResponse.from(job.chunkChanges()),
+                JobProgressResponse.from(job.progress())
         );
     }
 }
-
@@ -45,6 +45,6 @@ public class QueryController {
                     content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE))
     })
     public QueryResponse query(@Valid @RequestBody QueryRequest request) {
-        return queryService.query(request.text(), request.vehicleModel());
+        return queryService.query(request.text(), request.vehicleModel(), request.section());
     }
 }
@@ -0,0 +1,34 @@
+package com.rag.ownermanual.domain;
+
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * An active client API key, as stored: the key itself is never kept, only its prefix and hash.
+ *
+ * @param id Row id.
+ * @param name Client name; the authenticated principal is {@code apiKey:<name>}.
+ * @param prefix First characters of the key ({@link #PREFIX_LENGTH}, or the whole key if shorter).
+ * @param keyHash Hex SHA-256 of the whole key.
+ * @param tier Rate limit tier.
+ * @param scopes API areas the key may call, e.g. query and ingest.
+ */
+public record ApiKey(UUID id, String name, String prefix, String keyHash, String tier, Set<String> scopes) {
+
+    public static final int PREFIX_LENGTH = 8;
+
+    public ApiKey {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(name, "name");
+        Objects.requireNonNull(prefix, "prefix");
+        Objects.requireNonNull(keyHash, "keyHash");
+        Objects.requireNonNull(tier, "tier");
+        scopes = Set.copyOf(Objects.requireNonNull(scopes, "scopes"));
+    }
+
+    /** The prefix a presented key is looked up by. */
+    public static String prefixOf(String key) {
+        return key.length() <= PREFIX_LENGTH ? key : key.substring(0, PREFIX_LENGTH);
+    }
+}
@@ -1,31 +1,39 @@
 package com.rag.ownermanual.domain;
 
+import java.util.List;
+import java.util.Objects;
+
 /**
  * Unit of searchable content: a segment of text (and optional structure) that is
  * embedded and stored in the vector store.
 
  *
  * @param id           Unique chunk identifier (chunk_id in Qdrant); used in citations and upsert.
- * @param text         Raw text used for embedding and for snippet in citations.
+ * @param content      Raw text used for embedding and for snippet in citations. Chunks produced by the
+ *                     Chunker hold a {@link TextSlice} of the page text rather than a copy; see {@link #text()}.
  * @param manualId     Identifier of the source manual.
  * @param vehicleModel Vehicle/model; primary filter for vector search.
  * @param section      Optional heading/section title; used in citations.
  * @param page         Optional page number in the source PDF; used in citations.
+ * @param occurrencePages Other pages of the manual where near-duplicate text (a repeated warning or table)
+ *                     was suppressed in favour of this chunk; empty when the text is unique. Citations
+ *                     list these pages alongside page.
  */
 public record Chunk(
         String id,
-        String text,
+        CharSequence content,
         String manualId,
         String vehicleModel,
         String section,
-        Integer page
+        Integer page,
+        List<Integer> occurrencePages
 ) {
     public Chunk {
         if (id == null || id.isBlank()) {
             throw new IllegalArgumentException("id (chunk_id) must be non-blank");
         }
-        if (text == null) {
-            throw new IllegalArgumentException("text must be non-null");
+        if (content == null) {
+            throw new IllegalArgumentException("content must be non-null");
         }
         if (manualId == null || manualId.isBlank()) {
             throw new IllegalArgumentException("manualId must be non-blank");
@@ -33,5 +41,42 @@ public record Chunk(
         if (vehicleModel == null || vehicleModel.isBlank()) {
             throw new IllegalArgumentException("vehicleModel must be non-blank");
         }
+        occurrencePages = occurrencePages == null ? List.of() : List.copyOf(occurrencePages);
+    }
+
+    /**
+     * A chunk without suppressed duplicates.
+     */
+    public Chunk(String id, CharSequence content, String manualId, String vehicleModel, String section, Integer page) {
+        this(id, content, manualId, vehicleModel, section, page, List.of());
+    }
+
+    /**
+     * The text as a String. Copies the characters when the content is a view, so call it once
+     * where the text leaves the process (embedding request, vector store payload).
+     */
+    public String text() {
+        return content.toString();
+    }
+
+    /**
+     * Chunks are equal when all fields are, comparing content by characters so a view and a string
+     * with the same text are equal.
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Chunk chunk
+                && id.equals(chunk.id)
+                && TextSlice.contentEquals(content, chunk.content)
+                && manualId.equals(chunk.manualId)
+                && vehicleModel.equals(chunk.vehicleModel)
+                && Objects.equals(section, chunk.section)
+                && Objects.equals(page, chunk.page)
+                && occurrencePages.equals(chunk.occurrencePages);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, TextSlice.contentHash(content), manualId, vehicleModel, section, page, occurrencePages);
     }
 }
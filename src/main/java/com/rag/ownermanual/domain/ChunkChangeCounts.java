@@ -0,0 +1,22 @@
+package com.rag.ownermanual.domain;
+
+/**
+ * Outcome of an incremental ingestion, compared with the manual's previous manifest.
+ * @param added     Chunks whose id was not in the manifest.
+ * @param updated   Chunks already in the manifest, re-upserted because their page changed.
+ * @param unchanged Chunks skipped because their page hash matched the manifest.
+ * @param deleted   Chunks in the manifest that the new parse no longer produces; removed from the store.
+ */
+public record ChunkChangeCounts(
+        int added,
+        int updated,
+        int unchanged,
+        int deleted
+) {
+
+    public ChunkChangeCounts {
+        if (added < 0 || updated < 0 || unchanged < 0 || deleted < 0) {
+            throw new IllegalArgumentException("counts must be non-negative");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.rag.ownermanual.domain;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Bulk ingest request: one parent row in ingestion_batches and one queued ingestion job per child.
+ * Every child is scheduled for the batch's tenant.
+ * @param id        Batch primary key; returned as batch_id from the API.
+ * @param tenant    Tenant (e.g. OEM) the batch was submitted for.
+ * @param createdAt When the batch and its jobs were created.
+ * @param children  Jobs created with the batch, in request order.
+ */
+public record IngestionBatch(
+        UUID id,
+        String tenant,
+        Instant createdAt,
+        List<Child> children
+) {
+
+    public IngestionBatch {
+        Objects.requireNonNull(id, "id");
+        if (tenant == null || tenant.isBlank()) {
+            throw new IllegalArgumentException("tenant must be non-blank");
+        }
+        Objects.requireNonNull(createdAt, "createdAt");
+        children = List.copyOf(children);
+        if (children.isEmpty()) {
+            throw new IllegalArgumentException("children must be non-empty");
+        }
+    }
+
+    /**
+     * One child job of a batch.
+     * @param jobId       Id of the queued ingestion job.
+     * @param manualId    Manual to ingest into.
+     * @param documentUrl URL of the document to fetch and parse.
+     */
+    public record Child(UUID jobId, String manualId, String documentUrl) {
+
+        public Child {
+            Objects.requireNonNull(jobId, "jobId");
+            Objects.requireNonNull(manualId, "manualId");
+            Objects.requireNonNull(documentUrl, "documentUrl");
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.rag.ownermanual.domain;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Aggregate state of a batch's child jobs, computed in one grouped query.
+ * @param batchId      Batch id.
+ * @param tenant       Tenant the batch was submitted for.
+ * @param jobCount     Number of child jobs.
+ * @param jobsByStatus Child jobs per status; statuses without jobs are absent.
+ * @param chunkChanges Chunk counts summed over the COMPLETED children.
+ * @param createdAt    When the batch was created.
+ * @param updatedAt    Latest update of any child job.
+ */
+public record IngestionBatchProgress(
+        UUID batchId,
+        String tenant,
+        int jobCount,
+        Map<IngestionJobStatus, Integer> jobsByStatus,
+        ChunkChangeCounts chunkChanges,
+        Instant createdAt,
+        Instant updatedAt
+) {
+
+    public IngestionBatchProgress {
+        Objects.requireNonNull(batchId, "batchId");
+        Objects.requireNonNull(tenant, "tenant");
+        Objects.requireNonNull(chunkChanges, "chunkChanges");
+        Objects.requireNonNull(createdAt, "createdAt");
+        Objects.requireNonNull(updatedAt, "updatedAt");
+        jobsByStatus = Map.copyOf(jobsByStatus);
+    }
+
+    public int count(IngestionJobStatus status) {
+        return jobsByStatus.getOrDefault(status, 0);
+    }
+
+    /**
+     * CREATED until a child is picked up, PROCESSING while any child is unfinished, then FAILED if
+     * every child failed and COMPLETED otherwise; partial failures show in the FAILED count.
+     */
+    public IngestionJobStatus status() {
+        int created = count(IngestionJobStatus.CREATED);
+        if (created == jobCount) {
+            return IngestionJobStatus.CREATED;
+        }
+        if (created + count(IngestionJobStatus.PROCESSING) > 0) {
+            return IngestionJobStatus.PROCESSING;
+        }
+        return count(IngestionJobStatus.FAILED) == jobCount ? IngestionJobStatus.FAILED : IngestionJobStatus.COMPLETED;
+    }
+}
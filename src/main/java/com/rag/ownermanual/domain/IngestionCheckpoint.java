@@ -0,0 +1,34 @@
+package com.rag.ownermanual.domain;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Progress committed by earlier attempts of an ingestion job. A page listed here had all of its
+ * chunks upserted with the given page hash, so a resumed attempt that produces the same hash for
+ * that page does not upsert it again.
+ * @param jobId            Job the checkpoint belongs to.
+ * @param documentSha256   Hex SHA-256 of the document being ingested; null if not yet known.
+ * @param lastPageKey      Highest committed page key.
+ * @param batchesCommitted Upsert batches committed so far.
+ * @param chunksCommitted  Chunks upserted so far.
+ * @param pageHashes       Committed page key → page hash.
+ */
+public record IngestionCheckpoint(
+        UUID jobId,
+        String documentSha256,
+        int lastPageKey,
+        int batchesCommitted,
+        int chunksCommitted,
+        Map<Integer, String> pageHashes
+) {
+
+    public IngestionCheckpoint {
+        Objects.requireNonNull(jobId, "jobId");
+        pageHashes = Map.copyOf(Objects.requireNonNull(pageHashes, "pageHashes"));
+        if (batchesCommitted < 0 || chunksCommitted < 0) {
+            throw new IllegalArgumentException("counts must be non-negative");
+        }
+    }
+}
@@ -15,6 +15,8 @@ import java.util.UUID;
  * @param errorMessage Set when status is FAILED; null otherwise.
  * @param createdAt    When the job was created.
  * @param updatedAt    When the job was last updated.
+ * @param chunkChanges Added/updated/unchanged/deleted chunk counts; set when status is COMPLETED, null otherwise.
+ * @param progress     Stage and counters of the latest attempt; null before a worker first reported progress.
  */
 public record IngestionJob(
         UUID id,
@@ -22,9 +24,11 @@ public record IngestionJob(
         IngestionJobStatus status,
         String errorMessage,
         Instant createdAt,
-        Instant updatedAt
+        Instant updatedAt,
+        ChunkChangeCounts chunkChanges,
+        IngestionProgress progress
 ) {
-    
+
     public IngestionJob {
         if (id == null) {
             throw new IllegalArgumentException("id must be non-null");
@@ -42,4 +46,20 @@ public record IngestionJob(
             throw new IllegalArgumentException("updatedAt must be non-null");
         }
     }
+
+    /**
+     * Job without progress.
+     */
+    public IngestionJob(UUID id, String manualId, IngestionJobStatus status, String errorMessage,
+                        Instant createdAt, Instant updatedAt, ChunkChangeCounts chunkChanges) {
+        this(id, manualId, status, errorMessage, createdAt, updatedAt, chunkChanges, null);
+    }
+
+    /**
+     * Job without chunk change counts or progress (any status before COMPLETED).
+     */
+    public IngestionJob(UUID id, String manualId, IngestionJobStatus status, String errorMessage,
+                        Instant createdAt, Instant updatedAt) {
+        this(id, manualId, status, errorMessage, createdAt, updatedAt, null, null);
+    }
 }
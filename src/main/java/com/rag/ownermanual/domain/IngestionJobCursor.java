@@ -0,0 +1,49 @@
+package com.rag.ownermanual.domain;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Keyset position in the job list, which is ordered newest first by (created_at, id). The next page
+ * holds the jobs strictly after it, so pages stay stable while new jobs arrive and cost the same
+ * at any depth. Clients see it only as an opaque string.
+ * @param createdAt Creation time of the last job on the previous page.
+ * @param id        Id of that job; breaks ties between jobs created at the same instant.
+ */
+public record IngestionJobCursor(Instant createdAt, UUID id) {
+
+    public IngestionJobCursor {
+        Objects.requireNonNull(createdAt, "createdAt");
+        Objects.requireNonNull(id, "id");
+    }
+
+    /**
+     * URL-safe opaque form returned to clients.
+     */
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parses a cursor returned by {@link #encode()}.
+     * @throws IllegalArgumentException if the value is not such a cursor
+     */
+    public static IngestionJobCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed job cursor");
+            }
+            return new IngestionJobCursor(Instant.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed job cursor", e);
+        }
+    }
+}
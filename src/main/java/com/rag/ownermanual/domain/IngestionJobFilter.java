@@ -0,0 +1,34 @@
+package com.rag.ownermanual.domain;
+
+import java.time.Instant;
+
+/**
+ * Criteria for listing ingestion jobs; null fields do not filter.
+ * @param manualId      Only jobs of this manual.
+ * @param status        Only jobs in this status.
+ * @param createdFrom   Only jobs created at or after this time.
+ * @param createdBefore Only jobs created before this time.
+ */
+public record IngestionJobFilter(
+        String manualId,
+        IngestionJobStatus status,
+        Instant createdFrom,
+        Instant createdBefore
+) {
+
+    public IngestionJobFilter {
+        if (manualId != null && manualId.isBlank()) {
+            manualId = null;
+        }
+        if (createdFrom != null && createdBefore != null && !createdFrom.isBefore(createdBefore)) {
+            throw new IllegalArgumentException("createdFrom must be before createdBefore");
+        }
+    }
+
+    /**
+     * No filtering: every job.
+     */
+    public static IngestionJobFilter all() {
+        return new IngestionJobFilter(null, null, null, null);
+    }
+}
@@ -0,0 +1,21 @@
+package com.rag.ownermanual.domain;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Outcome of one maintenance run over the monthly ingestion_jobs partitions.
+ *
+ * @param created Months whose partition was created.
+ * @param dropped Months past retention whose partition was detached and dropped.
+ * @param retained Months past retention kept because they still hold CREATED or PROCESSING jobs.
+ */
+public record IngestionJobPartitionChanges(List<YearMonth> created, List<YearMonth> dropped, List<YearMonth> retained) {
+
+    public IngestionJobPartitionChanges {
+        created = List.copyOf(Objects.requireNonNull(created, "created"));
+        dropped = List.copyOf(Objects.requireNonNull(dropped, "dropped"));
+        retained = List.copyOf(Objects.requireNonNull(retained, "retained"));
+    }
+}
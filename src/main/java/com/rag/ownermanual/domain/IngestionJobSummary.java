@@ -0,0 +1,45 @@
+package com.rag.ownermanual.domain;
+
+import java.time.Instant;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * List-view projection of an ingestion job: the narrow columns only, without error_message,
+ * document_url or progress, so listing many jobs reads little more than the index entries.
+ * @param id        Job id.
+ * @param manualId  Manual being ingested.
+ * @param tenant    Tenant the job is scheduled for.
+ * @param batchId   Parent batch; null for jobs submitted one at a time.
+ * @param status    Lifecycle status.
+ * @param attempts  Times the job has been claimed.
+ * @param createdAt When the job was created.
+ * @param updatedAt When the job's status last changed.
+ */
+public record IngestionJobSummary(
+        UUID id,
+        String manualId,
+        String tenant,
+        UUID batchId,
+        IngestionJobStatus status,
+        int attempts,
+        Instant createdAt,
+        Instant updatedAt
+) {
+
+    public IngestionJobSummary {
+        Objects.requireNonNull(id, "id");
+        Objects.requireNonNull(manualId, "manualId");
+        Objects.requireNonNull(tenant, "tenant");
+        Objects.requireNonNull(status, "status");
+        Objects.requireNonNull(createdAt, "createdAt");
+        Objects.requireNonNull(updatedAt, "updatedAt");
+    }
+
+    /**
+     * Position of this job in the (created_at, id) order, for fetching the page after it.
+     */
+    public IngestionJobCursor cursor() {
+        return new IngestionJobCursor(createdAt, id);
+    }
+}
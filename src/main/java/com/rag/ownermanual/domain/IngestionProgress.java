@@ -0,0 +1,38 @@
+package com.rag.ownermanual.domain;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Progress of a running ingestion job, as last written to ingestion_jobs. Totals are null until
+ * known: pagesTotal once the PDF is opened (or replayed), chunksTotal once every page is chunked.
+ * @param stage                 Current phase.
+ * @param pagesParsed           Pages extracted so far, including blank ones.
+ * @param pagesTotal            Pages in the document; null until known.
+ * @param chunksEmbedded        Chunks whose embedding is resolved (from the cache or the provider).
+ * @param chunksUpserted        Chunks written to the vector store.
+ * @param chunksTotal           Chunks to upsert in this run; null until every page is chunked.
+ * @param bytesDownloaded       Bytes of the document received.
+ * @param estimatedCompletionAt Projected completion from current rates; null until there is a rate to project.
+ * @param updatedAt             When this progress was recorded.
+ */
+public record IngestionProgress(
+        IngestionStage stage,
+        int pagesParsed,
+        Integer pagesTotal,
+        int chunksEmbedded,
+        int chunksUpserted,
+        Integer chunksTotal,
+        long bytesDownloaded,
+        Instant estimatedCompletionAt,
+        Instant updatedAt
+) {
+
+    public IngestionProgress {
+        Objects.requireNonNull(stage, "stage");
+        Objects.requireNonNull(updatedAt, "updatedAt");
+        if (pagesParsed < 0 || chunksEmbedded < 0 || chunksUpserted < 0 || bytesDownloaded < 0) {
+            throw new IllegalArgumentException("counts must be non-negative");
+        }
+    }
+}
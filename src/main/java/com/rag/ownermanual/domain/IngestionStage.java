@@ -0,0 +1,16 @@
+package com.rag.ownermanual.domain;
+
+/**
+ * Phase of a PROCESSING ingestion job. Parsing and upserting overlap in the pipeline; the stage is
+ * the earliest phase still running, and the page and chunk counters show how far each has got.
+ */
+public enum IngestionStage {
+    /** Fetching the document; bytesDownloaded grows. */
+    DOWNLOADING,
+    /** Extracting pages (or replaying stored ones); chunks of parsed pages are already being upserted. */
+    PARSING,
+    /** Every page is parsed; embedding and upserting the remaining chunks. */
+    UPSERTING,
+    /** Deleting orphaned chunks and committing the manifest. */
+    FINALIZING
+}
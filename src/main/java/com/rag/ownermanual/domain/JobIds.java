@@ -0,0 +1,40 @@
+package com.rag.ownermanual.domain;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Ingestion job ids. New jobs get a version 7 UUID whose 48-bit timestamp is the job's createdAt
+ * (millisecond precision), so a job's creation time, and with it its monthly ingestion_jobs
+ * partition, can be derived from the id alone. Ids of jobs created before this scheme are random
+ * (version 4) and carry no time.
+ */
+public final class JobIds {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private JobIds() {
+    }
+
+    /**
+     * A new job id stamped with the job's creation time; pass the same instant as createdAt.
+     */
+    public static UUID newId(Instant createdAt) {
+        long millis = createdAt.toEpochMilli();
+        long msb = (millis << 16) | 0x7000L | (RANDOM.nextInt() & 0x0FFFL);
+        long lsb = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * Creation time carried by the id, truncated to milliseconds; empty for ids not made by {@link #newId}.
+     */
+    public static Optional<Instant> createdAt(UUID id) {
+        if (id.version() != 7 || id.variant() != 2) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16));
+    }
+}
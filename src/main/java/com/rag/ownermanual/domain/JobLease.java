@@ -0,0 +1,32 @@
+package com.rag.ownermanual.domain;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * A worker's claim on an ingestion job. While the lease is live (renewed by heartbeats) no other
+ * worker processes the job, and status writes for the job only succeed for this owner.
+ * @param jobId       Claimed job.
+ * @param manualId    Manual being ingested.
+ * @param documentUrl URL of the document to fetch and parse.
+ * @param owner       Worker id that holds the lease.
+ * @param attempt     1-based attempt number of this claim.
+ */
+public record JobLease(
+        UUID jobId,
+        String manualId,
+        String documentUrl,
+        String owner,
+        int attempt
+) {
+
+    public JobLease {
+        Objects.requireNonNull(jobId, "jobId");
+        Objects.requireNonNull(manualId, "manualId");
+        Objects.requireNonNull(documentUrl, "documentUrl");
+        Objects.requireNonNull(owner, "owner");
+        if (attempt < 1) {
+            throw new IllegalArgumentException("attempt must be >= 1");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.rag.ownermanual.domain;
+
+import java.util.List;
+
+/**
+ * One chunk of a manual as last written to the vector store (table ingestion_manifest).
+ * @param chunkId  Chunk id (see Chunker); also determines the vector store point id.
+ * @param pageKey  Page number, or the synthetic page counter for pages without one.
+ * @param pageHash Hex SHA-256 of the page's chunks; equal hashes mean the page can be skipped.
+ * @param occurrencePages Pages of near-duplicates stored on the chunk as its occurrence pages; empty
+ *                        for chunks that are not canonical for a duplicate. Not part of pageHash: the
+ *                        pipeline rewrites the chunk when this set changes.
+ */
+public record ManifestEntry(
+        String chunkId,
+        int pageKey,
+        String pageHash,
+        List<Integer> occurrencePages
+) {
+
+    public ManifestEntry(String chunkId, int pageKey, String pageHash) {
+        this(chunkId, pageKey, pageHash, List.of());
+    }
+
+    public ManifestEntry {
+        if (chunkId == null || chunkId.isBlank()) {
+            throw new IllegalArgumentException("chunkId must be non-blank");
+        }
+        if (pageHash == null || pageHash.isBlank()) {
+            throw new IllegalArgumentException("pageHash must be non-blank");
+        }
+        occurrencePages = occurrencePages == null ? List.of() : List.copyOf(occurrencePages);
+    }
+
+    public ManifestEntry withOccurrencePages(List<Integer> pages) {
+        return new ManifestEntry(chunkId, pageKey, pageHash, pages);
+    }
+}
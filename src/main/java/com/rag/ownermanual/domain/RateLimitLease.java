@@ -0,0 +1,21 @@
+package com.rag.ownermanual.domain;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Tokens a node took from an identity's shared rate limit bucket, to spend locally.
+ *
+ * @param granted Tokens taken; fewer than requested (possibly 0) when the bucket ran low.
+ * @param remaining Whole tokens left in the shared bucket after the lease.
+ * @param untilFull Time until the shared bucket is full again.
+ */
+public record RateLimitLease(int granted, int remaining, Duration untilFull) {
+
+    public RateLimitLease {
+        Objects.requireNonNull(untilFull, "untilFull");
+        if (granted < 0 || remaining < 0) {
+            throw new IllegalArgumentException("granted and remaining must not be negative");
+        }
+    }
+}
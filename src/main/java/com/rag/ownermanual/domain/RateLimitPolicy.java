@@ -0,0 +1,30 @@
+package com.rag.ownermanual.domain;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Token bucket parameters of a rate limit.
+ *
+ * @param capacity Bucket size: the burst allowed after being idle.
+ * @param refillTokens Tokens added per refill period, spread evenly over it.
+ * @param refillPeriod Period over which refillTokens are added.
+ */
+public record RateLimitPolicy(int capacity, int refillTokens, Duration refillPeriod) {
+
+    public RateLimitPolicy {
+        Objects.requireNonNull(refillPeriod, "refillPeriod");
+        if (capacity < 1 || refillTokens < 1) {
+            throw new IllegalArgumentException("capacity and refillTokens must be positive");
+        }
+        if (refillPeriod.isNegative() || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("refillPeriod must be positive");
+        }
+    }
+
+    /** Time to refill {@code tokens} tokens, rounded up to whole microseconds. */
+    public Duration timeToRefill(long tokens) {
+        long periodMicros = refillPeriod.toNanos() / 1_000;
+        return Duration.ofNanos(Math.ceilDiv(tokens * periodMicros, refillTokens) * 1_000);
+    }
+}
@@ -0,0 +1,112 @@
+package com.rag.ownermanual.domain;
+
+import java.util.Objects;
+
+/**
+ * Read-only view of source[start, end) that shares the source string instead of copying it. Chunks
+ * of a page reference the page text through slices; the characters are only copied when the text
+ * is materialized with {@link #toString()}, i.e. when a chunk is serialized for the embedding
+ * request and the vector store payload.
+ *
+ * <p>Equality and hash code are by content and match {@link String#hashCode()} for the same
+ * characters, so a slice and a string with equal content hash alike (use
+ * {@link #contentEquals(CharSequence, CharSequence)} to compare across the two).
+ */
+public final class TextSlice implements CharSequence {
+
+    private final String source;
+    private final int start;
+    private final int end;
+    private int hash;
+
+    private TextSlice(String source, int start, int end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * @return the source itself when the range covers all of it, otherwise a view of the range
+     * @throws IndexOutOfBoundsException when the range is not within the source
+     */
+    public static CharSequence of(String source, int start, int end) {
+        Objects.requireNonNull(source, "source");
+        Objects.checkFromToIndex(start, end, source.length());
+        if (start == 0 && end == source.length()) {
+            return source;
+        }
+        return new TextSlice(source, start, end);
+    }
+
+    /**
+     * True when both sequences hold the same characters, whatever their implementation.
+     */
+    public static boolean contentEquals(CharSequence a, CharSequence b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        return CharSequence.compare(a, b) == 0;
+    }
+
+    /**
+     * Same value as {@link String#hashCode()} of the characters, without materializing them.
+     */
+    public static int contentHash(CharSequence value) {
+        if (value instanceof String string) {
+            return string.hashCode();
+        }
+        int h = 0;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        Objects.checkIndex(index, length());
+        return source.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        Objects.checkFromToIndex(from, to, length());
+        return of(source, start + from, start + to);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return start == end;
+    }
+
+    /**
+     * Copies the characters into a new string.
+     */
+    @Override
+    public String toString() {
+        return source.substring(start, end);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof TextSlice slice && contentEquals(this, slice);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = contentHash(this);
+            hash = h;
+        }
+        return h;
+    }
+}
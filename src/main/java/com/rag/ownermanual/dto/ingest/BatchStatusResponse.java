@@ -0,0 +1,66 @@
+package com.rag.ownermanual.dto.ingest;
+
+import com.rag.ownermanual.domain.IngestionBatchProgress;
+import com.rag.ownermanual.domain.IngestionJobStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Response body for GET /api/v1/batches/{id}: status aggregated over the batch's child jobs.
+ * @param batchId      Same as path parameter.
+ * @param tenant       Tenant the batch was submitted for.
+ * @param status       CREATED until a child starts, PROCESSING while any child is unfinished, then
+ *                     FAILED if every child failed and COMPLETED otherwise.
+ * @param total        Number of child jobs.
+ * @param created      Children waiting to be claimed, including ones waiting to retry.
+ * @param processing   Children currently running.
+ * @param completed    Children completed.
+ * @param failed       Children failed for good.
+ * @param chunkChanges Chunk counts summed over the completed children.
+ * @param createdAt    When the batch was created.
+ * @param updatedAt    Latest update of any child job.
+ */
+@Schema(description = "Response body for GET /api/v1/batches/{id}: status aggregated over the batch's child jobs.")
+public record BatchStatusResponse(
+        @Schema(description = "Batch identifier (same as path parameter)", requiredMode = Schema.RequiredMode.REQUIRED)
+        UUID batchId,
+        @Schema(description = "Tenant the batch was submitted for", requiredMode = Schema.RequiredMode.REQUIRED)
+        String tenant,
+        @Schema(description = "CREATED until a child starts, PROCESSING while any child is unfinished, then FAILED if every child failed and COMPLETED otherwise", requiredMode = Schema.RequiredMode.REQUIRED, allowableValues = {"CREATED", "PROCESSING", "COMPLETED", "FAILED"})
+        IngestionJobStatus status,
+        @Schema(description = "Number of child jobs", requiredMode = Schema.RequiredMode.REQUIRED)
+        int total,
+        @Schema(description = "Children waiting to be claimed, including ones waiting to retry", requiredMode = Schema.RequiredMode.REQUIRED)
+        int created,
+        @Schema(description = "Children currently running", requiredMode = Schema.RequiredMode.REQUIRED)
+        int processing,
+        @Schema(description = "Children completed", requiredMode = Schema.RequiredMode.REQUIRED)
+        int completed,
+        @Schema(description = "Children failed for good; see GET /api/v1/jobs/{id} for each error", requiredMode = Schema.RequiredMode.REQUIRED)
+        int failed,
+        @Schema(description = "Chunk counts summed over the completed children", requiredMode = Schema.RequiredMode.REQUIRED)
+        ChunkChangesResponse chunkChanges,
+        @Schema(description = "When the batch was created (ISO-8601)", requiredMode = Schema.RequiredMode.REQUIRED)
+        Instant createdAt,
+        @Schema(description = "Latest update of any child job (ISO-8601)", requiredMode = Schema.RequiredMode.REQUIRED)
+        Instant updatedAt
+) {
+
+    public static BatchStatusResponse from(IngestionBatchProgress progress) {
+        return new BatchStatusResponse(
+                progress.batchId(),
+                progress.tenant(),
+                progress.status(),
+                progress.jobCount(),
+                progress.count(IngestionJobStatus.CREATED),
+                progress.count(IngestionJobStatus.PROCESSING),
+                progress.count(IngestionJobStatus.COMPLETED),
+                progress.count(IngestionJobStatus.FAILED),
+                ChunkChangesResponse.from(progress.chunkChanges()),
+                progress.createdAt(),
+                progress.updatedAt()
+        );
+    }
+}
@@ -0,0 +1,47 @@
+package com.rag.ownermanual.dto.ingest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Request body for POST /api/v1/ingest/batch: many manuals for one tenant.
+ * @param tenant  Tenant (e.g. OEM) the manuals belong to; worker slots are shared fairly between tenants.
+ * @param manuals Manuals to ingest, 1 to 1000; each manualId at most once.
+ */
+@Schema(description = "Request body for POST /api/v1/ingest/batch: a tenant and the manuals to ingest for it.")
+public record BulkIngestRequest(
+        @NotBlank(message = "tenant is required")
+        @Size(max = 255, message = "tenant must not exceed 255 characters")
+        @Schema(description = "Tenant (e.g. OEM) the manuals belong to; worker capacity is shared fairly between tenants", requiredMode = Schema.RequiredMode.REQUIRED, maxLength = 255)
+        String tenant,
+
+        @NotEmpty(message = "manuals must not be empty")
+        @Size(max = 1000, message = "a batch must not exceed 1000 manuals")
+        @Schema(description = "Manuals to ingest (1 to 1000); each manualId at most once", requiredMode = Schema.RequiredMode.REQUIRED)
+        List<@Valid IngestRequest> manuals
+) {
+
+    /**
+     * Two jobs for the same manual would race on its manifest, so a batch lists each manual once.
+     */
+    @AssertTrue(message = "manualId must be unique within a batch")
+    @Schema(hidden = true)
+    public boolean isManualIdsUnique() {
+        if (manuals == null) {
+            return true;
+        }
+        Set<String> seen = new HashSet<>();
+        return manuals.stream()
+                .filter(Objects::nonNull)
+                .allMatch(manual -> manual.manualId() == null || seen.add(manual.manualId()));
+    }
+}
@@ -0,0 +1,33 @@
+package com.rag.ownermanual.dto.ingest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Response body for POST /api/v1/ingest/batch: the batch id and one job id per manual.
+ * @param batchId UUID of the batch; use for aggregate status via GET /api/v1/batches/{id}.
+ * @param jobs    Created child jobs, in request order.
+ */
+@Schema(description = "Response body for POST /api/v1/ingest/batch: the batch id and its child jobs.")
+public record BulkIngestResponse(
+        @Schema(description = "UUID of the batch; use for aggregate status via GET /api/v1/batches/{id}", requiredMode = Schema.RequiredMode.REQUIRED)
+        UUID batchId,
+        @Schema(description = "Created child jobs, in request order", requiredMode = Schema.RequiredMode.REQUIRED)
+        List<BatchJob> jobs
+) {
+
+    /**
+     * One child job of the batch.
+     * @param manualId Manual from the request.
+     * @param jobId    Job ingesting it; pollable via GET /api/v1/jobs/{id}.
+     */
+    @Schema(description = "A child job of a batch.")
+    public record BatchJob(
+            @Schema(description = "Manual from the request", requiredMode = Schema.RequiredMode.REQUIRED)
+            String manualId,
+            @Schema(description = "Job ingesting the manual; pollable via GET /api/v1/jobs/{id}", requiredMode = Schema.RequiredMode.REQUIRED)
+            UUID jobId
+    ) {}
+}
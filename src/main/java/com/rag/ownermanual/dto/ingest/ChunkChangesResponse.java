@@ -0,0 +1,33 @@
+package com.rag.ownermanual.dto.ingest;
+
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+/**
+ * Chunk counts of a completed ingestion, compared with the manual's previous ingestion.
+ * @param added     Chunks new to this manual.
+ * @param updated   Existing chunks re-upserted because their page changed.
+ * @param unchanged Chunks skipped because their page was unchanged.
+ * @param deleted   Chunks removed because the new document no longer produces them.
+ */
+@Schema(description = "Chunk counts of a completed ingestion, compared with the manual's previous ingestion.")
+public record ChunkChangesResponse(
+        @Schema(description = "Chunks new to this manual", requiredMode = Schema.RequiredMode.REQUIRED)
+        int added,
+        @Schema(description = "Existing chunks re-upserted because their page changed", requiredMode = Schema.RequiredMode.REQUIRED)
+        int updated,
+        @Schema(description = "Chunks skipped because their page was unchanged", requiredMode = Schema.RequiredMode.REQUIRED)
+        int unchanged,
+        @Schema(description = "Chunks removed because the new document no longer produces them", requiredMode = Schema.RequiredMode.REQUIRED)
+        int deleted
+) {
+
+    /**
+     * @return the DTO for the given counts, or null when none were recorded
+     */
+    public static ChunkChangesResponse from(ChunkChangeCounts counts) {
+        return counts == null
+                ? null
+                : new ChunkChangesResponse(counts.added(), counts.updated(), counts.unchanged(), counts.deleted());
+    }
+}
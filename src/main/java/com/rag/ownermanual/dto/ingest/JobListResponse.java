@@ -0,0 +1,23 @@
+package com.rag.ownermanual.dto.ingest;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+/**
+ * Response body for GET /api/v1/jobs: one page of jobs, newest first.
+ * @param jobs       Jobs on this page.
+ * @param nextCursor Pass as cursor to get the next page; null on the last page.
+ */
+@Schema(description = "Response body for GET /api/v1/jobs: one page of jobs, newest first.")
+public record JobListResponse(
+        @Schema(description = "Jobs on this page, newest first", requiredMode = Schema.RequiredMode.REQUIRED)
+        List<JobSummaryResponse> jobs,
+        @Schema(description = "Opaque cursor for the next page; null on the last page")
+        String nextCursor
+) {
+
+    public JobListResponse {
+        jobs = List.copyOf(jobs);
+    }
+}
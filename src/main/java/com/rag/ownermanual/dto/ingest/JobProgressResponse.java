@@ -0,0 +1,53 @@
+package com.rag.ownermanual.dto.ingest;
+
+import com.rag.ownermanual.domain.IngestionProgress;
+import com.rag.ownermanual.domain.IngestionStage;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+
+/**
+ * Progress of the job's latest attempt, as last written by the worker running it.
+ * @param stage                 DOWNLOADING, PARSING, UPSERTING or FINALIZING.
+ * @param pagesParsed           Pages extracted so far, including blank ones.
+ * @param pagesTotal            Pages in the document; null until known.
+ * @param chunksEmbedded        Chunks whose embedding is resolved.
+ * @param chunksUpserted        Chunks written to the vector store.
+ * @param chunksTotal           Chunks to upsert in this attempt; null until every page is chunked.
+ * @param bytesDownloaded       Bytes of the document received.
+ * @param estimatedCompletionAt Projected completion from current rates; null until there is a rate.
+ * @param updatedAt             When the worker recorded this progress.
+ */
+@Schema(description = "Progress of the job's latest attempt, as last written by the worker running it.")
+public record JobProgressResponse(
+        @Schema(description = "Current stage: DOWNLOADING, PARSING, UPSERTING, FINALIZING", requiredMode = Schema.RequiredMode.REQUIRED, allowableValues = {"DOWNLOADING", "PARSING", "UPSERTING", "FINALIZING"})
+        IngestionStage stage,
+        @Schema(description = "Pages extracted so far, including blank ones", requiredMode = Schema.RequiredMode.REQUIRED)
+        int pagesParsed,
+        @Schema(description = "Pages in the document; null until known")
+        Integer pagesTotal,
+        @Schema(description = "Chunks whose embedding is resolved", requiredMode = Schema.RequiredMode.REQUIRED)
+        int chunksEmbedded,
+        @Schema(description = "Chunks written to the vector store", requiredMode = Schema.RequiredMode.REQUIRED)
+        int chunksUpserted,
+        @Schema(description = "Chunks to upsert in this attempt; null until every page is chunked")
+        Integer chunksTotal,
+        @Schema(description = "Bytes of the document received", requiredMode = Schema.RequiredMode.REQUIRED)
+        long bytesDownloaded,
+        @Schema(description = "Projected completion from current rates (ISO-8601); null until there is a rate")
+        Instant estimatedCompletionAt,
+        @Schema(description = "When the worker recorded this progress (ISO-8601)", requiredMode = Schema.RequiredMode.REQUIRED)
+        Instant updatedAt
+) {
+
+    /**
+     * @return the DTO for the given progress, or null when none was recorded
+     */
+    public static JobProgressResponse from(IngestionProgress progress) {
+        return progress == null
+                ? null
+                : new JobProgressResponse(progress.stage(), progress.pagesParsed(), progress.pagesTotal(),
+                        progress.chunksEmbedded(), progress.chunksUpserted(), progress.chunksTotal(),
+                        progress.bytesDownloaded(), progress.estimatedCompletionAt(), progress.updatedAt());
+    }
+}
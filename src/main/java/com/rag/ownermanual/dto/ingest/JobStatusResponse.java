@@ -13,6 +13,8 @@ import java.util.UUID;
  * @param errorMessage Present when status is FAILED; null otherwise.
  * @param createdAt    When the job was created (optional; ISO-8601 when present).
  * @param updatedAt    When the job was last updated (optional; ISO-8601 when present).
+ * @param chunkChanges Present when status is COMPLETED: added/updated/unchanged/deleted chunk counts.
+ * @param progress     Stage and counters of the latest attempt; null until a worker has reported progress.
  */
 @Schema(description = "Response body for GET /api/v1/jobs/{id}: current job status and optional details.")
 public record JobStatusResponse(
@@ -25,5 +27,9 @@ public record JobStatusResponse(
         @Schema(description = "When the job was created (ISO-8601)")
         Instant createdAt,
         @Schema(description = "When the job was last updated (ISO-8601)")
-        Instant updatedAt
+        Instant updatedAt,
+        @Schema(description = "Present when status is COMPLETED: chunk counts compared with the previous ingestion of the manual; null otherwise")
+        ChunkChangesResponse chunkChanges,
+        @Schema(description = "Stage and counters of the latest attempt, refreshed every few seconds while PROCESSING; null until a worker has reported progress")
+        JobProgressResponse progress
 ) {}
@@ -0,0 +1,54 @@
+package com.rag.ownermanual.dto.ingest;
+
+import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionJobSummary;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * One job in the response of GET /api/v1/jobs. Carries no error message or progress; fetch
+ * GET /api/v1/jobs/{id} for those.
+ * @param jobId     Job identifier.
+ * @param manualId  Manual being ingested.
+ * @param tenant    Tenant the job is scheduled for.
+ * @param batchId   Parent batch; null for jobs submitted one at a time.
+ * @param status    Current job status.
+ * @param attempts  Times the job has been claimed by a worker.
+ * @param createdAt When the job was created.
+ * @param updatedAt When the job's status last changed.
+ */
+@Schema(description = "One job in the response of GET /api/v1/jobs; see GET /api/v1/jobs/{id} for error message and progress.")
+public record JobSummaryResponse(
+        @Schema(description = "Job identifier", requiredMode = Schema.RequiredMode.REQUIRED)
+        UUID jobId,
+        @Schema(description = "Manual being ingested", requiredMode = Schema.RequiredMode.REQUIRED)
+        String manualId,
+        @Schema(description = "Tenant the job is scheduled for", requiredMode = Schema.RequiredMode.REQUIRED)
+        String tenant,
+        @Schema(description = "Parent batch; null for jobs submitted one at a time")
+        UUID batchId,
+        @Schema(description = "Current job status", requiredMode = Schema.RequiredMode.REQUIRED, allowableValues = {"CREATED", "PROCESSING", "COMPLETED", "FAILED"})
+        IngestionJobStatus status,
+        @Schema(description = "Times the job has been claimed by a worker", requiredMode = Schema.RequiredMode.REQUIRED)
+        int attempts,
+        @Schema(description = "When the job was created (ISO-8601)", requiredMode = Schema.RequiredMode.REQUIRED)
+        Instant createdAt,
+        @Schema(description = "When the job's status last changed (ISO-8601)", requiredMode = Schema.RequiredMode.REQUIRED)
+        Instant updatedAt
+) {
+
+    public static JobSummaryResponse from(IngestionJobSummary job) {
+        return new JobSummaryResponse(
+                job.id(),
+                job.manualId(),
+                job.tenant(),
+                job.batchId(),
+                job.status(),
+                job.attempts(),
+                job.createdAt(),
+                job.updatedAt()
+        );
+    }
+}
@@ -1,6 +1,8 @@
 /**
  * Request/response DTOs for the ingest and job status APIs.
  *
- * <p>IngestRequest, IngestResponse, JobStatusResponse. Used by POST /api/v1/ingest and GET /api/v1/jobs/{id}.
+ * <p>IngestRequest, IngestResponse, JobStatusResponse (with JobProgressResponse). Used by POST /api/v1/ingest and GET /api/v1/jobs/{id}.
+ * BulkIngestRequest, BulkIngestResponse and BatchStatusResponse are used by POST /api/v1/ingest/batch
+ * and GET /api/v1/batches/{id}.
  */
 package com.rag.ownermanual.dto.ingest;
\ No newline at end of file
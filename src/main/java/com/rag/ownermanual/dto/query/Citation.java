@@ -2,6 +2,8 @@ package com.rag.ownermanual.dto.query;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 
+import java.util.List;
+
 /**
  * One citation in a query response: reference to a chunk that was used to generate the answer.
  * Enables the client to show "from section X, page Y" or to link back to the source.
@@ -9,6 +11,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
  * @param section  Optional heading/section title from the source manual.
  * @param snippet  Optional short excerpt of the chunk text for display.
  * @param page     Optional page number in the source PDF.
+ * @param pages    Every page the cited text appears on: page first, then the pages where the same
+ *                 text (a repeated warning or table) was stored only once; empty when page is unknown.
  */
 @Schema(description = "One citation: reference to a chunk used to generate the answer.")
 public record Citation(
@@ -19,11 +23,15 @@ public record Citation(
         @Schema(description = "Optional short excerpt of the chunk text for display")
         String snippet,
         @Schema(description = "Optional page number in the source PDF")
-        Integer page
+        Integer page,
+        @Schema(description = "Every page the cited text appears on, starting with page; "
+                + "repeated warnings and tables are stored once and cite all their pages")
+        List<Integer> pages
 ) {
     public Citation {
         if (chunkId == null || chunkId.isBlank()) {
             throw new IllegalArgumentException("chunkId must be non-blank");
         }
+        pages = pages == null ? List.of() : List.copyOf(pages);
     }
 }
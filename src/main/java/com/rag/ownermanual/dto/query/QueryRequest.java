@@ -10,6 +10,7 @@ import jakarta.validation.constraints.Size;
  * @param vehicleModel Optional vehicle/model to scope the search; applied as filter in vector search.
  * @param imageUrl     Optional URL of an image (e.g. for future vision/multimodal queries).
  * @param imageBase64  Optional base64-encoded image data (alternative to imageUrl; one of imageUrl or imageBase64).
+ * @param section      Optional section path (e.g. "Maintenance > Tyres") to scope the search, subsections included.
  */
 @Schema(description = "Request body for POST /api/v1/query: user question and optional filters/image.")
 public record QueryRequest(
@@ -27,5 +28,10 @@ public record QueryRequest(
         String imageUrl,
 
         @Schema(description = "Optional base64-encoded image data (alternative to imageUrl)")
-        String imageBase64
+        String imageBase64,
+
+        @Size(max = 255)
+        @Schema(description = "Optional section path to scope the search, subsections included; levels are separated by \" > \"",
+                example = "Maintenance > Tyres", maxLength = 255)
+        String section
 ) {}
@@ -0,0 +1,189 @@
+package com.rag.ownermanual.embedding;
+
+import com.rag.ownermanual.repository.EmbeddingCacheRepository;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.dao.DataAccessException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * EmbeddingModel decorator that serves embeddings of previously seen text from the Postgres
+ * embedding cache and sends only the misses to the provider.
+ *
+ * <p>Entries are keyed by SHA-256 of (model, dimensions, normalized text), so changing
+ * spring.ai.openai.embedding.options.model or dimensions starts a fresh namespace instead of
+ * serving vectors of the wrong shape or space. The cache is only used inside an
+ * {@link EmbeddingCacheScope}; other calls go straight to the delegate. Cache read/write failures
+ * are logged and treated as misses so they never fail an ingestion.
+ *
+ * <p>Provider calls made inside a scope (ingestion) each hold a permit of the embedding bulkhead,
+ * the cap on concurrent embedding requests across all jobs on the node. Query embeddings bypass it
+ * so searches never queue behind a bulk ingest.
+ */
+public class CachingEmbeddingModel implements EmbeddingModel {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingEmbeddingModel.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingCacheRepository cacheRepository;
+    private final String model;
+    private final int dimensions;
+    private final boolean enabled;
+    private final Bulkhead bulkhead;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public CachingEmbeddingModel(EmbeddingModel delegate,
+                                 EmbeddingCacheRepository cacheRepository,
+                                 String model,
+                                 int dimensions,
+                                 boolean enabled,
+                                 Bulkhead bulkhead,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.cacheRepository = Objects.requireNonNull(cacheRepository, "cacheRepository");
+        this.model = Objects.requireNonNull(model, "model");
+        this.dimensions = dimensions;
+        this.enabled = enabled;
+        this.bulkhead = Objects.requireNonNull(bulkhead, "bulkhead");
+        this.hitCounter = lookupCounter(meterRegistry, "hit");
+        this.missCounter = lookupCounter(meterRegistry, "miss");
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        EmbeddingCacheStats stats = EmbeddingCacheScope.current();
+        if (stats == null) {
+            return delegate.call(request);
+        }
+        if (!enabled) {
+            EmbeddingResponse response = callProvider(request);
+            stats.recordEmbedded(request.getInstructions().size());
+            return response;
+        }
+
+        List<String> texts = request.getInstructions();
+        List<String> keys = texts.stream().map(this::cacheKey).toList();
+        Map<String, float[]> cached = lookup(keys);
+
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (!cached.containsKey(keys.get(i))) {
+                missIndexes.add(i);
+            }
+        }
+        int hits = texts.size() - missIndexes.size();
+        stats.record(hits, missIndexes.size());
+        hitCounter.increment(hits);
+        missCounter.increment(missIndexes.size());
+
+        float[][] vectors = new float[texts.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            vectors[i] = cached.get(keys.get(i));
+        }
+
+        EmbeddingResponse missResponse = null;
+        if (!missIndexes.isEmpty()) {
+            List<String> missTexts = missIndexes.stream().map(texts::get).toList();
+            missResponse = callProvider(new EmbeddingRequest(missTexts, request.getOptions()));
+            Map<String, float[]> fresh = new LinkedHashMap<>();
+            List<Embedding> results = missResponse.getResults();
+            for (int j = 0; j < results.size(); j++) {
+                int index = missIndexes.get(j);
+                vectors[index] = results.get(j).getOutput();
+                fresh.put(keys.get(index), vectors[index]);
+            }
+            store(fresh);
+        }
+
+        stats.recordEmbedded(texts.size());
+        List<Embedding> embeddings = new ArrayList<>(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            embeddings.add(new Embedding(vectors[i], i));
+        }
+        return missResponse != null
+                ? new EmbeddingResponse(embeddings, missResponse.getMetadata())
+                : new EmbeddingResponse(embeddings);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    /**
+     * Hex SHA-256 over model, dimensions and the text with Unicode normalized (NFC), whitespace
+     * runs collapsed and ends trimmed, so layout-only differences still hit.
+     */
+    String cacheKey(String text) {
+        String normalized = WHITESPACE.matcher(Normalizer.normalize(text, Normalizer.Form.NFC)).replaceAll(" ").strip();
+        MessageDigest digest = sha256();
+        digest.update((model + '\u0000' + dimensions + '\u0000').getBytes(StandardCharsets.UTF_8));
+        digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private EmbeddingResponse callProvider(EmbeddingRequest request) {
+        return bulkhead.executeSupplier(() -> delegate.call(request));
+    }
+
+    private Map<String, float[]> lookup(List<String> keys) {
+        try {
+            return cacheRepository.findAll(model, dimensions, keys);
+        } catch (DataAccessException e) {
+            log.warn("Embedding cache lookup failed; embedding {} text(s) without cache: {}", keys.size(), e.getMessage());
+            return Map.of();
+        }
+    }
+
+    private void store(Map<String, float[]> vectors) {
+        try {
+            cacheRepository.saveAll(model, dimensions, vectors);
+        } catch (DataAccessException e) {
+            log.warn("Embedding cache write failed for {} vector(s): {}", vectors.size(), e.getMessage());
+        }
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ingest.embedding.cache.lookups")
+                .description("Embedding cache lookups during ingestion by result")
+                .tags(Tags.of("result", result))
+                .register(meterRegistry);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
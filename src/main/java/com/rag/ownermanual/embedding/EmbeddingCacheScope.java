@@ -0,0 +1,41 @@
+package com.rag.ownermanual.embedding;
+
+/**
+ * Marks embedding calls made on the current thread as cacheable and attributes their hits and
+ * misses to a stats object. Only the ingestion write path opens a scope, so query embeddings (which
+ * also go through the EmbeddingModel bean) never read or fill the cache.
+ *
+ * <p>The scope is thread-bound: code that hands embedding work to another thread must capture
+ * {@link #current()} and re-open the scope there.
+ */
+public final class EmbeddingCacheScope {
+
+    private static final ThreadLocal<EmbeddingCacheStats> CURRENT = new ThreadLocal<>();
+
+    private EmbeddingCacheScope() {
+    }
+
+    /**
+     * Stats of the scope open on this thread, or null when embedding calls are not cacheable.
+     */
+    public static EmbeddingCacheStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run the action with a cache scope recording into stats, restoring the previous scope after.
+     */
+    public static void run(EmbeddingCacheStats stats, Runnable action) {
+        EmbeddingCacheStats previous = CURRENT.get();
+        CURRENT.set(stats);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
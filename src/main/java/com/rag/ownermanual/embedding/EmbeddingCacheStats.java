@@ -0,0 +1,48 @@
+package com.rag.ownermanual.embedding;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedding cache hits and misses for one unit of work (typically one ingestion job), plus the
+ * embeddings resolved so far. Updated from the embedding batch threads, so counts are atomic.
+ */
+public final class EmbeddingCacheStats {
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong embedded = new AtomicLong();
+
+    void record(int hitCount, int missCount) {
+        hits.addAndGet(hitCount);
+        misses.addAndGet(missCount);
+    }
+
+    void recordEmbedded(int count) {
+        embedded.addAndGet(count);
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Texts whose embedding has been resolved, from the cache or the provider (also counted when
+     * the cache is disabled).
+     */
+    public long embedded() {
+        return embedded.get();
+    }
+
+    /**
+     * Fraction of lookups served from the cache; 0 when nothing was looked up.
+     */
+    public double hitRatio() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+}
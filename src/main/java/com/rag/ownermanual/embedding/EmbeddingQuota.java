@@ -0,0 +1,338 @@
+package com.rag.ownermanual.embedding;
+
+import com.rag.ownermanual.config.EmbeddingQuotaProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Node-local requests-per-minute and tokens-per-minute budget for the embedding provider, shared by
+ * every embedding call (ingestion and queries).
+ *
+ * <p>Each budget is a token bucket holding up to one minute's allowance and refilled continuously.
+ * A call takes one request and its estimated tokens, and queues until both fit instead of failing.
+ * Background (ingestion) calls must leave interactiveReserve of each bucket untouched; interactive
+ * (query) calls may drain it, so queries keep flowing during a bulk ingest. A call larger than a
+ * whole bucket is let through once the bucket is full.
+ *
+ * <p>Provider responses correct the local view: x-ratelimit-remaining-requests/-tokens lower the
+ * buckets to what the provider reports, and a rate-limited (429) response pauses all calls until
+ * its Retry-After (or x-ratelimit-reset-*) has passed.
+ */
+public final class EmbeddingQuota {
+
+    private static final Logger log = LoggerFactory.getLogger(EmbeddingQuota.class);
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    private static final Pattern GO_DURATION = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|s|m|h)");
+
+    private final EmbeddingQuotaProperties settings;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Bucket requests;
+    private final Bucket tokens;
+    /** Epoch millis before which no call is let through; 0 when not paused. Guarded by lock. */
+    private long pausedUntil;
+
+    private final Map<Priority, AtomicInteger> waiting = new EnumMap<>(Priority.class);
+    private final Map<Priority, Timer> waitTimers = new EnumMap<>(Priority.class);
+    private final Counter rateLimited;
+
+    /**
+     * Continuously refilled bucket holding up to perMinute units. Guarded by the quota's lock.
+     */
+    private static final class Bucket {
+
+        private final double capacity;
+        private final double perMilli;
+        private double level;
+        private long refilledAt;
+
+        Bucket(int perMinute, long now) {
+            this.capacity = perMinute;
+            this.perMilli = perMinute / 60_000.0;
+            this.level = perMinute;
+            this.refilledAt = now;
+        }
+
+        void refill(long now) {
+            if (now > refilledAt) {
+                level = Math.min(capacity, level + (now - refilledAt) * perMilli);
+                refilledAt = now;
+            }
+        }
+
+        /** Millis until amount can be taken leaving reserve × capacity behind; 0 when it can now. */
+        long millisUntil(double amount, double reserve) {
+            double floor = capacity * reserve;
+            double needed = floor + Math.min(amount, capacity - floor);
+            return level >= needed ? 0 : (long) Math.ceil((needed - level) / perMilli);
+        }
+
+        void take(double amount) {
+            level -= amount;
+        }
+
+        void lowerTo(double remaining) {
+            level = Math.min(level, remaining);
+        }
+
+        /** Share of the bucket in use as of now, without refilling it. */
+        double utilization(long now) {
+            double projected = Math.min(capacity, level + Math.max(0, now - refilledAt) * perMilli);
+            return Math.max(0, 1 - projected / capacity);
+        }
+    }
+
+    public EmbeddingQuota(EmbeddingQuotaProperties settings, MeterRegistry meterRegistry) {
+        this(settings, Clock.systemUTC(), meterRegistry);
+    }
+
+    EmbeddingQuota(EmbeddingQuotaProperties settings, Clock clock, MeterRegistry meterRegistry) {
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        long now = clock.millis();
+        this.requests = new Bucket(settings.getRequestsPerMinute(), now);
+        this.tokens = new Bucket(settings.getTokensPerMinute(), now);
+
+        Gauge.builder("embedding.quota.utilization", this, q -> q.utilization(q.requests))
+                .description("Share of the embedding requests-per-minute budget in use")
+                .tags(Tags.of("budget", "requests"))
+                .register(meterRegistry);
+        Gauge.builder("embedding.quota.utilization", this, q -> q.utilization(q.tokens))
+                .description("Share of the embedding tokens-per-minute budget in use")
+                .tags(Tags.of("budget", "tokens"))
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase(Locale.ROOT);
+            AtomicInteger count = new AtomicInteger();
+            waiting.put(priority, count);
+            Gauge.builder("embedding.quota.waiting", count, AtomicInteger::get)
+                    .description("Embedding calls queued for quota")
+                    .tags(Tags.of("priority", tag))
+                    .register(meterRegistry);
+            waitTimers.put(priority, Timer.builder("embedding.quota.wait")
+                    .description("Time embedding calls spent queued for quota")
+                    .tags(Tags.of("priority", tag))
+                    .register(meterRegistry));
+        }
+        this.rateLimited = Counter.builder("embedding.quota.rate.limited")
+                .description("Rate-limited (429) responses from the embedding provider")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Blocks until one request with the estimated tokens fits the budgets, then takes it.
+     * @throws TransientAiException when the call has waited maxWait without fitting
+     * @throws CancellationException when interrupted while waiting
+     */
+    public void acquire(int estimatedTokens, Priority priority) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        long started = System.nanoTime();
+        long deadline = clock.millis() + settings.getMaxWait().toMillis();
+        AtomicInteger queued = waiting.get(priority);
+        lock.lock();
+        queued.incrementAndGet();
+        try {
+            long waitMillis;
+            while ((waitMillis = tryAcquire(estimatedTokens, priority)) > 0) {
+                long remaining = deadline - clock.millis();
+                if (remaining <= 0) {
+                    throw new TransientAiException("Timed out after " + settings.getMaxWait()
+                            + " waiting for embedding quota");
+                }
+                changed.await(Math.min(waitMillis, remaining), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for embedding quota");
+        } finally {
+            queued.decrementAndGet();
+            lock.unlock();
+        }
+        waitTimers.get(priority).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes one request and the tokens when both fit now.
+     * @return 0 when taken, otherwise the millis after which they may fit
+     */
+    long tryAcquire(int estimatedTokens, Priority priority) {
+        lock.lock();
+        try {
+            long now = clock.millis();
+            if (now < pausedUntil) {
+                return pausedUntil - now;
+            }
+            requests.refill(now);
+            tokens.refill(now);
+            double reserve = priority == Priority.BACKGROUND ? settings.getInteractiveReserve() : 0;
+            long wait = Math.max(requests.millisUntil(1, reserve), tokens.millisUntil(estimatedTokens, reserve));
+            if (wait > 0) {
+                return wait;
+            }
+            requests.take(1);
+            tokens.take(estimatedTokens);
+            return 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops all calls for at least the given time, e.g. after a rate-limited response.
+     */
+    public void pause(Duration duration) {
+        lock.lock();
+        try {
+            pausedUntil = Math.max(pausedUntil, clock.millis() + duration.toMillis());
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts a rate-limited response a caller is about to wait out.
+     */
+    public void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    /**
+     * Applies the rate-limit headers of an embedding response: remaining budgets lower the local
+     * buckets, and a 429 pauses all calls until Retry-After, else the reset time of the exhausted
+     * budget, else defaultRetryAfter.
+     */
+    public void onResponse(int status, HttpHeaders headers) {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        Double remainingRequests = number(headers.getFirst("x-ratelimit-remaining-requests"));
+        Double remainingTokens = number(headers.getFirst("x-ratelimit-remaining-tokens"));
+        lock.lock();
+        try {
+            long now = clock.millis();
+            requests.refill(now);
+            tokens.refill(now);
+            if (remainingRequests != null) {
+                requests.lowerTo(remainingRequests);
+            }
+            if (remainingTokens != null) {
+                tokens.lowerTo(remainingTokens);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (status == 429) {
+            Duration retryAfter = retryAfter(headers, remainingRequests, remainingTokens);
+            log.warn("Embedding provider rate limit hit; pausing embedding calls for {}", retryAfter);
+            pause(retryAfter);
+        }
+    }
+
+    private Duration retryAfter(HttpHeaders headers, Double remainingRequests, Double remainingTokens) {
+        Duration retryAfter = millis(headers.getFirst("retry-after-ms"));
+        if (retryAfter == null) {
+            retryAfter = retryAfterHeader(headers.getFirst(HttpHeaders.RETRY_AFTER));
+        }
+        if (retryAfter == null && remainingTokens != null && remainingTokens < 1) {
+            retryAfter = goDuration(headers.getFirst("x-ratelimit-reset-tokens"));
+        }
+        if (retryAfter == null && remainingRequests != null && remainingRequests < 1) {
+            retryAfter = goDuration(headers.getFirst("x-ratelimit-reset-requests"));
+        }
+        return retryAfter != null ? retryAfter : settings.getDefaultRetryAfter();
+    }
+
+    /** Retry-After as delta-seconds or an HTTP date. */
+    private Duration retryAfterHeader(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Double seconds = number(value);
+        if (seconds != null) {
+            return Duration.ofMillis((long) (seconds * 1000));
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value.strip(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            long millis = at.toInstant().toEpochMilli() - clock.millis();
+            return Duration.ofMillis(Math.max(0, millis));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /** OpenAI reset values such as "1s", "6m0s" or "20ms". */
+    static Duration goDuration(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        Matcher matcher = GO_DURATION.matcher(value.strip());
+        double millis = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            millis += amount * switch (matcher.group(2)) {
+                case "ms" -> 1;
+                case "s" -> 1_000;
+                case "m" -> 60_000;
+                default -> 3_600_000;
+            };
+            matched = true;
+        }
+        return matched ? Duration.ofMillis((long) Math.ceil(millis)) : null;
+    }
+
+    private static Duration millis(String value) {
+        Double millis = number(value);
+        return millis != null ? Duration.ofMillis(millis.longValue()) : null;
+    }
+
+    private static Double number(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Double.parseDouble(value.strip());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private double utilization(Bucket bucket) {
+        lock.lock();
+        try {
+            return bucket.utilization(clock.millis());
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.rag.ownermanual.embedding;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * EmbeddingModel decorator that sends each provider call through the shared {@link EmbeddingQuota}.
+ *
+ * <p>A call first queues for one request and its estimated tokens (cl100k estimate of the inputs).
+ * Calls made inside an {@link EmbeddingCacheScope} are ingestion and use the background share;
+ * all others (queries, health checks) are interactive. A rate-limited (429) response is not
+ * returned to the caller: the quota is paused (by the response's Retry-After when the quota has
+ * seen the headers, else for at least defaultRetryAfter) and the call queues again, up to
+ * maxRateLimitRetries times.
+ */
+public class RateLimitedEmbeddingModel implements EmbeddingModel {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitedEmbeddingModel.class);
+
+    private final EmbeddingModel delegate;
+    private final EmbeddingQuota quota;
+    private final int maxRateLimitRetries;
+    private final Duration defaultRetryAfter;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    public RateLimitedEmbeddingModel(EmbeddingModel delegate,
+                                     EmbeddingQuota quota,
+                                     int maxRateLimitRetries,
+                                     Duration defaultRetryAfter) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.quota = Objects.requireNonNull(quota, "quota");
+        this.maxRateLimitRetries = maxRateLimitRetries;
+        this.defaultRetryAfter = Objects.requireNonNull(defaultRetryAfter, "defaultRetryAfter");
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        EmbeddingQuota.Priority priority = EmbeddingCacheScope.current() != null
+                ? EmbeddingQuota.Priority.BACKGROUND
+                : EmbeddingQuota.Priority.INTERACTIVE;
+        int tokens = estimateTokens(request.getInstructions());
+        for (int attempt = 0; ; attempt++) {
+            quota.acquire(tokens, priority);
+            try {
+                return delegate.call(request);
+            } catch (RuntimeException e) {
+                if (attempt >= maxRateLimitRetries || !isRateLimited(e)) {
+                    throw e;
+                }
+                quota.recordRateLimited();
+                quota.pause(defaultRetryAfter);
+                log.debug("Embedding call of {} input(s) rate limited; queueing retry {} of {}",
+                        request.getInstructions().size(), attempt + 1, maxRateLimitRetries);
+            }
+        }
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+    }
+
+    @Override
+    public int dimensions() {
+        return delegate.dimensions();
+    }
+
+    private int estimateTokens(List<String> texts) {
+        int tokens = 0;
+        for (String text : texts) {
+            tokens += tokenCountEstimator.estimate(text);
+        }
+        return tokens;
+    }
+
+    /**
+     * True for a 429 from the provider: Spring AI reports client errors as exceptions whose message
+     * starts with the status ("HTTP 429 - ..."); a plain RestClient reports TooManyRequests.
+     */
+    static boolean isRateLimited(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof HttpClientErrorException.TooManyRequests) {
+                return true;
+            }
+            if (t.getMessage() != null && t.getMessage().startsWith("HTTP 429")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,154 @@
+package com.rag.ownermanual.events;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * In-process notification that ingestion jobs changed. The job repositories publish the ids of the
+ * rows they wrote; waiting status requests and event streams subscribe per job and re-read the job
+ * when told, so an idle subscriber costs no database reads.
+ *
+ * <p>Events carry no state, only "job X changed", so a missed or duplicate event is harmless as long
+ * as the subscriber reads the job afterwards. Listeners run on the job event executor, never on the
+ * writer's thread. When a {@link Relay} is attached, published events are also sent to other nodes,
+ * and events they send arrive through {@link #deliver}.
+ */
+@Component
+public class JobEventBus {
+
+    private static final Logger log = LoggerFactory.getLogger(JobEventBus.class);
+
+    /**
+     * Transport of events to the other nodes.
+     */
+    public interface Relay {
+
+        /** Tell other nodes that these jobs changed. */
+        void send(Collection<UUID> jobIds);
+
+        /** Tell other nodes that any job may have changed. */
+        void sendAll();
+    }
+
+    /**
+     * Registration of one listener; closing it stops further calls.
+     */
+    public interface Subscription extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private final Executor executor;
+    private final Map<UUID, Set<Runnable>> listeners = new ConcurrentHashMap<>();
+    private volatile Relay relay;
+
+    public JobEventBus(@Qualifier("jobEventExecutor") Executor executor, MeterRegistry meterRegistry) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+        Gauge.builder("ingestion.job.events.subscribers", listeners,
+                        l -> l.values().stream().mapToInt(Set::size).sum())
+                .description("Status requests and event streams waiting for job changes on this node")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Calls the listener after every change of the job until the subscription is closed.
+     * Subscribe before reading the job, so a change between the read and the subscription is not missed.
+     */
+    public Subscription subscribe(UUID jobId, Runnable listener) {
+        Objects.requireNonNull(jobId, "jobId");
+        Objects.requireNonNull(listener, "listener");
+        listeners.computeIfAbsent(jobId, id -> new CopyOnWriteArraySet<>()).add(listener);
+        return () -> listeners.computeIfPresent(jobId, (id, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Announce a change of one job to local subscribers and, through the relay, to other nodes.
+     */
+    public void publish(UUID jobId) {
+        publish(List.of(jobId));
+    }
+
+    /**
+     * Announce a change of several jobs, e.g. one batched write.
+     */
+    public void publish(Collection<UUID> jobIds) {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+        deliver(jobIds);
+        Relay current = relay;
+        if (current != null) {
+            current.send(jobIds);
+        }
+    }
+
+    /**
+     * Announce that any job may have changed, for writes that do not know which rows they touched.
+     */
+    public void publishAll() {
+        deliverAll();
+        Relay current = relay;
+        if (current != null) {
+            current.sendAll();
+        }
+    }
+
+    /**
+     * Wake local subscribers of these jobs only; used for events received from other nodes.
+     */
+    public void deliver(Collection<UUID> jobIds) {
+        for (UUID jobId : jobIds) {
+            Set<Runnable> subscribers = listeners.get(jobId);
+            if (subscribers != null) {
+                subscribers.forEach(this::dispatch);
+            }
+        }
+    }
+
+    /**
+     * Wake every local subscriber, e.g. after events may have been lost.
+     */
+    public void deliverAll() {
+        listeners.values().forEach(subscribers -> subscribers.forEach(this::dispatch));
+    }
+
+    /**
+     * Route published events to other nodes as well; null detaches.
+     */
+    public void attach(Relay relay) {
+        this.relay = relay;
+    }
+
+    private void dispatch(Runnable listener) {
+        try {
+            executor.execute(() -> {
+                try {
+                    listener.run();
+                } catch (RuntimeException e) {
+                    log.warn("Job event listener failed", e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped job event; executor is shutting down or saturated");
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.rag.ownermanual.events;
+
+import com.rag.ownermanual.config.DatasourceProperties;
+import com.rag.ownermanual.config.IngestionProperties;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Relays JobEventBus events between nodes over Postgres LISTEN/NOTIFY on one channel.
+ *
+ * <p>A notification's payload is the sending node's id followed by the changed job ids
+ * ({@code node:id,id,...}, split to stay under the 8000-byte payload limit) or {@code node:*} for
+ * all jobs; a node ignores its own. NOTIFY goes through the pool. LISTEN needs a session of its
+ * own, so each node opens one dedicated connection outside the pool, to
+ * app.ingestion.events.listen-url or else the primary URL; a transaction-mode pooler (PgBouncer,
+ * Supabase on port 6543) hands each transaction a different server session and delivers nothing.
+ * After that connection is lost and re-established, every local subscriber is woken, since events
+ * sent in between were missed. Inactive on databases other than Postgres, where the bus stays
+ * node-local.
+ */
+@Component
+public class PostgresJobEventRelay implements JobEventBus.Relay, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresJobEventRelay.class);
+
+    static final String CHANNEL = "ingestion_job_events";
+    private static final String ALL = "*";
+    private static final String POSTGRES_URL_PREFIX = "jdbc:postgresql:";
+    /** Postgres rejects payloads of 8000 bytes or more; ids are ASCII. */
+    private static final int MAX_PAYLOAD = 7_900;
+    private static final long POLL_MILLIS = 1_000;
+    /** Port of the Supabase transaction-mode pooler. */
+    private static final int TRANSACTION_POOLER_PORT = 6543;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobEventBus bus;
+    private final IngestionProperties.Events settings;
+    private final String listenUrl;
+    private final String username;
+    private final String password;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresJobEventRelay(DatasourceProperties datasourceProperties,
+                                 JdbcTemplate jdbcTemplate,
+                                 JobEventBus bus,
+                                 IngestionProperties ingestionProperties) {
+        Objects.requireNonNull(datasourceProperties, "datasourceProperties");
+        this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+        this.bus = Objects.requireNonNull(bus, "bus");
+        this.settings = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getEvents();
+        this.listenUrl = settings.getListenUrl() != null && !settings.getListenUrl().isBlank()
+                ? settings.getListenUrl() : datasourceProperties.getUrl();
+        this.username = datasourceProperties.getUsername();
+        this.password = datasourceProperties.getPassword();
+    }
+
+    @Override
+    public void start() {
+        if (!settings.isNotifyEnabled() || listenUrl == null || !listenUrl.startsWith(POSTGRES_URL_PREFIX)) {
+            log.info("Job events stay on this node (LISTEN/NOTIFY disabled or not on Postgres)");
+            return;
+        }
+        if (isTransactionPooler(listenUrl)) {
+            log.warn("Job event listener URL points at a transaction-mode pooler, which delivers no LISTEN "
+                    + "notifications; set app.ingestion.events.listen-url to a direct or session-mode connection. "
+                    + "Other nodes' job events reach this node only through request timeouts until then.");
+        }
+        running = true;
+        listener = new Thread(this::listen, "job-events-listener");
+        listener.setDaemon(true);
+        listener.start();
+        bus.attach(this);
+        log.info("Relaying job events between nodes on channel {}", CHANNEL);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        bus.attach(null);
+        running = false;
+        listener.interrupt();
+        try {
+            listener.join(POLL_MILLIS * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void send(Collection<UUID> jobIds) {
+        for (String payload : payloads(nodeId, jobIds)) {
+            notify(payload);
+        }
+    }
+
+    @Override
+    public void sendAll() {
+        notify(nodeId + ":" + ALL);
+    }
+
+    /**
+     * One NOTIFY per payload. A failure is logged, not thrown: the write that triggered it has
+     * already been committed, and remote subscribers still see the change on their timeout.
+     */
+    private void notify(String payload) {
+        try {
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) rs -> null, CHANNEL, payload);
+        } catch (DataAccessException e) {
+            log.warn("Could not send job event to other nodes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Holds the dedicated connection while running. Stopping ends with UNLISTEN and closes it; a
+     * failed connection is closed and a new one opened after the reconnect delay.
+     */
+    private void listen() {
+        boolean reconnect = false;
+        while (running) {
+            try (Connection connection = openListenConnection()) {
+                execute(connection, "LISTEN " + CHANNEL);
+                PGConnection pg = connection.unwrap(PGConnection.class);
+                if (reconnect) {
+                    log.info("Job event listener reconnected");
+                    bus.deliverAll();
+                }
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) POLL_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+                execute(connection, "UNLISTEN " + CHANNEL);
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Job event listener lost its connection; retrying in {}: {}",
+                        settings.getReconnectDelay(), e.getMessage());
+                reconnect = true;
+                try {
+                    Thread.sleep(settings.getReconnectDelay().toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        String ids = payload.substring(separator + 1);
+        if (ids.equals(ALL)) {
+            bus.deliverAll();
+            return;
+        }
+        List<UUID> jobIds = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            try {
+                jobIds.add(UUID.fromString(id));
+            } catch (IllegalArgumentException e) {
+                log.debug("Ignoring malformed job id in job event: {}", id);
+            }
+        }
+        bus.deliver(jobIds);
+    }
+
+    /** Payloads {@code node:id,id,...} each under MAX_PAYLOAD bytes. */
+    static List<String> payloads(String nodeId, Collection<UUID> jobIds) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder();
+        for (UUID jobId : jobIds) {
+            String id = jobId.toString();
+            if (!payload.isEmpty() && payload.length() + 1 + id.length() > MAX_PAYLOAD) {
+                payloads.add(payload.toString());
+                payload.setLength(0);
+            }
+            payload.append(payload.isEmpty() ? nodeId + ":" : ",").append(id);
+        }
+        if (!payload.isEmpty()) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    /** Not from the pool: a pooled connection would be held past its max lifetime and reported as a leak. */
+    private Connection openListenConnection() throws SQLException {
+        Properties properties = new Properties();
+        if (username != null) {
+            properties.setProperty("user", username);
+        }
+        if (password != null) {
+            properties.setProperty("password", password);
+        }
+        properties.setProperty("ApplicationName", "job-events-listener");
+        // Lets a half-open connection fail instead of waiting for notifications forever.
+        properties.setProperty("tcpKeepAlive", "true");
+        return DriverManager.getConnection(listenUrl, properties);
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * True when the URL uses the Supabase transaction pooler port or asks pgjdbc for PgBouncer
+     * compatibility. Session-mode poolers and direct connections keep LISTEN working.
+     */
+    static boolean isTransactionPooler(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url.substring("jdbc:".length()));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        String query = uri.getRawQuery();
+        return uri.getPort() == TRANSACTION_POOLER_PORT
+                || (query != null && query.toLowerCase(Locale.ROOT).contains("pgbouncer=true"));
+    }
+}
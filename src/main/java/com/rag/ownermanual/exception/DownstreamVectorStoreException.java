@@ -2,8 +2,8 @@ package com.rag.ownermanual.exception;
 
 /**
  * <p>Signals that the vector store (Qdrant / Spring AI VectorStore) failed while
- * serving a read-path query – for example due to timeouts, connectivity issues,
- * or server-side errors.</p>
+ * serving a read-path query or an ingestion write – for example due to timeouts,
+ * connectivity issues, or server-side errors.</p>
  */
 public class DownstreamVectorStoreException extends RuntimeException {
 
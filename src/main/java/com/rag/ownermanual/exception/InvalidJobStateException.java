@@ -0,0 +1,12 @@
+package com.rag.ownermanual.exception;
+
+/**
+ * Signals that an operation is not allowed in the job's current status (e.g. resuming a job that
+ * has not failed).
+ */
+public class InvalidJobStateException extends RuntimeException {
+
+    public InvalidJobStateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,16 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ApiKey;
+
+import java.util.List;
+
+/**
+ * Client API keys (api_keys table).
+ */
+public interface ApiKeyRepository {
+
+    /**
+     * All keys that are not revoked. Small enough (hundreds of rows) to be cached whole on every node.
+     */
+    List<ApiKey> findActive();
+}
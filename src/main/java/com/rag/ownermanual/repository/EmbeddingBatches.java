@@ -0,0 +1,43 @@
+package com.rag.ownermanual.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Splits items into consecutive batches bounded by an estimated token budget and an item count.
+ * An item whose estimate alone exceeds the budget gets a batch of its own rather than being dropped;
+ * the provider will reject it, and only that batch fails.
+ */
+final class EmbeddingBatches {
+
+    private EmbeddingBatches() {
+    }
+
+    /**
+     * A batch and its estimated token count.
+     */
+    record Batch<T>(List<T> items, int estimatedTokens) {
+    }
+
+    static <T> List<Batch<T>> partition(List<T> items, ToIntFunction<T> tokenEstimator, int maxTokens, int maxItems) {
+        List<Batch<T>> batches = new ArrayList<>();
+        List<T> current = new ArrayList<>();
+        int currentTokens = 0;
+        for (T item : items) {
+            int tokens = tokenEstimator.applyAsInt(item);
+            boolean full = current.size() == maxItems || currentTokens + tokens > maxTokens;
+            if (!current.isEmpty() && full) {
+                batches.add(new Batch<>(current, currentTokens));
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(item);
+            currentTokens += tokens;
+        }
+        if (!current.isEmpty()) {
+            batches.add(new Batch<>(current, currentTokens));
+        }
+        return batches;
+    }
+}
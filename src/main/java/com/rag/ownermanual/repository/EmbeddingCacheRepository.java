@@ -0,0 +1,29 @@
+package com.rag.ownermanual.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Persistence contract for cached embeddings (Postgres). Entries are keyed by a content hash that
+ * already includes the embedding model and dimensions; both are stored as well so a lookup can
+ * never return a vector from another namespace, even on a hash collision or a bad key.
+ */
+public interface EmbeddingCacheRepository {
+
+    /**
+     * Load cached vectors for the given keys.
+     * @param model      Embedding model the vectors must come from.
+     * @param dimensions Vector dimensions the vectors must have.
+     * @param keys       Cache keys to look up.
+     * @return Vectors by key for the keys found; never null.
+     */
+    Map<String, float[]> findAll(String model, int dimensions, Collection<String> keys);
+
+    /**
+     * Store vectors; keys that already exist are left unchanged.
+     * @param model      Embedding model that produced the vectors.
+     * @param dimensions Vector dimensions.
+     * @param vectors    Vectors by cache key.
+     */
+    void saveAll(String model, int dimensions, Map<String, float[]> vectors);
+}
@@ -0,0 +1,29 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.IngestionBatch;
+import com.rag.ownermanual.domain.IngestionBatchProgress;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persistence contract for bulk ingest batches (Postgres): the parent ingestion_batches row and
+ * its child jobs on the ingestion_jobs queue.
+ */
+public interface IngestionBatchRepository {
+
+    /**
+     * Persist the batch and enqueue one CREATED job per child, all in one transaction, so workers
+     * never see part of a batch.
+     * @param batch Batch to create; child job ids must be new.
+     */
+    void create(IngestionBatch batch);
+
+    /**
+     * Aggregate the batch's child jobs by status with a single grouped query, however many children
+     * the batch has.
+     * @param batchId Batch id.
+     * @return The aggregate; empty if the batch does not exist.
+     */
+    Optional<IngestionBatchProgress> findProgress(UUID batchId);
+}
@@ -0,0 +1,37 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.IngestionCheckpoint;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persistence contract for ingestion job checkpoints (Postgres). IngestionPipeline commits one
+ * checkpoint step per upserted batch and reads the checkpoint when a job is retried, taken over or
+ * resumed, so it can skip pages an earlier attempt already stored.
+ */
+public interface IngestionCheckpointRepository {
+
+    /**
+     * Load the checkpoint of a job.
+     * @param jobId Job id.
+     * @return The checkpoint; empty if the job has committed nothing (or has completed).
+     */
+    Optional<IngestionCheckpoint> findByJobId(UUID jobId);
+
+    /**
+     * Record one upserted batch atomically.
+     * @param jobId          Job id.
+     * @param documentSha256 Hex SHA-256 of the document, or null if the parser has not reported it yet.
+     * @param chunks         Chunks in the batch.
+     * @param completedPages Pages whose last chunk was in this batch (page key → page hash); may be empty.
+     */
+    void commitBatch(UUID jobId, String documentSha256, int chunks, Map<Integer, String> completedPages);
+
+    /**
+     * Remove the checkpoint of a job; a no-op if it has none.
+     * @param jobId Job id.
+     */
+    void delete(UUID jobId);
+}
@@ -0,0 +1,26 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.IngestionJobPartitionChanges;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Maintenance of the monthly partitions of ingestion_jobs (Postgres only; see
+ * db/vendor/postgresql/V10__partition_ingestion_jobs.sql).
+ */
+public interface IngestionJobPartitionRepository {
+
+    /**
+     * Create the missing partitions up to and including {@code createThrough}, and detach and drop
+     * the partitions of months before {@code keepFrom} that hold no CREATED or PROCESSING jobs,
+     * together with those jobs' checkpoints. Runs under a cluster-wide lock, so concurrent calls from
+     * other nodes do nothing.
+     * @param createThrough Last month that must have a partition.
+     * @param keepFrom Oldest month kept.
+     * @return What changed; empty if ingestion_jobs is not partitioned or another node holds the lock.
+     * @throws org.springframework.dao.PessimisticLockingFailureException if a DDL statement timed out
+     *         waiting for its table lock; the changes made before it stay.
+     */
+    Optional<IngestionJobPartitionChanges> maintain(YearMonth createThrough, YearMonth keepFrom);
+}
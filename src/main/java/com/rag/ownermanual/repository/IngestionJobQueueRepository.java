@@ -0,0 +1,99 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.JobLease;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Durable work queue on the ingestion_jobs table. Workers on any number of nodes claim jobs with
+ * leases; a lease is renewed by heartbeats and a job whose lease expires is claimed again by another
+ * worker. Every write after the claim is fenced on the lease owner, so a worker that lost its lease
+ * cannot overwrite the state written by the worker that took the job over.
+ */
+public interface IngestionJobQueueRepository {
+
+    /**
+     * Persist a new CREATED job together with the document it should ingest.
+     * @param job         Job to enqueue; id, manualId, status, timestamps must be set.
+     * @param documentUrl URL of the document to fetch and parse.
+     */
+    void enqueue(IngestionJob job, String documentUrl);
+
+    /**
+     * Claim up to {@code limit} jobs: CREATED jobs that are due, oldest first, and PROCESSING jobs
+     * whose lease has expired and that have attempts left. Rows locked by a concurrent claim are
+     * skipped rather than waited on.
+     * @param owner Worker id recorded as lease owner.
+     * @param limit Maximum number of jobs to claim.
+     * @return Leases for the claimed jobs; empty when nothing is due.
+     */
+    List<JobLease> claimNext(String owner, int limit);
+
+    /**
+     * Same as {@link #claimNext(String, int)}, restricted to one tenant's jobs.
+     * @param tenant Tenant whose jobs to claim; null for any tenant.
+     */
+    List<JobLease> claimNext(String owner, String tenant, int limit);
+
+    /**
+     * Count claimable jobs (as defined by {@link #claimNext(String, int)}) per tenant, so the
+     * worker can share its free slots between tenants before claiming.
+     * @return Due job count per tenant; tenants without due jobs are absent.
+     */
+    Map<String, Integer> countDueByTenant();
+
+    /**
+     * Claim one specific job if it is CREATED. The status check and transition are one UPDATE, so
+     * at most one caller wins.
+     * @param jobId Job to claim.
+     * @param owner Worker id recorded as lease owner.
+     * @return The lease; empty if the job does not exist or is not CREATED.
+     */
+    Optional<JobLease> claim(UUID jobId, String owner);
+
+    /**
+     * Extend the lease of a job this owner still holds.
+     * @return false if the lease was lost (expired and taken over, or the job is no longer PROCESSING).
+     */
+    boolean renewLease(UUID jobId, String owner);
+
+    /**
+     * Mark a leased job COMPLETED with the outcome of the run and clear its lease, in one UPDATE.
+     * @param changes Added/updated/unchanged/deleted chunk counts of the run.
+     * @return false if the lease was lost; the job was not changed.
+     */
+    boolean complete(UUID jobId, String owner, ChunkChangeCounts changes);
+
+    /**
+     * Mark a leased job FAILED for good and clear its lease.
+     * @return false if the lease was lost; the job was not changed.
+     */
+    boolean fail(UUID jobId, String owner, String errorMessage);
+
+    /**
+     * Put a leased job back to CREATED to be claimed again at {@code nextAttemptAt}, keeping the
+     * error of the failed attempt.
+     * @return false if the lease was lost; the job was not changed.
+     */
+    boolean retryLater(UUID jobId, String owner, String errorMessage, Instant nextAttemptAt);
+
+    /**
+     * Put a FAILED job back to CREATED with a fresh attempt budget, to be claimed immediately. Its
+     * checkpoint is untouched, so the next attempt resumes where the failed one stopped.
+     * @return false if the job does not exist, is not FAILED or has no document_url.
+     */
+    boolean requeueFailed(UUID jobId);
+
+    /**
+     * Fail PROCESSING jobs whose lease expired after their last allowed attempt, i.e. whose workers
+     * died on every attempt.
+     * @return Number of jobs failed.
+     */
+    int failExhausted();
+}
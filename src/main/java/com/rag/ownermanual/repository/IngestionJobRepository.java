@@ -1,8 +1,15 @@
 package com.rag.ownermanual.repository;
 
+import com.rag.ownermanual.domain.ChunkChangeCounts;
 import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.IngestionJobCursor;
+import com.rag.ownermanual.domain.IngestionJobFilter;
 import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionJobSummary;
+import com.rag.ownermanual.domain.IngestionProgress;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -26,6 +33,24 @@ public interface IngestionJobRepository {
      */
     Optional<IngestionJob> findById(UUID id);
 
+    /**
+     * Load a job from the read replica, when one is configured. The result may lag writes by the
+     * replication delay; use {@link #findById} when the caller must see its own or a just-announced write.
+     * @param id Job id (UUID).
+     * @return The job if found; empty if it exists on neither the replica nor the primary.
+     */
+    Optional<IngestionJob> findByIdOnReplica(UUID id);
+
+    /**
+     * List jobs newest first, ordered by (createdAt, id) descending, using keyset pagination.
+     * Served by the read replica, when one is configured.
+     * @param filter Criteria; null fields do not filter.
+     * @param after  Last job of the previous page; null for the first page.
+     * @param limit  Maximum number of jobs to return.
+     * @return Up to limit jobs strictly after {@code after}, as list projections.
+     */
+    List<IngestionJobSummary> findPage(IngestionJobFilter filter, IngestionJobCursor after, int limit);
+
     /**
      * Update status (and optionally error message) for an existing job.
      * @param id           Job id.
@@ -33,4 +58,20 @@ public interface IngestionJobRepository {
      * @param errorMessage Error message when status is FAILED; null otherwise.
      */
     void updateStatus(UUID id, IngestionJobStatus status, String errorMessage);
+
+    /**
+     * Record the outcome of an incremental ingestion for an existing job.
+     * @param id      Job id.
+     * @param changes Added/updated/unchanged/deleted chunk counts.
+     */
+    void updateChunkChanges(UUID id, ChunkChangeCounts changes);
+
+    /**
+     * Write the latest progress of jobs leased by one worker, in a single batch. Fenced like the
+     * queue's transitions: a job that is no longer PROCESSING under this owner is left untouched.
+     * @param leaseOwner Worker holding the leases.
+     * @param progress   Latest progress per job id.
+     * @return Number of jobs updated.
+     */
+    int updateProgress(String leaseOwner, Map<UUID, IngestionProgress> progress);
 }
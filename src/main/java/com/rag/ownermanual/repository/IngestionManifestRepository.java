@@ -0,0 +1,40 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ManifestEntry;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Persistence contract for per-manual ingestion manifests (Postgres). IngestionPipeline reads the
+ * manifest before a run to skip unchanged pages and find orphaned chunks, and replaces it after the
+ * run succeeds.
+ */
+public interface IngestionManifestRepository {
+
+    /**
+     * Load the manifest of a manual.
+     * @param manualId Manual id.
+     * @return Entries of the last successful ingestion; empty if the manual was never ingested.
+     */
+    List<ManifestEntry> findByManualId(String manualId);
+
+    /**
+     * Load the content hash of the document the manual's manifest was built from, provided it was
+     * built with the given processing settings.
+     * @param manualId              Manual id.
+     * @param processingFingerprint Fingerprint of the current processing settings.
+     * @return Hex SHA-256 of the last successfully ingested document; empty if never ingested or
+     *         ingested with other settings.
+     */
+    Optional<String> findDocumentHash(String manualId, String processingFingerprint);
+
+    /**
+     * Replace the manifest of a manual atomically.
+     * @param manualId              Manual id.
+     * @param documentSha256        Hex SHA-256 of the document the entries were built from.
+     * @param processingFingerprint Fingerprint of the processing settings the entries were built with.
+     * @param entries               Entries of the chunks now in the vector store.
+     */
+    void replace(String manualId, String documentSha256, String processingFingerprint, List<ManifestEntry> entries);
+}
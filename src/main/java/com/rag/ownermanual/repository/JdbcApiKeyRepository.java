@@ -0,0 +1,50 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ApiKey;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC implementation of ApiKeyRepository for the api_keys table.
+ */
+@Component
+public class JdbcApiKeyRepository implements ApiKeyRepository {
+
+    private static final String TABLE = "api_keys";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcApiKeyRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<ApiKey> findActive() {
+        String sql = """
+            SELECT id, name, key_prefix, key_hash, tier, scopes FROM %s
+            WHERE revoked_at IS NULL
+            """.formatted(TABLE);
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new ApiKey(
+                rs.getObject("id", UUID.class),
+                rs.getString("name"),
+                rs.getString("key_prefix"),
+                rs.getString("key_hash").trim(),
+                rs.getString("tier"),
+                scopes(rs.getString("scopes"))
+        ));
+    }
+
+    private static Set<String> scopes(String scopes) {
+        return Arrays.stream(scopes.split(","))
+                .map(String::trim)
+                .filter(scope -> !scope.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+}
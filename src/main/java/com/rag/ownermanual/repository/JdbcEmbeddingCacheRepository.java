@@ -0,0 +1,108 @@
+package com.rag.ownermanual.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC implementation of EmbeddingCacheRepository for the embedding_cache table. Vectors are
+ * stored as packed little-endian float32 (1.5 KB for 384 dimensions).
+ */
+@Component
+public class JdbcEmbeddingCacheRepository implements EmbeddingCacheRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcEmbeddingCacheRepository.class);
+
+    private static final String TABLE = "embedding_cache";
+
+    /** Keys per IN (...) lookup; keeps statements well under driver parameter limits. */
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcEmbeddingCacheRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<String, float[]> findAll(String model, int dimensions, Collection<String> keys) {
+        Map<String, float[]> found = new HashMap<>();
+        List<String> remaining = List.copyOf(keys);
+        for (int from = 0; from < remaining.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<String> slice = remaining.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, remaining.size()));
+            String placeholders = String.join(", ", Collections.nCopies(slice.size(), "?"));
+            String sql = """
+                SELECT cache_key, vector FROM %s
+                WHERE model = ? AND dimensions = ? AND cache_key IN (%s)
+                """.formatted(TABLE, placeholders);
+
+            List<Object> args = new ArrayList<>(slice.size() + 2);
+            args.add(model);
+            args.add(dimensions);
+            args.addAll(slice);
+            jdbcTemplate.query(sql, rs -> {
+                found.put(rs.getString("cache_key").trim(), decode(rs.getBytes("vector")));
+            }, args.toArray());
+        }
+        return found;
+    }
+
+    /**
+     * Inserts only keys that are not present. Two jobs caching the same text at the same moment
+     * can still collide on the primary key; the vectors are identical, so the batch is retried
+     * row by row and duplicates are skipped.
+     */
+    @Override
+    public void saveAll(String model, int dimensions, Map<String, float[]> vectors) {
+        if (vectors.isEmpty()) {
+            return;
+        }
+        String sql = """
+            INSERT INTO %s (cache_key, model, dimensions, vector, created_at)
+            SELECT ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM %s WHERE cache_key = ?)
+            """.formatted(TABLE, TABLE);
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = new ArrayList<>(vectors.size());
+        vectors.forEach((key, vector) -> rows.add(new Object[]{key, model, dimensions, encode(vector), now, key}));
+        try {
+            jdbcTemplate.batchUpdate(sql, rows);
+        } catch (DuplicateKeyException e) {
+            log.debug("Concurrent embedding cache insert; retrying {} row(s) individually", rows.size());
+            for (Object[] row : rows) {
+                try {
+                    jdbcTemplate.update(sql, row);
+                } catch (DuplicateKeyException ignored) {
+                    // Same content cached by another job.
+                }
+            }
+        }
+    }
+
+    static byte[] encode(float[] vector) {
+        ByteBuffer buffer = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(vector);
+        return buffer.array();
+    }
+
+    static float[] decode(byte[] bytes) {
+        FloatBuffer floats = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        float[] vector = new float[floats.remaining()];
+        floats.get(vector);
+        return vector;
+    }
+}
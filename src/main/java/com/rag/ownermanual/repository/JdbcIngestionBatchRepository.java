@@ -0,0 +1,121 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionBatch;
+import com.rag.ownermanual.domain.IngestionBatchProgress;
+import com.rag.ownermanual.domain.IngestionJobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of IngestionBatchRepository for the ingestion_batches table and the batch
+ * columns of ingestion_jobs.
+ */
+@Component
+public class JdbcIngestionBatchRepository implements IngestionBatchRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcIngestionBatchRepository.class);
+
+    private static final String TABLE = "ingestion_batches";
+    private static final String JOBS_TABLE = "ingestion_jobs";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcIngestionBatchRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+        this.transactionTemplate = Objects.requireNonNull(transactionTemplate, "transactionTemplate");
+    }
+
+    @Override
+    public void create(IngestionBatch batch) {
+        String batchSql = "INSERT INTO %s (id, tenant, job_count, created_at) VALUES (?, ?, ?, ?)".formatted(TABLE);
+        String jobSql = """
+            INSERT INTO %s (id, manual_id, status, created_at, updated_at, document_url, next_attempt_at, batch_id, tenant)
+            VALUES (?, ?, 'CREATED', ?, ?, ?, ?, ?, ?)
+            """.formatted(JOBS_TABLE);
+
+        Timestamp createdAt = Timestamp.from(batch.createdAt());
+        List<Object[]> jobRows = batch.children().stream()
+                .map(child -> new Object[]{
+                        child.jobId(), child.manualId(), createdAt, createdAt, child.documentUrl(), createdAt,
+                        batch.id(), batch.tenant()})
+                .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(batchSql, batch.id(), batch.tenant(), batch.children().size(), createdAt);
+            jdbcTemplate.batchUpdate(jobSql, jobRows);
+        });
+        log.debug("Created ingestion batch id={} tenant={} with {} job(s)", batch.id(), batch.tenant(), jobRows.size());
+    }
+
+    /**
+     * One LEFT JOIN grouped by child status; the (batch_id, status) index keeps it to the batch's
+     * own rows. Children are created with the batch's created_at, which lets Postgres skip the
+     * ingestion_jobs partitions of earlier months.
+     */
+    @Override
+    public Optional<IngestionBatchProgress> findProgress(UUID batchId) {
+        String sql = """
+            SELECT b.tenant, b.job_count, b.created_at, j.status, COUNT(j.id) AS jobs,
+                   COALESCE(SUM(j.chunks_added), 0) AS added, COALESCE(SUM(j.chunks_updated), 0) AS updated,
+                   COALESCE(SUM(j.chunks_unchanged), 0) AS unchanged, COALESCE(SUM(j.chunks_deleted), 0) AS deleted,
+                   MAX(j.updated_at) AS updated_at
+            FROM %s b LEFT JOIN %s j ON j.batch_id = b.id AND j.created_at >= b.created_at
+            WHERE b.id = ?
+            GROUP BY b.tenant, b.job_count, b.created_at, j.status
+            """.formatted(TABLE, JOBS_TABLE);
+
+        List<StatusRow> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            Timestamp lastUpdate = rs.getTimestamp("updated_at");
+            return new StatusRow(
+                    rs.getString("tenant"),
+                    rs.getInt("job_count"),
+                    rs.getTimestamp("created_at").toInstant(),
+                    rs.getString("status"),
+                    rs.getInt("jobs"),
+                    new ChunkChangeCounts(rs.getInt("added"), rs.getInt("updated"), rs.getInt("unchanged"), rs.getInt("deleted")),
+                    lastUpdate != null ? lastUpdate.toInstant() : null
+            );
+        }, batchId);
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+
+        StatusRow first = rows.get(0);
+        Map<IngestionJobStatus, Integer> jobsByStatus = new EnumMap<>(IngestionJobStatus.class);
+        ChunkChangeCounts chunkChanges = new ChunkChangeCounts(0, 0, 0, 0);
+        Instant updatedAt = first.createdAt();
+        for (StatusRow row : rows) {
+            if (row.status() == null) {
+                continue; // batch without child rows
+            }
+            IngestionJobStatus status = IngestionJobStatus.valueOf(row.status());
+            jobsByStatus.put(status, row.jobs());
+            if (status == IngestionJobStatus.COMPLETED) {
+                chunkChanges = row.chunkChanges();
+            }
+            if (row.updatedAt() != null && row.updatedAt().isAfter(updatedAt)) {
+                updatedAt = row.updatedAt();
+            }
+        }
+        return Optional.of(new IngestionBatchProgress(
+                batchId, first.tenant(), first.jobCount(), jobsByStatus, chunkChanges, first.createdAt(), updatedAt));
+    }
+
+    private record StatusRow(String tenant, int jobCount, Instant createdAt, String status, int jobs,
+                             ChunkChangeCounts chunkChanges, Instant updatedAt) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.IngestionCheckpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of IngestionCheckpointRepository for the ingestion_checkpoints and
+ * ingestion_checkpoint_pages tables.
+ */
+@Component
+public class JdbcIngestionCheckpointRepository implements IngestionCheckpointRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcIngestionCheckpointRepository.class);
+
+    private static final String TABLE = "ingestion_checkpoints";
+    private static final String PAGES_TABLE = "ingestion_checkpoint_pages";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcIngestionCheckpointRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public Optional<IngestionCheckpoint> findByJobId(UUID jobId) {
+        String sql = """
+            SELECT document_sha256, last_page_key, batches_committed, chunks_committed
+            FROM %s WHERE job_id = ?
+            """.formatted(TABLE);
+        String pagesSql = "SELECT page_key, page_hash FROM %s WHERE job_id = ?".formatted(PAGES_TABLE);
+
+        return transactionTemplate.execute(status -> {
+            Map<Integer, String> pageHashes = new HashMap<>();
+            jdbcTemplate.query(pagesSql, rs -> {
+                pageHashes.put(rs.getInt("page_key"), rs.getString("page_hash").trim());
+            }, jobId);
+            return jdbcTemplate.query(sql, (rs, rowNum) -> {
+                String documentSha256 = rs.getString("document_sha256");
+                return new IngestionCheckpoint(
+                        jobId,
+                        documentSha256 == null ? null : documentSha256.trim(),
+                        rs.getInt("last_page_key"),
+                        rs.getInt("batches_committed"),
+                        rs.getInt("chunks_committed"),
+                        pageHashes
+                );
+            }, jobId).stream().findFirst();
+        });
+    }
+
+    /**
+     * Updates the checkpoint row (inserting it on the first batch) and replaces the completed pages
+     * in one transaction. A job is only processed by its lease owner, so there is no concurrent
+     * first insert to guard against.
+     */
+    @Override
+    public void commitBatch(UUID jobId, String documentSha256, int chunks, Map<Integer, String> completedPages) {
+        String updateSql = """
+            UPDATE %s SET document_sha256 = COALESCE(?, document_sha256),
+                   last_page_key = GREATEST(last_page_key, ?),
+                   batches_committed = batches_committed + 1,
+                   chunks_committed = chunks_committed + ?,
+                   updated_at = ?
+            WHERE job_id = ?
+            """.formatted(TABLE);
+        String insertSql = """
+            INSERT INTO %s (job_id, document_sha256, last_page_key, batches_committed, chunks_committed, updated_at)
+            VALUES (?, ?, ?, 1, ?, ?)
+            """.formatted(TABLE);
+        String deletePageSql = "DELETE FROM %s WHERE job_id = ? AND page_key = ?".formatted(PAGES_TABLE);
+        String insertPageSql = "INSERT INTO %s (job_id, page_key, page_hash) VALUES (?, ?, ?)".formatted(PAGES_TABLE);
+
+        int lastPageKey = completedPages.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> pageKeys = completedPages.keySet().stream()
+                .map(pageKey -> new Object[]{jobId, pageKey})
+                .toList();
+        List<Object[]> pageRows = completedPages.entrySet().stream()
+                .map(page -> new Object[]{jobId, page.getKey(), page.getValue()})
+                .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (jdbcTemplate.update(updateSql, documentSha256, lastPageKey, chunks, now, jobId) == 0) {
+                jdbcTemplate.update(insertSql, jobId, documentSha256, lastPageKey, chunks, now);
+            }
+            jdbcTemplate.batchUpdate(deletePageSql, pageKeys);
+            jdbcTemplate.batchUpdate(insertPageSql, pageRows);
+        });
+        log.debug("Checkpointed job id={}: {} chunk(s), {} completed page(s) through page {}",
+                jobId, chunks, completedPages.size(), lastPageKey);
+    }
+
+    @Override
+    public void delete(UUID jobId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM %s WHERE job_id = ?".formatted(PAGES_TABLE), jobId);
+            jdbcTemplate.update("DELETE FROM %s WHERE job_id = ?".formatted(TABLE), jobId);
+        });
+    }
+}
@@ -0,0 +1,161 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.IngestionJobPartitionChanges;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * JDBC implementation of IngestionJobPartitionRepository. A run holds one connection: the session
+ * advisory lock is tied to it, and DETACH ... CONCURRENTLY must run outside a transaction block
+ * (autocommit), which a pooled connection outside Spring transactions already is. CONCURRENTLY takes
+ * no lock that blocks queries on ingestion_jobs; a detach interrupted half-way is finished with
+ * FINALIZE on the next run. Partitions not named ingestion_jobs_pYYYYMM are left alone.
+ *
+ * <p>New months are created as standalone tables and then attached: ATTACH PARTITION takes SHARE
+ * UPDATE EXCLUSIVE on ingestion_jobs, where CREATE TABLE ... PARTITION OF needs ACCESS EXCLUSIVE and,
+ * while queued behind a long query, would block every read and write behind it. All DDL runs with
+ * lock_timeout ({@value #LOCK_TIMEOUT}); a timeout surfaces as a
+ * {@link org.springframework.dao.PessimisticLockingFailureException} and the run is repeated on the
+ * next schedule (CREATE ... IF NOT EXISTS picks up a table whose attach timed out).
+ *
+ * <p>An expired month is checked for open jobs again once detached: a FAILED job requeued between
+ * the first check and the detach would otherwise be dropped. If one turned up the table is attached
+ * again (waiting for the lock as long as needed) and kept. Checkpoints of the month's jobs (kept for FAILED jobs so they can resume) are
+ * deleted before the table is dropped.
+ */
+@Component
+public class JdbcIngestionJobPartitionRepository implements IngestionJobPartitionRepository {
+
+    private static final String TABLE = "ingestion_jobs";
+    /** Arbitrary key of the cluster-wide maintenance lock. */
+    private static final long LOCK_KEY = 0x696e67_6a6f6273L;
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("uuuuMM");
+    private static final Pattern PARTITION = Pattern.compile(TABLE + "_p(\\d{6})");
+    private static final String LOCK_TIMEOUT = "5s";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcIngestionJobPartitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+    }
+
+    @Override
+    public Optional<IngestionJobPartitionChanges> maintain(YearMonth createThrough, YearMonth keepFrom) {
+        return jdbcTemplate.execute((ConnectionCallback<Optional<IngestionJobPartitionChanges>>) connection -> {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return Optional.empty();
+            }
+            JdbcTemplate session = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!isPartitioned(session)) {
+                return Optional.empty();
+            }
+            if (!Boolean.TRUE.equals(session.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY))) {
+                return Optional.empty();
+            }
+            try {
+                session.execute("SET lock_timeout = '%s'".formatted(LOCK_TIMEOUT));
+                return Optional.of(maintain(session, createThrough, keepFrom));
+            } finally {
+                session.execute("RESET lock_timeout");
+                session.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+            }
+        });
+    }
+
+    private IngestionJobPartitionChanges maintain(JdbcTemplate session, YearMonth createThrough, YearMonth keepFrom) {
+        NavigableMap<YearMonth, Boolean> partitions = findPartitions(session);
+
+        List<YearMonth> created = new ArrayList<>();
+        YearMonth month = partitions.isEmpty() ? keepFrom : partitions.lastKey().plusMonths(1);
+        for (; !month.isAfter(createThrough); month = month.plusMonths(1)) {
+            session.execute("CREATE TABLE IF NOT EXISTS %s (LIKE %s INCLUDING DEFAULTS INCLUDING CONSTRAINTS)"
+                    .formatted(name(month), TABLE));
+            attach(session, month);
+            created.add(month);
+        }
+
+        List<YearMonth> dropped = new ArrayList<>();
+        List<YearMonth> retained = new ArrayList<>();
+        for (Map.Entry<YearMonth, Boolean> partition : partitions.entrySet()) {
+            YearMonth expired = partition.getKey();
+            if (!expired.isBefore(keepFrom)) {
+                break;
+            }
+            String name = name(expired);
+            if (hasOpenJobs(session, name)) {
+                retained.add(expired);
+                continue;
+            }
+            boolean detachPending = partition.getValue();
+            session.execute("ALTER TABLE %s DETACH PARTITION %s %s"
+                    .formatted(TABLE, name, detachPending ? "FINALIZE" : "CONCURRENTLY"));
+            if (hasOpenJobs(session, name)) {
+                // No timeout here: giving up would leave the requeued job in a table nothing reads.
+                session.execute("SET lock_timeout = 0");
+                attach(session, expired);
+                session.execute("SET lock_timeout = '%s'".formatted(LOCK_TIMEOUT));
+                retained.add(expired);
+                continue;
+            }
+            deleteCheckpoints(session, name);
+            session.execute("DROP TABLE " + name);
+            dropped.add(expired);
+        }
+        return new IngestionJobPartitionChanges(created, dropped, retained);
+    }
+
+    private static void attach(JdbcTemplate session, YearMonth month) {
+        session.execute("ALTER TABLE %s ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')"
+                .formatted(TABLE, name(month), month.atDay(1), month.plusMonths(1).atDay(1)));
+    }
+
+    private static void deleteCheckpoints(JdbcTemplate session, String partition) {
+        session.update("DELETE FROM ingestion_checkpoint_pages WHERE job_id IN (SELECT id FROM %s)".formatted(partition));
+        session.update("DELETE FROM ingestion_checkpoints WHERE job_id IN (SELECT id FROM %s)".formatted(partition));
+    }
+
+    private static boolean isPartitioned(JdbcTemplate session) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))";
+        return Boolean.TRUE.equals(session.queryForObject(sql, Boolean.class, TABLE));
+    }
+
+    /** Month of each ingestion_jobs_pYYYYMM partition, oldest first, mapped to whether a detach is pending. */
+    private static NavigableMap<YearMonth, Boolean> findPartitions(JdbcTemplate session) {
+        String sql = """
+            SELECT c.relname, i.inhdetachpending
+            FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+            WHERE i.inhparent = to_regclass(?)
+            """;
+        TreeMap<YearMonth, Boolean> partitions = new TreeMap<>();
+        session.query(sql, rs -> {
+            Matcher matcher = PARTITION.matcher(rs.getString("relname"));
+            if (matcher.matches()) {
+                partitions.put(YearMonth.parse(matcher.group(1), SUFFIX), rs.getBoolean("inhdetachpending"));
+            }
+        }, TABLE);
+        return partitions;
+    }
+
+    private static boolean hasOpenJobs(JdbcTemplate session, String partition) {
+        String sql = "SELECT EXISTS (SELECT 1 FROM %s WHERE status IN ('CREATED', 'PROCESSING'))".formatted(partition);
+        return Boolean.TRUE.equals(session.queryForObject(sql, Boolean.class));
+    }
+
+    static String name(YearMonth month) {
+        return TABLE + "_p" + SUFFIX.format(month);
+    }
+}
@@ -0,0 +1,287 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.JobLease;
+import com.rag.ownermanual.events.JobEventBus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * JDBC implementation of IngestionJobQueueRepository on the ingestion_jobs table. Claims lock candidate rows
+ * with {@code SELECT ... FOR UPDATE SKIP LOCKED} and flip them to PROCESSING in the same
+ * transaction, so concurrent claimers on different nodes never receive the same job and never block
+ * on each other. Jobs without a document_url (created before the queue existed) are never claimed.
+ * Every status transition is published on the JobEventBus once written.
+ */
+@Component
+public class JdbcIngestionJobQueueRepository implements IngestionJobQueueRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcIngestionJobQueueRepository.class);
+
+    private static final String TABLE = "ingestion_jobs";
+
+    /** Claimable rows: due CREATED jobs and expired leases with attempts left (params: now, now, maxAttempts). */
+    private static final String DUE = """
+            document_url IS NOT NULL
+              AND ((status = 'CREATED' AND next_attempt_at <= ?)
+                OR (status = 'PROCESSING' AND lease_expires_at < ? AND attempts < ?))""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IngestionProperties.Queue queueProperties;
+    private final JobEventBus jobEventBus;
+
+    public JdbcIngestionJobQueueRepository(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 IngestionProperties ingestionProperties,
+                                 JobEventBus jobEventBus) {
+        this.jdbcTemplate = Objects.requireNonNull(jdbcTemplate, "jdbcTemplate");
+        this.transactionTemplate = Objects.requireNonNull(transactionTemplate, "transactionTemplate");
+        this.queueProperties = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getQueue();
+        this.jobEventBus = Objects.requireNonNull(jobEventBus, "jobEventBus");
+    }
+
+    @Override
+    public void enqueue(IngestionJob job, String documentUrl) {
+        String sql = """
+            INSERT INTO %s (id, manual_id, status, error_message, created_at, updated_at, document_url, next_attempt_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """.formatted(TABLE);
+
+        jdbcTemplate.update(
+                sql,
+                job.id(),
+                job.manualId(),
+                job.status().name(),
+                job.errorMessage(),
+                Timestamp.from(job.createdAt()),
+                Timestamp.from(job.updatedAt()),
+                Objects.requireNonNull(documentUrl, "documentUrl"),
+                Timestamp.from(job.createdAt())
+        );
+        log.debug("Enqueued ingestion job id={} manualId={}", job.id(), job.manualId());
+    }
+
+    @Override
+    public List<JobLease> claimNext(String owner, int limit) {
+        return claimNext(owner, null, limit);
+    }
+
+    @Override
+    public List<JobLease> claimNext(String owner, String tenant, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        String selectSql = """
+            SELECT id, created_at FROM %s
+            WHERE %s%s
+            ORDER BY next_attempt_at, created_at
+            LIMIT ?
+            FOR UPDATE SKIP LOCKED
+            """.formatted(TABLE, DUE, tenant != null ? " AND tenant = ?" : "");
+
+        List<JobLease> leases = transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.from(Instant.now());
+            List<Object> selectArgs = new ArrayList<>(List.of(now, now, queueProperties.getMaxAttempts()));
+            if (tenant != null) {
+                selectArgs.add(tenant);
+            }
+            selectArgs.add(limit);
+            List<UUID> ids = new ArrayList<>();
+            List<Timestamp> created = new ArrayList<>();
+            jdbcTemplate.query(selectSql, rs -> {
+                ids.add(rs.getObject("id", UUID.class));
+                created.add(rs.getTimestamp("created_at"));
+            }, selectArgs.toArray());
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            // The created_at range of the claimed rows limits the update to their partitions.
+            String where = "id IN (%s) AND created_at >= ? AND created_at <= ?"
+                    .formatted(String.join(", ", Collections.nCopies(ids.size(), "?")));
+            List<Object> whereArgs = new ArrayList<>(ids);
+            whereArgs.add(Collections.min(created));
+            whereArgs.add(Collections.max(created));
+            String updateSql = """
+                UPDATE %s SET status = 'PROCESSING', lease_owner = ?, lease_expires_at = ?,
+                       attempts = attempts + 1, updated_at = ?
+                WHERE %s
+                """.formatted(TABLE, where);
+            List<Object> args = new ArrayList<>(List.of(owner, leaseExpiry(), now));
+            args.addAll(whereArgs);
+            jdbcTemplate.update(updateSql, args.toArray());
+            return findLeases(where, whereArgs.toArray());
+        });
+        if (!leases.isEmpty()) {
+            log.debug("Worker {} claimed {} ingestion job(s)", owner, leases.size());
+            jobEventBus.publish(leases.stream().map(JobLease::jobId).toList());
+        }
+        return leases;
+    }
+
+    @Override
+    public Map<String, Integer> countDueByTenant() {
+        String sql = "SELECT tenant, COUNT(*) AS due FROM %s WHERE %s GROUP BY tenant".formatted(TABLE, DUE);
+
+        Timestamp now = Timestamp.from(Instant.now());
+        Map<String, Integer> due = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            due.put(rs.getString("tenant"), rs.getInt("due"));
+        }, now, now, queueProperties.getMaxAttempts());
+        return due;
+    }
+
+    @Override
+    public Optional<JobLease> claim(UUID jobId, String owner) {
+        String sql = """
+            UPDATE %s SET status = 'PROCESSING', lease_owner = ?, lease_expires_at = ?,
+                   attempts = attempts + 1, updated_at = ?
+            WHERE status = 'CREATED' AND document_url IS NOT NULL AND %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        Optional<JobLease> lease = transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update(sql,
+                    JobIdPredicate.args(jobId, owner, leaseExpiry(), Timestamp.from(Instant.now())));
+            if (updated == 0) {
+                return Optional.<JobLease>empty();
+            }
+            return findLeases(JobIdPredicate.SQL, JobIdPredicate.args(jobId)).stream().findFirst();
+        });
+        lease.ifPresent(claimed -> jobEventBus.publish(jobId));
+        return lease;
+    }
+
+    @Override
+    public boolean renewLease(UUID jobId, String owner) {
+        String sql = """
+            UPDATE %s SET lease_expires_at = ?
+            WHERE status = 'PROCESSING' AND lease_owner = ? AND %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        return jdbcTemplate.update(sql, JobIdPredicate.args(jobId, leaseExpiry(), owner)) > 0;
+    }
+
+    @Override
+    public boolean complete(UUID jobId, String owner, ChunkChangeCounts changes) {
+        String sql = """
+            UPDATE %s SET status = 'COMPLETED', error_message = NULL, lease_expires_at = NULL, updated_at = ?,
+                   chunks_added = ?, chunks_updated = ?, chunks_unchanged = ?, chunks_deleted = ?
+            WHERE status = 'PROCESSING' AND lease_owner = ? AND %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        int updated = jdbcTemplate.update(sql, JobIdPredicate.args(jobId, Timestamp.from(Instant.now()),
+                changes.added(), changes.updated(), changes.unchanged(), changes.deleted(), owner));
+        return fenced(updated, jobId, owner);
+    }
+
+    @Override
+    public boolean fail(UUID jobId, String owner, String errorMessage) {
+        String sql = """
+            UPDATE %s SET status = 'FAILED', error_message = ?, lease_expires_at = NULL, updated_at = ?
+            WHERE status = 'PROCESSING' AND lease_owner = ? AND %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        int updated = jdbcTemplate.update(sql,
+                JobIdPredicate.args(jobId, errorMessage, Timestamp.from(Instant.now()), owner));
+        return fenced(updated, jobId, owner);
+    }
+
+    @Override
+    public boolean retryLater(UUID jobId, String owner, String errorMessage, Instant nextAttemptAt) {
+        String sql = """
+            UPDATE %s SET status = 'CREATED', error_message = ?, next_attempt_at = ?,
+                   lease_owner = NULL, lease_expires_at = NULL, updated_at = ?
+            WHERE status = 'PROCESSING' AND lease_owner = ? AND %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        int updated = jdbcTemplate.update(sql, JobIdPredicate.args(jobId, errorMessage, Timestamp.from(nextAttemptAt),
+                Timestamp.from(Instant.now()), owner));
+        return fenced(updated, jobId, owner);
+    }
+
+    @Override
+    public boolean requeueFailed(UUID jobId) {
+        String sql = """
+            UPDATE %s SET status = 'CREATED', attempts = 0, next_attempt_at = ?, error_message = NULL,
+                   lease_owner = NULL, lease_expires_at = NULL, updated_at = ?
+            WHERE status = 'FAILED' AND document_url IS NOT NULL AND %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        Timestamp now = Timestamp.from(Instant.now());
+        if (jdbcTemplate.update(sql, JobIdPredicate.args(jobId, now, now)) == 0) {
+            return false;
+        }
+        jobEventBus.publish(jobId);
+        return true;
+    }
+
+    @Override
+    public int failExhausted() {
+        String sql = """
+            UPDATE %s SET status = 'FAILED', error_message = ?, lease_expires_at = NULL, updated_at = ?
+            WHERE status = 'PROCESSING' AND lease_expires_at < ? AND attempts >= ?
+            """.formatted(TABLE);
+
+        Timestamp now = Timestamp.from(Instant.now());
+        int failed = jdbcTemplate.update(sql, "Worker lease expired on the final attempt", now, now,
+                queueProperties.getMaxAttempts());
+        if (failed > 0) {
+            log.warn("Failed {} ingestion job(s) whose lease expired after {} attempt(s)",
+                    failed, queueProperties.getMaxAttempts());
+            // The UPDATE does not return the ids; this is rare enough to wake every subscriber.
+            jobEventBus.publishAll();
+        }
+        return failed;
+    }
+
+    /** Terminal transition; keeps lease_owner so the row records which worker finished it. */
+    private boolean fenced(int updated, UUID jobId, String owner) {
+        if (updated == 0) {
+            log.warn("Lease lost for job id={} owner={}; status not written", jobId, owner);
+            return false;
+        }
+        jobEventBus.publish(jobId);
+        return true;
+    }
+
+    private List<JobLease> findLeases(String where, Object[] args) {
+        String sql = """
+            SELECT id, manual_id, document_url, lease_owner, attempts
+            FROM %s WHERE %s
+            """.formatted(TABLE, where);
+
+        return jdbcTemplate.query(sql, JdbcIngestionJobQueueRepository::mapLease, args);
+    }
+
+    private Timestamp leaseExpiry() {
+        return Timestamp.from(Instant.now().plus(queueProperties.getLeaseDuration()));
+    }
+
+    private static JobLease mapLease(ResultSet rs, int rowNum) throws SQLException {
+        return new JobLease(
+                rs.getObject("id", UUID.class),
+                rs.getString("manual_id"),
+                rs.getString("document_url"),
+                rs.getString("lease_owner"),
+                rs.getInt("attempts")
+        );
+    }
+}
@@ -1,9 +1,17 @@
 package com.rag.ownermanual.repository;
 
+import com.rag.ownermanual.domain.ChunkChangeCounts;
 import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.IngestionJobCursor;
+import com.rag.ownermanual.domain.IngestionJobFilter;
 import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionJobSummary;
+import com.rag.ownermanual.domain.IngestionProgress;
+import com.rag.ownermanual.domain.IngestionStage;
+import com.rag.ownermanual.events.JobEventBus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
@@ -11,11 +19,17 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
- * JDBC implementation of IngestionJobRepository for the ingestion_jobs table.
+ * JDBC implementation of IngestionJobRepository for the ingestion_jobs table. Updates are published
+ * on the JobEventBus once written, so waiting status requests re-read the job. Reads that tolerate
+ * replication lag go through the read-only JdbcTemplate (the replica, or the primary without one).
  */
 @Component
 public class JdbcIngestionJobRepository implements IngestionJobRepository {
@@ -24,10 +38,24 @@ public class JdbcIngestionJobRepository implements IngestionJobRepository {
 
     private static final String TABLE = "ingestion_jobs";
 
+    private static final String SELECT_JOB = """
+            SELECT id, manual_id, status, error_message, created_at, updated_at,
+                   chunks_added, chunks_updated, chunks_unchanged, chunks_deleted,
+                   stage, pages_parsed, pages_total, chunks_embedded, chunks_upserted, chunks_total,
+                   bytes_downloaded, eta_at, progress_updated_at
+            FROM %s WHERE %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate readOnlyJdbcTemplate;
+    private final JobEventBus jobEventBus;
 
-    public JdbcIngestionJobRepository(JdbcTemplate jdbcTemplate) {
+    public JdbcIngestionJobRepository(JdbcTemplate jdbcTemplate,
+                                      @Qualifier("readOnlyJdbcTemplate") JdbcTemplate readOnlyJdbcTemplate,
+                                      JobEventBus jobEventBus) {
         this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyJdbcTemplate = Objects.requireNonNull(readOnlyJdbcTemplate, "readOnlyJdbcTemplate");
+        this.jobEventBus = Objects.requireNonNull(jobEventBus, "jobEventBus");
     }
 
     /**
@@ -62,16 +90,68 @@ public class JdbcIngestionJobRepository implements IngestionJobRepository {
      */
     @Override
     public Optional<IngestionJob> findById(UUID id) {
-        String sql = """
-            SELECT id, manual_id, status, error_message, created_at, updated_at
-            FROM %s WHERE id = ?
-            """.formatted(TABLE);
-
-        return jdbcTemplate.query(sql, JdbcIngestionJobRepository::mapRow, id)
+        return jdbcTemplate.query(SELECT_JOB, JdbcIngestionJobRepository::mapRow, JobIdPredicate.args(id))
                 .stream()
                 .findFirst();
     }
 
+    /**
+     * A job missing on the replica is looked up on the primary, so a job just created (e.g. polled
+     * right after POST /ingest) is found before it has been replicated.
+     */
+    @Override
+    public Optional<IngestionJob> findByIdOnReplica(UUID id) {
+        if (readOnlyJdbcTemplate.getDataSource() == jdbcTemplate.getDataSource()) {
+            return findById(id);
+        }
+        return readOnlyJdbcTemplate.query(SELECT_JOB, JdbcIngestionJobRepository::mapRow, JobIdPredicate.args(id))
+                .stream()
+                .findFirst()
+                .or(() -> findById(id));
+    }
+
+    /**
+     * One page of the job list. manual_id and status each lead an index ending in (created_at, id)
+     * (see V9), and the row-value comparison with the cursor lets Postgres start the
+     * index scan at the cursor instead of skipping rows, so deep pages cost the same as the first.
+     * Selects the list columns only; error_message and document_url are never read.
+     */
+    @Override
+    public List<IngestionJobSummary> findPage(IngestionJobFilter filter, IngestionJobCursor after, int limit) {
+        List<String> conditions = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (filter.manualId() != null) {
+            conditions.add("manual_id = ?");
+            args.add(filter.manualId());
+        }
+        if (filter.status() != null) {
+            conditions.add("status = ?");
+            args.add(filter.status().name());
+        }
+        if (filter.createdFrom() != null) {
+            conditions.add("created_at >= ?");
+            args.add(toTimestamp(filter.createdFrom()));
+        }
+        if (filter.createdBefore() != null) {
+            conditions.add("created_at < ?");
+            args.add(toTimestamp(filter.createdBefore()));
+        }
+        if (after != null) {
+            conditions.add("(created_at, id) < (?, ?)");
+            args.add(toTimestamp(after.createdAt()));
+            args.add(after.id());
+        }
+        args.add(limit);
+        String sql = """
+            SELECT id, manual_id, tenant, batch_id, status, attempts, created_at, updated_at
+            FROM %s%s
+            ORDER BY created_at DESC, id DESC
+            LIMIT ?
+            """.formatted(TABLE, conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions));
+
+        return readOnlyJdbcTemplate.query(sql, JdbcIngestionJobRepository::mapSummary, args.toArray());
+    }
+
     /**
      * Update status and optional error message for an existing job. Also sets updated_at to the
      * current time so polling and audits reflect when the state changed.
@@ -83,18 +163,82 @@ public class JdbcIngestionJobRepository implements IngestionJobRepository {
     public void updateStatus(UUID id, IngestionJobStatus status, String errorMessage) {
         String sql = """
             UPDATE %s SET status = ?, error_message = ?, updated_at = ?
-            WHERE id = ?
-            """.formatted(TABLE);
+            WHERE %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
 
         Instant now = Instant.now();
-        int updated = jdbcTemplate.update(sql, status.name(), errorMessage, toTimestamp(now), id);
+        int updated = jdbcTemplate.update(sql, JobIdPredicate.args(id, status.name(), errorMessage, toTimestamp(now)));
         if (updated == 0) {
             log.warn("updateStatus: no row updated for id={}", id);
         } else {
             log.debug("Updated job id={} to status={}", id, status);
+            jobEventBus.publish(id);
         }
     }
 
+    /**
+     * Store the chunk change counts of an incremental ingestion. Does not touch status or updated_at;
+     * finished runs record their counts together with COMPLETED (IngestionJobQueueRepository.complete).
+     * @param id      job UUID (must exist; no-op if row not found)
+     * @param changes added/updated/unchanged/deleted chunk counts
+     */
+    @Override
+    public void updateChunkChanges(UUID id, ChunkChangeCounts changes) {
+        String sql = """
+            UPDATE %s SET chunks_added = ?, chunks_updated = ?, chunks_unchanged = ?, chunks_deleted = ?
+            WHERE %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        int updated = jdbcTemplate.update(sql, JobIdPredicate.args(id,
+                changes.added(), changes.updated(), changes.unchanged(), changes.deleted()));
+        if (updated == 0) {
+            log.warn("updateChunkChanges: no row updated for id={}", id);
+        } else {
+            jobEventBus.publish(id);
+        }
+    }
+
+    /**
+     * One batched UPDATE for all jobs of the owner. Deliberately leaves updated_at alone: it tracks
+     * status changes, and progress has its own progress_updated_at.
+     */
+    @Override
+    public int updateProgress(String leaseOwner, Map<UUID, IngestionProgress> progress) {
+        if (progress.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+            UPDATE %s SET stage = ?, pages_parsed = ?, pages_total = ?, chunks_embedded = ?,
+                   chunks_upserted = ?, chunks_total = ?, bytes_downloaded = ?, eta_at = ?,
+                   progress_updated_at = ?
+            WHERE status = 'PROCESSING' AND lease_owner = ? AND %s
+            """.formatted(TABLE, JobIdPredicate.SQL);
+
+        List<UUID> ids = new ArrayList<>(progress.keySet());
+        List<Object[]> rows = ids.stream()
+                .map(id -> {
+                    IngestionProgress p = progress.get(id);
+                    return JobIdPredicate.args(id,
+                            p.stage().name(), p.pagesParsed(), p.pagesTotal(), p.chunksEmbedded(),
+                            p.chunksUpserted(), p.chunksTotal(), p.bytesDownloaded(),
+                            toTimestamp(p.estimatedCompletionAt()), toTimestamp(p.updatedAt()),
+                            leaseOwner);
+                })
+                .toList();
+        int updated = 0;
+        List<UUID> written = new ArrayList<>();
+        int[] counts = jdbcTemplate.batchUpdate(sql, rows);
+        for (int i = 0; i < counts.length; i++) {
+            updated += Math.max(counts[i], 0);
+            // SUCCESS_NO_INFO (-2) may still be a write; a spurious event only costs a re-read.
+            if (counts[i] != 0) {
+                written.add(ids.get(i));
+            }
+        }
+        jobEventBus.publish(written);
+        log.debug("Wrote progress of {}/{} job(s) leased by {}", updated, rows.size(), leaseOwner);
+        return updated;
+    }
 
     private static IngestionJob mapRow(ResultSet rs, int rowNum) throws SQLException {
         UUID id = rs.getObject("id", UUID.class);
@@ -103,7 +247,54 @@ public class JdbcIngestionJobRepository implements IngestionJobRepository {
         String errorMessage = rs.getString("error_message"); // nullable
         Instant createdAt = toInstant(rs.getTimestamp("created_at"));
         Instant updatedAt = toInstant(rs.getTimestamp("updated_at"));
-        return new IngestionJob(id, manualId, status, errorMessage, createdAt, updatedAt);
+        return new IngestionJob(id, manualId, status, errorMessage, createdAt, updatedAt, mapChunkChanges(rs),
+                mapProgress(rs));
+    }
+
+    private static IngestionJobSummary mapSummary(ResultSet rs, int rowNum) throws SQLException {
+        return new IngestionJobSummary(
+                rs.getObject("id", UUID.class),
+                rs.getString("manual_id"),
+                rs.getString("tenant"),
+                rs.getObject("batch_id", UUID.class),
+                IngestionJobStatus.valueOf(rs.getString("status")),
+                rs.getInt("attempts"),
+                toInstant(rs.getTimestamp("created_at")),
+                toInstant(rs.getTimestamp("updated_at"))
+        );
+    }
+
+    /** Progress columns are written together, so a null stage means none was recorded. */
+    private static IngestionProgress mapProgress(ResultSet rs) throws SQLException {
+        String stage = rs.getString("stage");
+        if (stage == null) {
+            return null;
+        }
+        return new IngestionProgress(
+                IngestionStage.valueOf(stage),
+                rs.getInt("pages_parsed"),
+                rs.getObject("pages_total", Integer.class),
+                rs.getInt("chunks_embedded"),
+                rs.getInt("chunks_upserted"),
+                rs.getObject("chunks_total", Integer.class),
+                rs.getLong("bytes_downloaded"),
+                toInstant(rs.getTimestamp("eta_at")),
+                toInstant(rs.getTimestamp("progress_updated_at"))
+        );
+    }
+
+    /** Counts are written together, so a null chunks_added means none were recorded. */
+    private static ChunkChangeCounts mapChunkChanges(ResultSet rs) throws SQLException {
+        int added = rs.getInt("chunks_added");
+        if (rs.wasNull()) {
+            return null;
+        }
+        return new ChunkChangeCounts(
+                added,
+                rs.getInt("chunks_updated"),
+                rs.getInt("chunks_unchanged"),
+                rs.getInt("chunks_deleted")
+        );
     }
 
     private static Timestamp toTimestamp(Instant instant) {
@@ -0,0 +1,114 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ManifestEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC implementation of IngestionManifestRepository for the ingestion_manifest and
+ * ingestion_manifest_documents tables.
+ */
+@Component
+public class JdbcIngestionManifestRepository implements IngestionManifestRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcIngestionManifestRepository.class);
+
+    private static final String TABLE = "ingestion_manifest";
+    private static final String DOCUMENTS_TABLE = "ingestion_manifest_documents";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcIngestionManifestRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public List<ManifestEntry> findByManualId(String manualId) {
+        String sql = """
+            SELECT chunk_id, page_key, page_hash, occurrence_pages
+            FROM %s WHERE manual_id = ?
+            """.formatted(TABLE);
+
+        return jdbcTemplate.query(sql, JdbcIngestionManifestRepository::mapRow, manualId);
+    }
+
+    @Override
+    public Optional<String> findDocumentHash(String manualId, String processingFingerprint) {
+        String sql = """
+            SELECT document_sha256 FROM %s
+            WHERE manual_id = ? AND processing_fingerprint = ?
+            """.formatted(DOCUMENTS_TABLE);
+
+        return jdbcTemplate.queryForList(sql, String.class, manualId, processingFingerprint)
+                .stream()
+                .map(String::trim)
+                .findFirst();
+    }
+
+    /**
+     * Deletes the old rows and batch-inserts the new ones in one transaction, together with the
+     * document hash and processing fingerprint, so readers see either the previous or the new manifest.
+     */
+    @Override
+    public void replace(String manualId, String documentSha256, String processingFingerprint,
+                        List<ManifestEntry> entries) {
+        String deleteSql = "DELETE FROM %s WHERE manual_id = ?".formatted(TABLE);
+        String insertSql = """
+            INSERT INTO %s (manual_id, chunk_id, page_key, page_hash, occurrence_pages, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """.formatted(TABLE);
+        String deleteDocumentSql = "DELETE FROM %s WHERE manual_id = ?".formatted(DOCUMENTS_TABLE);
+        String insertDocumentSql = """
+            INSERT INTO %s (manual_id, document_sha256, processing_fingerprint, updated_at)
+            VALUES (?, ?, ?, ?)
+            """.formatted(DOCUMENTS_TABLE);
+
+        Timestamp now = Timestamp.from(Instant.now());
+        List<Object[]> rows = entries.stream()
+                .map(entry -> new Object[]{manualId, entry.chunkId(), entry.pageKey(), entry.pageHash(),
+                        formatPages(entry.occurrencePages()), now})
+                .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(deleteSql, manualId);
+            jdbcTemplate.batchUpdate(insertSql, rows);
+            jdbcTemplate.update(deleteDocumentSql, manualId);
+            jdbcTemplate.update(insertDocumentSql, manualId, documentSha256, processingFingerprint, now);
+        });
+        log.debug("Replaced manifest for manualId={} with {} chunk(s)", manualId, entries.size());
+    }
+
+    private static ManifestEntry mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new ManifestEntry(
+                rs.getString("chunk_id"),
+                rs.getInt("page_key"),
+                rs.getString("page_hash").trim(),
+                parsePages(rs.getString("occurrence_pages"))
+        );
+    }
+
+    /** Comma-separated page numbers; null for none. */
+    private static String formatPages(List<Integer> pages) {
+        return pages.isEmpty() ? null : pages.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+
+    private static List<Integer> parsePages(String pages) {
+        return pages == null || pages.isBlank()
+                ? List.of()
+                : Arrays.stream(pages.split(",")).map(String::trim).map(Integer::valueOf).toList();
+    }
+}
@@ -0,0 +1,111 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.RateLimitLease;
+import com.rag.ownermanual.domain.RateLimitPolicy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * JDBC implementation of RateLimitLeaseRepository for the rate_limit_buckets table. A lease locks
+ * the identity's row ({@code SELECT ... FOR UPDATE}), credits refill for the database time since
+ * refilled_at and writes back the remainder in one transaction, so concurrent leases from several
+ * nodes serialize on the row and never hand out the same token twice. Using the database clock
+ * keeps clock skew between nodes out of the refill.
+ */
+@Component
+public class JdbcRateLimitLeaseRepository implements RateLimitLeaseRepository {
+
+    private static final String TABLE = "rate_limit_buckets";
+
+    /** Tokens are stored in thousandths, like the node-local buckets. */
+    private static final long UNITS_PER_TOKEN = 1_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private record Bucket(long units, OffsetDateTime refilledAt, OffsetDateTime now) {
+    }
+
+    public JdbcRateLimitLeaseRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * A missing row is created outside the lease transaction: on Postgres a duplicate key error
+     * aborts the transaction it happens in.
+     */
+    @Override
+    public RateLimitLease lease(String identity, RateLimitPolicy policy, int tokens) {
+        RateLimitLease lease = transactionTemplate.execute(status -> take(identity, policy, tokens));
+        if (lease != null) {
+            return lease;
+        }
+        String insertSql = """
+            INSERT INTO %s (identity, tokens, refilled_at)
+            SELECT ?, ?, CURRENT_TIMESTAMP WHERE NOT EXISTS (SELECT 1 FROM %s WHERE identity = ?)
+            """.formatted(TABLE, TABLE);
+        try {
+            jdbcTemplate.update(insertSql, identity, policy.capacity() * UNITS_PER_TOKEN, identity);
+        } catch (DuplicateKeyException e) {
+            // Created by another node at the same moment.
+        }
+        return transactionTemplate.execute(status -> take(identity, policy, tokens));
+    }
+
+    @Override
+    public void release(String identity, RateLimitPolicy policy, int tokens) {
+        if (tokens <= 0) {
+            return;
+        }
+        String sql = "UPDATE %s SET tokens = LEAST(?, tokens + ?) WHERE identity = ?".formatted(TABLE);
+        jdbcTemplate.update(sql, policy.capacity() * UNITS_PER_TOKEN, tokens * UNITS_PER_TOKEN, identity);
+    }
+
+    /** Lock the row, refill, take the tokens; null if the identity has no row yet. */
+    private RateLimitLease take(String identity, RateLimitPolicy policy, int tokens) {
+        String selectSql = """
+            SELECT tokens, refilled_at, CURRENT_TIMESTAMP AS db_now FROM %s
+            WHERE identity = ?
+            FOR UPDATE
+            """.formatted(TABLE);
+        String updateSql = "UPDATE %s SET tokens = ?, refilled_at = ? WHERE identity = ?".formatted(TABLE);
+
+        List<Bucket> rows = jdbcTemplate.query(selectSql, (rs, rowNum) -> new Bucket(
+                rs.getLong("tokens"),
+                rs.getObject("refilled_at", OffsetDateTime.class),
+                rs.getObject("db_now", OffsetDateTime.class)), identity);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        Bucket bucket = rows.getFirst();
+        long capacityUnits = policy.capacity() * UNITS_PER_TOKEN;
+        long refillUnits = policy.refillTokens() * UNITS_PER_TOKEN;
+        long periodMicros = policy.refillPeriod().toNanos() / 1_000;
+        long elapsedMicros = Math.max(0, Duration.between(bucket.refilledAt(), bucket.now()).toNanos() / 1_000);
+
+        long available;
+        OffsetDateTime refilledAt;
+        if (elapsedMicros >= Math.ceilDiv((capacityUnits - bucket.units()) * periodMicros, refillUnits)) {
+            available = capacityUnits;
+            refilledAt = bucket.now();
+        } else {
+            // Below the time to fill up, so the products stay below capacity * period. Only whole
+            // thousandths are credited and refilled_at advances by exactly their time.
+            long added = elapsedMicros * refillUnits / periodMicros;
+            available = bucket.units() + added;
+            refilledAt = bucket.refilledAt().plusNanos(added * periodMicros / refillUnits * 1_000);
+        }
+        int granted = (int) Math.min(Math.max(0, tokens), available / UNITS_PER_TOKEN);
+        long left = available - granted * UNITS_PER_TOKEN;
+        jdbcTemplate.update(updateSql, left, refilledAt, identity);
+        Duration untilFull = Duration.ofNanos(Math.ceilDiv((capacityUnits - left) * periodMicros, refillUnits) * 1_000);
+        return new RateLimitLease(granted, (int) (left / UNITS_PER_TOKEN), untilFull);
+    }
+}
@@ -0,0 +1,45 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.JobIds;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Lookup of one ingestion job by id that Postgres can prune to a single monthly partition.
+ * ingestion_jobs is partitioned by created_at, so "id = ?" alone probes every partition's index;
+ * the id's embedded creation time (see {@link JobIds}) bounds created_at as well. Ids without a
+ * time get an unbounded window, which matches as before but is not pruned.
+ */
+final class JobIdPredicate {
+
+    /** Append after WHERE/AND; bind with {@link #args}. */
+    static final String SQL = "id = ? AND created_at >= ? AND created_at < ?";
+
+    /** Covers createdAt being stored with a different precision than the id's milliseconds. */
+    private static final Duration SLACK = Duration.ofMinutes(1);
+    private static final Timestamp MIN = Timestamp.from(Instant.parse("1970-01-01T00:00:00Z"));
+    private static final Timestamp MAX = Timestamp.from(Instant.parse("9999-01-01T00:00:00Z"));
+
+    private JobIdPredicate() {
+    }
+
+    /**
+     * Bind values: the leading values of the statement, then those of {@link #SQL}.
+     */
+    static Object[] args(UUID id, Object... leading) {
+        Object[] args = Arrays.copyOf(leading, leading.length + 3);
+        args[leading.length] = id;
+        JobIds.createdAt(id).ifPresentOrElse(createdAt -> {
+            args[leading.length + 1] = Timestamp.from(createdAt.minus(SLACK));
+            args[leading.length + 2] = Timestamp.from(createdAt.plus(SLACK));
+        }, () -> {
+            args[leading.length + 1] = MIN;
+            args[leading.length + 2] = MAX;
+        });
+        return args;
+    }
+}
@@ -0,0 +1,170 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionProgress;
+import com.rag.ownermanual.domain.JobLease;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for the job row writes of running jobs. Non-terminal updates (progress) are
+ * staged per job, where a newer update replaces the pending one, and written by {@link #flush} as
+ * one JDBC batch per lease owner (one per node) across all jobs. Transitions out of PROCESSING go
+ * through this writer too and are synchronous: the job's pending update is written first, then the
+ * fenced status change, so a finished job never has an older write land after its final status.
+ * Writes are serialized: a transition waits for a scheduled flush in progress, which may hold the
+ * job's final progress (and, if that write fails, stages it again for the transition to write).
+ *
+ * <p>Metrics: ingestion.job.writes.flush (flush duration, tagged by trigger), .batch.size (rows per
+ * flush), .delay (staged to written) and .coalesced (staged updates replaced before being written).
+ */
+@Component
+public class JobStatusWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(JobStatusWriter.class);
+
+    private final IngestionJobRepository jobRepository;
+    private final IngestionJobQueueRepository jobQueue;
+    private final Map<UUID, Pending> pending = new ConcurrentHashMap<>();
+    /** Held while an update taken from pending is being written. */
+    private final Object writeLock = new Object();
+
+    private final Timer scheduledFlush;
+    private final Timer terminalFlush;
+    private final DistributionSummary batchSize;
+    private final Timer delay;
+    private final Counter coalesced;
+
+    /** Latest update of one job; stagedAt is that of the oldest update it replaced. */
+    private record Pending(JobLease lease, IngestionProgress progress, long stagedAt) {
+    }
+
+    public JobStatusWriter(IngestionJobRepository jobRepository,
+                           IngestionJobQueueRepository jobQueue,
+                           MeterRegistry meterRegistry) {
+        this.jobRepository = Objects.requireNonNull(jobRepository, "jobRepository");
+        this.jobQueue = Objects.requireNonNull(jobQueue, "jobQueue");
+        Objects.requireNonNull(meterRegistry, "meterRegistry");
+        this.scheduledFlush = flushTimer(meterRegistry, "scheduled");
+        this.terminalFlush = flushTimer(meterRegistry, "terminal");
+        this.batchSize = DistributionSummary.builder("ingestion.job.writes.batch.size")
+                .description("Job rows written per flush of the write-behind buffer")
+                .register(meterRegistry);
+        this.delay = Timer.builder("ingestion.job.writes.delay")
+                .description("Time a job update waited in the write-behind buffer before it was written")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("ingestion.job.writes.coalesced")
+                .description("Job updates replaced by a newer one before being written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stage the latest progress of a leased job, replacing any pending progress of the same job.
+     */
+    public void stage(JobLease lease, IngestionProgress progress) {
+        Objects.requireNonNull(lease, "lease");
+        Objects.requireNonNull(progress, "progress");
+        long now = System.nanoTime();
+        pending.merge(lease.jobId(), new Pending(lease, progress, now), (older, newer) -> {
+            coalesced.increment();
+            return new Pending(newer.lease(), newer.progress(), older.stagedAt());
+        });
+    }
+
+    /**
+     * Write every pending update, batched per lease owner. Progress is advisory: a failed batch is
+     * logged and its updates are staged again unless a newer one arrived meanwhile.
+     * @return Number of updates taken from the buffer.
+     */
+    public int flush() {
+        synchronized (writeLock) {
+            Map<String, Map<UUID, Pending>> byOwner = new HashMap<>();
+            for (UUID jobId : pending.keySet()) {
+                Pending taken = pending.remove(jobId);
+                if (taken != null) {
+                    byOwner.computeIfAbsent(taken.lease().owner(), owner -> new HashMap<>()).put(jobId, taken);
+                }
+            }
+            byOwner.forEach((owner, updates) -> write(owner, updates, scheduledFlush));
+            return byOwner.values().stream().mapToInt(Map::size).sum();
+        }
+    }
+
+    /**
+     * Mark the job COMPLETED with its chunk change counts, after writing its pending update.
+     * @return false if the lease was lost; the job was not changed.
+     */
+    public boolean complete(JobLease lease, ChunkChangeCounts changes) {
+        flush(lease);
+        return jobQueue.complete(lease.jobId(), lease.owner(), changes);
+    }
+
+    /**
+     * Mark the job FAILED for good, after writing its pending update.
+     * @return false if the lease was lost; the job was not changed.
+     */
+    public boolean fail(JobLease lease, String errorMessage) {
+        flush(lease);
+        return jobQueue.fail(lease.jobId(), lease.owner(), errorMessage);
+    }
+
+    /**
+     * Put the job back to CREATED until {@code nextAttemptAt}, after writing its pending update.
+     * @return false if the lease was lost; the job was not changed.
+     */
+    public boolean retryLater(JobLease lease, String errorMessage, Instant nextAttemptAt) {
+        flush(lease);
+        return jobQueue.retryLater(lease.jobId(), lease.owner(), errorMessage, nextAttemptAt);
+    }
+
+    /**
+     * Synchronously write the pending update of one job, if any, once a concurrent scheduled flush
+     * (which may have taken it) has finished.
+     */
+    private void flush(JobLease lease) {
+        synchronized (writeLock) {
+            Pending taken = pending.remove(lease.jobId());
+            if (taken != null) {
+                write(lease.owner(), Map.of(lease.jobId(), taken), terminalFlush);
+            }
+        }
+    }
+
+    private void write(String owner, Map<UUID, Pending> updates, Timer timer) {
+        Map<UUID, IngestionProgress> progress = new HashMap<>();
+        updates.forEach((jobId, update) -> progress.put(jobId, update.progress()));
+        long start = System.nanoTime();
+        try {
+            jobRepository.updateProgress(owner, progress);
+        } catch (DataAccessException ex) {
+            log.warn("Could not write progress of {} job(s) leased by {}", updates.size(), owner, ex);
+            updates.forEach(pending::putIfAbsent);
+            return;
+        }
+        long end = System.nanoTime();
+        timer.record(end - start, TimeUnit.NANOSECONDS);
+        batchSize.record(updates.size());
+        updates.values().forEach(update -> delay.record(end - update.stagedAt(), TimeUnit.NANOSECONDS));
+    }
+
+    private static Timer flushTimer(MeterRegistry meterRegistry, String trigger) {
+        return Timer.builder("ingestion.job.writes.flush")
+                .description("Duration of one batched write of staged job updates")
+                .tag("trigger", trigger)
+                .register(meterRegistry);
+    }
+}
@@ -1,20 +1,51 @@
 package com.rag.ownermanual.repository;
 
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.config.QdrantVectorStoreProperties;
 import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.embedding.EmbeddingCacheScope;
+import com.rag.ownermanual.embedding.EmbeddingCacheStats;
+import com.rag.ownermanual.exception.DownstreamVectorStoreException;
 import com.rag.ownermanual.resilience.ResilienceService;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.JsonWithInt.Value;
+import io.qdrant.client.grpc.Points.PointsIdsList;
+import io.qdrant.client.grpc.Points.PointsSelector;
+import io.qdrant.client.grpc.Points.PointsUpdateOperation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static io.qdrant.client.PointIdFactory.id;
+import static io.qdrant.client.ValueFactory.list;
+import static io.qdrant.client.ValueFactory.value;
 
 /**
  * Vector store repository implementation using Spring AI's Qdrant VectorStore.
@@ -30,22 +61,55 @@ public class QdrantVectorStoreRepository implements VectorStoreRepository {
     private static final String META_VEHICLE_MODEL = "vehicle_model";
     private static final String META_SECTION = "section";
     private static final String META_PAGE = "page";
+    private static final String META_OCCURRENCE_PAGES = "occurrence_pages";
+    /** The section path and each of its ancestors, so a section filter also matches its subsections. */
+    private static final String META_SECTION_SCOPE = "section_scope";
+    private static final String SECTION_SEPARATOR = " > ";
+    private static final Duration PAYLOAD_UPDATE_TIMEOUT = Duration.ofSeconds(30);
 
     private final VectorStore vectorStore;
+    private final QdrantClient qdrantClient;
+    private final String collectionName;
     private final ResilienceService resilienceService;
+    private final IngestionProperties.Embedding embeddingSettings;
+    private final AsyncTaskExecutor embeddingBatchExecutor;
+    private final TokenCountEstimator tokenCountEstimator = new JTokkitTokenCountEstimator();
+
+    private final Counter embeddedTokens;
+    private final Counter embeddedChunks;
+    private final Timer batchLatency;
 
-    public QdrantVectorStoreRepository(VectorStore vectorStore, ResilienceService resilienceService) {
+    public QdrantVectorStoreRepository(VectorStore vectorStore,
+                                       QdrantClient qdrantClient,
+                                       QdrantVectorStoreProperties qdrantProperties,
+                                       ResilienceService resilienceService,
+                                       IngestionProperties ingestionProperties,
+                                       @Qualifier("embeddingBatchExecutor") AsyncTaskExecutor embeddingBatchExecutor,
+                                       MeterRegistry meterRegistry) {
         this.vectorStore = vectorStore;
+        this.qdrantClient = qdrantClient;
+        this.collectionName = qdrantProperties.getCollectionName();
         this.resilienceService = resilienceService;
+        this.embeddingSettings = ingestionProperties.getEmbedding();
+        this.embeddingBatchExecutor = embeddingBatchExecutor;
+        this.embeddedTokens = Counter.builder("ingest.embedding.tokens")
+                .description("Estimated tokens sent for embedding by the ingestion write path")
+                .register(meterRegistry);
+        this.embeddedChunks = Counter.builder("ingest.embedding.chunks")
+                .description("Chunks embedded and upserted by the ingestion write path")
+                .register(meterRegistry);
+        this.batchLatency = Timer.builder("ingest.embedding.batch.latency")
+                .description("Time to embed and upsert one batch, including retries")
+                .register(meterRegistry);
     }
 
     /**
      * Embeds queryText via the store, runs top-k similarity search (optionally filtered by
-     * vehicle_model), maps returned Documents to Chunks. A blank query returns empty to avoid
-     * calling the store with no real query.
+     * vehicle_model and section_scope), maps returned Documents to Chunks. A blank query returns
+     * empty to avoid calling the store with no real query.
      */
     @Override
-    public List<Chunk> search(String queryText, String vehicleModel, int topK) {
+    public List<Chunk> search(String queryText, String vehicleModel, String section, int topK) {
         if (queryText == null || queryText.isBlank()) {
             log.warn("search called with blank queryText; returning empty list");
             return List.of();
@@ -55,11 +119,20 @@ public class QdrantVectorStoreRepository implements VectorStoreRepository {
                 .query(queryText)  // Store embeds this internally via its EmbeddingModel
                 .topK(topK);
 
-        // Only apply vehicle_model filter when caller specified one; null/blank = search all models.
+        // Only apply filters the caller specified; null/blank = search all models / sections.
         // Qdrant requires a payload index for any field used in a filter.
+        var b = new FilterExpressionBuilder();
+        FilterExpressionBuilder.Op filter = null;
         if (vehicleModel != null && !vehicleModel.isBlank()) {
-            var filter = new FilterExpressionBuilder().eq(META_VEHICLE_MODEL, vehicleModel).build();
-            requestBuilder.filterExpression(filter);
+            filter = b.eq(META_VEHICLE_MODEL, vehicleModel);
+        }
+        if (section != null && !section.isBlank()) {
+            // Matches when any element of the section_scope array equals the section.
+            var inSection = b.eq(META_SECTION_SCOPE, section.strip());
+            filter = filter == null ? inSection : b.and(filter, inSection);
+        }
+        if (filter != null) {
+            requestBuilder.filterExpression(filter.build());
         }
 
         List<Document> documents = resilienceService.execute("vectorSearch",
@@ -70,28 +143,155 @@ public class QdrantVectorStoreRepository implements VectorStoreRepository {
     }
 
     /**
-     * Converts chunks to Documents (id = chunk.id()), calls VectorStore.add() so the
-     * store embeds and stores them.
+     * Converts chunks to Documents (id = chunk.id()) and splits them into batches that fit one
+     * embedding request (estimated tokens and input count). Batches run concurrently on the shared
+     * embeddingBatchExecutor; each is a separate VectorStore.add() call, so its points are upserted
+     * as soon as its embeddings return, and a retry re-embeds only that batch. The first failed
+     * batch cancels the ones not yet started and is rethrown; batches already written stay written.
+     * Embedding calls run inside the caller's EmbeddingCacheScope (a fresh one if none is open), so
+     * unchanged chunk text is served from the embedding cache.
      */
     @Override
     public void upsertChunks(List<Chunk> chunks) {
         if (chunks == null || chunks.isEmpty()) {
             return;
         }
-        // Map to Documents with id = chunk.id(); VectorStore.add() + embedding is done by the store.
+        // Map to Documents with id = chunk.id(); embedding is done by the store, one request per batch.
         List<Document> documents = chunks.stream()
                 .map(this::chunkToDocument)
                 .toList();
-        resilienceService.execute("vectorUpsert", () -> {
-            vectorStore.add(documents);
-            return null;
+        List<EmbeddingBatches.Batch<Document>> batches = EmbeddingBatches.partition(
+                documents,
+                doc -> tokenCountEstimator.estimate(doc.getText()),
+                embeddingSettings.getMaxTokensPerBatch(),
+                embeddingSettings.getMaxChunksPerBatch());
+
+        EmbeddingCacheStats cacheStats = EmbeddingCacheScope.current();
+        if (cacheStats == null) {
+            cacheStats = new EmbeddingCacheStats();
+        }
+        if (batches.size() == 1) {
+            upsertBatch(batches.get(0), cacheStats);
+        } else {
+            upsertConcurrently(batches, cacheStats);
+        }
+        log.debug("Upserted {} chunks to vector store in {} batch(es)", documents.size(), batches.size());
+    }
+
+    private void upsertConcurrently(List<EmbeddingBatches.Batch<Document>> batches, EmbeddingCacheStats cacheStats) {
+        List<Future<?>> futures = new ArrayList<>(batches.size());
+        try {
+            for (EmbeddingBatches.Batch<Document> batch : batches) {
+                futures.add(embeddingBatchExecutor.submit(() -> upsertBatch(batch, cacheStats)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while upserting embedding batches");
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private void upsertBatch(EmbeddingBatches.Batch<Document> batch, EmbeddingCacheStats cacheStats) {
+        batchLatency.record(() -> EmbeddingCacheScope.run(cacheStats,
+                () -> write("upsert", () -> vectorStore.add(batch.items()))));
+        embeddedTokens.increment(batch.estimatedTokens());
+        embeddedChunks.increment(batch.items().size());
+    }
+
+    /**
+     * Deletes the points of the given chunks with one VectorStore.delete() call (a single Qdrant
+     * delete-by-ids request), using the same deterministic point ids as upsertChunks.
+     */
+    @Override
+    public void deleteChunks(Collection<String> chunkIds) {
+        if (chunkIds == null || chunkIds.isEmpty()) {
+            return;
+        }
+        List<String> pointIds = chunkIds.stream()
+                .map(QdrantVectorStoreRepository::pointId)
+                .toList();
+        write("delete", () -> vectorStore.delete(pointIds));
+        log.debug("Deleted {} chunk(s) from vector store", pointIds.size());
+    }
+
+    /**
+     * Sets or deletes the occurrence_pages payload field of each chunk's point with one Qdrant batch
+     * update, through the same deterministic point ids as upsertChunks. The points keep their vector
+     * and other payload, so nothing is re-embedded.
+     */
+    @Override
+    public void setOccurrencePages(Map<String, List<Integer>> occurrencePages) {
+        if (occurrencePages == null || occurrencePages.isEmpty()) {
+            return;
+        }
+        List<PointsUpdateOperation> operations = new ArrayList<>(occurrencePages.size());
+        occurrencePages.forEach((chunkId, pages) -> {
+            PointsSelector point = PointsSelector.newBuilder()
+                    .setPoints(PointsIdsList.newBuilder().addIds(id(UUID.fromString(pointId(chunkId)))))
+                    .build();
+            if (pages.isEmpty()) {
+                // Same payload as an upsert of a chunk without occurrence pages: no field at all.
+                operations.add(PointsUpdateOperation.newBuilder()
+                        .setDeletePayload(PointsUpdateOperation.DeletePayload.newBuilder()
+                                .addKeys(META_OCCURRENCE_PAGES)
+                                .setPointsSelector(point))
+                        .build());
+            } else {
+                operations.add(PointsUpdateOperation.newBuilder()
+                        .setSetPayload(PointsUpdateOperation.SetPayload.newBuilder()
+                                .putPayload(META_OCCURRENCE_PAGES, list(pages.stream().map(page -> value(page)).toList()))
+                                .setPointsSelector(point))
+                        .build());
+            }
         });
-        log.debug("Upserted {} chunks to vector store", documents.size());
+        write("payload update", () -> await(qdrantClient.batchUpdateAsync(
+                collectionName, operations, true, null, PAYLOAD_UPDATE_TIMEOUT)));
+        log.debug("Updated occurrence pages of {} chunk(s) in vector store", operations.size());
+    }
+
+    /** Waits for a Qdrant client call; a failed call surfaces as its cause, wrapped by write(). */
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while updating vector store payload");
+        }
+    }
+
+    /**
+     * Runs a write under the vectorUpsert resilience policy. Failures of the store itself surface as
+     * DownstreamVectorStoreException; embedding provider errors, resilience rejections and
+     * interrupts keep their type, so callers can tell a transient failure from a permanent one.
+     */
+    private void write(String operation, Runnable write) {
+        try {
+            resilienceService.execute("vectorUpsert", () -> {
+                write.run();
+                return null;
+            });
+        } catch (NonTransientAiException | TransientAiException | CallNotPermittedException | BulkheadFullException
+                 | CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new DownstreamVectorStoreException("Vector store " + operation + " failed", e);
+        }
     }
 
     /**
      * Maps a Spring AI Document to a Chunk (id from doc id, text from content,
-     * manualId/vehicleModel/section/page from metadata).
+     * manualId/vehicleModel/section/page/occurrence pages from metadata).
      */
     private Chunk documentToChunk(Document doc) {
         Map<String, Object> m = doc.getMetadata();
@@ -99,6 +299,7 @@ public class QdrantVectorStoreRepository implements VectorStoreRepository {
         String vehicleModel = getString(m, META_VEHICLE_MODEL);
         String section = getString(m, META_SECTION);
         Integer page = getInteger(m, META_PAGE);
+        List<Integer> occurrencePages = getIntegers(m, META_OCCURRENCE_PAGES);
 
         // Use chunk_id from metadata as domain id; document id is internal UUID for Spring AI Qdrant.
         String id = getString(m, META_CHUNK_ID);
@@ -122,7 +323,7 @@ public class QdrantVectorStoreRepository implements VectorStoreRepository {
             vehicleModel = "unknown";
         }
 
-        return new Chunk(id, text, manualId, vehicleModel, section, page);
+        return new Chunk(id, text, manualId, vehicleModel, section, page, occurrencePages);
     }
 
     /**
@@ -136,13 +337,33 @@ public class QdrantVectorStoreRepository implements VectorStoreRepository {
         metadata.put(META_VEHICLE_MODEL, chunk.vehicleModel());
         if (chunk.section() != null) {
             metadata.put(META_SECTION, chunk.section());
+            metadata.put(META_SECTION_SCOPE, sectionScope(chunk.section()));
         }
         if (chunk.page() != null) {
             metadata.put(META_PAGE, chunk.page());
         }
+        if (!chunk.occurrencePages().isEmpty()) {
+            metadata.put(META_OCCURRENCE_PAGES, chunk.occurrencePages());
+        }
 
-        UUID documentId = UUID.nameUUIDFromBytes(chunk.id().getBytes(StandardCharsets.UTF_8));
-        return new Document(documentId.toString(), chunk.text(), metadata);
+        return new Document(pointId(chunk.id()), chunk.text(), metadata);
+    }
+
+    /** "A > B > C" → ["A", "A > B", "A > B > C"]. */
+    static List<String> sectionScope(String section) {
+        List<String> scope = new ArrayList<>();
+        int end = section.indexOf(SECTION_SEPARATOR);
+        while (end >= 0) {
+            scope.add(section.substring(0, end));
+            end = section.indexOf(SECTION_SEPARATOR, end + SECTION_SEPARATOR.length());
+        }
+        scope.add(section);
+        return scope;
+    }
+
+    /** Spring AI Qdrant requires UUID point ids; derive one deterministically from the chunk id. */
+    private static String pointId(String chunkId) {
+        return UUID.nameUUIDFromBytes(chunkId.getBytes(StandardCharsets.UTF_8)).toString();
     }
 
     /** Returns metadata value as string because Qdrant/store may return different value types. */
@@ -154,12 +375,30 @@ public class QdrantVectorStoreRepository implements VectorStoreRepository {
         return v != null ? v.toString() : null;
     }
 
+    /** Returns a list metadata value as Integers, skipping entries that are not numbers; empty when absent. */
+    private static List<Integer> getIntegers(Map<String, Object> m, String key) {
+        if (m == null || !(m.get(key) instanceof Collection<?> values)) {
+            return List.of();
+        }
+        List<Integer> integers = new ArrayList<>(values.size());
+        for (Object v : values) {
+            Integer value = toInteger(v);
+            if (value != null) {
+                integers.add(value);
+            }
+        }
+        return integers;
+    }
+
     /** Returns metadata value as Integer because the payload may store page as Number or string. */
     private static Integer getInteger(Map<String, Object> m, String key) {
         if (m == null) {
             return null;
         }
-        Object v = m.get(key);
+        return toInteger(m.get(key));
+    }
+
+    private static Integer toInteger(Object v) {
         if (v == null) {
             return null;
         }
@@ -0,0 +1,26 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.RateLimitLease;
+import com.rag.ownermanual.domain.RateLimitPolicy;
+
+/**
+ * Shared per-identity token buckets for cluster-wide rate limiting. Nodes take tokens in batches
+ * (leases) and spend them locally, so the store is consulted once per batch, not per request.
+ */
+public interface RateLimitLeaseRepository {
+
+    /**
+     * Refill the identity's bucket for the time since its last lease and take up to {@code tokens}
+     * whole tokens from it, atomically with respect to other nodes. A new identity starts with a
+     * full bucket.
+     * @param policy Bucket parameters; the same for every node leasing for this identity.
+     * @return Tokens granted and what is left.
+     */
+    RateLimitLease lease(String identity, RateLimitPolicy policy, int tokens);
+
+    /**
+     * Return unspent leased tokens, e.g. when a node drops an idle identity or shuts down. The
+     * bucket never exceeds its capacity.
+     */
+    void release(String identity, RateLimitPolicy policy, int tokens);
+}
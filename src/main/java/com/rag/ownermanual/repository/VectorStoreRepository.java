@@ -2,7 +2,9 @@ package com.rag.ownermanual.repository;
 
 import com.rag.ownermanual.domain.Chunk;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Persistence contract for the vector store (Qdrant). QueryService searches by
@@ -18,11 +20,34 @@ public interface VectorStoreRepository {
      * @param topK         Maximum number of chunks to return.
      * @return List of chunks ordered by similarity (nearest first); never null, may be empty.
      */
-    List<Chunk> search(String queryText, String vehicleModel, int topK);
+    default List<Chunk> search(String queryText, String vehicleModel, int topK) {
+        return search(queryText, vehicleModel, null, topK);
+    }
+
+    /**
+     * Like {@link #search(String, String, int)}, additionally restricted to one manual section.
+     * @param section Section path (e.g. "Maintenance &gt; Tyres") whose chunks, including those of its
+     *                subsections, are searched; null or blank = all sections.
+     */
+    List<Chunk> search(String queryText, String vehicleModel, String section, int topK);
 
     /**
      * Insert or replace chunks in the vector store. Each chunk is embedded and stored with payload.
      * @param chunks Chunks to upsert; must not be null (may be empty).
      */
     void upsertChunks(List<Chunk> chunks);
+
+    /**
+     * Delete chunks by chunk id in a single call. Ids with no stored point are ignored.
+     * @param chunkIds Chunk ids to delete; must not be null (may be empty).
+     */
+    void deleteChunks(Collection<String> chunkIds);
+
+    /**
+     * Replace the occurrence pages of stored chunks in a single call, without re-embedding them.
+     * An empty list removes the chunk's occurrence pages.
+     * @param occurrencePages Chunk id → occurrence pages; every chunk must already be stored; must not
+     *                        be null (may be empty).
+     */
+    void setOccurrencePages(Map<String, List<Integer>> occurrencePages);
 }
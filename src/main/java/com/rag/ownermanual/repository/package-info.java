@@ -1,6 +1,7 @@
 /**
  * Persistence contracts: interfaces for vector store and job storage.
  * 
- * Contains: VectorStoreRepository, IngestionJobRepository.
+ * Contains: VectorStoreRepository, IngestionJobRepository, EmbeddingCacheRepository,
+ * IngestionManifestRepository.
  */
 package com.rag.ownermanual.repository;
@@ -1,5 +1,7 @@
 package com.rag.ownermanual.resilience;
 
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.retry.Retry;
@@ -8,6 +10,7 @@ import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import org.springframework.stereotype.Component;
 
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Supplier;
 
 /**
@@ -18,17 +21,24 @@ public class ResilienceService {
 
     private final CircuitBreakerRegistry circuitBreakerRegistry;
     private final RetryRegistry retryRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
 
     public ResilienceService(CircuitBreakerRegistry circuitBreakerRegistry,
                              RetryRegistry retryRegistry,
+                             BulkheadRegistry bulkheadRegistry,
                              TimeLimiterRegistry timeLimiterRegistry) {
         this.circuitBreakerRegistry = Objects.requireNonNull(circuitBreakerRegistry, "circuitBreakerRegistry");
         this.retryRegistry = Objects.requireNonNull(retryRegistry, "retryRegistry");
+        this.bulkheadRegistry = Objects.requireNonNull(bulkheadRegistry, "bulkheadRegistry");
         Objects.requireNonNull(timeLimiterRegistry, "timeLimiterRegistry");
     }
 
     /**
-     * Execute a blocking supplier with retry + circuit breaker.
+     * Execute a blocking supplier with retry + circuit breaker. When a bulkhead instance of the same
+     * name is configured (resilience4j.bulkhead.instances), each attempt also waits for one of its
+     * permits first, which caps concurrent calls to that downstream across all jobs on this node.
+     * The wait sits outside the circuit breaker, so a full bulkhead is not counted as a downstream
+     * failure.
      */
     public <T> T execute(String name, Supplier<T> supplier) {
         Objects.requireNonNull(name, "name");
@@ -38,6 +48,10 @@ public class ResilienceService {
         Retry retry = retryRegistry.retry(name);
 
         Supplier<T> decorated = CircuitBreaker.decorateSupplier(cb, supplier);
+        Optional<Bulkhead> bulkhead = bulkheadRegistry.find(name);
+        if (bulkhead.isPresent()) {
+            decorated = Bulkhead.decorateSupplier(bulkhead.get(), decorated);
+        }
         decorated = Retry.decorateSupplier(retry, decorated);
         return decorated.get();
     }
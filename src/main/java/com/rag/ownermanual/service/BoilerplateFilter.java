@@ -0,0 +1,178 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ParsedPage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Strips running headers, footers, page numbers and legal lines from the pages of one document
+ * before they reach the chunker.
+ *
+ * <p>The first samplePages pages are held back and their edge lines (the first and last edgeLines
+ * non-blank lines of each page) counted. A line is boilerplate when it appears at an edge of at
+ * least minPageFraction of the sampled pages; lines are compared with whitespace collapsed, case
+ * folded and digit runs masked, so "Page 12 of 300" and "Page 13 of 300" are the same line. The
+ * held pages are then released and every page, sampled or not, has boilerplate removed from its
+ * edges. Lines in the body of a page are never touched. A page left blank is dropped.
+ *
+ * <p>Documents shorter than {@link #MIN_SAMPLE_PAGES} pages pass through unchanged. Not
+ * thread-safe: pages are fed by the parsing thread, which calls {@link #finish()} once the
+ * document has been read.
+ */
+final class BoilerplateFilter implements Consumer<ParsedPage> {
+
+    /** Fewer pages than this cannot tell repeated lines from coincidence. */
+    static final int MIN_SAMPLE_PAGES = 3;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+
+    private final IngestionProperties.Boilerplate settings;
+    private final Consumer<ParsedPage> downstream;
+    private final List<ParsedPage> sample = new ArrayList<>();
+    /** Null while sampling; empty when the document has no boilerplate or filtering is disabled. */
+    private Set<String> boilerplate;
+    private long charsIn;
+    private long charsRemoved;
+    private int emitted;
+
+    BoilerplateFilter(IngestionProperties.Boilerplate settings, Consumer<ParsedPage> downstream) {
+        this.settings = Objects.requireNonNull(settings, "settings");
+        this.downstream = Objects.requireNonNull(downstream, "downstream");
+        if (!settings.isEnabled()) {
+            boilerplate = Set.of();
+        }
+    }
+
+    @Override
+    public void accept(ParsedPage page) {
+        charsIn += page.text().length();
+        if (boilerplate != null) {
+            emit(page);
+            return;
+        }
+        sample.add(page);
+        if (sample.size() >= settings.getSamplePages()) {
+            learnAndRelease();
+        }
+    }
+
+    /**
+     * Releases pages still held for sampling. Call once after the last page.
+     * @return pages passed downstream
+     */
+    int finish() {
+        if (boilerplate == null) {
+            learnAndRelease();
+        }
+        return emitted;
+    }
+
+    /**
+     * @return share of the text received that was removed as boilerplate, 0 when none was received
+     */
+    double removedRatio() {
+        return charsIn == 0 ? 0 : (double) charsRemoved / charsIn;
+    }
+
+    private void learnAndRelease() {
+        boilerplate = sample.size() < MIN_SAMPLE_PAGES ? Set.of() : learn(sample);
+        for (ParsedPage page : sample) {
+            emit(page);
+        }
+        sample.clear();
+    }
+
+    private Set<String> learn(List<ParsedPage> pages) {
+        Map<String, Integer> pagesWithLine = new HashMap<>();
+        for (ParsedPage page : pages) {
+            List<String> lines = page.text().lines().toList();
+            Set<String> edges = new HashSet<>();
+            for (int index : edgeIndexes(lines)) {
+                edges.add(normalize(lines.get(index)));
+            }
+            edges.forEach(line -> pagesWithLine.merge(line, 1, Integer::sum));
+        }
+        int minPages = Math.max(2, (int) Math.ceil(pages.size() * settings.getMinPageFraction()));
+        Set<String> lines = new HashSet<>();
+        pagesWithLine.forEach((line, count) -> {
+            if (count >= minPages) {
+                lines.add(line);
+            }
+        });
+        return lines;
+    }
+
+    private void emit(ParsedPage page) {
+        ParsedPage stripped = strip(page);
+        if (stripped != null) {
+            downstream.accept(stripped);
+            emitted++;
+        }
+    }
+
+    /**
+     * @return the page without boilerplate edge lines (the same instance when there are none), or
+     *         null when nothing else is left
+     */
+    private ParsedPage strip(ParsedPage page) {
+        if (boilerplate.isEmpty()) {
+            return page;
+        }
+        List<String> lines = page.text().lines().toList();
+        Set<Integer> removed = new HashSet<>();
+        for (int index : edgeIndexes(lines)) {
+            if (boilerplate.contains(normalize(lines.get(index)))) {
+                removed.add(index);
+            }
+        }
+        if (removed.isEmpty()) {
+            return page;
+        }
+        StringBuilder text = new StringBuilder(page.text().length());
+        for (int i = 0; i < lines.size(); i++) {
+            if (!removed.contains(i)) {
+                text.append(lines.get(i)).append('\n');
+            }
+        }
+        String kept = text.toString().strip();
+        charsRemoved += page.text().length() - kept.length();
+        return kept.isEmpty() ? null : new ParsedPage(page.pageNumber(), kept, page.section());
+    }
+
+    /**
+     * Indexes of the first and last edgeLines non-blank lines.
+     */
+    private Set<Integer> edgeIndexes(List<String> lines) {
+        Set<Integer> edges = new HashSet<>();
+        int edgeLines = settings.getEdgeLines();
+        for (int i = 0, found = 0; i < lines.size() && found < edgeLines; i++) {
+            if (!lines.get(i).isBlank()) {
+                edges.add(i);
+                found++;
+            }
+        }
+        for (int i = lines.size() - 1, found = 0; i >= 0 && found < edgeLines; i--) {
+            if (!lines.get(i).isBlank()) {
+                edges.add(i);
+                found++;
+            }
+        }
+        return edges;
+    }
+
+    private static String normalize(String line) {
+        String collapsed = WHITESPACE.matcher(line.strip()).replaceAll(" ");
+        return DIGITS.matcher(collapsed).replaceAll("#").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,21 +1,31 @@
 package com.rag.ownermanual.service;
 
+import com.rag.ownermanual.config.IngestionProperties;
 import com.rag.ownermanual.domain.Chunk;
 import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.domain.TextSlice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
  * Turns parsed manual pages into Chunk instances suitable for storage in the vector store.
  * <ul>
  *   <li>Takes the parser output (ParsedPage list) plus manualId and vehicleModel.</li>
- *   <li>Splits each page's text into overlapping character-based chunks so embeddings stay within model limits.</li>
+ *   <li>Splits each page's text into overlapping chunks so embeddings stay within model limits: by default
+ *   along paragraphs, sentences and procedure steps up to a token budget (see {@link StructuredTextSplitter}),
+ *   or in fixed character windows (app.ingestion.chunking.strategy=fixed).</li>
+ *   <li>References the page text by offsets instead of copying it; text is copied once, when a chunk is
+ *   serialized.</li>
  *   <li>Assigns stable chunk identifiers so re-ingesting the same manual overwrites existing points in the vector store instead of duplicating them.</li>
  * </ul>
  */
@@ -38,11 +48,31 @@ public class Chunker {
     private final int maxChars;
     private final int overlapChars;
 
-    public Chunker() {
-        this(DEFAULT_MAX_CHARS, DEFAULT_OVERLAP_CHARS);
+    /** Null for fixed character windows. */
+    private final StructuredTextSplitter structuredSplitter;
+
+    @Autowired
+    public Chunker(IngestionProperties ingestionProperties) {
+        this(DEFAULT_MAX_CHARS, DEFAULT_OVERLAP_CHARS,
+                structuredSplitter(Objects.requireNonNull(ingestionProperties, "ingestionProperties").getChunking()));
     }
 
+    /**
+     * Fixed character windows.
+     */
     Chunker(int maxChars, int overlapChars) {
+        this(maxChars, overlapChars, null);
+    }
+
+    /**
+     * Token-budgeted structured chunks.
+     */
+    static Chunker structured(int maxTokens, int overlapTokens) {
+        return new Chunker(DEFAULT_MAX_CHARS, DEFAULT_OVERLAP_CHARS,
+                new StructuredTextSplitter(new JTokkitTokenCountEstimator(), maxTokens, overlapTokens));
+    }
+
+    private Chunker(int maxChars, int overlapChars, StructuredTextSplitter structuredSplitter) {
         if (maxChars <= 0) {
             throw new IllegalArgumentException("maxChars must be positive");
         }
@@ -54,6 +84,15 @@ public class Chunker {
         }
         this.maxChars = maxChars;
         this.overlapChars = overlapChars;
+        this.structuredSplitter = structuredSplitter;
+    }
+
+    private static StructuredTextSplitter structuredSplitter(IngestionProperties.Chunking settings) {
+        if (settings.getStrategy() == IngestionProperties.Chunking.Strategy.FIXED) {
+            return null;
+        }
+        return new StructuredTextSplitter(new JTokkitTokenCountEstimator(),
+                settings.getMaxTokens(), settings.getOverlapTokens());
     }
 
     /**
@@ -78,26 +117,14 @@ public class Chunker {
 
         int syntheticPageCounter = 0;
         for (ParsedPage page : pages) {
-            if (page == null) {
+            if (page == null || page.text() == null || page.text().isBlank()) {
                 continue;
             }
 
-            String text = page.text();
-            if (text == null) {
-                continue;
-            }
-            text = text.strip();
-            if (text.isEmpty()) {
-                continue;
-            }
-
-            Integer pageNumber = page.pageNumber();
-            if (pageNumber == null) {
+            if (page.pageNumber() == null) {
                 syntheticPageCounter++;
             }
-            int effectivePage = (pageNumber != null) ? pageNumber : syntheticPageCounter;
-
-            createChunksForPage(result, text, page.section(), pageNumber, effectivePage, manualId, vehicleModel);
+            result.addAll(chunkPage(page, syntheticPageCounter, manualId, vehicleModel));
         }
 
         List<Chunk> unmodifiable = Collections.unmodifiableList(result);
@@ -105,45 +132,118 @@ public class Chunker {
         return unmodifiable;
     }
 
-    private void createChunksForPage(List<Chunk> target,
-                                     String pageText,
-                                     String section,
-                                     Integer pageNumber,
-                                     int effectivePage,
-                                     String manualId,
-                                     String vehicleModel) {
-
-        Objects.requireNonNull(pageText, "pageText");
+    /**
+     * Create chunks for a single page. Used by the streaming ingestion pipeline, which sees pages one
+     * at a time; {@link #chunk(List, String, String)} delegates here so both paths produce identical ids.
+     * @param page                 parsed page; blank pages yield no chunks
+     * @param syntheticPageCounter 1-based count of pages without a page number seen so far (including
+     *                             this one); used for ids when page.pageNumber() is null
+     * @param manualId             identifier of the manual being ingested
+     * @param vehicleModel         vehicle/model this manual applies to
+     * @return chunks for this page in order, possibly empty but never null
+     */
+    public List<Chunk> chunkPage(ParsedPage page, int syntheticPageCounter, String manualId, String vehicleModel) {
+        List<Chunk> result = new ArrayList<>();
+        chunks(page, syntheticPageCounter, manualId, vehicleModel).forEachRemaining(result::add);
+        return result;
+    }
 
-        int length = pageText.length();
-        if (length == 0) {
-            return;
+    /**
+     * Iterator form of {@link #chunkPage}, over one page whose text is already in memory: Chunk
+     * objects are created as the iterator advances. With fixed windows the boundaries are computed
+     * lazily too; the structured splitter needs the whole page to pack sections, so it computes all
+     * boundaries (start/end offsets) up front. Chunk content is a {@link TextSlice} of the page text
+     * (the page text itself when a chunk covers all of it), so no characters are copied until a
+     * chunk's text is materialized. The ingestion pipeline does not use this form: it diffs and
+     * deduplicates a page's chunks as a list, through chunkPage. Arguments are as for chunkPage.
+     * @return iterator over the page's chunks in order; empty for a null or blank page
+     */
+    public Iterator<Chunk> chunks(ParsedPage page, int syntheticPageCounter, String manualId, String vehicleModel) {
+        if (page == null || page.text() == null) {
+            return Collections.emptyIterator();
+        }
+        String pageText = page.text();
+        int from = StructuredTextSplitter.skipLeading(pageText, 0, pageText.length());
+        int to = StructuredTextSplitter.trimTrailing(pageText, from, pageText.length());
+        if (from == to) {
+            return Collections.emptyIterator();
         }
+        Integer pageNumber = page.pageNumber();
+        int effectivePage = (pageNumber != null) ? pageNumber : syntheticPageCounter;
+        PageChunks chunks = new PageChunks(pageText, page.section(), pageNumber, effectivePage, manualId, vehicleModel);
+        return structuredSplitter != null
+                ? chunks.structured(structuredSplitter.split(pageText, from, to))
+                : chunks.fixedWindows(from, to);
+    }
 
-        int chunkIndexWithinPage = 0;
-        int start = 0;
+    /**
+     * Builds the chunks of one page from offsets into its text.
+     */
+    private final class PageChunks {
+
+        private final String pageText;
+        private final String section;
+        private final Integer pageNumber;
+        private final int effectivePage;
+        private final String manualId;
+        private final String vehicleModel;
+        private int chunkIndexWithinPage;
+
+        PageChunks(String pageText, String section, Integer pageNumber, int effectivePage,
+                   String manualId, String vehicleModel) {
+            this.pageText = pageText;
+            this.section = section;
+            this.pageNumber = pageNumber;
+            this.effectivePage = effectivePage;
+            this.manualId = manualId;
+            this.vehicleModel = vehicleModel;
+        }
 
-        while (start < length) {
-            int end = Math.min(start + maxChars, length);
-            String slice = pageText.substring(start, end);
+        Iterator<Chunk> structured(List<StructuredTextSplitter.Span> spans) {
+            Iterator<StructuredTextSplitter.Span> it = spans.iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public Chunk next() {
+                    StructuredTextSplitter.Span span = it.next();
+                    return chunk(span.start(), span.end());
+                }
+            };
+        }
 
-            if (slice.isBlank()) {
-                break;
-            }
+        /**
+         * Windows of maxChars over [from, to), each starting overlapChars before the previous end.
+         */
+        Iterator<Chunk> fixedWindows(int from, int to) {
+            return new Iterator<>() {
+                private int start = from;
+
+                @Override
+                public boolean hasNext() {
+                    return start < to;
+                }
+
+                @Override
+                public Chunk next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int end = Math.min(start + maxChars, to);
+                    Chunk chunk = chunk(start, end);
+                    start = end == to ? to : Math.max(end - overlapChars, from);
+                    return chunk;
+                }
+            };
+        }
 
+        private Chunk chunk(int start, int end) {
             chunkIndexWithinPage++;
             String chunkId = buildChunkId(manualId, effectivePage, chunkIndexWithinPage);
-            Chunk chunk = new Chunk(chunkId, slice, manualId, vehicleModel, section, pageNumber);
-            target.add(chunk);
-
-            if (end == length) {
-                break;
-            }
-
-            start = end - overlapChars;
-            if (start < 0) {
-                start = 0;
-            }
+            return new Chunk(chunkId, TextSlice.of(pageText, start, end), manualId, vehicleModel, section, pageNumber);
         }
     }
 
@@ -0,0 +1,411 @@
+package com.rag.ownermanual.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ParsedPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Local store of fetched documents, so republished-but-unchanged manuals are neither downloaded nor
+ * extracted again.
+ * <ul>
+ *   <li>Documents are content-addressed by SHA-256: {@code documents/<sha>.pdf} holds the raw bytes
+ *   and {@code documents/<sha>.<section detection>.pages.jsonl} the parsed pages, one JSON object per
+ *   line, so re-chunking can replay pages without running PDF extraction. Pages carry the sections
+ *   found at extraction, so on startup pages extracted with another
+ *   app.ingestion.extraction.section-detection are dropped together with their documents.</li>
+ *   <li>{@code urls/<sha of url>.properties} holds the ETag/Last-Modified last returned for a URL and
+ *   the hash of that response, for conditional GETs. These entries are tiny and are not evicted.</li>
+ *   <li>Documents are evicted least-recently-used first once their total size exceeds
+ *   app.ingestion.document-store.max-size. Access times are kept in file modification times, so the
+ *   order survives restarts.</li>
+ * </ul>
+ * When disabled, lookups find nothing and writes are no-ops.
+ */
+@Component
+public final class DocumentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentStore.class);
+
+    private static final String DOCUMENT_SUFFIX = ".pdf";
+    private static final String PAGES_SUFFIX = ".pages.jsonl";
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Validators last seen for a URL.
+     * @param url          document URL
+     * @param etag         ETag response header; null when absent
+     * @param lastModified Last-Modified response header, verbatim; null when absent
+     * @param sha256       hex SHA-256 of the response body the validators describe
+     */
+    public record UrlEntry(String url, String etag, String lastModified, String sha256) {
+
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+    }
+
+    private final boolean enabled;
+    private final long maxBytes;
+    private final String pagesSuffix;
+    private final Path documentsDir;
+    private final Path urlsDir;
+
+    /** Stored documents by hash, least recently used first, with their size on disk. */
+    private final LinkedHashMap<String, Long> documents = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter evictions;
+
+    public DocumentStore(IngestionProperties ingestionProperties, MeterRegistry meterRegistry) {
+        IngestionProperties.DocumentStore settings =
+                Objects.requireNonNull(ingestionProperties, "ingestionProperties").getDocumentStore();
+        this.enabled = settings.isEnabled();
+        this.maxBytes = settings.getMaxSize().toBytes();
+        this.pagesSuffix = "." + ingestionProperties.getExtraction().getSectionDetection().name().toLowerCase(Locale.ROOT)
+                + PAGES_SUFFIX;
+        Path root = root(settings.getDirectory());
+        this.documentsDir = root.resolve("documents");
+        this.urlsDir = root.resolve("urls");
+        if (enabled) {
+            load();
+        }
+
+        Gauge.builder("ingest.document.store.bytes", this, DocumentStore::totalBytes)
+                .description("Bytes of raw documents and parsed pages held in the local document store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("ingest.document.store.evictions")
+                .description("Documents evicted from the local document store to stay within its size bound")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return validators last recorded for the URL; empty when unknown or the store is disabled
+     */
+    public Optional<UrlEntry> findByUrl(String url) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Path file = urlFile(url);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable document store entry {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+        if (!url.equals(properties.getProperty("url")) || properties.getProperty("sha256") == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new UrlEntry(url, properties.getProperty("etag"),
+                properties.getProperty("lastModified"), properties.getProperty("sha256")));
+    }
+
+    /**
+     * Record the validators of the latest response for a URL, replacing older ones.
+     */
+    public void recordUrl(UrlEntry entry) {
+        if (!enabled) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("url", entry.url());
+        properties.setProperty("sha256", entry.sha256());
+        if (entry.etag() != null) {
+            properties.setProperty("etag", entry.etag());
+        }
+        if (entry.lastModified() != null) {
+            properties.setProperty("lastModified", entry.lastModified());
+        }
+        try {
+            Path temp = Files.createTempFile(urlsDir, "url-", ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            Files.move(temp, urlFile(entry.url()), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Only costs a full download next time.
+            log.warn("Could not record document store entry for url: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return true when parsed pages of the document are stored (marks it as recently used)
+     */
+    public synchronized boolean hasPages(String sha256) {
+        if (!enabled || documents.get(sha256) == null) {
+            return false;
+        }
+        touch(sha256);
+        return true;
+    }
+
+    /**
+     * Hand the stored pages of a document to the sink, in page order, without reading them all into
+     * memory. A document evicted after a replay started stays readable until the replay ends.
+     * @return number of pages passed to the sink, or -1 when the document is not (or no longer) stored
+     */
+    public int replayPages(String sha256, Consumer<ParsedPage> pageSink) {
+        if (!enabled) {
+            return -1;
+        }
+        BufferedReader opened;
+        try {
+            opened = Files.newBufferedReader(pagesFile(sha256), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return -1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stored pages of document " + sha256, e);
+        }
+        int replayed = 0;
+        try (BufferedReader reader = opened) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isBlank()) {
+                    pageSink.accept(JSON.readValue(line, ParsedPage.class));
+                    replayed++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read stored pages of document " + sha256, e);
+        }
+        return replayed;
+    }
+
+    /**
+     * Start recording pages as they are extracted. Pass the recorder to
+     * {@link #put(String, Path, PageRecorder)} once extraction succeeds; closing it without storing
+     * discards the pages.
+     * @throws IllegalStateException when the store is disabled
+     */
+    public PageRecorder startRecording() {
+        if (!enabled) {
+            throw new IllegalStateException("Document store is disabled");
+        }
+        return new PageRecorder();
+    }
+
+    /**
+     * Move a fetched document and its recorded pages into the store, then evict least recently used
+     * documents until the store fits its size bound. Documents larger than the bound are not stored.
+     * @param sha256   hex SHA-256 of the document
+     * @param document file with the raw bytes; moved into the store
+     * @param pages    pages recorded during extraction of this document
+     */
+    public synchronized void put(String sha256, Path document, PageRecorder pages) {
+        if (!enabled || documents.containsKey(sha256)) {
+            return;
+        }
+        try {
+            pages.finish();
+            long bytes = Files.size(document) + Files.size(pages.file);
+            if (bytes > maxBytes) {
+                log.debug("Not storing document {}: {} bytes exceeds store bound of {} bytes", sha256, bytes, maxBytes);
+                return;
+            }
+            // Pages last: a document is only known to load() once its pages file exists.
+            Files.move(document, documentFile(sha256), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(pages.file, pagesFile(sha256), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            documents.put(sha256, bytes);
+            totalBytes += bytes;
+            evictToBound();
+        } catch (IOException e) {
+            log.warn("Could not store document {}: {}", sha256, e.getMessage());
+            deleteDocument(sha256);
+        }
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private void evictToBound() {
+        Iterator<Map.Entry<String, Long>> eldest = documents.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            deleteDocument(entry.getKey());
+            evictions.increment();
+            log.debug("Evicted document {} ({} bytes) from document store", entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void touch(String sha256) {
+        try {
+            Files.setLastModifiedTime(pagesFile(sha256), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects eviction order after a restart.
+        }
+    }
+
+    /**
+     * Rebuilds the index from disk, oldest access first, and drops files left by interrupted writes or
+     * pages extracted with another section detection.
+     */
+    private void load() {
+        try {
+            Files.createDirectories(documentsDir);
+            Files.createDirectories(urlsDir);
+            List<Path> pageFiles;
+            try (Stream<Path> files = Files.list(documentsDir)) {
+                pageFiles = files.filter(file -> file.getFileName().toString().endsWith(PAGES_SUFFIX))
+                        .sorted(Comparator.comparing(DocumentStore::lastModified))
+                        .toList();
+            }
+            for (Path pages : pageFiles) {
+                String name = pages.getFileName().toString();
+                if (!name.endsWith(pagesSuffix)) {
+                    DownloadedDocument.deleteQuietly(pages);
+                    continue;
+                }
+                String sha256 = name.substring(0, name.length() - pagesSuffix.length());
+                Path document = documentFile(sha256);
+                if (!Files.exists(document)) {
+                    DownloadedDocument.deleteQuietly(pages);
+                    continue;
+                }
+                long bytes = Files.size(document) + Files.size(pages);
+                documents.put(sha256, bytes);
+                totalBytes += bytes;
+            }
+            try (Stream<Path> files = Files.list(documentsDir)) {
+                files.filter(file -> file.getFileName().toString().endsWith(DOCUMENT_SUFFIX))
+                        .filter(file -> !Files.exists(pagesFile(stripSuffix(file, DOCUMENT_SUFFIX))))
+                        .forEach(DownloadedDocument::deleteQuietly);
+            }
+            evictToBound();
+            log.info("Document store at {} holds {} document(s), {} bytes", documentsDir.getParent(), documents.size(), totalBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open document store at " + documentsDir.getParent(), e);
+        }
+    }
+
+    private void deleteDocument(String sha256) {
+        DownloadedDocument.deleteQuietly(pagesFile(sha256));
+        DownloadedDocument.deleteQuietly(documentFile(sha256));
+    }
+
+    private Path documentFile(String sha256) {
+        return documentsDir.resolve(sha256 + DOCUMENT_SUFFIX);
+    }
+
+    private Path pagesFile(String sha256) {
+        return documentsDir.resolve(sha256 + pagesSuffix);
+    }
+
+    private Path urlFile(String url) {
+        return urlsDir.resolve(sha256Hex(url) + ".properties");
+    }
+
+    private static String stripSuffix(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - suffix.length());
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static Path root(String configured) {
+        if (configured == null || configured.isBlank()) {
+            return Path.of(System.getProperty("java.io.tmpdir"), "owner-manual-documents");
+        }
+        return Path.of(configured);
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Writes extracted pages to a temp file in the store, one JSON object per line. Not thread-safe;
+     * pages arrive on the extracting thread in order.
+     */
+    public final class PageRecorder implements Consumer<ParsedPage>, AutoCloseable {
+
+        private final Path file;
+        private final SequenceWriter writer;
+
+        private PageRecorder() {
+            try {
+                this.file = Files.createTempFile(documentsDir, "pages-", ".tmp");
+                this.writer = JSON.writer().withRootValueSeparator("\n").writeValues(file.toFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not create page recording in document store", e);
+            }
+        }
+
+        @Override
+        public void accept(ParsedPage page) {
+            try {
+                writer.write(page);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not record parsed page", e);
+            }
+        }
+
+        private void finish() throws IOException {
+            writer.close();
+        }
+
+        /** Discards the recording unless {@link #put(String, Path, PageRecorder)} moved it into the store. */
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                // Deleted below either way.
+            }
+            DownloadedDocument.deleteQuietly(file);
+        }
+    }
+}
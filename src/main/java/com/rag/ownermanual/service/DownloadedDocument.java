@@ -0,0 +1,47 @@
+package com.rag.ownermanual.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A remote document streamed to a local temp file. Closing it deletes the file (unless it was moved
+ * into the DocumentStore).
+ *
+ * @param path         Temp file holding the raw document bytes; null when the server answered 304.
+ * @param sizeBytes    Number of bytes written.
+ * @param sha256       Hex SHA-256 of the content, computed while streaming.
+ * @param etag         ETag response header; null when absent.
+ * @param lastModified Last-Modified response header; null when absent.
+ */
+record DownloadedDocument(Path path, long sizeBytes, String sha256, String etag, String lastModified)
+        implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(DownloadedDocument.class);
+
+    /** Result of a conditional GET answered with 304 Not Modified. */
+    static final DownloadedDocument NOT_MODIFIED = new DownloadedDocument(null, 0, null, null, null);
+
+    boolean notModified() {
+        return path == null;
+    }
+
+    @Override
+    public void close() {
+        deleteQuietly(path);
+    }
+
+    static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp document file {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Shares a node's free worker slots between tenants with smooth weighted round-robin (as in
+ * nginx upstream balancing): every pick adds each candidate's weight to its running credit, the
+ * tenant with the most credit wins the slot and pays back the total weight. Picks are interleaved
+ * rather than bursty, and the credit carries over between polls, so a node that frees one slot at a
+ * time still rotates through tenants in proportion to their weights.
+ *
+ * <p>A tenant only competes while it has due jobs; its credit is dropped once it has none, so an
+ * idle tenant does not bank slots for later.
+ */
+@Component
+public class FairShareScheduler {
+
+    private final IngestionProperties.Scheduler settings;
+    private final Map<String, Long> credit = new HashMap<>();
+
+    public FairShareScheduler(IngestionProperties ingestionProperties) {
+        this.settings = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getScheduler();
+    }
+
+    /**
+     * @param slots        Free slots to hand out.
+     * @param dueByTenant  Claimable job count per tenant.
+     * @return Slots per tenant, in the order tenants were first picked; never more than a tenant's
+     *         due count, and fewer than {@code slots} in total only when fewer jobs are due.
+     */
+    public synchronized Map<String, Integer> allocate(int slots, Map<String, Integer> dueByTenant) {
+        credit.keySet().retainAll(dueByTenant.keySet());
+        Map<String, Integer> remaining = new HashMap<>(dueByTenant);
+        // Sorted so ties are broken the same way on every node.
+        TreeSet<String> candidates = new TreeSet<>();
+        dueByTenant.forEach((tenant, due) -> {
+            if (due > 0) {
+                candidates.add(tenant);
+            }
+        });
+
+        Map<String, Integer> allocation = new LinkedHashMap<>();
+        for (int i = 0; i < slots && !candidates.isEmpty(); i++) {
+            long totalWeight = 0;
+            String best = null;
+            long bestCredit = Long.MIN_VALUE;
+            for (String tenant : candidates) {
+                int weight = weight(tenant);
+                long current = credit.merge(tenant, (long) weight, Long::sum);
+                totalWeight += weight;
+                if (current > bestCredit) {
+                    best = tenant;
+                    bestCredit = current;
+                }
+            }
+            credit.merge(best, -totalWeight, Long::sum);
+            allocation.merge(best, 1, Integer::sum);
+            if (remaining.merge(best, -1, Integer::sum) == 0) {
+                candidates.remove(best);
+            }
+        }
+        return allocation;
+    }
+
+    int weight(String tenant) {
+        return settings.getTenantWeights().getOrDefault(tenant, settings.getDefaultWeight());
+    }
+}
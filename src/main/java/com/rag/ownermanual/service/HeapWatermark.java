@@ -0,0 +1,44 @@
+package com.rag.ownermanual.service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Tracks the highest heap usage observed while a single ingest runs, relative to the heap used
+ * when tracking started. Heap is JVM-wide, so with concurrent jobs the value is an upper bound
+ * for the job; it is still the signal we want to see stay flat as documents grow.
+ */
+final class HeapWatermark {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final long baselineBytes;
+    private long peakBytes;
+
+    private HeapWatermark(long baselineBytes) {
+        this.baselineBytes = baselineBytes;
+        this.peakBytes = baselineBytes;
+    }
+
+    static HeapWatermark start() {
+        return new HeapWatermark(currentHeapUsed());
+    }
+
+    /**
+     * Samples current heap usage; call at natural checkpoints (e.g. once per page).
+     */
+    synchronized void sample() {
+        peakBytes = Math.max(peakBytes, currentHeapUsed());
+    }
+
+    /**
+     * Peak heap growth over the baseline seen so far; never negative.
+     */
+    synchronized long peakDeltaBytes() {
+        return Math.max(0L, peakBytes - baselineBytes);
+    }
+
+    private static long currentHeapUsed() {
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,105 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.IngestionJobPartitionChanges;
+import com.rag.ownermanual.repository.IngestionJobPartitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.util.Objects;
+
+/**
+ * Keeps the monthly ingestion_jobs partitions in shape: partitions for the next
+ * app.ingestion.retention.months-ahead months exist, and months older than retention-months are
+ * dropped as a whole once none of their jobs is still CREATED or PROCESSING. Runs at startup and on
+ * maintenance-cron; a no-op unless ingestion_jobs is partitioned (Postgres).
+ *
+ * <p>Months are those of the JVM time zone, the zone created_at timestamps are written in.
+ */
+@Component
+public class IngestionJobPartitionMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionJobPartitionMaintenance.class);
+
+    private final IngestionJobPartitionRepository partitionRepository;
+    private final IngestionProperties.Retention settings;
+    private final Clock clock;
+    private final Counter created;
+    private final Counter dropped;
+
+    @Autowired
+    public IngestionJobPartitionMaintenance(IngestionJobPartitionRepository partitionRepository,
+                                            IngestionProperties ingestionProperties,
+                                            MeterRegistry meterRegistry) {
+        this(partitionRepository, ingestionProperties, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    IngestionJobPartitionMaintenance(IngestionJobPartitionRepository partitionRepository,
+                                     IngestionProperties ingestionProperties,
+                                     MeterRegistry meterRegistry,
+                                     Clock clock) {
+        this.partitionRepository = Objects.requireNonNull(partitionRepository, "partitionRepository");
+        this.settings = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getRetention();
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.created = partitionCounter(meterRegistry, "created");
+        this.dropped = partitionCounter(meterRegistry, "dropped");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    /**
+     * One maintenance run. Failures are logged: the partitions created ahead leave months of slack
+     * for the next run. A DDL lock timeout (busy table) is expected now and then and is simply
+     * retried by the next run.
+     */
+    @Scheduled(cron = "${app.ingestion.retention.maintenance-cron:0 30 3 * * *}")
+    public void maintain() {
+        if (!settings.isEnabled()) {
+            return;
+        }
+        YearMonth current = YearMonth.now(clock);
+        try {
+            partitionRepository.maintain(current.plusMonths(settings.getMonthsAhead()),
+                            current.minusMonths(settings.getRetentionMonths() - 1L))
+                    .ifPresent(this::record);
+        } catch (PessimisticLockingFailureException e) {
+            log.info("ingestion_jobs partition maintenance timed out waiting for a table lock; retrying on the next run: {}",
+                    e.getMessage());
+        } catch (DataAccessException e) {
+            log.warn("ingestion_jobs partition maintenance failed", e);
+        }
+    }
+
+    private void record(IngestionJobPartitionChanges changes) {
+        created.increment(changes.created().size());
+        dropped.increment(changes.dropped().size());
+        if (!changes.created().isEmpty() || !changes.dropped().isEmpty()) {
+            log.info("ingestion_jobs partitions: created {}, dropped {}", changes.created(), changes.dropped());
+        }
+        if (!changes.retained().isEmpty()) {
+            log.warn("ingestion_jobs partitions {} are past retention but still hold unfinished jobs; kept",
+                    changes.retained());
+        }
+    }
+
+    private static Counter partitionCounter(MeterRegistry meterRegistry, String action) {
+        return Counter.builder("ingestion.jobs.partitions")
+                .description("Monthly ingestion_jobs partitions created ahead or dropped after retention")
+                .tag("action", action)
+                .register(meterRegistry);
+    }
+}
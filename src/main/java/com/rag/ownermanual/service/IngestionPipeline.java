@@ -0,0 +1,556 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionCheckpoint;
+import com.rag.ownermanual.domain.IngestionStage;
+import com.rag.ownermanual.domain.ManifestEntry;
+import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.embedding.EmbeddingCacheScope;
+import com.rag.ownermanual.embedding.EmbeddingCacheStats;
+import com.rag.ownermanual.repository.IngestionCheckpointRepository;
+import com.rag.ownermanual.repository.IngestionManifestRepository;
+import com.rag.ownermanual.repository.VectorStoreRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams one document through parse → chunk → upsert. Each stage runs on its own executor and
+ * hands work to the next through a bounded queue, so a slow vector store pushes back on the
+ * chunker and parser instead of letting pages pile up in memory, and every upserted batch is
+ * searchable before the rest of the manual has been parsed.
+ *
+ * <p>Runs are incremental: the chunk stage diffs each page against the manual's manifest and only
+ * forwards chunks of new or changed pages. Once every stage has succeeded, chunks the new parse no
+ * longer produces are deleted in one call and the manifest is replaced. A failed run leaves the old
+ * manifest in place, so the next run re-upserts every page changed since the last success. When the
+ * parser reports the document as the version the manifest was built from, the run ends without
+ * touching the store or the manifest. That shortcut only applies when the manifest was also built
+ * with the current processing settings (see {@link #processingFingerprint}); after a settings change
+ * the pages are replayed and re-chunked, and pages whose chunks came out differently are upserted.
+ *
+ * <p>The first stage failure aborts the run: the other stages are interrupted and the original
+ * exception is rethrown to the caller. Batches upserted before the failure stay in the store;
+ * chunk ids are deterministic, so re-ingesting the manual overwrites them.
+ *
+ * <p>Runs for a job are checkpointed: after each upserted batch the pages whose chunks are now all
+ * stored are committed to the job's checkpoint with their page hash. A later run of the same job
+ * (retry, lease takeover or explicit resume) still parses and chunks every page, which is local and
+ * cheap with the DocumentStore, but skips upserting pages whose hash matches the checkpoint. The
+ * checkpoint is deleted once the manifest has been committed.
+ *
+ * <p>Near-duplicate chunks (see {@link NearDuplicateIndex}) are dropped in the chunk stage and never
+ * stored; once the upserts are done, each canonical chunk whose set of duplicate pages differs from
+ * what the store holds (recorded in the manifest) gets the new pages, or none, written to its stored
+ * payload in place.
+ *
+ * <p>Stages report pages parsed, chunks queued and chunks upserted to the run's {@link JobProgress};
+ * the caller decides whether that progress is persisted.
+ */
+@Component
+public class IngestionPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionPipeline.class);
+
+    private static final String STAGE_PARSE = "parse";
+    private static final String STAGE_CHUNK = "chunk";
+    private static final String STAGE_UPSERT = "upsert";
+
+    /** End-of-stream markers; compared by identity. */
+    private static final ParsedPage END_OF_PAGES = new ParsedPage(null, "<end-of-pages>", null);
+    private static final Batch END_OF_BATCHES = new Batch(List.of(), Map.of());
+
+    private final RemoteDocumentParser documentParser;
+    private final Chunker chunker;
+    private final VectorStoreRepository vectorStoreRepository;
+    private final IngestionManifestRepository manifestRepository;
+    private final IngestionCheckpointRepository checkpointRepository;
+    private final IngestionProperties.Pipeline settings;
+    private final IngestionProperties.Dedup dedupSettings;
+    private final String processingFingerprint;
+    private final AsyncTaskExecutor parseExecutor;
+    private final AsyncTaskExecutor chunkExecutor;
+    private final AsyncTaskExecutor upsertExecutor;
+    private final MeterRegistry meterRegistry;
+
+    /** Admits at most maxConcurrentJobs runs so every stage of an admitted run has a thread. */
+    private final Semaphore admission;
+
+    /** Queues of in-flight runs, summed by the queue depth gauges. */
+    private final Set<BlockingQueue<?>> pageQueues = ConcurrentHashMap.newKeySet();
+    private final Set<BlockingQueue<?>> batchQueues = ConcurrentHashMap.newKeySet();
+
+    public IngestionPipeline(RemoteDocumentParser documentParser,
+                             Chunker chunker,
+                             VectorStoreRepository vectorStoreRepository,
+                             IngestionManifestRepository manifestRepository,
+                             IngestionCheckpointRepository checkpointRepository,
+                             IngestionProperties ingestionProperties,
+                             @Qualifier("ingestionParseExecutor") AsyncTaskExecutor parseExecutor,
+                             @Qualifier("ingestionChunkExecutor") AsyncTaskExecutor chunkExecutor,
+                             @Qualifier("ingestionUpsertExecutor") AsyncTaskExecutor upsertExecutor,
+                             MeterRegistry meterRegistry) {
+        this.documentParser = Objects.requireNonNull(documentParser, "documentParser");
+        this.chunker = Objects.requireNonNull(chunker, "chunker");
+        this.vectorStoreRepository = Objects.requireNonNull(vectorStoreRepository, "vectorStoreRepository");
+        this.manifestRepository = Objects.requireNonNull(manifestRepository, "manifestRepository");
+        this.checkpointRepository = Objects.requireNonNull(checkpointRepository, "checkpointRepository");
+        this.settings = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getPipeline();
+        this.dedupSettings = ingestionProperties.getDedup();
+        this.processingFingerprint = processingFingerprint(ingestionProperties);
+        this.parseExecutor = Objects.requireNonNull(parseExecutor, "parseExecutor");
+        this.chunkExecutor = Objects.requireNonNull(chunkExecutor, "chunkExecutor");
+        this.upsertExecutor = Objects.requireNonNull(upsertExecutor, "upsertExecutor");
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
+        this.admission = new Semaphore(settings.getMaxConcurrentJobs(), true);
+
+        registerQueueDepthGauge("pages", pageQueues);
+        registerQueueDepthGauge("batches", batchQueues);
+    }
+
+    /**
+     * Outcome of a successful run.
+     * @param pagesParsed          non-empty pages produced by the parser
+     * @param chunksUpserted       chunks written to the vector store (added + updated)
+     * @param chunkChanges         chunk counts relative to the previous manifest
+     * @param documentUnchanged    true when the document was the version already ingested (304 or same
+     *                             content hash) with the current processing settings; nothing was
+     *                             parsed, upserted or deleted
+     * @param embeddingCacheHits   chunk embeddings served from the embedding cache
+     * @param embeddingCacheMisses chunk embeddings requested from the provider
+     * @param chunksResumed        chunks not upserted because an earlier attempt of the job committed them
+     * @param boilerplateRatio     share of the page text stripped as headers, footers and page numbers
+     * @param chunksDeduplicated   chunks not stored because they repeat an earlier chunk of the manual
+     * @param dedupRatio           chunksDeduplicated as a share of all chunks the parse produced
+     */
+    public record Result(int pagesParsed,
+                         int chunksUpserted,
+                         ChunkChangeCounts chunkChanges,
+                         boolean documentUnchanged,
+                         long embeddingCacheHits,
+                         long embeddingCacheMisses,
+                         int chunksResumed,
+                         double boilerplateRatio,
+                         int chunksDeduplicated,
+                         double dedupRatio) {
+    }
+
+    /**
+     * Chunks for one upsert, plus the pages whose last chunk is in it (or in an earlier batch); once
+     * the batch is stored those pages are complete.
+     */
+    private record Batch(List<Chunk> chunks, Map<Integer, String> completedPages) {
+    }
+
+    /**
+     * Run the pipeline for one document without checkpointing.
+     * @see #run(UUID, String, String, String)
+     */
+    public Result run(String manualId, String vehicleModel, String documentUrl) {
+        return run(null, manualId, vehicleModel, documentUrl);
+    }
+
+    /**
+     * Run the pipeline for one document and block until every stage has finished, resuming from
+     * the job's checkpoint if an earlier attempt left one.
+     * @param jobId        job to checkpoint under; null to neither resume nor checkpoint
+     * @param manualId     identifier of the manual being ingested
+     * @param vehicleModel vehicle/model stored with each chunk
+     * @param documentUrl  URL of the document to fetch and parse
+     * @return counts of pages parsed, chunks upserted and chunk changes
+     * @throws RuntimeException the first exception thrown by any stage
+     */
+    public Result run(UUID jobId, String manualId, String vehicleModel, String documentUrl) {
+        return run(jobId, manualId, vehicleModel, documentUrl, new JobProgress(Clock.systemUTC(), meterRegistry));
+    }
+
+    /**
+     * Like {@link #run(UUID, String, String, String)}, reporting stage and counts to the given
+     * progress as the run advances.
+     */
+    public Result run(UUID jobId, String manualId, String vehicleModel, String documentUrl, JobProgress progress) {
+        Objects.requireNonNull(progress, "progress");
+        acquireAdmission();
+        Run run = new Run(jobId, manualId, vehicleModel, documentUrl, progress);
+        pageQueues.add(run.pages);
+        batchQueues.add(run.batches);
+        try {
+            return run.execute();
+        } finally {
+            progress.finish();
+            pageQueues.remove(run.pages);
+            batchQueues.remove(run.batches);
+            admission.release();
+        }
+    }
+
+    private void acquireAdmission() {
+        try {
+            admission.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an ingestion pipeline slot");
+        }
+    }
+
+    /**
+     * State of one pipeline run: its queues, stage futures and first failure.
+     */
+    private final class Run {
+
+        private final UUID jobId;
+        private final String manualId;
+        private final String vehicleModel;
+        private final String documentUrl;
+        private final JobProgress progress;
+
+        private final BlockingQueue<ParsedPage> pages = new ArrayBlockingQueue<>(settings.getPageQueueCapacity());
+        private final BlockingQueue<Batch> batches = new ArrayBlockingQueue<>(settings.getBatchQueueCapacity());
+
+        private final List<Future<Integer>> stages = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final EmbeddingCacheStats cacheStats;
+        private final NearDuplicateIndex duplicates = new NearDuplicateIndex(dedupSettings);
+        private ManualManifestDiff diff;
+        private int previousChunkCount;
+        private String ingestedDocumentSha256;
+        private volatile RemoteDocumentParser.FetchResult fetch;
+
+        Run(UUID jobId, String manualId, String vehicleModel, String documentUrl, JobProgress progress) {
+            this.jobId = jobId;
+            this.manualId = manualId;
+            this.vehicleModel = vehicleModel;
+            this.documentUrl = documentUrl;
+            this.progress = progress;
+            this.cacheStats = progress.embeddingStats();
+        }
+
+        Result execute() {
+            List<ManifestEntry> previous = manifestRepository.findByManualId(manualId);
+            diff = new ManualManifestDiff(previous);
+            previousChunkCount = previous.size();
+            ingestedDocumentSha256 = manifestRepository.findDocumentHash(manualId, processingFingerprint).orElse(null);
+            if (jobId != null) {
+                checkpointRepository.findByJobId(jobId).ifPresent(this::resumeFrom);
+            }
+            Future<Integer> parse = submit(parseExecutor, STAGE_PARSE, this::parseStage);
+            submit(chunkExecutor, STAGE_CHUNK, this::chunkStage);
+            Future<Integer> upsert = submit(upsertExecutor, STAGE_UPSERT, this::upsertStage);
+            if (failure.get() != null) {
+                // A stage failed before the rest were submitted; make sure none are left running.
+                cancelStages();
+            }
+
+            for (Future<Integer> stage : stages) {
+                awaitQuietly(stage);
+            }
+
+            Throwable error = failure.get();
+            if (error != null) {
+                if (error instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (error instanceof Error fatal) {
+                    throw fatal;
+                }
+                throw new IllegalStateException(error.getMessage(), error);
+            }
+            if (fetch.unchanged()) {
+                log.debug("Document for manualId={} unchanged; keeping manifest of {} chunk(s)", manualId, previousChunkCount);
+                deleteCheckpoint();
+                return new Result(0, 0, new ChunkChangeCounts(0, 0, previousChunkCount, 0), true, 0, 0, 0, 0, 0, 0);
+            }
+            progress.enter(IngestionStage.FINALIZING);
+            updateOccurrencePages();
+            ChunkChangeCounts changes = commitManifest(fetch.documentSha256());
+            deleteCheckpoint();
+            recordCacheHitRatio(cacheStats);
+            recordDedupRatio(duplicates.ratio());
+            return new Result(resultOf(parse), resultOf(upsert), changes, false, cacheStats.hits(), cacheStats.misses(),
+                    diff.resumedChunks(), fetch.boilerplateRatio(), duplicates.duplicates(), duplicates.ratio());
+        }
+
+        private void resumeFrom(IngestionCheckpoint checkpoint) {
+            diff.resume(checkpoint.pageHashes());
+            log.info("Resuming job id={} manualId={} after page {} ({} batch(es), {} chunk(s) already committed)",
+                    jobId, manualId, checkpoint.lastPageKey(), checkpoint.batchesCommitted(), checkpoint.chunksCommitted());
+            Counter.builder("ingest.pipeline.resumed")
+                    .description("Ingestion runs resumed from a checkpoint left by an earlier attempt")
+                    .register(meterRegistry)
+                    .increment();
+        }
+
+        /**
+         * Updates the occurrence pages of canonical chunks whose duplicate pages changed since they
+         * were stored, including those left without duplicates. Only the payload field is written;
+         * nothing is re-embedded.
+         */
+        private void updateOccurrencePages() {
+            Map<String, List<Integer>> changed = diff.occurrenceChanges(duplicates.occurrencePages());
+            if (!changed.isEmpty()) {
+                vectorStoreRepository.setOccurrencePages(changed);
+                log.debug("Recorded occurrence pages on {} canonical chunk(s) for manualId={}", changed.size(), manualId);
+            }
+        }
+
+        /** Called only after the manifest covers everything the checkpoint recorded. */
+        private void deleteCheckpoint() {
+            if (jobId != null) {
+                checkpointRepository.delete(jobId);
+            }
+        }
+
+        /**
+         * Deletes orphaned chunks, then records the new manifest. In this order a failed delete keeps
+         * the orphans in the old manifest, so the next run retries them.
+         */
+        private ChunkChangeCounts commitManifest(String documentSha256) {
+            Set<String> orphans = diff.orphanChunkIds();
+            vectorStoreRepository.deleteChunks(orphans);
+            manifestRepository.replace(manualId, documentSha256, processingFingerprint, diff.entries());
+            ChunkChangeCounts changes = diff.counts(orphans.size());
+            log.debug("Manifest for manualId={}: {}", manualId, changes);
+            return changes;
+        }
+
+        private int parseStage() {
+            fetch = documentParser.fetchAndParse(documentUrl, ingestedDocumentSha256,
+                    page -> put(pages, page, STAGE_PARSE), progress);
+            put(pages, END_OF_PAGES, null);
+            progress.enter(IngestionStage.UPSERTING);
+            return fetch.pageCount();
+        }
+
+        private int chunkStage() {
+            int batchSize = settings.getUpsertBatchSize();
+            int syntheticPageCounter = 0;
+            int chunked = 0;
+            List<Chunk> batch = new ArrayList<>(batchSize);
+            Map<Integer, String> completedPages = new LinkedHashMap<>();
+
+            for (ParsedPage page = take(pages); page != END_OF_PAGES; page = take(pages)) {
+                if (page.pageNumber() == null) {
+                    syntheticPageCounter++;
+                }
+                int pageKey = page.pageNumber() != null ? page.pageNumber() : syntheticPageCounter;
+                // Near-duplicates are left out before diffing, so a page whose chunk stops (or starts) being
+                // a duplicate gets a new page hash and is upserted again.
+                List<Chunk> pageChunks = duplicates.keep(
+                        chunker.chunkPage(page, syntheticPageCounter, manualId, vehicleModel));
+                List<Chunk> changed = diff.changedChunks(pageKey, pageChunks);
+                for (Chunk chunk : changed) {
+                    // Flush a full batch only when the next chunk arrives, so a page ending exactly at
+                    // the batch boundary is completed by that batch rather than the next one.
+                    if (batch.size() == batchSize) {
+                        put(batches, new Batch(batch, completedPages), null);
+                        batch = new ArrayList<>(batchSize);
+                        completedPages = new LinkedHashMap<>();
+                    }
+                    batch.add(chunk);
+                    chunked++;
+                }
+                if (!changed.isEmpty()) {
+                    // Complete once the batch holding its last chunk is stored.
+                    completedPages.put(pageKey, diff.pageHash(pageKey));
+                }
+                progress.pageChunked(changed.size());
+                stageItems(STAGE_CHUNK).increment();
+            }
+            progress.chunkingFinished();
+            if (!batch.isEmpty() || !completedPages.isEmpty()) {
+                put(batches, new Batch(batch, completedPages), null);
+            }
+            put(batches, END_OF_BATCHES, null);
+            return chunked;
+        }
+
+        private int upsertStage() {
+            int upserted = 0;
+            for (Batch batch = take(batches); batch != END_OF_BATCHES; batch = take(batches)) {
+                List<Chunk> chunks = batch.chunks();
+                if (!chunks.isEmpty()) {
+                    EmbeddingCacheScope.run(cacheStats, () -> vectorStoreRepository.upsertChunks(chunks));
+                    upserted += chunks.size();
+                    progress.chunksUpserted(chunks.size());
+                    stageItems(STAGE_UPSERT).increment(chunks.size());
+                    log.debug("Upserted batch of {} chunk(s) for manualId={} (total {})", chunks.size(), manualId, upserted);
+                }
+                if (jobId != null) {
+                    RemoteDocumentParser.FetchResult parsed = fetch;
+                    checkpointRepository.commitBatch(jobId, parsed == null ? null : parsed.documentSha256(),
+                            chunks.size(), batch.completedPages());
+                }
+            }
+            return upserted;
+        }
+
+        private Future<Integer> submit(AsyncTaskExecutor executor, String stage, Callable<Integer> body) {
+            Timer timer = stageTimer(stage);
+            Future<Integer> future = executor.submit(() -> {
+                Timer.Sample sample = Timer.start(meterRegistry);
+                try {
+                    return body.call();
+                } catch (Throwable t) {
+                    fail(stage, t);
+                    throw t;
+                } finally {
+                    sample.stop(timer);
+                }
+            });
+            stages.add(future);
+            return future;
+        }
+
+        private void fail(String stage, Throwable t) {
+            if (failure.compareAndSet(null, t)) {
+                log.warn("Ingestion pipeline stage {} failed for manualId={}; cancelling remaining stages", stage, manualId);
+                cancelStages();
+            }
+        }
+
+        private void cancelStages() {
+            for (Future<Integer> stage : stages) {
+                stage.cancel(true);
+            }
+        }
+
+        /**
+         * Blocks while the queue is full. Interruption means the run was cancelled by another stage.
+         */
+        private <T> void put(BlockingQueue<T> queue, T item, String countingStage) {
+            try {
+                queue.put(item);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Ingestion pipeline cancelled");
+            }
+            if (countingStage != null) {
+                stageItems(countingStage).increment();
+            }
+        }
+
+        private <T> T take(BlockingQueue<T> queue) {
+            try {
+                return queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Ingestion pipeline cancelled");
+            }
+        }
+
+        private void awaitQuietly(Future<Integer> stage) {
+            try {
+                stage.get();
+            } catch (ExecutionException | CancellationException e) {
+                // Recorded in failure by the stage itself.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("caller", new CancellationException("Interrupted while waiting for ingestion pipeline"));
+            }
+        }
+
+        private int resultOf(Future<Integer> stage) {
+            try {
+                return stage.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("Stage result unavailable after successful run", e);
+            }
+        }
+    }
+
+    /**
+     * Hex SHA-256 over the settings that decide which chunks a document produces: chunking strategy
+     * and budgets, boilerplate stripping, near-duplicate detection and section detection. A manifest
+     * built with another fingerprint does not count as up to date for an unchanged document.
+     */
+    static String processingFingerprint(IngestionProperties properties) {
+        IngestionProperties.Chunking chunking = properties.getChunking();
+        IngestionProperties.Boilerplate boilerplate = properties.getBoilerplate();
+        IngestionProperties.Dedup dedup = properties.getDedup();
+        String settings = String.join("|",
+                "chunking", chunking.getStrategy().name(), Integer.toString(chunking.getMaxTokens()),
+                Integer.toString(chunking.getOverlapTokens()),
+                "boilerplate", Boolean.toString(boilerplate.isEnabled()), Integer.toString(boilerplate.getSamplePages()),
+                Double.toString(boilerplate.getMinPageFraction()), Integer.toString(boilerplate.getEdgeLines()),
+                "dedup", Boolean.toString(dedup.isEnabled()), Double.toString(dedup.getMinSimilarity()),
+                Integer.toString(dedup.getMinWords()),
+                "sections", properties.getExtraction().getSectionDetection().name());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(settings.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void registerQueueDepthGauge(String queue, Set<BlockingQueue<?>> queues) {
+        Gauge.builder("ingest.pipeline.queue.depth", queues, qs -> qs.stream().mapToInt(BlockingQueue::size).sum())
+                .description("Items waiting between ingestion pipeline stages, summed over running jobs")
+                .tags(Tags.of("queue", queue))
+                .register(meterRegistry);
+    }
+
+    private void recordCacheHitRatio(EmbeddingCacheStats stats) {
+        if (stats.hits() + stats.misses() == 0) {
+            return;
+        }
+        DistributionSummary.builder("ingest.embedding.cache.hit.ratio")
+                .description("Share of a job's chunk embeddings served from the embedding cache")
+                .register(meterRegistry)
+                .record(stats.hitRatio());
+    }
+
+    private void recordDedupRatio(double ratio) {
+        DistributionSummary.builder("ingest.chunks.dedup.ratio")
+                .description("Share of a job's chunks not stored because they repeat an earlier chunk of the manual")
+                .register(meterRegistry)
+                .record(ratio);
+    }
+
+    private Counter stageItems(String stage) {
+        return Counter.builder("ingest.pipeline.stage.items")
+                .description("Items completed by an ingestion pipeline stage (pages for parse/chunk, chunks for upsert)")
+                .tags(Tags.of("stage", stage))
+                .register(meterRegistry);
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("ingest.pipeline.stage.duration")
+                .description("Wall time of one ingestion pipeline stage for one job")
+                .tags(Tags.of("stage", stage))
+                .register(meterRegistry);
+    }
+}
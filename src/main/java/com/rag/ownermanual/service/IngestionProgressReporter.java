@@ -0,0 +1,96 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.domain.JobLease;
+import com.rag.ownermanual.repository.JobStatusWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Keeps the progress of the jobs running on this node and, every app.ingestion.progress.flush-interval,
+ * stages it in the {@link JobStatusWriter} for the jobs whose progress changed and flushes the writer
+ * (one batched UPDATE across jobs). Progress is therefore at most one interval stale, and the write
+ * rate depends on the number of running jobs rather than on how fast chunks are upserted.
+ *
+ * <p>While a job is tracked it also exposes its throughput as ingest.job.throughput gauges
+ * (unit=pages or chunks, per second), removed again when the job is untracked.
+ */
+@Component
+public class IngestionProgressReporter {
+
+    private final JobStatusWriter statusWriter;
+    private final MeterRegistry meterRegistry;
+    private final Clock clock = Clock.systemUTC();
+    private final Map<UUID, Tracked> running = new ConcurrentHashMap<>();
+
+    private record Tracked(JobLease lease, JobProgress progress, List<Meter> gauges) {
+    }
+
+    public IngestionProgressReporter(JobStatusWriter statusWriter, MeterRegistry meterRegistry) {
+        this.statusWriter = Objects.requireNonNull(statusWriter, "statusWriter");
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
+    }
+
+    /**
+     * Start tracking a claimed job; its progress is written from the next flush on.
+     * @return progress to pass to the pipeline run
+     */
+    public JobProgress track(JobLease lease) {
+        JobProgress progress = new JobProgress(clock, meterRegistry);
+        String jobId = lease.jobId().toString();
+        List<Meter> gauges = List.of(
+                throughputGauge(jobId, "pages", progress, JobProgress::pagesPerSecond),
+                throughputGauge(jobId, "chunks", progress, JobProgress::chunksPerSecond));
+        Tracked previous = running.put(lease.jobId(), new Tracked(lease, progress, gauges));
+        if (previous != null) {
+            previous.gauges().forEach(meterRegistry::remove);
+        }
+        return progress;
+    }
+
+    /**
+     * Stop tracking a job and stage its final progress, so the row reflects the attempt even when it
+     * ended between two flushes. Must be called before the job leaves PROCESSING through the
+     * {@link JobStatusWriter}, which writes the staged progress ahead of the transition. Idempotent.
+     */
+    public void untrack(JobLease lease) {
+        Tracked tracked = running.remove(lease.jobId());
+        if (tracked == null) {
+            return;
+        }
+        tracked.gauges().forEach(meterRegistry::remove);
+        tracked.progress().finish();
+        statusWriter.stage(lease, tracked.progress().snapshot());
+    }
+
+    /**
+     * Writes the progress of every tracked job that changed since the previous flush.
+     */
+    @Scheduled(fixedDelayString = "${app.ingestion.progress.flush-interval:2s}")
+    public void flush() {
+        for (Tracked tracked : running.values()) {
+            if (tracked.progress().takeDirty()) {
+                statusWriter.stage(tracked.lease(), tracked.progress().snapshot());
+            }
+        }
+        statusWriter.flush();
+    }
+
+    private Meter throughputGauge(String jobId, String unit, JobProgress progress, ToDoubleFunction<JobProgress> rate) {
+        return Gauge.builder("ingest.job.throughput", progress, rate)
+                .description("Pages parsed or chunks upserted per second by a running ingestion job")
+                .tags(Tags.of("jobId", jobId, "unit", unit))
+                .register(meterRegistry);
+    }
+}
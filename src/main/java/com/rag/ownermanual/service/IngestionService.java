@@ -1,29 +1,50 @@
 package com.rag.ownermanual.service;
 
-import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionBatch;
 import com.rag.ownermanual.domain.IngestionJob;
 import com.rag.ownermanual.domain.IngestionJobStatus;
-import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.domain.JobIds;
+import com.rag.ownermanual.domain.JobLease;
+import com.rag.ownermanual.dto.ingest.BulkIngestRequest;
+import com.rag.ownermanual.dto.ingest.BulkIngestResponse;
 import com.rag.ownermanual.dto.ingest.IngestRequest;
 import com.rag.ownermanual.dto.ingest.IngestResponse;
+import com.rag.ownermanual.exception.DocumentProcessingException;
+import com.rag.ownermanual.exception.DownstreamVectorStoreException;
+import com.rag.ownermanual.exception.InvalidJobStateException;
+import com.rag.ownermanual.exception.ResourceNotFoundException;
+import com.rag.ownermanual.repository.IngestionBatchRepository;
+import com.rag.ownermanual.repository.IngestionJobQueueRepository;
 import com.rag.ownermanual.repository.IngestionJobRepository;
-import com.rag.ownermanual.repository.VectorStoreRepository;
+import com.rag.ownermanual.repository.JobStatusWriter;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
 
 /**
- * Orchestrates the ingestion write path: create job → (async) parse → chunk → upsert.
+ * Orchestrates the ingestion write path: enqueue job → (claimed by a worker) parse → chunk → upsert.
+ * The parse/chunk/upsert stages themselves run in {@link IngestionPipeline}.
  */
 @Service
 public class IngestionService {
@@ -31,32 +52,42 @@ public class IngestionService {
     private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
 
     private final IngestionJobRepository ingestionJobRepository;
-    private final RemoteDocumentParser documentParser;
-    private final Chunker chunker;
-    private final VectorStoreRepository vectorStoreRepository;
+    private final IngestionBatchRepository ingestionBatchRepository;
+    private final IngestionJobQueueRepository jobQueue;
+    private final IngestionPipeline ingestionPipeline;
+    private final IngestionProgressReporter progressReporter;
+    private final JobStatusWriter statusWriter;
+    private final IngestionProperties.Queue queueProperties;
 
     private final MeterRegistry meterRegistry;
 
     public IngestionService(IngestionJobRepository ingestionJobRepository,
-                            RemoteDocumentParser documentParser,
-                            Chunker chunker,
-                            VectorStoreRepository vectorStoreRepository,
+                            IngestionBatchRepository ingestionBatchRepository,
+                            IngestionJobQueueRepository jobQueue,
+                            IngestionPipeline ingestionPipeline,
+                            IngestionProgressReporter progressReporter,
+                            JobStatusWriter statusWriter,
+                            IngestionProperties ingestionProperties,
                             MeterRegistry meterRegistry) {
         this.ingestionJobRepository = Objects.requireNonNull(ingestionJobRepository, "ingestionJobRepository");
-        this.documentParser = Objects.requireNonNull(documentParser, "documentParser");
-        this.chunker = Objects.requireNonNull(chunker, "chunker");
-        this.vectorStoreRepository = Objects.requireNonNull(vectorStoreRepository, "vectorStoreRepository");
+        this.ingestionBatchRepository = Objects.requireNonNull(ingestionBatchRepository, "ingestionBatchRepository");
+        this.jobQueue = Objects.requireNonNull(jobQueue, "jobQueue");
+        this.ingestionPipeline = Objects.requireNonNull(ingestionPipeline, "ingestionPipeline");
+        this.progressReporter = Objects.requireNonNull(progressReporter, "progressReporter");
+        this.statusWriter = Objects.requireNonNull(statusWriter, "statusWriter");
+        this.queueProperties = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getQueue();
         this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
     }
 
     /**
-     * Start ingestion: create a job in CREATED state, persist it, run the pipeline, and return the job id.
+     * Start ingestion: enqueue a job in CREATED state and return its id. A worker on any node
+     * claims it from the queue (see IngestionWorker).
      * @param request validated ingest request (manualId, documentUrl)
      * @return response containing the created job's id for status polling
      */
     public IngestResponse startIngestion(IngestRequest request) {
         Instant now = Instant.now();
-        UUID jobId = UUID.randomUUID();
+        UUID jobId = JobIds.newId(now);
         IngestionJob job = new IngestionJob(
                 jobId,
                 request.manualId(),
@@ -65,8 +96,8 @@ public class IngestionService {
                 now,
                 now
         );
-        ingestionJobRepository.save(job);
-        log.info("Created ingestion job id={} manualId={}", jobId, request.manualId());
+        jobQueue.enqueue(job, request.documentUrl());
+        log.info("Enqueued ingestion job id={} manualId={}", jobId, request.manualId());
 
         Counter.builder("ingest.jobs.started")
                 .description("Number of ingestion jobs started")
@@ -78,70 +109,192 @@ public class IngestionService {
     }
 
     /**
-     * Run the ingestion pipeline for a job: PROCESSING → parse → chunk → upsert → COMPLETED
-     * (or FAILED on error). Only transitions from CREATED; otherwise no-op.
-     * @param jobId       id of the job to process (must exist and be in CREATED state)
-     * @param documentUrl URL of the document to fetch and parse
+     * Start a bulk ingestion: create the batch and one CREATED job per manual in one transaction.
+     * The jobs carry the batch's tenant, so workers interleave them with other tenants' work
+     * instead of draining the batch first.
+     * @param request validated bulk request (tenant, manuals with unique manualIds)
+     * @return the batch id and the child job ids, in request order
      */
-    public void processJob(UUID jobId, String documentUrl) {
-        var optJob = ingestionJobRepository.findById(jobId);
-        if (optJob.isEmpty()) {
-            log.warn("processJob: job not found id={}", jobId);
-            return;
+    public BulkIngestResponse startBatch(BulkIngestRequest request) {
+        Instant now = Instant.now();
+        List<IngestionBatch.Child> children = request.manuals().stream()
+                .map(manual -> new IngestionBatch.Child(JobIds.newId(now), manual.manualId(), manual.documentUrl()))
+                .toList();
+        IngestionBatch batch = new IngestionBatch(UUID.randomUUID(), request.tenant(), now, children);
+        ingestionBatchRepository.create(batch);
+        log.info("Enqueued ingestion batch id={} tenant={} jobs={}", batch.id(), batch.tenant(), children.size());
+
+        Counter.builder("ingest.batches.started")
+                .description("Number of bulk ingestion batches started")
+                .tags(Tags.of("tenant", tagValue(request.tenant())))
+                .register(meterRegistry)
+                .increment();
+        for (IngestionBatch.Child child : children) {
+            Counter.builder("ingest.jobs.started")
+                    .description("Number of ingestion jobs started")
+                    .tags(Tags.of("vehicleModel", tagValue(child.manualId())))
+                    .register(meterRegistry)
+                    .increment();
         }
 
-        IngestionJob job = optJob.get();
-        if (job.status() != IngestionJobStatus.CREATED) {
-            log.debug("processJob: job id={} already in status {}; skipping", jobId, job.status());
+        return new BulkIngestResponse(batch.id(), children.stream()
+                .map(child -> new BulkIngestResponse.BatchJob(child.manualId(), child.jobId()))
+                .toList());
+    }
+
+    /**
+     * Claim a specific CREATED job and run it on the calling thread. The CREATED → PROCESSING
+     * transition is a single conditional UPDATE, so when several callers race for the same job only
+     * one runs it; the others return without doing anything.
+     * @param jobId    id of the job to process
+     * @param workerId lease owner recorded for the claim
+     */
+    public void processJob(UUID jobId, String workerId) {
+        var lease = jobQueue.claim(jobId, workerId);
+        if (lease.isEmpty()) {
+            log.debug("processJob: job id={} not found or not CREATED; skipping", jobId);
             return;
         }
+        process(lease.get());
+    }
 
-        ingestionJobRepository.updateStatus(jobId, IngestionJobStatus.PROCESSING, null);
-
-        log.info("Processing ingestion job id={} manualId={}", jobId, job.manualId());
+    /**
+     * Run the ingestion pipeline for a claimed job: parse → chunk → upsert → COMPLETED. On success
+     * the job records how many chunks were added, updated, unchanged and deleted. A transient failure
+     * puts the job back to CREATED with exponential backoff until maxAttempts claims have been used;
+     * any other failure marks it FAILED. Status writes are fenced on the lease, so nothing is written
+     * if another worker took the job over meanwhile. Progress is reported while the pipeline runs;
+     * the {@link JobStatusWriter} writes the final progress synchronously before the job leaves
+     * PROCESSING, and the chunk change counts together with COMPLETED.
+     * @param lease claim returned by {@link IngestionJobQueueRepository}
+     */
+    public void process(JobLease lease) {
+        UUID jobId = lease.jobId();
+        log.info("Processing ingestion job id={} manualId={} attempt={}", jobId, lease.manualId(), lease.attempt());
 
         Timer.Sample jobSample = Timer.start(meterRegistry);
-        String vehicleModel = job.manualId();
+        String vehicleModel = lease.manualId();
 
+        JobProgress progress = progressReporter.track(lease);
         try {
-            List<ParsedPage> pages = documentParser.fetchAndParse(documentUrl);
             // MVP: use manualId as vehicleModel for chunk metadata and query filtering.
-            List<Chunk> chunks = chunker.chunk(pages, job.manualId(), vehicleModel);
+            IngestionPipeline.Result result = ingestionPipeline.run(jobId, lease.manualId(), vehicleModel,
+                    lease.documentUrl(), progress);
+            progressReporter.untrack(lease);
+            int chunkCount = result.chunksUpserted();
+
+            if (result.documentUnchanged()) {
+                log.info("Document unchanged since last ingestion for job id={} manualId={}", jobId, lease.manualId());
 
-            if (!chunks.isEmpty()) {
-                vectorStoreRepository.upsertChunks(chunks);
-                log.info("Upserted {} chunk(s) for job id={} manualId={}", chunks.size(), jobId, job.manualId());
+                Counter.builder("ingest.jobs.unchanged")
+                        .description("Ingestion jobs completed without work because the document was unchanged")
+                        .tags(Tags.of("vehicleModel", tagValue(vehicleModel)))
+                        .register(meterRegistry)
+                        .increment();
+            } else if (chunkCount > 0 || result.chunksResumed() > 0) {
+                log.info("Upserted {} chunk(s) from {} page(s) for job id={} manualId={} embeddingCacheHits={} embeddingCacheMisses={} resumedChunks={} boilerplateRatio={} dedupChunks={} dedupRatio={}",
+                        chunkCount, result.pagesParsed(), jobId, lease.manualId(),
+                        result.embeddingCacheHits(), result.embeddingCacheMisses(), result.chunksResumed(),
+                        String.format("%.3f", result.boilerplateRatio()), result.chunksDeduplicated(),
+                        String.format("%.3f", result.dedupRatio()));
 
                 Counter.builder("ingest.chunks.processed")
                         .description("Total chunks processed during ingestion")
                         .tags(Tags.of("vehicleModel", tagValue(vehicleModel)))
                         .register(meterRegistry)
-                        .increment(chunks.size());
+                        .increment(chunkCount);
             } else {
-                log.info("No chunks produced for job id={} manualId={} (empty or blank pages)", jobId, job.manualId());
+                log.info("No chunks upserted for job id={} manualId={} (no new or changed pages)", jobId, lease.manualId());
             }
 
-            ingestionJobRepository.updateStatus(jobId, IngestionJobStatus.COMPLETED, null);
-            log.info("Completed ingestion job id={} manualId={} chunkCount={}", jobId, job.manualId(), chunks.size());
+            ChunkChangeCounts changes = result.chunkChanges();
+            if (statusWriter.complete(lease, changes)) {
+                log.info("Completed ingestion job id={} manualId={} added={} updated={} unchanged={} deleted={}",
+                        jobId, lease.manualId(), changes.added(), changes.updated(), changes.unchanged(), changes.deleted());
+            }
 
             recordJobDuration(jobSample, "completed", vehicleModel, null);
         } catch (Exception e) {
-            log.error("Ingestion failed for job id={} manualId={}", jobId, job.manualId(), e);
+            progressReporter.untrack(lease);
             String errorMessage = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
-            ingestionJobRepository.updateStatus(jobId, IngestionJobStatus.FAILED, errorMessage);
+            int maxAttempts = queueProperties.getMaxAttempts();
+            if (isRetryable(e) && lease.attempt() < maxAttempts) {
+                Duration backoff = retryBackoff(lease.attempt());
+                log.warn("Ingestion attempt {}/{} failed for job id={} manualId={}; retrying in {}",
+                        lease.attempt(), maxAttempts, jobId, lease.manualId(), backoff, e);
+                statusWriter.retryLater(lease, errorMessage, Instant.now().plus(backoff));
+
+                recordJobDuration(jobSample, "retried", vehicleModel, e);
+                return;
+            }
+            log.error("Ingestion failed for job id={} manualId={} attempt={}", jobId, lease.manualId(), lease.attempt(), e);
+            statusWriter.fail(lease, errorMessage);
 
             recordJobDuration(jobSample, "failed", vehicleModel, e);
         }
     }
 
     /**
-     * Asynchronously run the ingestion pipeline for a job using Spring's @Async annotation.
-     * @param jobId       id of the job to process
-     * @param documentUrl URL of the document to fetch and parse
+     * Resume a FAILED job: it goes back to the queue with a fresh attempt budget and the next attempt
+     * skips the pages its checkpoint records as committed.
+     * @param jobId id of the job to resume
+     * @throws ResourceNotFoundException if the job does not exist
+     * @throws InvalidJobStateException  if the job is not FAILED, or predates the job queue
+     */
+    public void resumeJob(UUID jobId) {
+        IngestionJob job = ingestionJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Job not found: " + jobId));
+        if (job.status() != IngestionJobStatus.FAILED) {
+            throw new InvalidJobStateException("Only FAILED jobs can be resumed; job " + jobId + " is " + job.status());
+        }
+        if (!jobQueue.requeueFailed(jobId)) {
+            throw new InvalidJobStateException("Job " + jobId + " cannot be resumed");
+        }
+        log.info("Resumed ingestion job id={} manualId={}", jobId, job.manualId());
+    }
+
+    /**
+     * Failures worth another attempt, looked for anywhere in the cause chain: I/O errors, HTTP 429 or
+     * 5xx responses, transient embedding provider errors, open circuit breakers and full bulkheads,
+     * vector store failures and transient database errors. Everything else fails the same way on every
+     * attempt and is terminal: 4xx responses (including a NonTransientAiException such as a 401 from
+     * the embedding provider, even when wrapped in a retryable type), oversized, empty or unparseable
+     * documents, and programming errors.
      */
-    @Async("ingestionTaskExecutor")
-    public void processJobAsync(UUID jobId, String documentUrl) {
-        processJob(jobId, documentUrl);
+    static boolean isRetryable(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof NonTransientAiException
+                    || cause instanceof RestClientResponseException response && !isTransientStatus(response)) {
+                return false;
+            }
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ResourceAccessException
+                    || cause instanceof RestClientResponseException
+                    || cause instanceof TransientAiException
+                    || cause instanceof CallNotPermittedException
+                    || cause instanceof BulkheadFullException
+                    || cause instanceof DownstreamVectorStoreException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransientStatus(RestClientResponseException response) {
+        return response.getStatusCode().is5xxServerError()
+                || response.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /** Exponential backoff: retryBackoffInitial × 2^(attempt − 1), capped at retryBackoffMax. */
+    Duration retryBackoff(int attempt) {
+        Duration initial = queueProperties.getRetryBackoffInitial();
+        Duration max = queueProperties.getRetryBackoffMax();
+        int doublings = Math.min(attempt - 1, 30);
+        Duration backoff = initial.multipliedBy(1L << doublings);
+        return backoff.compareTo(max) > 0 ? max : backoff;
     }
 
     private void recordJobDuration(Timer.Sample sample, String status, String vehicleModel, Exception error) {
@@ -165,8 +318,11 @@ public class IngestionService {
             String errorType = error != null ? error.getClass().getSimpleName() : "Unknown";
             Tags failedTags = baseTags.and("errorType", errorType);
 
-            Counter.builder("ingest.jobs.failed")
-                    .description("Number of ingestion jobs that failed")
+            boolean retried = "retried".equals(status);
+            Counter.builder(retried ? "ingest.jobs.retried" : "ingest.jobs.failed")
+                    .description(retried
+                            ? "Number of ingestion attempts that failed transiently and were rescheduled"
+                            : "Number of ingestion jobs that failed")
                     .tags(failedTags)
                     .register(meterRegistry)
                     .increment();
@@ -0,0 +1,179 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.JobLease;
+import com.rag.ownermanual.repository.IngestionJobQueueRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pulls ingestion jobs from the durable queue on this node. Each poll claims as many jobs as there
+ * are free slots (pipeline.maxConcurrentJobs), shared fairly between tenants, and runs them on the
+ * ingestionTaskExecutor; a single heartbeat task renews the leases of all running jobs and
+ * interrupts a job whose lease was lost, so it stops competing with the worker that took it over.
+ * The heartbeat has its own thread: on the shared scheduler a slow poll, flush or partition
+ * maintenance run could delay renewals past lease-duration and hand healthy jobs to another node.
+ *
+ * <p>On shutdown the worker stops claiming. Jobs still running when the node dies are claimed again
+ * by another node once their lease expires.
+ */
+@Component
+public class IngestionWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(IngestionWorker.class);
+
+    private final IngestionService ingestionService;
+    private final IngestionJobQueueRepository jobQueue;
+    private final AsyncTaskExecutor executor;
+    private final FairShareScheduler scheduler;
+    private final IngestionProperties.Queue queueProperties;
+
+    private final String workerId;
+    private final Semaphore slots;
+    private final Map<UUID, Future<?>> running = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ingest-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean stopped;
+
+    public IngestionWorker(IngestionService ingestionService,
+                           IngestionJobQueueRepository jobQueue,
+                           FairShareScheduler scheduler,
+                           @Qualifier("ingestionTaskExecutor") AsyncTaskExecutor executor,
+                           IngestionProperties ingestionProperties,
+                           MeterRegistry meterRegistry) {
+        this.ingestionService = Objects.requireNonNull(ingestionService, "ingestionService");
+        this.jobQueue = Objects.requireNonNull(jobQueue, "jobQueue");
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        this.executor = Objects.requireNonNull(executor, "executor");
+        Objects.requireNonNull(ingestionProperties, "ingestionProperties");
+        this.queueProperties = ingestionProperties.getQueue();
+        this.slots = new Semaphore(ingestionProperties.getPipeline().getMaxConcurrentJobs());
+        // pid@host identifies the node in lease_owner; the suffix keeps restarts distinct.
+        this.workerId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        Gauge.builder("ingest.worker.jobs.active", running, Map::size)
+                .description("Ingestion jobs currently leased and running on this node")
+                .register(Objects.requireNonNull(meterRegistry, "meterRegistry"));
+    }
+
+    /**
+     * Claim due jobs for the free slots and start them, sharing the slots between tenants with
+     * {@link FairShareScheduler}. A tenant whose jobs were claimed by another node in the meantime
+     * just gets fewer; its unused slots are free again on the next poll. Also fails jobs whose last allowed attempt
+     * died with its worker; any node may do that, the UPDATE is idempotent.
+     */
+    @Scheduled(fixedDelayString = "${app.ingestion.queue.poll-interval:1s}")
+    public void poll() {
+        if (stopped || !queueProperties.isWorkerEnabled()) {
+            return;
+        }
+        jobQueue.failExhausted();
+
+        int free = slots.drainPermits();
+        if (free == 0) {
+            return;
+        }
+        List<JobLease> leases = new ArrayList<>();
+        try {
+            Map<String, Integer> allocation = scheduler.allocate(free, jobQueue.countDueByTenant());
+            allocation.forEach((tenant, count) -> leases.addAll(jobQueue.claimNext(workerId, tenant, count)));
+        } finally {
+            slots.release(free - leases.size());
+        }
+        leases.forEach(this::start);
+    }
+
+    @PostConstruct
+    void startHeartbeat() {
+        long intervalMillis = queueProperties.getHeartbeatInterval().toMillis();
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Renew the leases of running jobs; cancel (interrupt) jobs whose lease was lost. A failed
+     * renewal (e.g. database unavailable) is logged and retried on the next beat, since an
+     * exception would end the periodic task.
+     */
+    void heartbeat() {
+        running.forEach((jobId, future) -> {
+            try {
+                if (!jobQueue.renewLease(jobId, workerId)) {
+                    log.warn("Lease lost for ingestion job id={}; cancelling local run", jobId);
+                    future.cancel(true);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not renew lease for ingestion job id={}", jobId, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        heartbeatExecutor.shutdownNow();
+    }
+
+    String workerId() {
+        return workerId;
+    }
+
+    private void start(JobLease lease) {
+        // The slot is given back when the job body actually returns, not when the future is cancelled:
+        // cancel(true) only interrupts, and a job blocked in I/O keeps its thread until the call ends.
+        // Whoever wins "owner" releases it exactly once: the body if it started, done() if the task
+        // was cancelled (or rejected) before it ran.
+        AtomicBoolean owner = new AtomicBoolean();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            if (!owner.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                ingestionService.process(lease);
+            } finally {
+                slots.release();
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                running.remove(lease.jobId());
+                if (owner.compareAndSet(false, true)) {
+                    slots.release();
+                }
+            }
+        };
+        running.put(lease.jobId(), task);
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            // Not started: the lease expires and the job is claimed again (counting this attempt).
+            log.error("Could not start ingestion job id={}", lease.jobId(), e);
+            task.cancel(false);
+        }
+    }
+}
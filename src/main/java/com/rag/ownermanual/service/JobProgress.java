@@ -0,0 +1,226 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.domain.IngestionProgress;
+import com.rag.ownermanual.domain.IngestionStage;
+import com.rag.ownermanual.embedding.EmbeddingCacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory progress of one pipeline run. The pipeline stages update it from their own threads
+ * (counters are atomic); {@link IngestionProgressReporter} periodically takes a snapshot and
+ * writes it, so updates cost no I/O.
+ *
+ * <p>The estimated completion projects the parse and upsert rates observed since parsing started:
+ * each phase's remaining work divided by its rate, whichever finishes later. Until every page is
+ * chunked the number of chunks to upsert is extrapolated from the chunks per page so far.
+ */
+public final class JobProgress implements RemoteDocumentParser.FetchListener {
+
+    private final Clock clock;
+    private final MeterRegistry meterRegistry;
+    private final EmbeddingCacheStats embeddingStats = new EmbeddingCacheStats();
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    private final AtomicInteger pagesParsed = new AtomicInteger();
+    private final AtomicInteger pagesChunked = new AtomicInteger();
+    private final AtomicInteger chunksQueued = new AtomicInteger();
+    private final AtomicInteger chunksUpserted = new AtomicInteger();
+    private volatile Integer pagesTotal;
+    private volatile Integer chunksTotal;
+    private volatile long bytesDownloaded;
+    private volatile Instant parsingStartedAt;
+
+    private IngestionStage stage = IngestionStage.DOWNLOADING;
+    private Instant stageStartedAt;
+    private boolean finished;
+
+    JobProgress(Clock clock, MeterRegistry meterRegistry) {
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.meterRegistry = Objects.requireNonNull(meterRegistry, "meterRegistry");
+        this.stageStartedAt = clock.instant();
+    }
+
+    /**
+     * Embedding stats of this run; the pipeline passes them to the embedding cache scope, which
+     * counts embedded chunks (embedding and upsert happen in one vector store call).
+     */
+    EmbeddingCacheStats embeddingStats() {
+        return embeddingStats;
+    }
+
+    @Override
+    public void downloaded(long totalBytes) {
+        bytesDownloaded = totalBytes;
+        dirty.set(true);
+    }
+
+    /**
+     * Called again when a replay falls back to extraction; the page count then becomes known.
+     */
+    @Override
+    public void parsingStarted(Integer pageCount) {
+        if (parsingStartedAt == null) {
+            parsingStartedAt = clock.instant();
+        }
+        pagesTotal = pageCount;
+        pagesParsed.set(0);
+        enter(IngestionStage.PARSING);
+    }
+
+    @Override
+    public void pageParsed() {
+        pagesParsed.incrementAndGet();
+        dirty.set(true);
+    }
+
+    /**
+     * A page was chunked; {@code chunks} of its chunks are queued for upsert.
+     */
+    void pageChunked(int chunks) {
+        pagesChunked.incrementAndGet();
+        chunksQueued.addAndGet(chunks);
+        dirty.set(true);
+    }
+
+    /**
+     * Every page is chunked; the chunks queued so far are all there will be.
+     */
+    void chunkingFinished() {
+        chunksTotal = chunksQueued.get();
+        dirty.set(true);
+    }
+
+    void chunksUpserted(int chunks) {
+        chunksUpserted.addAndGet(chunks);
+        dirty.set(true);
+    }
+
+    /**
+     * Moves to a later stage, recording how long the current one took. Earlier or equal stages are
+     * ignored, so stages that overlap in the pipeline can each announce themselves.
+     */
+    synchronized void enter(IngestionStage next) {
+        if (finished || next.ordinal() <= stage.ordinal()) {
+            return;
+        }
+        Instant now = clock.instant();
+        recordStage(now);
+        stage = next;
+        stageStartedAt = now;
+        dirty.set(true);
+    }
+
+    /**
+     * Records the duration of the last stage; later transitions are ignored. Idempotent.
+     */
+    synchronized void finish() {
+        if (!finished) {
+            finished = true;
+            recordStage(clock.instant());
+        }
+    }
+
+    /**
+     * Clears the dirty flag; true if anything changed since the previous call.
+     */
+    boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    /**
+     * Current progress, with the completion estimate projected from now.
+     */
+    IngestionProgress snapshot() {
+        Instant now = clock.instant();
+        IngestionStage current;
+        synchronized (this) {
+            current = stage;
+        }
+        int parsed = pagesParsed.get();
+        int upserted = chunksUpserted.get();
+        Integer totalChunks = chunksTotal;
+        return new IngestionProgress(current, parsed, pagesTotal,
+                (int) Math.min(embeddingStats.embedded(), Integer.MAX_VALUE), upserted, totalChunks,
+                bytesDownloaded, estimateCompletion(now, parsed, upserted), now);
+    }
+
+    /** Pages parsed per second since parsing started; 0 before. */
+    double pagesPerSecond() {
+        return perSecond(pagesParsed.get());
+    }
+
+    /** Chunks upserted per second since parsing started; 0 before. */
+    double chunksPerSecond() {
+        return perSecond(chunksUpserted.get());
+    }
+
+    private double perSecond(int count) {
+        Instant start = parsingStartedAt;
+        if (start == null) {
+            return 0;
+        }
+        long millis = Duration.between(start, clock.instant()).toMillis();
+        return millis <= 0 ? 0 : count * 1000.0 / millis;
+    }
+
+    private Instant estimateCompletion(Instant now, int parsed, int upserted) {
+        Instant start = parsingStartedAt;
+        if (start == null) {
+            return null;
+        }
+        long elapsedMillis = Duration.between(start, now).toMillis();
+        Integer totalPages = pagesTotal;
+        long parseRemaining = 0;
+        if (chunksTotal == null) {
+            if (totalPages == null || parsed == 0) {
+                return null;
+            }
+            parseRemaining = remainingMillis(elapsedMillis, parsed, totalPages);
+        }
+        Long expectedChunks = expectedChunks(totalPages);
+        if (expectedChunks == null) {
+            return null;
+        }
+        long upsertRemaining = 0;
+        if (upserted < expectedChunks) {
+            if (upserted == 0) {
+                return null;
+            }
+            upsertRemaining = remainingMillis(elapsedMillis, upserted, expectedChunks);
+        }
+        return now.plusMillis(Math.max(parseRemaining, upsertRemaining));
+    }
+
+    private Long expectedChunks(Integer totalPages) {
+        Integer total = chunksTotal;
+        if (total != null) {
+            return (long) total;
+        }
+        int chunked = pagesChunked.get();
+        if (totalPages == null || chunked == 0) {
+            return null;
+        }
+        return Math.round((double) chunksQueued.get() * totalPages / chunked);
+    }
+
+    private static long remainingMillis(long elapsedMillis, long done, long total) {
+        return done >= total ? 0 : Math.round((double) elapsedMillis * (total - done) / done);
+    }
+
+    private void recordStage(Instant now) {
+        Timer.builder("ingest.job.stage.duration")
+                .description("Time one ingestion job spent in a stage (downloading, parsing, upserting, finalizing)")
+                .tags(Tags.of("stage", stage.name().toLowerCase()))
+                .register(meterRegistry)
+                .record(Duration.between(stageStartedAt, now));
+    }
+}
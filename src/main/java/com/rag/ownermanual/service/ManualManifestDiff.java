@@ -0,0 +1,269 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.ManifestEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the pages of a new parse with the manual's previous manifest. A page whose hash (over
+ * its chunks' ids, text and payload) matches the manifest entry for the same page is skipped; its
+ * chunks are still in the vector store. Chunks of other pages are upserted and counted as updated
+ * when their id was in the manifest, added otherwise. Ids in the manifest that the new parse does
+ * not produce are orphans to delete.
+ *
+ * <p>When resuming a job, pages an earlier attempt already upserted with the same page hash are
+ * counted exactly as in an uninterrupted run but not returned for upsert again.
+ *
+ * <p>Occurrence pages (see {@link NearDuplicateIndex}) are not part of the page hash. Entries track
+ * what the store holds: the manifest's occurrence pages for chunks of skipped pages, none for
+ * upserted ones. {@link #occurrenceChanges} compares that with the new canonical chunks' pages.
+ *
+ * <p>Not thread-safe: pages are fed by the pipeline's chunk stage and the results are read by the
+ * caller after that stage has completed.
+ */
+final class ManualManifestDiff {
+
+    private static final int ENCODE_BUFFER_BYTES = 512;
+
+    private final Map<Integer, String> previousPageHashes = new HashMap<>();
+    private final Set<String> previousChunkIds = new HashSet<>();
+    private final Map<String, List<Integer>> previousOccurrencePages = new HashMap<>();
+    private final Map<Integer, String> committedPageHashes = new HashMap<>();
+
+    private final List<ManifestEntry> entries = new ArrayList<>();
+    private final Map<String, Integer> entryIndex = new HashMap<>();
+    private final Set<String> currentChunkIds = new HashSet<>();
+    private final Map<Integer, String> currentPageHashes = new HashMap<>();
+    private int added;
+    private int updated;
+    private int unchanged;
+    private int resumed;
+
+    ManualManifestDiff(List<ManifestEntry> previous) {
+        for (ManifestEntry entry : previous) {
+            previousPageHashes.put(entry.pageKey(), entry.pageHash());
+            previousChunkIds.add(entry.chunkId());
+            if (!entry.occurrencePages().isEmpty()) {
+                previousOccurrencePages.put(entry.chunkId(), entry.occurrencePages());
+            }
+        }
+    }
+
+    /**
+     * Treat pages committed by an earlier attempt of the same job as already upserted.
+     * @param pageHashes committed page key → page hash from the job's checkpoint
+     */
+    void resume(Map<Integer, String> pageHashes) {
+        committedPageHashes.putAll(pageHashes);
+    }
+
+    /**
+     * Record the chunks of one page and return the ones that must be upserted.
+     * @param pageKey page number, or the synthetic page counter for pages without one
+     * @param chunks  chunks of the page in order
+     * @return the page's chunks if the page is new or changed and was not committed by an earlier
+     *         attempt; empty otherwise
+     */
+    List<Chunk> changedChunks(int pageKey, List<Chunk> chunks) {
+        if (chunks.isEmpty()) {
+            return chunks;
+        }
+        String pageHash = pageHash(chunks);
+        currentPageHashes.put(pageKey, pageHash);
+        boolean pageUnchanged = pageHash.equals(previousPageHashes.get(pageKey));
+        for (Chunk chunk : chunks) {
+            // A skipped page keeps the occurrence pages stored with its chunks; an upserted one has none.
+            List<Integer> occurrencePages = pageUnchanged
+                    ? previousOccurrencePages.getOrDefault(chunk.id(), List.of())
+                    : List.of();
+            entryIndex.put(chunk.id(), entries.size());
+            entries.add(new ManifestEntry(chunk.id(), pageKey, pageHash, occurrencePages));
+            currentChunkIds.add(chunk.id());
+        }
+        if (pageUnchanged) {
+            unchanged += chunks.size();
+            return List.of();
+        }
+        for (Chunk chunk : chunks) {
+            if (previousChunkIds.contains(chunk.id())) {
+                updated++;
+            } else {
+                added++;
+            }
+        }
+        if (pageHash.equals(committedPageHashes.get(pageKey))) {
+            resumed += chunks.size();
+            return List.of();
+        }
+        return chunks;
+    }
+
+    /**
+     * Record the occurrence pages of the canonical chunks and return the ones whose stored
+     * occurrence pages differ, including canonicals whose duplicates are all gone.
+     * @param occurrencePages canonical chunk id → occurrence pages in the new parse
+     * @return chunk id → occurrence pages to write so the store matches the new parse, in the
+     *         iteration order of occurrencePages
+     */
+    Map<String, List<Integer>> occurrenceChanges(Map<String, List<Integer>> occurrencePages) {
+        Map<String, List<Integer>> changed = new LinkedHashMap<>();
+        occurrencePages.forEach((chunkId, pages) -> {
+            Integer index = entryIndex.get(chunkId);
+            if (index == null) {
+                return;
+            }
+            ManifestEntry entry = entries.get(index);
+            if (!entry.occurrencePages().equals(pages)) {
+                entries.set(index, entry.withOccurrencePages(pages));
+                changed.put(chunkId, pages);
+            }
+        });
+        return changed;
+    }
+
+    /**
+     * @return hash of a page recorded by {@link #changedChunks}, or null if none was recorded
+     */
+    String pageHash(int pageKey) {
+        return currentPageHashes.get(pageKey);
+    }
+
+    /**
+     * @return chunks of new or changed pages skipped because an earlier attempt committed them
+     */
+    int resumedChunks() {
+        return resumed;
+    }
+
+    /**
+     * @return ids in the previous manifest that the new parse did not produce
+     */
+    Set<String> orphanChunkIds() {
+        Set<String> orphans = new HashSet<>(previousChunkIds);
+        orphans.removeAll(currentChunkIds);
+        return orphans;
+    }
+
+    /**
+     * @return manifest describing the new parse
+     */
+    List<ManifestEntry> entries() {
+        return entries;
+    }
+
+    ChunkChangeCounts counts(int deleted) {
+        return new ChunkChangeCounts(added, updated, unchanged, deleted);
+    }
+
+    static String pageHash(List<Chunk> chunks) {
+        MessageDigest digest = sha256();
+        for (Chunk chunk : chunks) {
+            update(digest, chunk.id());
+            update(digest, chunk.content());
+            update(digest, chunk.vehicleModel());
+            update(digest, chunk.section());
+            update(digest, chunk.page() == null ? null : chunk.page().toString());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /** Length-prefixed so field boundaries cannot be shifted between fields. */
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        digest.update(bytes);
+    }
+
+    /**
+     * Same bytes as {@link #update(MessageDigest, String)} on the materialized text, encoded through
+     * a small buffer so chunk content is hashed without copying it into a String or byte array.
+     */
+    private static void update(MessageDigest digest, CharSequence value) {
+        if (value instanceof String string) {
+            update(digest, string);
+            return;
+        }
+        digest.update((byte) 1);
+        digest.update(Integer.toString(utf8Length(value)).getBytes(StandardCharsets.US_ASCII));
+        digest.update((byte) ':');
+        byte[] buffer = new byte[ENCODE_BUFFER_BYTES];
+        int used = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (used > ENCODE_BUFFER_BYTES - 4) {
+                digest.update(buffer, 0, used);
+                used = 0;
+            }
+            char c = value.charAt(i);
+            int codePoint = c;
+            if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                codePoint = Character.toCodePoint(c, value.charAt(++i));
+            } else if (Character.isSurrogate(c)) {
+                codePoint = '?'; // String.getBytes replaces unpaired surrogates the same way
+            }
+            if (codePoint < 0x80) {
+                buffer[used++] = (byte) codePoint;
+            } else if (codePoint < 0x800) {
+                buffer[used++] = (byte) (0xC0 | codePoint >> 6);
+                buffer[used++] = (byte) (0x80 | codePoint & 0x3F);
+            } else if (codePoint < 0x10000) {
+                buffer[used++] = (byte) (0xE0 | codePoint >> 12);
+                buffer[used++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[used++] = (byte) (0x80 | codePoint & 0x3F);
+            } else {
+                buffer[used++] = (byte) (0xF0 | codePoint >> 18);
+                buffer[used++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                buffer[used++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                buffer[used++] = (byte) (0x80 | codePoint & 0x3F);
+            }
+        }
+        digest.update(buffer, 0, used);
+    }
+
+    private static int utf8Length(CharSequence value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.Chunk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Suppresses near-duplicate chunks within one manual: repeated safety warnings, notices and
+ * maintenance tables. The first chunk with a given text is canonical; a later chunk whose estimated
+ * Jaccard similarity to it is at least minSimilarity, and that contains exactly the same numbers, is
+ * dropped and its page recorded as an occurrence of the canonical chunk instead.
+ *
+ * <p>Similarity is estimated from {@link #SIGNATURE_SIZE}-value MinHash signatures over word
+ * 3-shingles, so reflowed text or a changed word still matches. Candidates are found by locality-
+ * sensitive hashing: the signature is cut into {@link #BANDS} bands and only chunks sharing a band
+ * are compared (at 0.8 similarity a pair shares a band with probability above 0.999), so the cost
+ * does not grow with the square of the chunk count. Requiring the same numbers keeps, for example,
+ * two torque tables that differ only in their values. Chunks with fewer than minWords words are
+ * never suppressed.
+ *
+ * <p>The decision depends only on the chunks seen before, so a run over the same document is
+ * deterministic. A canonical chunk is remembered by its id, page, signature and numbers only, so the
+ * index does not keep page text alive for the rest of the run. Not thread-safe: fed by the pipeline's chunk stage and read once it has completed.
+ */
+final class NearDuplicateIndex {
+
+    static final int SIGNATURE_SIZE = 64;
+    static final int BANDS = 16;
+    private static final int ROWS_PER_BAND = SIGNATURE_SIZE / BANDS;
+    private static final int SHINGLE_WORDS = 3;
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:[.,]\\d+)*");
+
+    private final IngestionProperties.Dedup settings;
+    /** Band hash → clusters with that band. */
+    private final Map<Long, List<Cluster>> bands = new HashMap<>();
+    /** In order of first occurrence, so re-upserts are deterministic. */
+    private final Map<String, Cluster> clusters = new LinkedHashMap<>();
+    private int chunksSeen;
+    private int duplicates;
+
+    private static final class Cluster {
+
+        private final String id;
+        private final Integer page;
+        private final long[] signature;
+        private final String numbers;
+        private final TreeSet<Integer> otherPages = new TreeSet<>();
+
+        Cluster(Chunk canonical, long[] signature, String numbers) {
+            this.id = canonical.id();
+            this.page = canonical.page();
+            this.signature = signature;
+            this.numbers = numbers;
+        }
+    }
+
+    NearDuplicateIndex(IngestionProperties.Dedup settings) {
+        this.settings = Objects.requireNonNull(settings, "settings");
+    }
+
+    /**
+     * Record the chunks of one page.
+     * @return the chunks that are not near-duplicates of an earlier chunk, in order
+     */
+    List<Chunk> keep(List<Chunk> pageChunks) {
+        chunksSeen += pageChunks.size();
+        if (!settings.isEnabled()) {
+            return pageChunks;
+        }
+        List<Chunk> kept = new ArrayList<>(pageChunks.size());
+        for (Chunk chunk : pageChunks) {
+            List<String> words = words(chunk.content());
+            if (words.size() < settings.getMinWords()) {
+                kept.add(chunk);
+                continue;
+            }
+            long[] signature = minHash(words);
+            String numbers = numbers(chunk.content());
+            Cluster match = find(signature, numbers);
+            if (match == null) {
+                Cluster cluster = new Cluster(chunk, signature, numbers);
+                clusters.put(chunk.id(), cluster);
+                for (int band = 0; band < BANDS; band++) {
+                    bands.computeIfAbsent(bandHash(signature, band), key -> new ArrayList<>()).add(cluster);
+                }
+                kept.add(chunk);
+            } else {
+                if (chunk.page() != null && !chunk.page().equals(match.page)) {
+                    match.otherPages.add(chunk.page());
+                }
+                duplicates++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * @return canonical chunk id → its occurrence pages: the other pages of the duplicates suppressed
+     *         in its favour, empty if there were none; for every canonical chunk, in order of first
+     *         occurrence
+     */
+    Map<String, List<Integer>> occurrencePages() {
+        Map<String, List<Integer>> occurrencePages = new LinkedHashMap<>();
+        for (Cluster cluster : clusters.values()) {
+            occurrencePages.put(cluster.id, List.copyOf(cluster.otherPages));
+        }
+        return occurrencePages;
+    }
+
+    /**
+     * @return chunks suppressed as near-duplicates
+     */
+    int duplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return share of the chunks seen that were suppressed, 0 when none were seen
+     */
+    double ratio() {
+        return chunksSeen == 0 ? 0 : (double) duplicates / chunksSeen;
+    }
+
+    private Cluster find(long[] signature, String numbers) {
+        for (int band = 0; band < BANDS; band++) {
+            for (Cluster candidate : bands.getOrDefault(bandHash(signature, band), List.of())) {
+                if (candidate.numbers.equals(numbers)
+                        && similarity(candidate.signature, signature) >= settings.getMinSimilarity()) {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Estimated Jaccard similarity of the shingle sets: the share of signature positions that agree.
+     */
+    static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / SIGNATURE_SIZE;
+    }
+
+    static long[] minHash(CharSequence text) {
+        return minHash(words(text));
+    }
+
+    /**
+     * Minimum over the shingles of SIGNATURE_SIZE independent hash functions, each the shingle hash
+     * re-mixed with its own seed.
+     */
+    private static long[] minHash(List<String> words) {
+        long[] signature = new long[SIGNATURE_SIZE];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        int shingles = Math.max(1, words.size() - SHINGLE_WORDS + 1);
+        for (int i = 0; i < shingles; i++) {
+            long shingle = shingleHash(words, i, Math.min(i + SHINGLE_WORDS, words.size()));
+            for (int h = 0; h < SIGNATURE_SIZE; h++) {
+                signature[h] = Math.min(signature[h], mix(shingle + h * 0x9e3779b97f4a7c15L));
+            }
+        }
+        return signature;
+    }
+
+    private static long bandHash(long[] signature, int band) {
+        long hash = band;
+        for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+            hash = mix(hash * 31 + signature[row]);
+        }
+        return hash;
+    }
+
+    /** FNV-1a over the shingle's words. */
+    private static long shingleHash(List<String> words, int from, int to) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = from; i < to; i++) {
+            String word = words.get(i);
+            for (int c = 0; c < word.length(); c++) {
+                hash = (hash ^ word.charAt(c)) * 0x100000001b3L;
+            }
+            hash = (hash ^ ' ') * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /** SplitMix64 finalizer. */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    private static List<String> words(CharSequence text) {
+        List<String> words = new ArrayList<>();
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            words.add(matcher.group().toLowerCase(Locale.ROOT));
+        }
+        return words;
+    }
+
+    private static String numbers(CharSequence text) {
+        StringBuilder numbers = new StringBuilder();
+        Matcher matcher = NUMBER.matcher(text);
+        while (matcher.find()) {
+            numbers.append(matcher.group()).append(' ');
+        }
+        return numbers.toString();
+    }
+}
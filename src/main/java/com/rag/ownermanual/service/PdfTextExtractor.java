@@ -0,0 +1,283 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.exception.DocumentProcessingException;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.text.TextPosition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
+import org.springframework.ai.reader.pdf.layout.PDFLayoutTextStripperByArea;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.awt.Rectangle;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Extracts page text from a local PDF file exactly like PagePdfDocumentReader (same layout
+ * stripper, text formatter and margins), emitting one ParsedPage per non-blank page in page order.
+ *
+ * <p>Large documents are split into page ranges that are extracted concurrently, each by a worker
+ * with its own PDDocument handle (PDFBox documents are not thread-safe). Workers come from the
+ * shared pdfExtractionExecutor, so the total number of extraction threads is bounded no matter how
+ * many jobs are parsing; per document at most workers-per-document ranges are in flight, which also
+ * bounds the text held while waiting for an earlier range to finish.
+ *
+ * <p>Each page is assigned the section path it belongs to (see {@link SectionDetector}): from the
+ * outline when the PDF has one, otherwise from headings recognised by font, which workers collect
+ * from the characters of the same stripper pass that extracts the page text. Sections are resolved
+ * as pages are emitted, so they follow page order.
+ */
+@Component
+public class PdfTextExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfTextExtractor.class);
+
+    private static final String PAGE_REGION = "pdfPageRegion";
+
+    /**
+     * A page as extracted by a worker, before its section is resolved.
+     * @param page     the page without a section, or null when it has no text
+     * @param headings headings found on the page, in reading order
+     */
+    private record ExtractedPage(ParsedPage page, List<SectionDetector.Heading> headings) {
+    }
+
+    private final IngestionProperties.Extraction settings;
+    private final AsyncTaskExecutor extractionExecutor;
+
+    public PdfTextExtractor(IngestionProperties ingestionProperties,
+                            @Qualifier("pdfExtractionExecutor") AsyncTaskExecutor extractionExecutor) {
+        this.settings = Objects.requireNonNull(ingestionProperties, "ingestionProperties").getExtraction();
+        this.extractionExecutor = Objects.requireNonNull(extractionExecutor, "extractionExecutor");
+    }
+
+    /**
+     * Extract every page of the file and hand non-blank pages to the sink in page order.
+     * @param pdfFile    local PDF file
+     * @param pageSink   receives pages on the calling thread; exceptions thrown by it abort extraction
+     * @param onProgress invoked on the calling thread after each page is emitted or skipped
+     * @return number of pages passed to the sink
+     * @throws DocumentProcessingException when the file cannot be read as a PDF
+     */
+    public int extract(Path pdfFile, Consumer<ParsedPage> pageSink, Runnable onProgress) {
+        return extract(pdfFile, pageSink, onProgress, pageCount -> { });
+    }
+
+    /**
+     * Like {@link #extract(Path, Consumer, Runnable)}, additionally reporting the document's page
+     * count once the file is opened and before any page is extracted.
+     * @param onPageCount invoked on the calling thread with the total number of pages
+     */
+    public int extract(Path pdfFile, Consumer<ParsedPage> pageSink, Runnable onProgress, IntConsumer onPageCount) {
+        int pageCount;
+        SectionDetector sections;
+        try (PDDocument pdf = open(pdfFile)) {
+            pageCount = pdf.getNumberOfPages();
+            onPageCount.accept(pageCount);
+            sections = SectionDetector.forDocument(pdf, settings.getSectionDetection());
+            int workers = workersFor(pageCount);
+            if (workers <= 1) {
+                return extractSequentially(pdf, sections, pageSink, onProgress);
+            }
+        } catch (IOException ex) {
+            throw parseFailure(ex);
+        }
+        return extractInParallel(pdfFile, pageCount, sections, pageSink, onProgress);
+    }
+
+    int workersFor(int pageCount) {
+        int pagesPerTask = settings.getPagesPerTask();
+        int ranges = (pageCount + pagesPerTask - 1) / pagesPerTask;
+        return Math.min(settings.getWorkersPerDocument(), ranges);
+    }
+
+    private int extractInParallel(Path pdfFile, int pageCount, SectionDetector sections,
+                                  Consumer<ParsedPage> pageSink, Runnable onProgress) {
+        int workers = workersFor(pageCount);
+        int pagesPerTask = settings.getPagesPerTask();
+        log.debug("Extracting {} page(s) with {} worker(s), {} page(s) per task", pageCount, workers, pagesPerTask);
+
+        Deque<Future<List<ExtractedPage>>> inFlight = new ArrayDeque<>(workers);
+        int nextStart = 0;
+        int nextEmit = 0;
+        int emitted = 0;
+        try {
+            while (nextStart < pageCount || !inFlight.isEmpty()) {
+                while (inFlight.size() < workers && nextStart < pageCount) {
+                    int start = nextStart;
+                    int end = Math.min(start + pagesPerTask, pageCount);
+                    inFlight.addLast(extractionExecutor.submit(() -> extractRange(pdfFile, sections, start, end)));
+                    nextStart = end;
+                }
+                // Ranges complete out of order; waiting on the oldest keeps pages in order.
+                List<ExtractedPage> range = await(inFlight.removeFirst());
+                emitted += emit(range, nextEmit, sections, pageSink, onProgress);
+                nextEmit += range.size();
+            }
+            return emitted;
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+
+    private static int extractSequentially(PDDocument pdf, SectionDetector sections,
+                                           Consumer<ParsedPage> pageSink, Runnable onProgress) throws IOException {
+        PdfDocumentReaderConfig config = PdfDocumentReaderConfig.defaultConfig();
+        PageStripper stripper = new PageStripper(sections.headingCollector());
+        int emitted = 0;
+        for (int index = 0; index < pdf.getNumberOfPages(); index++) {
+            ExtractedPage page = new ExtractedPage(extractPage(stripper, pdf, index, config), stripper.takeHeadings());
+            emitted += emit(List.of(page), index, sections, pageSink, onProgress);
+        }
+        return emitted;
+    }
+
+    private List<ExtractedPage> extractRange(Path pdfFile, SectionDetector sections, int start, int end)
+            throws IOException {
+        try (PDDocument pdf = open(pdfFile)) {
+            return extractRange(pdf, sections, start, end);
+        }
+    }
+
+    /**
+     * Extracts pages [start, end) (0-based) from an open document. Blank pages are kept as entries
+     * without a page so the caller can still report progress for them and carry sections past them.
+     */
+    private static List<ExtractedPage> extractRange(PDDocument pdf, SectionDetector sections, int start, int end)
+            throws IOException {
+        PdfDocumentReaderConfig config = PdfDocumentReaderConfig.defaultConfig();
+        PageStripper stripper = new PageStripper(sections.headingCollector());
+        List<ExtractedPage> pages = new ArrayList<>(end - start);
+        for (int index = start; index < end; index++) {
+            pages.add(new ExtractedPage(extractPage(stripper, pdf, index, config), stripper.takeHeadings()));
+        }
+        return pages;
+    }
+
+    /**
+     * Returns the page at the 0-based index, or null when it has no text.
+     */
+    private static ParsedPage extractPage(PageStripper stripper,
+                                          PDDocument pdf,
+                                          int index,
+                                          PdfDocumentReaderConfig config) throws IOException {
+        int pageNumber = index + 1;
+        String text = extractPageText(stripper, pdf.getPage(index), pageNumber, config);
+        return StringUtils.hasText(text) ? new ParsedPage(pageNumber, text, null) : null;
+    }
+
+    /**
+     * Resolves the sections of a range starting at the 0-based index and hands its non-blank pages
+     * to the sink.
+     */
+    private static int emit(List<ExtractedPage> pages, int firstIndex, SectionDetector sections,
+                            Consumer<ParsedPage> pageSink, Runnable onProgress) {
+        int emitted = 0;
+        int index = firstIndex;
+        for (ExtractedPage extracted : pages) {
+            String section = sections.sectionOf(index++, extracted.headings());
+            ParsedPage page = extracted.page();
+            if (page != null) {
+                // Sink failures (e.g. pipeline cancelled) propagate unchanged.
+                pageSink.accept(new ParsedPage(page.pageNumber(), page.text(), section));
+                emitted++;
+            }
+            onProgress.run();
+        }
+        return emitted;
+    }
+
+    private static List<ExtractedPage> await(Future<List<ExtractedPage>> range) {
+        try {
+            return range.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while extracting PDF pages");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw parseFailure(cause);
+        }
+    }
+
+    private static PDDocument open(Path pdfFile) throws IOException {
+        return Loader.loadPDF(new RandomAccessReadBufferedFile(pdfFile), IOUtils.createTempFileOnlyStreamCache());
+    }
+
+    private static DocumentProcessingException parseFailure(Throwable ex) {
+        String message = "Failed to parse PDF content";
+        log.warn(message, ex);
+        return new DocumentProcessingException(message, ex);
+    }
+
+    private static String extractPageText(PageStripper stripper,
+                                          PDPage page,
+                                          int pageNumber,
+                                          PdfDocumentReaderConfig config) throws IOException {
+        PDRectangle mediaBox = page.getMediaBox();
+        int x0 = (int) mediaBox.getLowerLeftX();
+        int xW = (int) mediaBox.getWidth();
+        int y0 = (int) mediaBox.getLowerLeftY() + config.pageTopMargin;
+        int yW = (int) mediaBox.getHeight() - (config.pageTopMargin + config.pageBottomMargin);
+
+        stripper.addRegion(PAGE_REGION, new Rectangle(x0, y0, xW, yW));
+        try {
+            stripper.extractRegions(page);
+            String text = stripper.getTextForRegion(PAGE_REGION);
+            return StringUtils.hasText(text)
+                    ? config.pageExtractedTextFormatter.format(text, pageNumber)
+                    : text;
+        } finally {
+            stripper.removeRegion(PAGE_REGION);
+        }
+    }
+
+    /**
+     * The layout stripper PagePdfDocumentReader uses, also handing every character it processes to
+     * the heading collector, if any.
+     */
+    private static final class PageStripper extends PDFLayoutTextStripperByArea {
+
+        private final SectionDetector.HeadingCollector headings;
+
+        PageStripper(SectionDetector.HeadingCollector headings) throws IOException {
+            this.headings = headings;
+        }
+
+        @Override
+        protected void processTextPosition(TextPosition text) {
+            if (headings != null) {
+                headings.add(text);
+            }
+            super.processTextPosition(text);
+        }
+
+        /** Headings of the page just extracted; empty without a collector. */
+        List<SectionDetector.Heading> takeHeadings() {
+            return headings == null ? List.of() : headings.takeHeadings();
+        }
+    }
+}
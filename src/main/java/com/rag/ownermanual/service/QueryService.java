@@ -67,13 +67,23 @@ public class QueryService {
      * @return List of chunks ordered by similarity; never null, may be empty.
      */
     public List<Chunk> searchChunks(String queryText, String vehicleModel) {
+        return searchChunks(queryText, vehicleModel, null);
+    }
+
+    /**
+     * Like {@link #searchChunks(String, String)}, additionally restricted to one manual section.
+     * @param section Optional section path (e.g. "Maintenance > Tyres"), subsections included; null or
+     *                blank means all sections.
+     */
+    public List<Chunk> searchChunks(String queryText, String vehicleModel, String section) {
         // Normalize blank to null so the repository contract is clear: null/blank = no filter.
         String normalizedModel = (vehicleModel != null && !vehicleModel.isBlank()) ? vehicleModel : null;
+        String normalizedSection = (section != null && !section.isBlank()) ? section.strip() : null;
         int topK = queryProperties.getTopK();
 
         Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            List<Chunk> result = vectorStoreRepository.search(queryText, normalizedModel, topK);
+            List<Chunk> result = vectorStoreRepository.search(queryText, normalizedModel, normalizedSection, topK);
             sample.stop(Timer.builder("query.vector.search.latency")
                     .description("Latency of vector store search calls from QueryService")
                     .tags(Tags.of(
@@ -88,8 +98,8 @@ public class QueryService {
                             "status", "error",
                             "vehicleModel", tagValue(normalizedModel)))
                     .register(meterRegistry));
-            log.error("Vector store search failed. query='{}', vehicleModel='{}'.",
-                    maskForLog(queryText), normalizedModel, ex);
+            log.error("Vector store search failed. query='{}', vehicleModel='{}', section='{}'.",
+                    maskForLog(queryText), normalizedModel, normalizedSection, ex);
             throw new DownstreamVectorStoreException("Vector store search failed", ex);
         }
     }
@@ -101,13 +111,21 @@ public class QueryService {
      * @return QueryResponse with answer and citations.
      */
     public QueryResponse query(String queryText, String vehicleModel) {
+        return query(queryText, vehicleModel, null);
+    }
+
+    /**
+     * Like {@link #query(String, String)}, answering only from one manual section.
+     * @param section Optional section path, subsections included; null or blank means all sections.
+     */
+    public QueryResponse query(String queryText, String vehicleModel, String section) {
         String normalizedModel = (vehicleModel != null && !vehicleModel.isBlank()) ? vehicleModel : null;
         Timer.Sample querySample = Timer.start(meterRegistry);
 
-        log.info("Received query; starting retrieval and LLM call. queryPreview='{}', vehicleModel='{}', topK={}",
-                maskForLog(queryText), vehicleModel, queryProperties.getTopK());
+        log.info("Received query; starting retrieval and LLM call. queryPreview='{}', vehicleModel='{}', section='{}', topK={}",
+                maskForLog(queryText), vehicleModel, section, queryProperties.getTopK());
 
-        List<Chunk> chunks = searchChunks(queryText, normalizedModel);
+        List<Chunk> chunks = searchChunks(queryText, normalizedModel, section);
 
         if (chunks == null || chunks.isEmpty()) {
             log.debug("Query returned no chunks; returning no-relevant-sections message. query={}", maskForLog(queryText));
@@ -170,7 +188,7 @@ public class QueryService {
         for (Chunk c : chunks) {
             sb.append("[section: ").append(c.section() != null ? c.section() : "").append("; page: ")
                     .append(c.page() != null ? c.page() : "").append("]\n");
-            sb.append(c.text()).append(EXCERPT_DELIMITER);
+            sb.append(c.content()).append(EXCERPT_DELIMITER);
         }
         return sb.toString();
     }
@@ -179,7 +197,7 @@ public class QueryService {
         int total = 0;
         List<Chunk> result = new ArrayList<>();
         for (Chunk c : chunks) {
-            int len = c.text() != null ? c.text().length() : 0;
+            int len = c.content().length();
             if (total + len > maxChars && !result.isEmpty()) {
                 break;
             }
@@ -189,11 +207,24 @@ public class QueryService {
         return result;
     }
 
+    /**
+     * The chunk's page followed by the pages of near-duplicates stored only once as this chunk.
+     */
+    private static List<Integer> citedPages(Chunk chunk) {
+        if (chunk.page() == null) {
+            return List.of();
+        }
+        List<Integer> pages = new ArrayList<>(1 + chunk.occurrencePages().size());
+        pages.add(chunk.page());
+        pages.addAll(chunk.occurrencePages());
+        return pages;
+    }
+
     private List<Citation> buildCitations(List<Chunk> chunks) {
         List<Citation> out = new ArrayList<>(chunks.size());
         for (Chunk c : chunks) {
             String snippet = truncateSnippet(c.text(), 200);
-            out.add(new Citation(c.id(), c.section(), snippet, c.page()));
+            out.add(new Citation(c.id(), c.section(), snippet, c.page(), citedPages(c)));
         }
         return out;
     }
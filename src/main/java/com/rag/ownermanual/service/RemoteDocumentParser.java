@@ -1,38 +1,82 @@
 package com.rag.ownermanual.service;
 
+import com.rag.ownermanual.config.IngestionProperties;
 import com.rag.ownermanual.domain.ParsedPage;
 import com.rag.ownermanual.exception.DocumentProcessingException;
 import com.rag.ownermanual.resilience.ResilienceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.document.Document;
-import org.springframework.ai.reader.pdf.PagePdfDocumentReader;
-import org.springframework.ai.reader.pdf.config.PdfDocumentReaderConfig;
-import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
  * Fetches a remote document and turns it into structured page content the chunker can consume.
+ *
+ * <p>The document is streamed to a temp file (bounded by app.ingestion.max-document-size, SHA-256
+ * computed on the fly) and {@link PdfTextExtractor} reads it through a random-access file source, so
+ * heap usage does not grow with document size. Fetches are conditional and backed by the
+ * {@link DocumentStore}, so an unchanged manual is neither downloaded nor extracted again.
  */
 @Service
 public class RemoteDocumentParser {
 
     private static final Logger log = LoggerFactory.getLogger(RemoteDocumentParser.class);
 
+    private static final int COPY_BUFFER_BYTES = 64 * 1024;
+
+    private static final String FETCH_NOT_MODIFIED = "not_modified";
+    private static final String FETCH_SAME_CONTENT = "same_content";
+    private static final String FETCH_REPLAYED = "replayed";
+    private static final String FETCH_EXTRACTED = "extracted";
+
     private final RestClient restClient;
     private final ResilienceService resilienceService;
+    private final IngestionProperties ingestionProperties;
+    private final PdfTextExtractor pdfTextExtractor;
+    private final DocumentStore documentStore;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary peakHeapSummary;
 
-    public RemoteDocumentParser(RestClient restClient, ResilienceService resilienceService) {
+    public RemoteDocumentParser(RestClient restClient,
+                                ResilienceService resilienceService,
+                                IngestionProperties ingestionProperties,
+                                PdfTextExtractor pdfTextExtractor,
+                                DocumentStore documentStore,
+                                MeterRegistry meterRegistry) {
         this.restClient = restClient;
         this.resilienceService = resilienceService;
+        this.ingestionProperties = ingestionProperties;
+        this.pdfTextExtractor = pdfTextExtractor;
+        this.documentStore = documentStore;
+        this.meterRegistry = meterRegistry;
+        this.peakHeapSummary = DistributionSummary.builder("ingest.document.heap.peak")
+                .description("Peak heap growth observed while downloading and parsing one document")
+                .baseUnit("bytes")
+                .register(meterRegistry);
     }
 
     /**
@@ -42,108 +86,278 @@ public class RemoteDocumentParser {
      * @throws DocumentProcessingException when the document cannot be fetched or parsed
      */
     public List<ParsedPage> fetchAndParse(String documentUrl) {
+        List<ParsedPage> pages = new ArrayList<>();
+        fetchAndParse(documentUrl, pages::add);
+        return pages;
+    }
+
+    /**
+     * Fetch the document at the given URL and hand each non-empty page to the sink, in page order,
+     * as soon as it is extracted. The sink may block (e.g. on a bounded queue) to apply backpressure.
+     * @param documentUrl URL of the document to ingest
+     * @param pageSink    receives parsed pages; exceptions thrown by the sink abort parsing
+     * @return number of pages passed to the sink
+     * @throws DocumentProcessingException when the document cannot be fetched or parsed
+     */
+    public int fetchAndParse(String documentUrl, Consumer<ParsedPage> pageSink) {
+        return fetchAndParse(documentUrl, null, pageSink).pageCount();
+    }
+
+    /**
+     * Outcome of a fetch.
+     * @param pageCount        pages passed to the sink; 0 when unchanged
+     * @param documentSha256   hex SHA-256 of the document content
+     * @param unchanged        true when the content is the already-ingested version; no pages were emitted
+     * @param boilerplateRatio share of the page text removed as running headers, footers and page
+     *                         numbers before the pages reached the sink; 0 when unchanged
+     */
+    public record FetchResult(int pageCount, String documentSha256, boolean unchanged, double boilerplateRatio) {
+    }
+
+    /**
+     * Fetch the document unless it is the version already ingested, and hand each non-empty page to
+     * the sink in page order.
+     * <ul>
+     *   <li>If the DocumentStore holds ETag/Last-Modified validators for the URL that describe the
+     *   ingested version, the GET is conditional; a 304 returns unchanged without any download.</li>
+     *   <li>A 200 whose content hash equals the ingested version also returns unchanged, without
+     *   extraction (servers that ignore validators).</li>
+     *   <li>Otherwise pages are replayed from the store when this content was extracted before, or
+     *   extracted from the PDF and recorded in the store alongside the raw bytes.</li>
+     *   <li>Either way pages pass through a {@link BoilerplateFilter} on their way to the sink; the
+     *   store keeps the unfiltered text.</li>
+     * </ul>
+     * @param documentUrl    URL of the document to ingest
+     * @param ingestedSha256 hash of the version last ingested successfully; null to always emit pages
+     * @param pageSink       receives parsed pages; exceptions thrown by the sink abort parsing
+     * @return pages emitted, content hash and whether the document is unchanged
+     * @throws DocumentProcessingException when the document cannot be fetched or parsed
+     */
+    public FetchResult fetchAndParse(String documentUrl, String ingestedSha256, Consumer<ParsedPage> pageSink) {
+        return fetchAndParse(documentUrl, ingestedSha256, pageSink, FetchListener.NONE);
+    }
+
+    /**
+     * Receives progress of a single fetch, on the fetching thread. All callbacks default to no-ops.
+     */
+    public interface FetchListener {
+
+        FetchListener NONE = new FetchListener() {
+        };
+
+        /**
+         * Bytes of the response body received so far. A retried download starts again from 0.
+         */
+        default void downloaded(long totalBytes) {
+        }
+
+        /**
+         * The document changed and its pages are about to be extracted or replayed.
+         * @param pageCount pages in the document, or null when not known upfront (replay)
+         */
+        default void parsingStarted(Integer pageCount) {
+        }
+
+        /**
+         * One more page was extracted or replayed, whether or not it had text.
+         */
+        default void pageParsed() {
+        }
+    }
+
+    /**
+     * Like {@link #fetchAndParse(String, String, Consumer)}, reporting download and parse progress
+     * to the listener.
+     */
+    public FetchResult fetchAndParse(String documentUrl, String ingestedSha256, Consumer<ParsedPage> pageSink,
+                                     FetchListener listener) {
         if (documentUrl == null || documentUrl.isBlank()) {
             throw new IllegalArgumentException("documentUrl must be non-blank");
         }
+        Objects.requireNonNull(pageSink, "pageSink");
+        Objects.requireNonNull(listener, "listener");
 
-        byte[] pdfBytes = fetchPdfBytes(documentUrl);
-        List<Document> documents = readPdfDocuments(pdfBytes);
-        List<ParsedPage> pages = toParsedPages(documents);
+        DocumentStore.UrlEntry validators = ingestedSha256 == null ? null : documentStore.findByUrl(documentUrl)
+                .filter(entry -> entry.sha256().equals(ingestedSha256) && entry.hasValidators())
+                .orElse(null);
 
-        log.info("Parsed PDF from URL {} into {} non-empty page(s).", maskUrlForLog(documentUrl), pages.size());
-        return pages;
-    }
+        HeapWatermark heap = HeapWatermark.start();
+        try (DownloadedDocument document = download(documentUrl, validators, listener)) {
+            heap.sample();
+            if (document.notModified()) {
+                log.info("Document at URL {} not modified since last ingestion", maskUrlForLog(documentUrl));
+                return fetched(FETCH_NOT_MODIFIED, new FetchResult(0, ingestedSha256, true, 0));
+            }
+            documentStore.recordUrl(new DocumentStore.UrlEntry(
+                    documentUrl, document.etag(), document.lastModified(), document.sha256()));
+            if (document.sha256().equals(ingestedSha256)) {
+                log.info("Document at URL {} unchanged since last ingestion. sha256={}",
+                        maskUrlForLog(documentUrl), document.sha256());
+                return fetched(FETCH_SAME_CONTENT, new FetchResult(0, document.sha256(), true, 0));
+            }
 
-    private byte[] fetchPdfBytes(String documentUrl) {
-        try {
-            Supplier<byte[]> call = () -> restClient.get()
-                    .uri(documentUrl)
-                    .retrieve()
-                    .body(byte[].class);
-
-            byte[] body = resilienceService.execute("documentFetch", call);
-        
-            if (body == null || body.length == 0) {
-                String message = "Failed to fetch document: empty response body";
-                log.warn("{} url={}", message, maskUrlForLog(documentUrl));
-                throw new DocumentProcessingException(message);
+            BoilerplateFilter boilerplate = new BoilerplateFilter(ingestionProperties.getBoilerplate(), pageSink);
+            if (documentStore.hasPages(document.sha256())) {
+                listener.parsingStarted(null);
+                int replayed = documentStore.replayPages(document.sha256(), page -> {
+                    boilerplate.accept(page);
+                    listener.pageParsed();
+                });
+                if (replayed >= 0) {
+                    int pageCount = boilerplate.finish();
+                    log.info("Replayed {} stored page(s) for URL {}. sha256={} boilerplateRatio={}",
+                            pageCount, maskUrlForLog(documentUrl), document.sha256(), boilerplate.removedRatio());
+                    return fetched(FETCH_REPLAYED, parsed(pageCount, document.sha256(), boilerplate));
+                }
             }
 
-            return body;
-        } catch (RestClientException ex) {
-            String message = "Failed to fetch document from URL";
-            log.warn("{} url={}", message, maskUrlForLog(documentUrl), ex);
-            throw new DocumentProcessingException(message, ex);
+            extract(document, boilerplate, heap, listener);
+            int pageCount = boilerplate.finish();
+            log.info("Parsed PDF from URL {} into {} non-empty page(s). sizeBytes={} sha256={} boilerplateRatio={}",
+                    maskUrlForLog(documentUrl), pageCount, document.sizeBytes(), document.sha256(),
+                    boilerplate.removedRatio());
+            return fetched(FETCH_EXTRACTED, parsed(pageCount, document.sha256(), boilerplate));
+        } finally {
+            peakHeapSummary.record(heap.peakDeltaBytes());
         }
     }
 
-    private List<Document> readPdfDocuments(byte[] pdfBytes) {
-        Resource resource = new ByteArrayResource(pdfBytes) {
-            @Override
-            public String getFilename() {
-                return "remote.pdf";
-            }
+    /**
+     * Extracts pages, recording them in the DocumentStore when it is enabled; the raw document and
+     * its pages are stored only once extraction has completed.
+     */
+    private int extract(DownloadedDocument document, Consumer<ParsedPage> pageSink, HeapWatermark heap,
+                        FetchListener listener) {
+        Runnable onProgress = () -> {
+            heap.sample();
+            listener.pageParsed();
         };
+        if (!documentStore.isEnabled()) {
+            return pdfTextExtractor.extract(document.path(), pageSink, onProgress, listener::parsingStarted);
+        }
+        try (DocumentStore.PageRecorder recorder = documentStore.startRecording()) {
+            int pageCount = pdfTextExtractor.extract(document.path(), recorder.andThen(pageSink), onProgress,
+                    listener::parsingStarted);
+            documentStore.put(document.sha256(), document.path(), recorder);
+            return pageCount;
+        }
+    }
 
+    private FetchResult parsed(int pageCount, String sha256, BoilerplateFilter boilerplate) {
+        double ratio = boilerplate.removedRatio();
+        DistributionSummary.builder("ingest.document.boilerplate.ratio")
+                .description("Share of a document's page text removed as running headers, footers and page numbers")
+                .register(meterRegistry)
+                .record(ratio);
+        return new FetchResult(pageCount, sha256, false, ratio);
+    }
+
+    private FetchResult fetched(String outcome, FetchResult result) {
+        Counter.builder("ingest.document.fetch")
+                .description("Document fetches by outcome (not_modified, same_content, replayed, extracted)")
+                .tags(Tags.of("outcome", outcome))
+                .register(meterRegistry)
+                .increment();
+        return result;
+    }
+
+    private DownloadedDocument download(String documentUrl, DocumentStore.UrlEntry validators,
+                                        FetchListener listener) {
         try {
-            PdfDocumentReaderConfig config = PdfDocumentReaderConfig.builder()
-                    .withPagesPerDocument(1)
-                    .build();
-
-            PagePdfDocumentReader reader = new PagePdfDocumentReader(resource, config);
-            return reader.read();
-        } catch (Exception ex) {
-            String message = "Failed to parse PDF content";
-            log.warn(message, ex);
+            Supplier<DownloadedDocument> call = () -> restClient.get()
+                    .uri(documentUrl)
+                    .headers(headers -> {
+                        if (validators != null && validators.etag() != null) {
+                            headers.set(HttpHeaders.IF_NONE_MATCH, validators.etag());
+                        }
+                        if (validators != null && validators.lastModified() != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, validators.lastModified());
+                        }
+                    })
+                    .exchange((request, response) -> {
+                        if (validators != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                            return DownloadedDocument.NOT_MODIFIED;
+                        }
+                        if (response.getStatusCode().isError()) {
+                            throw new RestClientResponseException("Failed to fetch document",
+                                    response.getStatusCode(), response.getStatusText(),
+                                    response.getHeaders(), null, null);
+                        }
+                        return writeToTempFile(response, documentUrl, listener);
+                    });
+
+            return resilienceService.execute("documentFetch", call);
+        } catch (RestClientException ex) {
+            String message = "Failed to fetch document from URL";
+            log.warn("{} url={}", message, maskUrlForLog(documentUrl), ex);
             throw new DocumentProcessingException(message, ex);
         }
     }
 
     /**
-     * Maps Spring AI Document instances (which carry text + metadata) to our internal ParsedPage domain type.
+     * Streams the response body to a temp file, enforcing the size limit and hashing as we go.
+     * The partially written file is removed on any failure.
      */
-    private List<ParsedPage> toParsedPages(List<Document> documents) {
-        List<ParsedPage> pages = new ArrayList<>();
-        if (documents == null) {
-            return pages;
+    private DownloadedDocument writeToTempFile(ClientHttpResponse response, String documentUrl,
+                                               FetchListener listener) throws IOException {
+        long maxBytes = ingestionProperties.getMaxDocumentSize().toBytes();
+        long declaredLength = response.getHeaders().getContentLength();
+        if (declaredLength > maxBytes) {
+            throw tooLarge(documentUrl, maxBytes);
         }
 
-        for (Document doc : documents) {
-            if (doc == null || !doc.isText()) {
-                continue;
+        MessageDigest digest = sha256();
+        Path tempFile = Files.createTempFile(tempDirectory(), "manual-", ".pdf");
+        long total = 0;
+        try (InputStream in = new DigestInputStream(response.getBody(), digest);
+             OutputStream out = Files.newOutputStream(tempFile)) {
+            byte[] buffer = new byte[COPY_BUFFER_BYTES];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxBytes) {
+                    throw tooLarge(documentUrl, maxBytes);
+                }
+                out.write(buffer, 0, read);
+                listener.downloaded(total);
             }
+        } catch (IOException | RuntimeException ex) {
+            DownloadedDocument.deleteQuietly(tempFile);
+            throw ex;
+        }
 
-            String text = doc.getText();
-            if (text == null || text.isBlank()) {
-                continue;
-            }
-
-            Map<String, Object> metadata = doc.getMetadata();
-            Integer startPage = toInteger(metadata != null
-                    ? metadata.get(PagePdfDocumentReader.METADATA_START_PAGE_NUMBER)
-                    : null);
-
-            pages.add(new ParsedPage(startPage, text, null));
+        if (total == 0) {
+            DownloadedDocument.deleteQuietly(tempFile);
+            String message = "Failed to fetch document: empty response body";
+            log.warn("{} url={}", message, maskUrlForLog(documentUrl));
+            throw new DocumentProcessingException(message);
         }
 
-        return pages;
+        HttpHeaders headers = response.getHeaders();
+        return new DownloadedDocument(tempFile, total, HexFormat.of().formatHex(digest.digest()),
+                headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
     }
 
-    private static Integer toInteger(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Number number) {
-            return number.intValue();
+    private DocumentProcessingException tooLarge(String documentUrl, long maxBytes) {
+        String message = "Document exceeds maximum size of " + maxBytes + " bytes";
+        log.warn("{} url={}", message, maskUrlForLog(documentUrl));
+        return new DocumentProcessingException(message);
+    }
+
+    private Path tempDirectory() throws IOException {
+        String configured = ingestionProperties.getTempDirectory();
+        if (configured == null || configured.isBlank()) {
+            return Path.of(System.getProperty("java.io.tmpdir"));
         }
-        if (value instanceof String s) {
-            try {
-                return Integer.parseInt(s);
-            } catch (NumberFormatException ignored) {
-                return null;
-            }
+        return Files.createDirectories(Path.of(configured));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
-        return null;
     }
 
     private static String maskUrlForLog(String url) {
@@ -0,0 +1,304 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties.Extraction.SectionDetection;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDFontDescriptor;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineNode;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Assigns each page of a PDF the section path it belongs to, e.g. "Maintenance > Tyres > Pressure".
+ *
+ * <p>The outline (bookmarks), when present, is authoritative: a page's section is the first outline
+ * entry pointing to it, or else the last entry pointing to an earlier page. Without an outline,
+ * headings are recognised by font: lines set at least {@link #HEADING_SIZE_RATIO} × the page's body
+ * font size, or short bold lines at body size or larger. Larger headings are higher in the
+ * hierarchy, so a heading replaces every open heading of the same or a smaller size. A page's
+ * section is the path after its first heading, or the path carried over from earlier pages.
+ *
+ * <p>Created once per document from the extractor's main handle. Fonts are not read in a pass of
+ * their own: the extraction stripper hands each character it processes to a {@link HeadingCollector},
+ * one per worker. {@link #sectionOf} must be called once per page, in page order.
+ */
+final class SectionDetector {
+
+    static final String PATH_SEPARATOR = " > ";
+
+    /** Font size relative to body text from which a line is a heading regardless of weight. */
+    static final float HEADING_SIZE_RATIO = 1.2f;
+    private static final int MAX_HEADING_LENGTH = 80;
+    private static final int MAX_BOLD_HEADING_LENGTH = 60;
+
+    static final SectionDetector NONE = new SectionDetector(null, false);
+
+    /**
+     * A heading line on a page.
+     * @param title    heading text with whitespace collapsed
+     * @param fontSize average font size of the line in points
+     */
+    record Heading(String title, float fontSize) {
+    }
+
+    /** Outline entries by page index; null when sections come from headings (or not at all). */
+    private final Outline outline;
+    private final boolean layout;
+    /** Open headings, outermost first. */
+    private final Deque<Heading> open = new ArrayDeque<>();
+
+    private SectionDetector(Outline outline, boolean layout) {
+        this.outline = outline;
+        this.layout = layout;
+    }
+
+    /**
+     * @param pdf  open document; only read during this call
+     * @param mode configured detection mode
+     */
+    static SectionDetector forDocument(PDDocument pdf, SectionDetection mode) throws IOException {
+        if (mode == SectionDetection.NONE) {
+            return NONE;
+        }
+        if (mode != SectionDetection.LAYOUT) {
+            Outline outline = Outline.read(pdf);
+            if (outline != null || mode == SectionDetection.OUTLINE) {
+                return new SectionDetector(outline, false);
+            }
+        }
+        return new SectionDetector(null, true);
+    }
+
+    /**
+     * A collector for the characters of a worker's pages, or null unless sections come from the
+     * layout.
+     */
+    HeadingCollector headingCollector() {
+        return layout ? new HeadingCollector() : null;
+    }
+
+    /**
+     * Section path of the page at the 0-based index, or null when it precedes the first section.
+     * @param headings the page's headings from {@link #headings}
+     */
+    String sectionOf(int index, List<Heading> headings) {
+        if (outline != null) {
+            return outline.sectionOf(index);
+        }
+        String section = null;
+        for (Heading heading : headings) {
+            while (!open.isEmpty() && open.peekLast().fontSize() <= heading.fontSize()) {
+                open.removeLast();
+            }
+            open.addLast(heading);
+            if (section == null) {
+                section = path();
+            }
+        }
+        return section != null ? section : path();
+    }
+
+    private String path() {
+        if (open.isEmpty()) {
+            return null;
+        }
+        return open.stream().map(Heading::title).collect(Collectors.joining(PATH_SEPARATOR));
+    }
+
+    /**
+     * Outline entries with their section paths, indexed by the page they point to.
+     */
+    private static final class Outline {
+
+        private final TreeMap<Integer, String> firstOnPage = new TreeMap<>();
+        private final TreeMap<Integer, String> lastOnPage = new TreeMap<>();
+
+        static Outline read(PDDocument pdf) throws IOException {
+            PDDocumentOutline root = pdf.getDocumentCatalog().getDocumentOutline();
+            if (root == null) {
+                return null;
+            }
+            Map<COSDictionary, Integer> pageIndexes = new HashMap<>();
+            int index = 0;
+            for (PDPage page : pdf.getPages()) {
+                pageIndexes.put(page.getCOSObject(), index++);
+            }
+            Outline outline = new Outline();
+            outline.add(pdf, root, "", pageIndexes);
+            return outline.firstOnPage.isEmpty() ? null : outline;
+        }
+
+        private void add(PDDocument pdf, PDOutlineNode node, String parentPath,
+                         Map<COSDictionary, Integer> pageIndexes) throws IOException {
+            for (PDOutlineItem item : node.children()) {
+                String title = item.getTitle() == null ? "" : item.getTitle().replaceAll("\\s+", " ").strip();
+                String path = title.isEmpty() ? parentPath
+                        : parentPath.isEmpty() ? title : parentPath + PATH_SEPARATOR + title;
+                PDPage page = item.findDestinationPage(pdf);
+                Integer index = page == null ? null : pageIndexes.get(page.getCOSObject());
+                if (index != null && !path.isEmpty()) {
+                    firstOnPage.putIfAbsent(index, path);
+                    lastOnPage.put(index, path);
+                }
+                add(pdf, item, path, pageIndexes);
+            }
+        }
+
+        String sectionOf(int index) {
+            String first = firstOnPage.get(index);
+            if (first != null) {
+                return first;
+            }
+            Map.Entry<Integer, String> earlier = lastOnPage.lowerEntry(index);
+            return earlier == null ? null : earlier.getValue();
+        }
+    }
+
+    /**
+     * Collects the characters of one page as they are processed, then groups them into lines with
+     * their font size and weight and picks the headings. Not thread-safe; one per worker.
+     */
+    static final class HeadingCollector {
+
+        private record Line(String text, float fontSize, boolean bold, int chars) {
+        }
+
+        /** Characters of the current page, in content stream order. */
+        private final List<TextPosition> positions = new ArrayList<>();
+        private final List<Line> lines = new ArrayList<>();
+
+        private HeadingCollector() {
+        }
+
+        void add(TextPosition position) {
+            positions.add(position);
+        }
+
+        /**
+         * Headings among the characters added since the last call, in reading order; starts the
+         * next page.
+         */
+        List<Heading> takeHeadings() {
+            try {
+                groupLines();
+                return headings();
+            } finally {
+                positions.clear();
+                lines.clear();
+            }
+        }
+
+        /**
+         * Characters whose baselines are within half a font size of a line's first character belong
+         * to that line. A gap wider than a fifth of the font size separates words.
+         */
+        private void groupLines() {
+            positions.sort(Comparator.comparingDouble(TextPosition::getYDirAdj));
+            List<TextPosition> line = new ArrayList<>();
+            for (TextPosition position : positions) {
+                if (!line.isEmpty() && position.getYDirAdj() - line.get(0).getYDirAdj()
+                        > Math.max(line.get(0).getFontSizeInPt(), position.getFontSizeInPt()) / 2) {
+                    endLine(line);
+                }
+                line.add(position);
+            }
+            endLine(line);
+        }
+
+        private void endLine(List<TextPosition> line) {
+            line.sort(Comparator.comparingDouble(TextPosition::getXDirAdj));
+            StringBuilder text = new StringBuilder();
+            float sizeSum = 0;
+            int boldChars = 0;
+            int chars = 0;
+            TextPosition previous = null;
+            for (TextPosition position : line) {
+                String unicode = position.getUnicode();
+                if (unicode == null || isOverstrike(previous, position)) {
+                    continue;
+                }
+                if (previous != null && position.getXDirAdj() - (previous.getXDirAdj() + previous.getWidthDirAdj())
+                        > position.getFontSizeInPt() / 5) {
+                    text.append(' ');
+                }
+                text.append(unicode);
+                if (!unicode.isBlank()) {
+                    sizeSum += position.getFontSizeInPt();
+                    boldChars += isBold(position.getFont()) ? 1 : 0;
+                    chars++;
+                }
+                previous = position;
+            }
+            String collapsed = text.toString().replaceAll("\\s+", " ").strip();
+            if (!collapsed.isEmpty() && chars > 0) {
+                lines.add(new Line(collapsed, sizeSum / chars, boldChars * 2 > chars, chars));
+            }
+            line.clear();
+        }
+
+        /** The same glyph drawn again at (almost) the same spot, as some PDFs do to fake bold text. */
+        private static boolean isOverstrike(TextPosition previous, TextPosition position) {
+            return previous != null && position.getUnicode().equals(previous.getUnicode())
+                    && Math.abs(position.getXDirAdj() - previous.getXDirAdj()) < position.getFontSizeInPt() / 10;
+        }
+
+        private List<Heading> headings() {
+            float body = bodyFontSize();
+            List<Heading> headings = new ArrayList<>();
+            for (Line line : lines) {
+                boolean larger = line.fontSize() >= body * HEADING_SIZE_RATIO
+                        && line.text().length() <= MAX_HEADING_LENGTH;
+                boolean boldTitle = line.bold() && line.fontSize() >= body
+                        && line.text().length() <= MAX_BOLD_HEADING_LENGTH
+                        && !line.text().endsWith(".");
+                if ((larger || boldTitle) && line.text().chars().anyMatch(Character::isLetter)) {
+                    headings.add(new Heading(line.text(), line.fontSize()));
+                }
+            }
+            return headings;
+        }
+
+        /** The font size (to half a point) carrying the most characters of the page. */
+        private float bodyFontSize() {
+            Map<Float, Integer> charsBySize = new HashMap<>();
+            for (Line line : lines) {
+                charsBySize.merge(Math.round(line.fontSize() * 2) / 2f, line.chars(), Integer::sum);
+            }
+            float body = Float.MAX_VALUE;
+            int most = 0;
+            for (Map.Entry<Float, Integer> entry : charsBySize.entrySet()) {
+                if (entry.getValue() > most || (entry.getValue() == most && entry.getKey() < body)) {
+                    body = entry.getKey();
+                    most = entry.getValue();
+                }
+            }
+            return body;
+        }
+
+        private static boolean isBold(PDFont font) {
+            if (font == null) {
+                return false;
+            }
+            PDFontDescriptor descriptor = font.getFontDescriptor();
+            if (descriptor != null && (descriptor.isForceBold() || descriptor.getFontWeight() >= 700)) {
+                return true;
+            }
+            String name = font.getName();
+            return name != null && (name.contains("Bold") || name.contains("Black") || name.contains("Heavy"));
+        }
+    }
+}
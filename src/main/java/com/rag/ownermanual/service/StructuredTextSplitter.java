@@ -0,0 +1,238 @@
+package com.rag.ownermanual.service;
+
+import org.springframework.ai.tokenizer.TokenCountEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Splits page text into chunks of about maxTokens tokens along the text's own structure.
+ *
+ * <p>The page is first cut into blocks: paragraphs (separated by blank lines), numbered procedure
+ * steps ("1.", "2)", "Step 3") and notices (WARNING, CAUTION, DANGER, NOTICE, NOTE), each running
+ * until the next blank line or step. A step or notice is atomic: it is never split. One that alone
+ * exceeds the budget becomes a chunk of its own, with no overlap on either side. The only exception
+ * is a block over {@link #MAX_ATOMIC_TOKENS}, which could not be embedded as one input; it is split
+ * like a paragraph. A paragraph over budget is split into sentences, a sentence over budget into
+ * lines, and a line over budget into runs of words.
+ *
+ * <p>Units are then packed greedily into chunks. A new chunk starts with the trailing units of the
+ * previous one that fit in overlapTokens, so the overlap is made of whole sentences or steps rather
+ * than a cut-off fragment. Chunks are spans of the original text, so formatting is preserved.
+ */
+final class StructuredTextSplitter {
+
+    /**
+     * Atomic blocks longer than this are split like paragraphs: an embedding input cannot be larger
+     * (OpenAI's limit is 8,191 tokens), so such a block could not be stored at all.
+     */
+    static final int MAX_ATOMIC_TOKENS = 8_000;
+
+    private static final Pattern STEP = Pattern.compile("^\\s*(?:\\d{1,2}[.)](?:\\s|$)|step\\s+\\d{1,2}\\b)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern NOTICE = Pattern.compile("^\\s*(?:WARNING|CAUTION|DANGER|NOTICE|NOTE)\\b");
+    /** Sentence end (terminal punctuation, optional closing quote/bracket, whitespace), then line end. */
+    private static final Pattern[] BOUNDARIES = {
+            Pattern.compile("[.!?][\"')\\]]?\\s+"),
+            Pattern.compile("\\n\\s*")
+    };
+    private static final Pattern WORD = Pattern.compile("\\S+");
+
+    /**
+     * A chunk or unit of the page text: [start, end) with its estimated token count.
+     */
+    record Span(int start, int end, int tokens) {
+    }
+
+    private final TokenCountEstimator tokenCounter;
+    private final int maxTokens;
+    private final int overlapTokens;
+
+    StructuredTextSplitter(TokenCountEstimator tokenCounter, int maxTokens, int overlapTokens) {
+        if (maxTokens <= 0) {
+            throw new IllegalArgumentException("maxTokens must be positive");
+        }
+        if (overlapTokens < 0) {
+            throw new IllegalArgumentException("overlapTokens must be non-negative");
+        }
+        if (overlapTokens >= maxTokens) {
+            throw new IllegalArgumentException("overlapTokens must be smaller than maxTokens");
+        }
+        this.tokenCounter = Objects.requireNonNull(tokenCounter, "tokenCounter");
+        this.maxTokens = maxTokens;
+        this.overlapTokens = overlapTokens;
+    }
+
+    /**
+     * @return chunk spans of text[from, to) in order, as offsets into text; empty for blank text
+     */
+    List<Span> split(String text, int from, int to) {
+        List<Span> units = new ArrayList<>();
+        for (Block block : blocks(text, from, to)) {
+            int tokens = count(text, block.start(), block.end());
+            if (tokens <= maxTokens || (block.atomic() && tokens <= MAX_ATOMIC_TOKENS)) {
+                units.add(new Span(block.start(), block.end(), tokens));
+            } else {
+                split(text, block.start(), block.end(), 0, units);
+            }
+        }
+        return pack(units);
+    }
+
+    private record Block(int start, int end, boolean atomic) {
+    }
+
+    /**
+     * Cuts text[from, to) into paragraphs, steps and notices, trimmed of surrounding whitespace.
+     * Lines are scanned in place; no line strings are created.
+     */
+    private static List<Block> blocks(String text, int from, int to) {
+        List<Block> blocks = new ArrayList<>();
+        Matcher step = STEP.matcher(text);
+        Matcher notice = NOTICE.matcher(text);
+        int blockStart = -1;
+        int blockEnd = -1;
+        boolean atomic = false;
+        int lineStart = from;
+        while (lineStart < to) {
+            int newline = text.indexOf('\n', lineStart);
+            int lineEnd = newline < 0 || newline > to ? to : newline;
+            int contentStart = skipLeading(text, lineStart, lineEnd);
+            if (contentStart == lineEnd) {
+                if (blockStart >= 0) {
+                    blocks.add(new Block(blockStart, blockEnd, atomic));
+                    blockStart = -1;
+                }
+            } else {
+                boolean startsAtomic = step.region(lineStart, lineEnd).lookingAt()
+                        || notice.region(lineStart, lineEnd).lookingAt();
+                if (blockStart >= 0 && startsAtomic) {
+                    blocks.add(new Block(blockStart, blockEnd, atomic));
+                    blockStart = -1;
+                }
+                if (blockStart < 0) {
+                    blockStart = contentStart;
+                    atomic = startsAtomic;
+                }
+                blockEnd = trimTrailing(text, contentStart, lineEnd);
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (blockStart >= 0) {
+            blocks.add(new Block(blockStart, blockEnd, atomic));
+        }
+        return blocks;
+    }
+
+    /**
+     * Splits an over-budget range at the first boundary kind that yields pieces within budget:
+     * sentence ends, then line breaks (tables, lists), then single words.
+     */
+    private void split(String text, int start, int end, int level, List<Span> units) {
+        if (level == BOUNDARIES.length) {
+            splitWords(text, start, end, units);
+            return;
+        }
+        Matcher matcher = BOUNDARIES[level].matcher(text).region(start, end);
+        int pieceStart = start;
+        while (pieceStart < end) {
+            int pieceEnd = matcher.find() ? matcher.end() : end;
+            int trimmedEnd = trimTrailing(text, pieceStart, pieceEnd);
+            if (trimmedEnd > pieceStart) {
+                int tokens = count(text, pieceStart, trimmedEnd);
+                if (tokens <= maxTokens) {
+                    units.add(new Span(pieceStart, trimmedEnd, tokens));
+                } else {
+                    split(text, pieceStart, trimmedEnd, level + 1, units);
+                }
+            }
+            pieceStart = pieceEnd;
+        }
+    }
+
+    /**
+     * Last resort for a run-on line: as many whole words per unit as fit the budget. Words are
+     * counted one at a time (with their leading whitespace), which keeps this linear.
+     */
+    private void splitWords(String text, int start, int end, List<Span> units) {
+        Matcher words = WORD.matcher(text).region(start, end);
+        int unitStart = -1;
+        int unitEnd = -1;
+        int tokens = 0;
+        while (words.find()) {
+            int wordTokens = count(text, unitEnd < 0 ? words.start() : unitEnd, words.end());
+            if (unitStart >= 0 && tokens + wordTokens > maxTokens) {
+                units.add(new Span(unitStart, unitEnd, tokens));
+                unitStart = -1;
+                wordTokens = count(text, words.start(), words.end());
+            }
+            if (unitStart < 0) {
+                unitStart = words.start();
+                tokens = 0;
+            }
+            tokens += wordTokens;
+            unitEnd = words.end();
+        }
+        if (unitStart >= 0) {
+            units.add(new Span(unitStart, unitEnd, tokens));
+        }
+    }
+
+    private List<Span> pack(List<Span> units) {
+        List<Span> chunks = new ArrayList<>();
+        int first = 0;
+        while (first < units.size()) {
+            int tokens = 0;
+            int last = first;
+            while (last < units.size() && (last == first || tokens + units.get(last).tokens() <= maxTokens)) {
+                tokens += units.get(last).tokens();
+                last++;
+            }
+            chunks.add(new Span(units.get(first).start(), units.get(last - 1).end(), tokens));
+            if (last == units.size()) {
+                break;
+            }
+            first = overlapStart(units, first, last);
+        }
+        return chunks;
+    }
+
+    /**
+     * Index of the first unit of the next chunk: the trailing units of [first, last) that fit in
+     * overlapTokens and still leave room for the next new unit, or last when none do.
+     */
+    private int overlapStart(List<Span> units, int first, int last) {
+        int budget = Math.min(overlapTokens, maxTokens - units.get(last).tokens());
+        int start = last;
+        int tokens = 0;
+        while (start - 1 > first && tokens + units.get(start - 1).tokens() <= budget) {
+            tokens += units.get(start - 1).tokens();
+            start--;
+        }
+        return start;
+    }
+
+    /**
+     * Tokenizing needs a String, so this is the one place the splitter copies text.
+     */
+    private int count(String text, int start, int end) {
+        return tokenCounter.estimate(text.substring(start, end));
+    }
+
+    static int skipLeading(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    static int trimTrailing(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,9 @@
+CREATE TABLE rate_limit_buckets (
+    identity     VARCHAR(255) PRIMARY KEY,
+    tokens       BIGINT NOT NULL,
+    refilled_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+COMMENT ON TABLE rate_limit_buckets IS 'Cluster-wide API rate limit bucket per identity; nodes lease tokens from it in batches';
+COMMENT ON COLUMN rate_limit_buckets.tokens IS 'Tokens left, in thousandths so fractional refill is not lost between leases';
+COMMENT ON COLUMN rate_limit_buckets.refilled_at IS 'Database time up to which refill has been credited';
@@ -0,0 +1,20 @@
+CREATE TABLE api_keys (
+    id          UUID PRIMARY KEY,
+    name        VARCHAR(255) NOT NULL,
+    key_prefix  VARCHAR(8) NOT NULL,
+    key_hash    CHAR(64) NOT NULL UNIQUE,
+    tier        VARCHAR(64) NOT NULL DEFAULT 'default',
+    scopes      VARCHAR(255) NOT NULL DEFAULT 'query,ingest',
+    created_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    revoked_at  TIMESTAMP
+);
+
+CREATE UNIQUE INDEX idx_api_keys_name ON api_keys (name);
+
+COMMENT ON TABLE api_keys IS 'Client API keys (X-Api-Key); only a hash of each key is stored';
+COMMENT ON COLUMN api_keys.name IS 'Client name; rate limits and logs refer to the key as apiKey:<name>';
+COMMENT ON COLUMN api_keys.key_prefix IS 'First 8 characters of the key, to find its row without hashing every key';
+COMMENT ON COLUMN api_keys.key_hash IS 'Hex SHA-256 of the whole key';
+COMMENT ON COLUMN api_keys.tier IS 'Rate limit tier (app.security.rate-limiting.tiers); unknown tiers get the default limit';
+COMMENT ON COLUMN api_keys.scopes IS 'Comma-separated API areas the key may call: query, ingest';
+COMMENT ON COLUMN api_keys.revoked_at IS 'Set to revoke the key; nodes stop accepting it within the key refresh interval';
@@ -0,0 +1,3 @@
+ALTER TABLE ingestion_manifest ADD COLUMN occurrence_pages VARCHAR;
+
+COMMENT ON COLUMN ingestion_manifest.occurrence_pages IS 'Comma-separated pages of near-duplicates recorded on this canonical chunk in the vector store; null when none';
@@ -0,0 +1,3 @@
+ALTER TABLE ingestion_manifest_documents ADD COLUMN processing_fingerprint CHAR(64);
+
+COMMENT ON COLUMN ingestion_manifest_documents.processing_fingerprint IS 'Hex SHA-256 of the chunking, boilerplate, dedup and section detection settings the manifest was built with; null for manifests built before it was recorded';
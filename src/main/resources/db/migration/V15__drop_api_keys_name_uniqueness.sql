@@ -0,0 +1,4 @@
+-- A revoked key kept its name forever, so a client's key could not be rotated or re-issued under the
+-- same name. Names are now only unique among active keys; on Postgres V16 (db/vendor/postgresql)
+-- enforces that with a partial index. Other databases leave names unconstrained.
+DROP INDEX idx_api_keys_name;
@@ -0,0 +1,13 @@
+CREATE TABLE embedding_cache (
+    cache_key   CHAR(64) PRIMARY KEY,
+    model       VARCHAR(128) NOT NULL,
+    dimensions  INTEGER NOT NULL,
+    vector      BYTEA NOT NULL,
+    created_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_embedding_cache_namespace ON embedding_cache (model, dimensions);
+
+COMMENT ON TABLE embedding_cache IS 'Content-addressed embeddings reused across ingestions of unchanged chunk text';
+COMMENT ON COLUMN embedding_cache.cache_key IS 'Hex SHA-256 of model, dimensions and normalized text';
+COMMENT ON COLUMN embedding_cache.vector IS 'float32 little-endian, dimensions * 4 bytes';
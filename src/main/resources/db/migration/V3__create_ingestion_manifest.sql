@@ -0,0 +1,22 @@
+CREATE TABLE ingestion_manifest (
+    manual_id   VARCHAR(255) NOT NULL,
+    chunk_id    VARCHAR(512) NOT NULL,
+    page_key    INTEGER NOT NULL,
+    page_hash   CHAR(64) NOT NULL,
+    updated_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (manual_id, chunk_id)
+);
+
+COMMENT ON TABLE ingestion_manifest IS 'Chunks currently stored in the vector store per manual, with the hash of the page that produced them';
+COMMENT ON COLUMN ingestion_manifest.page_key IS 'Page number, or the synthetic page counter for pages without one';
+COMMENT ON COLUMN ingestion_manifest.page_hash IS 'Hex SHA-256 over the page''s chunk ids, text and payload';
+
+ALTER TABLE ingestion_jobs ADD COLUMN chunks_added INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN chunks_updated INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN chunks_unchanged INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN chunks_deleted INTEGER;
+
+COMMENT ON COLUMN ingestion_jobs.chunks_added IS 'Set on COMPLETED: chunks new to this manual';
+COMMENT ON COLUMN ingestion_jobs.chunks_updated IS 'Set on COMPLETED: existing chunks re-upserted because their page changed';
+COMMENT ON COLUMN ingestion_jobs.chunks_unchanged IS 'Set on COMPLETED: chunks skipped because their page was unchanged';
+COMMENT ON COLUMN ingestion_jobs.chunks_deleted IS 'Set on COMPLETED: orphaned chunks removed from the vector store';
@@ -0,0 +1,8 @@
+CREATE TABLE ingestion_manifest_documents (
+    manual_id        VARCHAR(255) PRIMARY KEY,
+    document_sha256  CHAR(64) NOT NULL,
+    updated_at       TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE ingestion_manifest_documents IS 'Content hash of the document each manual''s ingestion_manifest was built from';
+COMMENT ON COLUMN ingestion_manifest_documents.document_sha256 IS 'Hex SHA-256 of the raw document; an equal hash (or a 304 for it) means the manual is unchanged';
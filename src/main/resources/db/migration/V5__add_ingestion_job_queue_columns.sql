@@ -0,0 +1,15 @@
+ALTER TABLE ingestion_jobs ADD COLUMN document_url TEXT;
+ALTER TABLE ingestion_jobs ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE ingestion_jobs ADD COLUMN next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE ingestion_jobs ADD COLUMN lease_owner VARCHAR(255);
+ALTER TABLE ingestion_jobs ADD COLUMN lease_expires_at TIMESTAMP;
+
+-- Claim scans: CREATED jobs that are due, and PROCESSING jobs whose lease has expired.
+CREATE INDEX idx_ingestion_jobs_due ON ingestion_jobs (status, next_attempt_at);
+CREATE INDEX idx_ingestion_jobs_lease ON ingestion_jobs (status, lease_expires_at);
+
+COMMENT ON COLUMN ingestion_jobs.document_url IS 'URL of the document to ingest; read by whichever worker claims the job';
+COMMENT ON COLUMN ingestion_jobs.attempts IS 'Number of times the job has been claimed';
+COMMENT ON COLUMN ingestion_jobs.next_attempt_at IS 'Earliest time a CREATED job may be claimed; pushed out by retry backoff';
+COMMENT ON COLUMN ingestion_jobs.lease_owner IS 'Worker holding the PROCESSING job; status writes are fenced on it';
+COMMENT ON COLUMN ingestion_jobs.lease_expires_at IS 'Heartbeat deadline; after it another worker may take the job over';
@@ -0,0 +1,20 @@
+CREATE TABLE ingestion_checkpoints (
+    job_id             UUID PRIMARY KEY,
+    document_sha256    CHAR(64),
+    last_page_key      INTEGER NOT NULL,
+    batches_committed  INTEGER NOT NULL,
+    chunks_committed   INTEGER NOT NULL,
+    updated_at         TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE ingestion_checkpoint_pages (
+    job_id     UUID NOT NULL,
+    page_key   INTEGER NOT NULL,
+    page_hash  CHAR(64) NOT NULL,
+    PRIMARY KEY (job_id, page_key)
+);
+
+COMMENT ON TABLE ingestion_checkpoints IS 'Progress of an unfinished ingestion job; a retried or taken-over job resumes after the committed pages. Deleted when the job completes';
+COMMENT ON COLUMN ingestion_checkpoints.document_sha256 IS 'Hex SHA-256 of the document being ingested, once the parser has reported it';
+COMMENT ON COLUMN ingestion_checkpoints.last_page_key IS 'Highest page key whose chunks have all been upserted';
+COMMENT ON TABLE ingestion_checkpoint_pages IS 'Pages whose chunks are all in the vector store, with the page hash they were upserted with';
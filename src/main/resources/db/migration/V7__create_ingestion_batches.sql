@@ -0,0 +1,20 @@
+CREATE TABLE ingestion_batches (
+    id          UUID PRIMARY KEY,
+    tenant      VARCHAR(255) NOT NULL,
+    job_count   INTEGER NOT NULL,
+    created_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE ingestion_jobs ADD COLUMN batch_id UUID;
+ALTER TABLE ingestion_jobs ADD COLUMN tenant VARCHAR(255) NOT NULL DEFAULT 'default';
+
+-- Batch status aggregates child jobs per status in one indexed scan.
+CREATE INDEX idx_ingestion_jobs_batch ON ingestion_jobs (batch_id, status);
+-- Per-tenant claims and due counts for the fair scheduler.
+CREATE INDEX idx_ingestion_jobs_tenant_due ON ingestion_jobs (tenant, status, next_attempt_at);
+
+COMMENT ON TABLE ingestion_batches IS 'Parent of the jobs created by one bulk ingest request; status is aggregated from its child jobs';
+COMMENT ON COLUMN ingestion_batches.tenant IS 'Tenant (e.g. OEM) the batch was submitted for; copied to each child job';
+COMMENT ON COLUMN ingestion_batches.job_count IS 'Number of child jobs created with the batch';
+COMMENT ON COLUMN ingestion_jobs.batch_id IS 'Parent ingestion_batches row; null for jobs submitted one at a time';
+COMMENT ON COLUMN ingestion_jobs.tenant IS 'Tenant the job is scheduled for; workers share claims across tenants by weight';
@@ -0,0 +1,19 @@
+ALTER TABLE ingestion_jobs ADD COLUMN stage VARCHAR(32);
+ALTER TABLE ingestion_jobs ADD COLUMN pages_parsed INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN pages_total INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN chunks_embedded INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN chunks_upserted INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN chunks_total INTEGER;
+ALTER TABLE ingestion_jobs ADD COLUMN bytes_downloaded BIGINT;
+ALTER TABLE ingestion_jobs ADD COLUMN eta_at TIMESTAMP;
+ALTER TABLE ingestion_jobs ADD COLUMN progress_updated_at TIMESTAMP;
+
+COMMENT ON COLUMN ingestion_jobs.stage IS 'DOWNLOADING, PARSING, UPSERTING or FINALIZING; null before the first progress write';
+COMMENT ON COLUMN ingestion_jobs.pages_parsed IS 'Pages extracted so far in the latest attempt, including blank ones';
+COMMENT ON COLUMN ingestion_jobs.pages_total IS 'Pages in the document; null until known';
+COMMENT ON COLUMN ingestion_jobs.chunks_embedded IS 'Chunks whose embedding is resolved in the latest attempt';
+COMMENT ON COLUMN ingestion_jobs.chunks_upserted IS 'Chunks written to the vector store in the latest attempt';
+COMMENT ON COLUMN ingestion_jobs.chunks_total IS 'Chunks to upsert in the latest attempt; null until every page is chunked';
+COMMENT ON COLUMN ingestion_jobs.bytes_downloaded IS 'Bytes of the document received in the latest attempt';
+COMMENT ON COLUMN ingestion_jobs.eta_at IS 'Projected completion from current rates; null until there is a rate';
+COMMENT ON COLUMN ingestion_jobs.progress_updated_at IS 'When the progress columns were last written; written in batches, not per chunk';
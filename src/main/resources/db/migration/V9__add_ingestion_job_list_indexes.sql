@@ -0,0 +1,5 @@
+-- Job list (GET /api/v1/jobs): newest first, keyset-paginated on (created_at, id). Each filter has an
+-- index ending in the sort key, so a page is a bounded index range scan even with millions of rows.
+CREATE INDEX idx_ingestion_jobs_created ON ingestion_jobs (created_at DESC, id DESC);
+CREATE INDEX idx_ingestion_jobs_manual_created ON ingestion_jobs (manual_id, created_at DESC, id DESC);
+CREATE INDEX idx_ingestion_jobs_status_created ON ingestion_jobs (status, created_at DESC, id DESC);
@@ -0,0 +1,63 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.ApiKey;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests ApiKeyIndex: stored keys are found by prefix and hash, keys sharing a prefix stay apart,
+ * and the configured key is accepted as client "default".
+ */
+class ApiKeyIndexTest {
+
+    @Test
+    void find_matchesTheWholeKey_evenWhenKeysShareAPrefix() {
+        String partnerKey = "omr_live_3f9a0c1d2e4b5a6c7d8e9f00";
+        String otherKey = "omr_live_bbbbbbbbbbbbbbbbbbbbbbbb";
+        ApiKeyIndex index = ApiKeyIndex.of("", List.of(
+                key("partner", partnerKey, "partner", Set.of("query")),
+                key("other", otherKey, "default", Set.of("query", "ingest"))));
+
+        ApiKeyIndex.Entry partner = index.find(partnerKey);
+        assertThat(partner.client().toString()).isEqualTo("apiKey:partner");
+        assertThat(partner.client().tier()).isEqualTo("partner");
+        assertThat(partner.authorities()).extracting(Object::toString)
+                .containsExactlyInAnyOrder("ROLE_API_CLIENT", "SCOPE_query");
+        assertThat(index.find(otherKey).client().name()).isEqualTo("other");
+
+        assertThat(index.find(partnerKey + "x")).isNull();
+        assertThat(index.find("omr_live_3f9a0c1d2e4b5a6c7d8e9f01")).isNull();
+        assertThat(index.find("short")).isNull();
+        assertThat(index.keysPerTier()).isEqualTo(Map.of("partner", 1, "default", 1));
+    }
+
+    @Test
+    void configuredKey_isClientDefault_withEveryScope() {
+        ApiKeyIndex index = ApiKeyIndex.of("test-api-key", List.of());
+
+        ApiKeyIndex.Entry entry = index.find("test-api-key");
+
+        assertThat(entry.client().toString()).isEqualTo("apiKey:default");
+        assertThat(entry.client().scopes()).containsExactlyInAnyOrder("query", "ingest");
+        assertThat(ApiKeyIndex.of(" ", List.of()).size()).isZero();
+    }
+
+    @Test
+    void malformedStoredHash_isSkipped() {
+        ApiKey broken = new ApiKey(UUID.randomUUID(), "broken", "abcdefgh", "not-hex", "default", Set.of("query"));
+
+        ApiKeyIndex index = ApiKeyIndex.of("", List.of(broken));
+
+        assertThat(index.size()).isZero();
+    }
+
+    private static ApiKey key(String name, String key, String tier, Set<String> scopes) {
+        return new ApiKey(UUID.randomUUID(), name, ApiKey.prefixOf(key), ApiKeyIndex.hashHex(key), tier, scopes);
+    }
+}
@@ -0,0 +1,49 @@
+package com.rag.ownermanual.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests DatasourceConfig.poolConfig: the pool profile is applied, metrics are registered, and the
+ * pgjdbc statement cache settings are only passed to Postgres.
+ */
+class DatasourceConfigTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void poolConfig_appliesProfileAndStatementCache_forPostgres() {
+        DatasourceProperties.Pool pool = new DatasourceProperties.Pool();
+        pool.setMaximumPoolSize(24);
+        pool.setConnectionTimeout(Duration.ofSeconds(3));
+        pool.setPrepareThreshold(0);
+
+        HikariConfig config = DatasourceConfig.poolConfig(DatasourceConfig.REPLICA_POOL,
+                "jdbc:postgresql://db:5432/app", "app", "secret", pool, meterRegistry);
+
+        assertThat(config.getPoolName()).isEqualTo("replica");
+        assertThat(config.getMaximumPoolSize()).isEqualTo(24);
+        assertThat(config.getMinimumIdle()).isEqualTo(2);
+        assertThat(config.getConnectionTimeout()).isEqualTo(3_000);
+        assertThat(config.getKeepaliveTime()).isEqualTo(Duration.ofMinutes(2).toMillis());
+        assertThat(config.getLeakDetectionThreshold()).isZero();
+        assertThat(config.getMetricRegistry()).isSameAs(meterRegistry);
+        assertThat(config.getDataSourceProperties())
+                .containsEntry("prepareThreshold", 0)
+                .containsEntry("preparedStatementCacheQueries", 256)
+                .containsEntry("preparedStatementCacheSizeMiB", 5);
+    }
+
+    @Test
+    void poolConfig_omitsPgjdbcProperties_forOtherDrivers() {
+        HikariConfig config = DatasourceConfig.poolConfig(DatasourceConfig.PRIMARY_POOL, "jdbc:h2:mem:test",
+                "sa", "", new DatasourceProperties.Pool(), meterRegistry);
+
+        assertThat(config.getDataSourceProperties()).isEmpty();
+    }
+}
@@ -0,0 +1,67 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.RateLimitLease;
+import com.rag.ownermanual.domain.RateLimitPolicy;
+import com.rag.ownermanual.repository.RateLimitLeaseRepository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory stand-in for the shared rate_limit_buckets store, with the same refill arithmetic as
+ * JdbcRateLimitLeaseRepository on an injected microsecond clock. Counts leases, and can be switched
+ * to failing to simulate an unreachable database.
+ */
+class InMemoryRateLimitLeaseRepository implements RateLimitLeaseRepository {
+
+    private static final long UNITS_PER_TOKEN = 1_000;
+
+    private final LongSupplier microClock;
+    private final Map<String, long[]> buckets = new HashMap<>();
+    final AtomicInteger leases = new AtomicInteger();
+    volatile boolean failing;
+
+    InMemoryRateLimitLeaseRepository(LongSupplier microClock) {
+        this.microClock = microClock;
+    }
+
+    @Override
+    public synchronized RateLimitLease lease(String identity, RateLimitPolicy policy, int tokens) {
+        if (failing) {
+            throw new IllegalStateException("store unavailable");
+        }
+        leases.incrementAndGet();
+        long now = microClock.getAsLong();
+        long capacityUnits = policy.capacity() * UNITS_PER_TOKEN;
+        long refillUnits = policy.refillTokens() * UNITS_PER_TOKEN;
+        long periodMicros = policy.refillPeriod().toNanos() / 1_000;
+        long[] bucket = buckets.computeIfAbsent(identity, k -> new long[]{capacityUnits, now});
+        long added = (now - bucket[1]) * refillUnits / periodMicros;
+        if (bucket[0] + added >= capacityUnits) {
+            bucket[0] = capacityUnits;
+            bucket[1] = now;
+        } else {
+            bucket[0] += added;
+            bucket[1] += added * periodMicros / refillUnits;
+        }
+        int granted = (int) Math.min(tokens, bucket[0] / UNITS_PER_TOKEN);
+        bucket[0] -= granted * UNITS_PER_TOKEN;
+        return new RateLimitLease(granted, (int) (bucket[0] / UNITS_PER_TOKEN),
+                Duration.ofNanos(Math.ceilDiv((capacityUnits - bucket[0]) * periodMicros, refillUnits) * 1_000));
+    }
+
+    @Override
+    public synchronized void release(String identity, RateLimitPolicy policy, int tokens) {
+        long[] bucket = buckets.get(identity);
+        if (bucket != null) {
+            bucket[0] = Math.min(policy.capacity() * UNITS_PER_TOKEN, bucket[0] + tokens * UNITS_PER_TOKEN);
+        }
+    }
+
+    synchronized int tokens(String identity) {
+        return (int) (buckets.get(identity)[0] / UNITS_PER_TOKEN);
+    }
+}
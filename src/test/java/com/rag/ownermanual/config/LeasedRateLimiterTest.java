@@ -0,0 +1,140 @@
+package com.rag.ownermanual.config;
+
+import com.rag.ownermanual.domain.RateLimitPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests LeasedRateLimiter against the in-memory store: requests are served from leases fetched in
+ * the background, the cluster never exceeds the shared bucket, and the tokens left idle on a node
+ * are bounded by the lease size and returned when the identity goes idle.
+ */
+class LeasedRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toMicros(1);
+
+    private final AtomicLong now = new AtomicLong(1_000 * SECOND);
+    private final InMemoryRateLimitLeaseRepository store = new InMemoryRateLimitLeaseRepository(now::get);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /** Default limit of the settings last built by {@link #settings}. */
+    private RateLimitPolicy policy;
+
+    @Test
+    void tryConsume_spendsInitialCreditUntilTheFirstLease_thenOnlyLeasedTokens() {
+        // Leases queue up until run, like the lease executor before it gets to them.
+        Queue<Runnable> pending = new ArrayDeque<>();
+        LeasedRateLimiter limiter = limiter(settings(10, 4, 2, 3), pending::add);
+
+        assertThat(allowed(limiter, "a", 3)).isTrue();
+        assertThat(allowed(limiter, "a", 1)).isFalse();
+        assertThat(store.leases).hasValue(0);
+
+        pending.poll().run();
+        // Lease of 4 + the 3 credit spent.
+        assertThat(store.tokens("a")).isEqualTo(3);
+        assertThat(allowed(limiter, "a", 4)).isTrue();
+        assertThat(allowed(limiter, "a", 1)).isFalse();
+        pending.poll().run();
+        pending.poll();
+        assertThat(allowed(limiter, "a", 3)).isTrue();
+
+        TokenBucket.Result refused = limiter.tryConsume("a", policy, 1).result();
+        assertThat(refused.allowed()).isFalse();
+        assertThat(refused.retryAfterMicros()).isPositive();
+    }
+
+    @Test
+    void clusterNeverExceedsTheSharedBucket_andIdleTokensAreBoundedByTheLeaseSize() {
+        for (int leaseSize : new int[]{1, 5, 20}) {
+            InMemoryRateLimitLeaseRepository shared = new InMemoryRateLimitLeaseRepository(now::get);
+            RateLimitingProperties settings = settings(60, leaseSize, leaseSize / 2, 0);
+            LeasedRateLimiter nodeA = new LeasedRateLimiter(settings, shared, Runnable::run, meterRegistry, now::get);
+            LeasedRateLimiter nodeB = new LeasedRateLimiter(settings, shared, Runnable::run, meterRegistry, now::get);
+
+            // The client's traffic moves from node A to node B.
+            int admitted = 0;
+            for (int i = 0; i < 10; i++) {
+                admitted += allowed(nodeA, "client", 1) ? 1 : 0;
+            }
+            for (int i = 0; i < 200; i++) {
+                now.addAndGet(SECOND / 100);
+                admitted += allowed(nodeB, "client", 1) ? 1 : 0;
+            }
+            int leases = shared.leases.get();
+
+            assertThat(admitted).isLessThanOrEqualTo(60);
+            assertThat(admitted).isGreaterThanOrEqualTo(60 - leaseSize - leaseSize / 2);
+            assertThat(leases).isLessThanOrEqualTo(60 / leaseSize + 4);
+
+            // Once node A drops the idle identity, its tokens go back to the shared bucket.
+            now.addAndGet(Duration.ofMinutes(10).toNanos() / 1_000);
+            nodeA.sweep();
+            for (int i = 0; i < 200; i++) {
+                now.addAndGet(SECOND / 100);
+                admitted += allowed(nodeB, "client", 1) ? 1 : 0;
+            }
+            assertThat(admitted).isEqualTo(60);
+        }
+    }
+
+    @Test
+    void storeFailure_fallsBackToNodeLocalLimits_untilALeaseSucceeds() {
+        LeasedRateLimiter limiter = limiter(settings(3, 3, 1, 0), Runnable::run);
+        store.failing = true;
+
+        assertThat(allowed(limiter, "a", 1)).isTrue();
+        assertThat(allowed(limiter, "a", 1)).isTrue();
+        assertThat(allowed(limiter, "a", 1)).isTrue();
+        assertThat(allowed(limiter, "a", 1)).isFalse();
+        assertThat(meterRegistry.get("http.ratelimit.lease").tag("outcome", "failed").timer().count()).isPositive();
+
+        store.failing = false;
+        now.addAndGet(2 * SECOND);
+        limiter.tryConsume("a", policy, 1);
+        assertThat(allowed(limiter, "a", 1)).isTrue();
+        assertThat(store.leases.get()).isPositive();
+    }
+
+    @Test
+    void close_returnsLeasedTokens() {
+        LeasedRateLimiter limiter = limiter(settings(10, 5, 0, 0), Runnable::run);
+        limiter.tryConsume("a", policy, 1);
+        assertThat(allowed(limiter, "a", 1)).isTrue();
+        assertThat(store.tokens("a")).isEqualTo(5);
+
+        limiter.close();
+
+        assertThat(store.tokens("a")).isEqualTo(9);
+    }
+
+    private LeasedRateLimiter limiter(RateLimitingProperties settings, Executor executor) {
+        return new LeasedRateLimiter(settings, store, executor, meterRegistry, now::get);
+    }
+
+    private boolean allowed(RateLimiter limiter, String identity, int cost) {
+        return limiter.tryConsume(identity, policy, cost).result().allowed();
+    }
+
+    /** No refill to speak of (1 token a day), so every admitted token came from the initial bucket. */
+    private RateLimitingProperties settings(int capacity, int leaseSize, int refreshBelow, int initialCredit) {
+        RateLimitingProperties settings = new RateLimitingProperties();
+        settings.setCapacity(capacity);
+        settings.setRefillTokens(1);
+        settings.setRefillPeriodSeconds(86_400);
+        settings.getDistributed().setEnabled(true);
+        settings.getDistributed().setLeaseSize(leaseSize);
+        settings.getDistributed().setRefreshBelow(refreshBelow);
+        settings.getDistributed().setInitialCredit(initialCredit);
+        policy = settings.toPolicy();
+        return settings;
+    }
+}
@@ -2,8 +2,11 @@ package com.rag.ownermanual.controller;
 
 import com.rag.ownermanual.TestVectorStoreConfig;
 import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.IngestionJobFilter;
 import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionJobSummary;
 import com.rag.ownermanual.dto.ingest.IngestResponse;
+import com.rag.ownermanual.events.JobEventBus;
 import com.rag.ownermanual.repository.IngestionJobRepository;
 import com.rag.ownermanual.service.IngestionService;
 import org.junit.jupiter.api.DisplayName;
@@ -22,18 +25,23 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
- * Smoke tests for the ingestion API endpoints: POST /api/v1/ingest and GET /api/v1/jobs/{id}.
+ * Smoke tests for the ingestion API endpoints: POST /api/v1/ingest, POST /api/v1/ingest/batch,
+ * GET /api/v1/jobs, GET /api/v1/jobs/{id} (with ETag and waitForChange) and GET /api/v1/jobs/{id}/events.
  */
 @SpringBootTest(
         webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
@@ -53,9 +61,12 @@ class IngestEndpointSmokeTest {
     @MockitoBean
     private IngestionJobRepository ingestionJobRepository;
 
+    @Autowired
+    private JobEventBus jobEventBus;
+
     @Test
-    @DisplayName("Minimal valid POST /api/v1/ingest returns 200 with jobId and triggers async processing")
-    void minimalValidIngestRequest_returns200WithJobId_andTriggersAsync() {
+    @DisplayName("Minimal valid POST /api/v1/ingest returns 200 with jobId and enqueues the job")
+    void minimalValidIngestRequest_returns200WithJobId_andEnqueuesJob() {
         UUID jobId = UUID.randomUUID();
         when(ingestionService.startIngestion(any())).thenReturn(new IngestResponse(jobId));
 
@@ -81,7 +92,30 @@ class IngestEndpointSmokeTest {
         assertThat(responseBody.get("jobId")).isEqualTo(jobId.toString());
 
         verify(ingestionService).startIngestion(any());
-        verify(ingestionService).processJobAsync(jobId, "https://example.com/manual.pdf");
+        verify(ingestionService, never()).process(any());
+    }
+
+    @Test
+    @DisplayName("POST /api/v1/ingest/batch with a duplicate manualId returns 400 and creates nothing")
+    void bulkIngest_duplicateManualId_returns400() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Api-Key", TEST_API_KEY);
+        String body = """
+                {"tenant":"oem-a","manuals":[
+                  {"manualId":"manual-123","documentUrl":"https://example.com/a.pdf"},
+                  {"manualId":"manual-123","documentUrl":"https://example.com/b.pdf"}]}
+                """;
+
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                "/api/v1/ingest/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(body, headers),
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(ingestionService, never()).startBatch(any());
     }
 
     @Test
@@ -90,7 +124,7 @@ class IngestEndpointSmokeTest {
         UUID jobId = UUID.randomUUID();
         Instant now = Instant.now();
         IngestionJob job = new IngestionJob(jobId, "manual-123", IngestionJobStatus.PROCESSING, null, now, now);
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        when(ingestionJobRepository.findByIdOnReplica(jobId)).thenReturn(Optional.of(job));
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("X-Api-Key", TEST_API_KEY);
@@ -107,7 +141,7 @@ class IngestEndpointSmokeTest {
         assertThat(body.get("jobId")).isEqualTo(jobId.toString());
         assertThat(body.get("status")).isEqualTo("PROCESSING");
 
-        verify(ingestionJobRepository).findById(jobId);
+        verify(ingestionJobRepository).findByIdOnReplica(jobId);
         verify(ingestionService, never()).startIngestion(any());
     }
 
@@ -115,7 +149,7 @@ class IngestEndpointSmokeTest {
     @DisplayName("GET /api/v1/jobs/{id} with missing job returns 404 and ApiErrorResponse")
     void getJobStatus_missingJob_returns404WithApiErrorResponse() {
         UUID jobId = UUID.randomUUID();
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.empty());
+        when(ingestionJobRepository.findByIdOnReplica(jobId)).thenReturn(Optional.empty());
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("X-Api-Key", TEST_API_KEY);
@@ -132,8 +166,135 @@ class IngestEndpointSmokeTest {
         assertThat(body.get("status")).isEqualTo(404);
         assertThat(body.get("message")).as("error message").isNotNull();
 
-        verify(ingestionJobRepository).findById(jobId);
+        verify(ingestionJobRepository).findByIdOnReplica(jobId);
         verify(ingestionService, never()).startIngestion(any());
     }
-}
 
+    @Test
+    @DisplayName("GET /api/v1/jobs/{id} returns an ETag, and 304 when If-None-Match still matches")
+    void getJobStatus_withMatchingIfNoneMatch_returns304() {
+        UUID jobId = UUID.randomUUID();
+        Instant now = Instant.now();
+        when(ingestionJobRepository.findByIdOnReplica(jobId)).thenReturn(Optional.of(
+                new IngestionJob(jobId, "manual-123", IngestionJobStatus.PROCESSING, null, now, now)));
+
+        ResponseEntity<String> first = getJob("/api/v1/jobs/" + jobId, null);
+        String etag = first.getHeaders().getETag();
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(etag).isNotBlank();
+
+        ResponseEntity<String> second = getJob("/api/v1/jobs/" + jobId, etag);
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(second.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(second.getBody()).isNull();
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/jobs/{id}?waitForChange returns as soon as a job event arrives, else 304 after the wait")
+    void waitForChange_returnsOnJobEvent_orNotModifiedAfterWait() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        Instant now = Instant.now();
+        IngestionJob processing = new IngestionJob(jobId, "manual-123", IngestionJobStatus.PROCESSING, null, now, now);
+        when(ingestionJobRepository.findByIdOnReplica(jobId)).thenReturn(Optional.of(processing));
+        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(processing));
+        String etag = getJob("/api/v1/jobs/" + jobId, null).getHeaders().getETag();
+
+        ResponseEntity<String> unchanged = getJob("/api/v1/jobs/" + jobId + "?waitForChange=200ms", etag);
+        assertThat(unchanged.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+
+        CompletableFuture<ResponseEntity<String>> waiting = CompletableFuture.supplyAsync(
+                () -> getJob("/api/v1/jobs/" + jobId + "?waitForChange=30s", etag));
+        Thread.sleep(300);
+        assertThat(waiting).isNotDone();
+        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(
+                new IngestionJob(jobId, "manual-123", IngestionJobStatus.COMPLETED, null, now, Instant.now())));
+        jobEventBus.publish(jobId);
+
+        ResponseEntity<String> changed = waiting.get(10, TimeUnit.SECONDS);
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getBody()).contains("COMPLETED");
+        assertThat(changed.getHeaders().getETag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/jobs/{id}/events streams the current status and ends once the job is finished")
+    void streamJobStatus_sendsStatusEvents_untilJobFinishes() throws Exception {
+        UUID jobId = UUID.randomUUID();
+        Instant now = Instant.now();
+        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(
+                new IngestionJob(jobId, "manual-123", IngestionJobStatus.PROCESSING, null, now, now)));
+
+        CompletableFuture<ResponseEntity<String>> stream = CompletableFuture.supplyAsync(() -> {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set("X-Api-Key", TEST_API_KEY);
+            headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+            return restTemplate.exchange("/api/v1/jobs/" + jobId + "/events", HttpMethod.GET,
+                    new HttpEntity<>(headers), String.class);
+        });
+        Thread.sleep(500);
+        assertThat(stream).isNotDone();
+        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(
+                new IngestionJob(jobId, "manual-123", IngestionJobStatus.COMPLETED, null, now, Instant.now())));
+        jobEventBus.publish(jobId);
+
+        ResponseEntity<String> response = stream.get(10, TimeUnit.SECONDS);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        String body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat(body.split("event:status", -1)).hasSize(3);
+        assertThat(body.indexOf("PROCESSING")).isLessThan(body.indexOf("COMPLETED"));
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/jobs returns one page and a cursor when more jobs match")
+    void listJobs_returnsPageAndNextCursor() {
+        Instant now = Instant.now();
+        List<IngestionJobSummary> rows = java.util.stream.IntStream.range(0, 3)
+                .mapToObj(i -> new IngestionJobSummary(UUID.randomUUID(), "manual-123", "default", null,
+                        IngestionJobStatus.FAILED, 1, now.minusSeconds(i), now))
+                .toList();
+        IngestionJobFilter filter = new IngestionJobFilter("manual-123", IngestionJobStatus.FAILED, null, null);
+        when(ingestionJobRepository.findPage(eq(filter), eq(null), eq(3))).thenReturn(rows);
+
+        ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                "/api/v1/jobs?manualId=manual-123&status=FAILED&limit=2",
+                HttpMethod.GET,
+                new HttpEntity<>(apiKeyHeaders()),
+                new ParameterizedTypeReference<Map<String, Object>>() {}
+        );
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        Map<String, Object> body = response.getBody();
+        assertThat(body).isNotNull();
+        assertThat((List<?>) body.get("jobs")).hasSize(2);
+        assertThat(body.get("nextCursor")).isEqualTo(rows.get(1).cursor().encode());
+        assertThat(body.toString()).doesNotContain("errorMessage");
+    }
+
+    @Test
+    @DisplayName("GET /api/v1/jobs rejects a malformed cursor or an out-of-range limit with 400")
+    void listJobs_invalidCursorOrLimit_returns400() {
+        HttpEntity<Void> entity = new HttpEntity<>(apiKeyHeaders());
+
+        assertThat(restTemplate.exchange("/api/v1/jobs?cursor=not-a-cursor", HttpMethod.GET, entity, String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(restTemplate.exchange("/api/v1/jobs?limit=0", HttpMethod.GET, entity, String.class)
+                .getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(ingestionJobRepository, never()).findPage(any(), any(), org.mockito.ArgumentMatchers.anyInt());
+    }
+
+    private static HttpHeaders apiKeyHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Api-Key", TEST_API_KEY);
+        return headers;
+    }
+
+    private ResponseEntity<String> getJob(String path, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Api-Key", TEST_API_KEY);
+        if (ifNoneMatch != null) {
+            headers.setIfNoneMatch(ifNoneMatch);
+        }
+        return restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+}
@@ -36,7 +36,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 /**
  * Full end-to-end verification for ingest a manual via URL → poll job → query using ingested content.
  */
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "app.ingestion.queue.worker-enabled=true"
+)
 @EnabledIfEnvironmentVariable(named = "OPENAI_API_KEY", matches = ".+")
 @EnabledIfEnvironmentVariable(named = "QDRANT_URL", matches = ".+")
 @EnabledIfEnvironmentVariable(named = "GROQ_API_KEY", matches = ".+")
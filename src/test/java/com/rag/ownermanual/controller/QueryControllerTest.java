@@ -5,6 +5,7 @@ import com.rag.ownermanual.dto.query.QueryResponse;
 import com.rag.ownermanual.exception.DownstreamLlmException;
 import com.rag.ownermanual.exception.DownstreamVectorStoreException;
 import com.rag.ownermanual.service.QueryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,7 +29,7 @@ import static org.hamcrest.Matchers.*;
 
 @WebMvcTest(QueryController.class)
 @AutoConfigureMockMvc(addFilters = false)
-@Import(GlobalExceptionHandler.class)
+@Import({ GlobalExceptionHandler.class, SimpleMeterRegistry.class })
 class QueryControllerTest {
 
     @Autowired
@@ -42,9 +43,9 @@ class QueryControllerTest {
     void validRequest_returns200WithAnswerAndCitations() throws Exception {
         QueryResponse response = QueryResponse.of(
                 "Use the oil type recommended in the manual.",
-                List.of(new Citation("chunk-1", "Engine", "Use 5W-30...", 42))
+                List.of(new Citation("chunk-1", "Engine", "Use 5W-30...", 42, List.of(42)))
         );
-        when(queryService.query(eq("What oil should I use?"), eq(null)))
+        when(queryService.query(eq("What oil should I use?"), eq(null), eq(null)))
                 .thenReturn(response);
 
         ResultActions result = mockMvc.perform(post("/api/v1/query")
@@ -58,13 +59,13 @@ class QueryControllerTest {
                 .andExpect(jsonPath("$.citations[0].chunkId").value("chunk-1"))
                 .andExpect(jsonPath("$.citations[0].section").value("Engine"));
 
-        verify(queryService).query("What oil should I use?", null);
+        verify(queryService).query("What oil should I use?", null, null);
     }
 
     @Test
     @DisplayName("Valid request with vehicleModel passes it to service")
     void validRequest_withVehicleModel_passesToService() throws Exception {
-        when(queryService.query(eq("Tire pressure?"), eq("Sedan-2024")))
+        when(queryService.query(eq("Tire pressure?"), eq("Sedan-2024"), eq(null)))
                 .thenReturn(QueryResponse.of("Check the door jamb.", List.of()));
 
         mockMvc.perform(post("/api/v1/query")
@@ -73,7 +74,21 @@ class QueryControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.answer").value("Check the door jamb."));
 
-        verify(queryService).query("Tire pressure?", "Sedan-2024");
+        verify(queryService).query("Tire pressure?", "Sedan-2024", null);
+    }
+
+    @Test
+    @DisplayName("Valid request with section passes it to service")
+    void validRequest_withSection_passesToService() throws Exception {
+        when(queryService.query(eq("Tire pressure?"), eq(null), eq("Maintenance > Tyres")))
+                .thenReturn(QueryResponse.of("Check the door jamb.", List.of()));
+
+        mockMvc.perform(post("/api/v1/query")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Tire pressure?\", \"section\": \"Maintenance > Tyres\"}"))
+                .andExpect(status().isOk());
+
+        verify(queryService).query("Tire pressure?", null, "Maintenance > Tyres");
     }
 
     @Test
@@ -121,7 +136,7 @@ class QueryControllerTest {
     @Test
     @DisplayName("Vector store failure returns 503 with safe error body (no stack trace)")
     void vectorStoreFailure_returns503WithSafeBody() throws Exception {
-        when(queryService.query(eq("Brake warning light"), eq(null)))
+        when(queryService.query(eq("Brake warning light"), eq(null), eq(null)))
                 .thenThrow(new DownstreamVectorStoreException("Qdrant timeout", new RuntimeException("timeout")));
 
         ResultActions result = mockMvc.perform(post("/api/v1/query")
@@ -140,7 +155,7 @@ class QueryControllerTest {
     @Test
     @DisplayName("LLM failure returns 503 with safe error body (no stack trace)")
     void llmFailure_returns503WithSafeBody() throws Exception {
-        when(queryService.query(eq("Engine noise at idle"), eq(null)))
+        when(queryService.query(eq("Engine noise at idle"), eq(null), eq(null)))
                 .thenThrow(new DownstreamLlmException("LLM call failed", new RuntimeException("upstream 500")));
 
         ResultActions result = mockMvc.perform(post("/api/v1/query")
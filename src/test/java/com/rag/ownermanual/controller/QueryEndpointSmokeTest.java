@@ -56,9 +56,9 @@ class QueryEndpointSmokeTest {
     void minimalValidRequest_returns200WithAnswerAndCitations() {
         QueryResponse mockResponse = QueryResponse.of(
                 "Smoke test answer.",
-                List.of(new Citation("smoke-chunk-1", "Section", "Snippet.", 1))
+                List.of(new Citation("smoke-chunk-1", "Section", "Snippet.", 1, List.of(1)))
         );
-        when(queryService.query(anyString(), isNull())).thenReturn(mockResponse);
+        when(queryService.query(anyString(), isNull(), isNull())).thenReturn(mockResponse);
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -79,6 +79,6 @@ class QueryEndpointSmokeTest {
         assertThat(body).containsKey("citations");
         assertThat(body.get("answer")).isEqualTo("Smoke test answer.");
 
-        verify(queryService).query("smoke question", null);
+        verify(queryService).query("smoke question", null, null);
     }
 }
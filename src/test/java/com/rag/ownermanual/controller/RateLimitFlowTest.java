@@ -51,7 +51,7 @@ class RateLimitFlowTest {
     @Test
     @DisplayName("Over rate limit returns 429")
     void overLimit_returns429() {
-        when(queryService.query(anyString(), isNull()))
+        when(queryService.query(anyString(), isNull(), isNull()))
                 .thenReturn(QueryResponse.of("ok", List.of()));
 
         HttpHeaders headers = new HttpHeaders();
@@ -76,5 +76,8 @@ class RateLimitFlowTest {
                 String.class
         );
         assertThat(third.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(third.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        assertThat(third.getHeaders().getFirst("X-RateLimit-Limit")).isEqualTo("2");
+        assertThat(third.getHeaders().getFirst("X-RateLimit-Remaining")).isEqualTo("0");
     }
 }
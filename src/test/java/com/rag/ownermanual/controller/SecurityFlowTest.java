@@ -1,6 +1,8 @@
 package com.rag.ownermanual.controller;
 
 import com.rag.ownermanual.TestVectorStoreConfig;
+import com.rag.ownermanual.config.ApiKeyAuthenticationFilter;
+import com.rag.ownermanual.domain.ApiKey;
 import com.rag.ownermanual.domain.IngestionJob;
 import com.rag.ownermanual.domain.IngestionJobStatus;
 import com.rag.ownermanual.dto.ingest.IngestResponse;
@@ -22,10 +24,15 @@ import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -43,7 +50,11 @@ import static org.mockito.Mockito.when;
         properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
 )
 @Import({ GlobalExceptionHandler.class, TestVectorStoreConfig.class })
-@TestPropertySource(properties = "app.security.api-key=test-api-key")
+@TestPropertySource(properties = {
+        "app.security.api-key=test-api-key",
+        "app.security.rate-limiting.tiers.partner.capacity=7",
+        "app.security.rate-limiting.tiers.partner.refill-tokens=7"
+})
 class SecurityFlowTest {
 
     private static final String VALID_API_KEY = "test-api-key";
@@ -60,6 +71,12 @@ class SecurityFlowTest {
     @MockitoBean
     private IngestionJobRepository ingestionJobRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
+
     @Test
     @DisplayName("POST /api/v1/query without X-Api-Key returns 401")
     void query_withoutApiKey_returns401() {
@@ -98,8 +115,8 @@ class SecurityFlowTest {
     @Test
     @DisplayName("POST /api/v1/query with valid X-Api-Key returns 200 (success path)")
     void query_withValidApiKey_returns200() {
-        when(queryService.query(anyString(), isNull()))
-                .thenReturn(QueryResponse.of("Answer", List.of(new Citation("c1", "S", "snippet", 1))));
+        when(queryService.query(anyString(), isNull(), isNull()))
+                .thenReturn(QueryResponse.of("Answer", List.of(new Citation("c1", "S", "snippet", 1, List.of(1)))));
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -115,7 +132,7 @@ class SecurityFlowTest {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).containsKey("answer");
-        verify(queryService).query("hello", null);
+        verify(queryService).query("hello", null, null);
     }
 
     @Test
@@ -178,7 +195,7 @@ class SecurityFlowTest {
     void getJobStatus_withValidApiKey_returns200() {
         UUID jobId = UUID.randomUUID();
         IngestionJob job = new IngestionJob(jobId, "m1", IngestionJobStatus.COMPLETED, null, Instant.now(), Instant.now());
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        when(ingestionJobRepository.findByIdOnReplica(jobId)).thenReturn(Optional.of(job));
 
         HttpHeaders headers = new HttpHeaders();
         headers.set("X-Api-Key", VALID_API_KEY);
@@ -194,4 +211,41 @@ class SecurityFlowTest {
         assertThat(response.getBody()).containsEntry("status", "COMPLETED");
     }
 
+    @Test
+    @DisplayName("Stored key: its tier's limit and scopes apply, and it stops working once revoked")
+    void storedKey_appliesTierAndScopes_untilRevoked() {
+        when(queryService.query(anyString(), isNull(), isNull())).thenReturn(QueryResponse.of("Answer", List.of()));
+        String key = "omr_test_" + UUID.randomUUID();
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO api_keys (id, name, key_prefix, key_hash, tier, scopes) VALUES (?, ?, ?, ?, ?, ?)",
+                id, "partner-" + id, ApiKey.prefixOf(key), sha256Hex(key), "partner", "query");
+        apiKeyAuthenticationFilter.refreshKeys();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Api-Key", key);
+        ResponseEntity<String> query = restTemplate.exchange(
+                "/api/v1/query", HttpMethod.POST, new HttpEntity<>("{\"text\": \"hello\"}", headers), String.class);
+        assertThat(query.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(query.getHeaders().getFirst("X-RateLimit-Limit")).isEqualTo("7");
+
+        String body = "{\"manualId\":\"m1\",\"documentUrl\":\"https://example.com/doc.pdf\"}";
+        ResponseEntity<String> ingest = restTemplate.exchange(
+                "/api/v1/ingest", HttpMethod.POST, new HttpEntity<>(body, headers), String.class);
+        assertThat(ingest.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+        jdbcTemplate.update("UPDATE api_keys SET revoked_at = CURRENT_TIMESTAMP WHERE id = ?", id);
+        apiKeyAuthenticationFilter.refreshKeys();
+        ResponseEntity<String> revoked = restTemplate.exchange(
+                "/api/v1/query", HttpMethod.POST, new HttpEntity<>("{\"text\": \"hello\"}", headers), String.class);
+        assertThat(revoked.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    private static String sha256Hex(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -111,19 +111,22 @@ class IngestDtoTest {
             var now = Instant.now();
             var response = new JobStatusResponse(
                     jobId,
-                    IngestionJobStatus.PROCESSING,
+                    IngestionJobStatus.COMPLETED,
                     null,
                     now,
-                    now
+                    now,
+                    new ChunkChangesResponse(3, 1, 40, 2),
+                    null
             );
 
             String json = MAPPER.writeValueAsString(response);
 
             assertThat(json).contains("jobId");
             assertThat(json).contains(jobId.toString());
-            assertThat(json).contains("PROCESSING");
+            assertThat(json).contains("COMPLETED");
             assertThat(json).contains("createdAt");
             assertThat(json).contains("updatedAt");
+            assertThat(json).contains("\"chunkChanges\":{\"added\":3,\"updated\":1,\"unchanged\":40,\"deleted\":2}");
         }
 
         @Test
@@ -134,6 +137,8 @@ class IngestDtoTest {
                     IngestionJobStatus.FAILED,
                     "Document URL returned 404",
                     null,
+                    null,
+                    null,
                     null
             );
 
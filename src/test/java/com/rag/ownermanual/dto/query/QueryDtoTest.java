@@ -25,14 +25,14 @@ class QueryDtoTest {
 
         @Test
         void validRequest_hasNoViolations() {
-            var request = new QueryRequest("How do I check the oil?", null, null, null);
+            var request = new QueryRequest("How do I check the oil?", null, null, null, null);
             Set<ConstraintViolation<QueryRequest>> violations = VALIDATOR.validate(request);
             assertThat(violations).isEmpty();
         }
 
         @Test
         void blankText_failsValidation() {
-            var request = new QueryRequest("   ", null, null, null);
+            var request = new QueryRequest("   ", null, null, null, null);
             Set<ConstraintViolation<QueryRequest>> violations = VALIDATOR.validate(request);
             assertThat(violations).isNotEmpty();
             assertThat(violations).anyMatch(v -> "query text is required".equals(v.getMessage()));
@@ -40,21 +40,21 @@ class QueryDtoTest {
 
         @Test
         void nullText_failsValidation() {
-            var request = new QueryRequest(null, null, null, null);
+            var request = new QueryRequest(null, null, null, null, null);
             Set<ConstraintViolation<QueryRequest>> violations = VALIDATOR.validate(request);
             assertThat(violations).isNotEmpty();
         }
 
         @Test
         void textWithinMaxLength_passes() {
-            var request = new QueryRequest("a".repeat(8192), null, null, null);
+            var request = new QueryRequest("a".repeat(8192), null, null, null, null);
             Set<ConstraintViolation<QueryRequest>> violations = VALIDATOR.validate(request);
             assertThat(violations).isEmpty();
         }
 
         @Test
         void textExceedsMaxLength_failsValidation() {
-            var request = new QueryRequest("a".repeat(8193), null, null, null);
+            var request = new QueryRequest("a".repeat(8193), null, null, null, null);
             Set<ConstraintViolation<QueryRequest>> violations = VALIDATOR.validate(request);
             assertThat(violations).isNotEmpty();
             assertThat(violations).anyMatch(v -> v.getMessage() != null && v.getMessage().contains("8192"));
@@ -62,7 +62,7 @@ class QueryDtoTest {
 
         @Test
         void optionalVehicleModel_andImageFields_accepted() {
-            var request = new QueryRequest("Question?", "Model-X", "https://example.com/img.png", null);
+            var request = new QueryRequest("Question?", "Model-X", "https://example.com/img.png", null, null);
             Set<ConstraintViolation<QueryRequest>> violations = VALIDATOR.validate(request);
             assertThat(violations).isEmpty();
         }
@@ -74,7 +74,7 @@ class QueryDtoTest {
 
         @Test
         void responseWithCitations_serializesToJson() throws Exception {
-            var citation = new Citation("chunk-1", "Engine", "Check oil level...", 5);
+            var citation = new Citation("chunk-1", "Engine", "Check oil level...", 5, List.of(5, 31));
             var response = new QueryResponse("Use the dipstick.", List.of(citation));
 
             String json = MAPPER.writeValueAsString(response);
@@ -85,6 +85,7 @@ class QueryDtoTest {
             assertThat(json).contains("chunk-1");
             assertThat(json).contains("Engine");
             assertThat(json).contains("snippet");
+            assertThat(json).contains("\"pages\":[5,31]");
         }
 
         @Test
@@ -115,7 +116,7 @@ class QueryDtoTest {
 
         @Test
         void citation_withBlankChunkId_throws() {
-            assertThatThrownBy(() -> new Citation("  ", "Section", "snippet", 1))
+            assertThatThrownBy(() -> new Citation("  ", "Section", "snippet", 1, List.of(1)))
                     .isInstanceOf(IllegalArgumentException.class)
                     .hasMessageContaining("chunkId");
         }
@@ -0,0 +1,152 @@
+package com.rag.ownermanual.embedding;
+
+import com.rag.ownermanual.repository.EmbeddingCacheRepository;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests CachingEmbeddingModel: only misses reach the provider, results keep request order,
+ * namespaces are isolated and cache failures degrade to plain embedding.
+ */
+class CachingEmbeddingModelTest {
+
+    private RecordingEmbeddingModel delegate;
+    private InMemoryCache cache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new RecordingEmbeddingModel();
+        cache = new InMemoryCache();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void call_insideScope_embedsOnlyMisses_andPreservesOrder() {
+        CachingEmbeddingModel model = model("text-embedding-3-small", 384);
+        EmbeddingCacheStats first = new EmbeddingCacheStats();
+        EmbeddingCacheScope.run(first, () -> model.call(new EmbeddingRequest(List.of("alpha", "beta"), null)));
+
+        EmbeddingCacheStats second = new EmbeddingCacheStats();
+        List<float[]> vectors = new ArrayList<>();
+        EmbeddingCacheScope.run(second, () -> model.call(new EmbeddingRequest(List.of("beta", "gamma", "alpha"), null))
+                .getResults().forEach(e -> vectors.add(e.getOutput())));
+
+        assertThat(delegate.requests).containsExactly(List.of("alpha", "beta"), List.of("gamma"));
+        assertThat(vectors).extracting(v -> v[0]).containsExactly(4f, 5f, 5f);
+        assertThat(first.hitRatio()).isZero();
+        assertThat(second.hits()).isEqualTo(2);
+        assertThat(second.misses()).isEqualTo(1);
+        assertThat(meterRegistry.get("ingest.embedding.cache.lookups").tag("result", "hit").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void call_normalizesWhitespaceForKeys() {
+        CachingEmbeddingModel model = model("text-embedding-3-small", 384);
+
+        assertThat(model.cacheKey("Check  tire\n pressure ")).isEqualTo(model.cacheKey("Check tire pressure"));
+        assertThat(model.cacheKey("Check tire pressure")).isNotEqualTo(model.cacheKey("Check tyre pressure"));
+    }
+
+    @Test
+    void call_withDifferentModelOrDimensions_doesNotShareEntries() {
+        CachingEmbeddingModel small = model("text-embedding-3-small", 384);
+        CachingEmbeddingModel resized = model("text-embedding-3-small", 1536);
+        CachingEmbeddingModel large = model("text-embedding-3-large", 384);
+
+        assertThat(small.cacheKey("alpha")).isNotEqualTo(resized.cacheKey("alpha")).isNotEqualTo(large.cacheKey("alpha"));
+
+        EmbeddingCacheScope.run(new EmbeddingCacheStats(), () -> small.call(new EmbeddingRequest(List.of("alpha"), null)));
+        EmbeddingCacheStats stats = new EmbeddingCacheStats();
+        EmbeddingCacheScope.run(stats, () -> resized.call(new EmbeddingRequest(List.of("alpha"), null)));
+
+        assertThat(stats.misses()).isEqualTo(1);
+        assertThat(delegate.requests).hasSize(2);
+    }
+
+    @Test
+    void call_outsideScope_bypassesCache() {
+        CachingEmbeddingModel model = model("text-embedding-3-small", 384);
+
+        model.embed("how do I reset the oil light?");
+        model.embed("how do I reset the oil light?");
+
+        assertThat(delegate.requests).hasSize(2);
+        assertThat(cache.entries).isEmpty();
+    }
+
+    @Test
+    void call_whenCacheUnavailable_stillEmbeds() {
+        cache.failing = true;
+        CachingEmbeddingModel model = model("text-embedding-3-small", 384);
+        EmbeddingCacheStats stats = new EmbeddingCacheStats();
+
+        EmbeddingCacheScope.run(stats, () -> assertThat(model.embed(new Document("alpha"))).hasSize(1));
+
+        assertThat(delegate.requests).containsExactly(List.of("alpha"));
+        assertThat(stats.misses()).isEqualTo(1);
+    }
+
+    private CachingEmbeddingModel model(String name, int dimensions) {
+        return new CachingEmbeddingModel(delegate, cache, name, dimensions, true, Bulkhead.ofDefaults("embedding"), meterRegistry);
+    }
+
+    /** Returns a one-element vector equal to the text length, and records each request's texts. */
+    private static final class RecordingEmbeddingModel implements EmbeddingModel {
+        final List<List<String>> requests = new ArrayList<>();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            requests.add(List.copyOf(request.getInstructions()));
+            List<Embedding> embeddings = new ArrayList<>();
+            for (int i = 0; i < request.getInstructions().size(); i++) {
+                embeddings.add(new Embedding(new float[]{request.getInstructions().get(i).length()}, i));
+            }
+            return new EmbeddingResponse(embeddings);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+        }
+    }
+
+    private static final class InMemoryCache implements EmbeddingCacheRepository {
+        final Map<String, float[]> entries = new HashMap<>();
+        boolean failing;
+
+        @Override
+        public Map<String, float[]> findAll(String model, int dimensions, Collection<String> keys) {
+            if (failing) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            Map<String, float[]> found = new HashMap<>();
+            keys.stream().filter(entries::containsKey).forEach(key -> found.put(key, entries.get(key)));
+            return found;
+        }
+
+        @Override
+        public void saveAll(String model, int dimensions, Map<String, float[]> vectors) {
+            if (failing) {
+                throw new DataAccessResourceFailureException("database down");
+            }
+            entries.putAll(vectors);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.rag.ownermanual.embedding;
+
+import com.rag.ownermanual.config.EmbeddingQuotaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests EmbeddingQuota: both budgets refill per minute, background calls leave the interactive
+ * reserve free, and provider headers lower the budgets or pause all calls.
+ */
+class EmbeddingQuotaTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void tryAcquire_takesRequestsAndTokens_untilEitherBudgetIsSpent_thenRefillsOverTheMinute() {
+        EmbeddingQuota quota = quota(60, 6_000, 0);
+
+        assertThat(quota.tryAcquire(3_000, EmbeddingQuota.Priority.BACKGROUND)).isZero();
+        assertThat(quota.tryAcquire(3_000, EmbeddingQuota.Priority.BACKGROUND)).isZero();
+        // Tokens are spent; 1,000 more take 10 s to refill at 100 per second.
+        assertThat(quota.tryAcquire(1_000, EmbeddingQuota.Priority.BACKGROUND)).isEqualTo(10_000);
+        assertThat(utilization("tokens")).isEqualTo(1.0);
+
+        clock.advance(Duration.ofSeconds(10));
+        assertThat(quota.tryAcquire(1_000, EmbeddingQuota.Priority.BACKGROUND)).isZero();
+        assertThat(utilization("requests")).isCloseTo(1.0 / 60, within(1e-9));
+
+        // A call larger than the whole bucket goes through once the bucket is full.
+        clock.advance(Duration.ofMinutes(1));
+        assertThat(quota.tryAcquire(50_000, EmbeddingQuota.Priority.BACKGROUND)).isZero();
+    }
+
+    @Test
+    void tryAcquire_keepsInteractiveReserveFromBackgroundCalls() {
+        EmbeddingQuota quota = quota(10, 1_000_000, 0.2);
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(quota.tryAcquire(10, EmbeddingQuota.Priority.BACKGROUND)).isZero();
+        }
+        assertThat(quota.tryAcquire(10, EmbeddingQuota.Priority.BACKGROUND)).isPositive();
+        assertThat(quota.tryAcquire(10, EmbeddingQuota.Priority.INTERACTIVE)).isZero();
+        assertThat(quota.tryAcquire(10, EmbeddingQuota.Priority.INTERACTIVE)).isZero();
+        assertThat(quota.tryAcquire(10, EmbeddingQuota.Priority.INTERACTIVE)).isPositive();
+    }
+
+    @Test
+    void onResponse_lowersBudgetsToProviderRemaining_andPausesOnRateLimit() {
+        EmbeddingQuota quota = quota(3_000, 1_000_000, 0);
+        HttpHeaders ok = new HttpHeaders();
+        ok.add("x-ratelimit-remaining-requests", "2999");
+        ok.add("x-ratelimit-remaining-tokens", "100");
+        quota.onResponse(200, ok);
+
+        assertThat(quota.tryAcquire(500, EmbeddingQuota.Priority.INTERACTIVE)).isPositive();
+
+        HttpHeaders limited = new HttpHeaders();
+        limited.add(HttpHeaders.RETRY_AFTER, "7");
+        quota.onResponse(429, limited);
+        assertThat(quota.tryAcquire(1, EmbeddingQuota.Priority.INTERACTIVE)).isEqualTo(7_000);
+
+        clock.advance(Duration.ofSeconds(7));
+        HttpHeaders reset = new HttpHeaders();
+        reset.add("x-ratelimit-remaining-tokens", "0");
+        reset.add("x-ratelimit-reset-tokens", "1m30s");
+        quota.onResponse(429, reset);
+        assertThat(quota.tryAcquire(1, EmbeddingQuota.Priority.INTERACTIVE)).isEqualTo(90_000);
+    }
+
+    @Test
+    void goDuration_parsesProviderResetValues() {
+        assertThat(EmbeddingQuota.goDuration("6m0s")).isEqualTo(Duration.ofMinutes(6));
+        assertThat(EmbeddingQuota.goDuration("1.5s")).isEqualTo(Duration.ofMillis(1_500));
+        assertThat(EmbeddingQuota.goDuration("20ms")).isEqualTo(Duration.ofMillis(20));
+        assertThat(EmbeddingQuota.goDuration("soon")).isNull();
+    }
+
+    private EmbeddingQuota quota(int requestsPerMinute, int tokensPerMinute, double interactiveReserve) {
+        EmbeddingQuotaProperties settings = new EmbeddingQuotaProperties();
+        settings.setRequestsPerMinute(requestsPerMinute);
+        settings.setTokensPerMinute(tokensPerMinute);
+        settings.setInteractiveReserve(interactiveReserve);
+        return new EmbeddingQuota(settings, clock, meterRegistry);
+    }
+
+    private double utilization(String budget) {
+        return meterRegistry.get("embedding.quota.utilization").tag("budget", budget).gauge().value();
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
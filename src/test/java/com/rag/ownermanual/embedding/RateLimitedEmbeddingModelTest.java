@@ -0,0 +1,91 @@
+package com.rag.ownermanual.embedding;
+
+import com.rag.ownermanual.config.EmbeddingQuotaProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.retry.NonTransientAiException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests RateLimitedEmbeddingModel: rate-limited responses are waited out and retried, other errors
+ * are not, and ingestion calls are queued as background work.
+ */
+class RateLimitedEmbeddingModelTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final EmbeddingQuota quota = new EmbeddingQuota(new EmbeddingQuotaProperties(), meterRegistry);
+    private final FlakyEmbeddingModel delegate = new FlakyEmbeddingModel();
+
+    @Test
+    void call_whenRateLimited_pausesAndRetries_insteadOfFailing() {
+        delegate.failures.add(new NonTransientAiException("HTTP 429 - Rate limit reached for requests"));
+        delegate.failures.add(new NonTransientAiException("HTTP 429 - Rate limit reached for tokens"));
+        RateLimitedEmbeddingModel model = new RateLimitedEmbeddingModel(delegate, quota, 5, Duration.ofMillis(50));
+
+        long started = System.nanoTime();
+        EmbeddingResponse response = model.call(new EmbeddingRequest(List.of("Check tire pressure"), null));
+
+        assertThat(response.getResults()).hasSize(1);
+        assertThat(delegate.calls).isEqualTo(3);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)).isGreaterThanOrEqualTo(100);
+        assertThat(meterRegistry.get("embedding.quota.rate.limited").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("embedding.quota.wait").tag("priority", "interactive").timer().count())
+                .isEqualTo(3);
+    }
+
+    @Test
+    void call_withOtherErrorsOrRetriesExhausted_rethrows() {
+        delegate.failures.add(new NonTransientAiException("HTTP 401 - Incorrect API key"));
+        RateLimitedEmbeddingModel model = new RateLimitedEmbeddingModel(delegate, quota, 5, Duration.ofMillis(10));
+
+        assertThatThrownBy(() -> model.call(new EmbeddingRequest(List.of("a"), null)))
+                .hasMessageStartingWith("HTTP 401");
+        assertThat(delegate.calls).isEqualTo(1);
+
+        RateLimitedEmbeddingModel noRetries = new RateLimitedEmbeddingModel(delegate, quota, 0, Duration.ofMillis(10));
+        delegate.failures.add(new NonTransientAiException("HTTP 429 - Rate limit reached"));
+        assertThatThrownBy(() -> noRetries.call(new EmbeddingRequest(List.of("a"), null)))
+                .hasMessageStartingWith("HTTP 429");
+    }
+
+    @Test
+    void call_insideCacheScope_queuesAsBackgroundWork() {
+        RateLimitedEmbeddingModel model = new RateLimitedEmbeddingModel(delegate, quota, 5, Duration.ofMillis(10));
+
+        EmbeddingCacheScope.run(new EmbeddingCacheStats(), () -> model.call(new EmbeddingRequest(List.of("a"), null)));
+
+        assertThat(meterRegistry.get("embedding.quota.wait").tag("priority", "background").timer().count())
+                .isEqualTo(1);
+    }
+
+    private static final class FlakyEmbeddingModel implements EmbeddingModel {
+        final List<RuntimeException> failures = new ArrayList<>();
+        int calls;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            calls++;
+            if (!failures.isEmpty()) {
+                throw failures.remove(0);
+            }
+            return new EmbeddingResponse(List.of(new Embedding(new float[]{1f}, 0)));
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return call(new EmbeddingRequest(List.of(document.getText()), null)).getResult().getOutput();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.rag.ownermanual.events;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests JobEventBus: per-job subscriptions, relaying published (but not received) events, and the
+ * NOTIFY payload split and pooler detection of PostgresJobEventRelay.
+ */
+class JobEventBusTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JobEventBus bus = new JobEventBus(Runnable::run, meterRegistry);
+
+    @Test
+    void publish_wakesSubscribersOfThatJobOnly_untilTheSubscriptionIsClosed() {
+        UUID jobId = UUID.randomUUID();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger otherCalls = new AtomicInteger();
+        JobEventBus.Subscription subscription = bus.subscribe(jobId, calls::incrementAndGet);
+        bus.subscribe(UUID.randomUUID(), otherCalls::incrementAndGet);
+        assertThat(meterRegistry.get("ingestion.job.events.subscribers").gauge().value()).isEqualTo(2.0);
+
+        bus.publish(jobId);
+        subscription.close();
+        bus.publish(jobId);
+
+        assertThat(calls).hasValue(1);
+        assertThat(otherCalls).hasValue(0);
+        bus.publishAll();
+        assertThat(otherCalls).hasValue(1);
+        assertThat(meterRegistry.get("ingestion.job.events.subscribers").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void attachedRelay_getsPublishedEvents_butNotReceivedOnes() {
+        List<UUID> sent = new ArrayList<>();
+        bus.attach(new JobEventBus.Relay() {
+            @Override
+            public void send(Collection<UUID> jobIds) {
+                sent.addAll(jobIds);
+            }
+
+            @Override
+            public void sendAll() {
+            }
+        });
+        UUID published = UUID.randomUUID();
+        UUID received = UUID.randomUUID();
+        AtomicInteger calls = new AtomicInteger();
+        bus.subscribe(received, calls::incrementAndGet);
+
+        bus.publish(published);
+        bus.deliver(List.of(received));
+
+        assertThat(sent).containsExactly(published);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void relayPayloads_stayUnderTheNotifyLimit_andCarryEveryId() {
+        List<UUID> ids = IntStream.range(0, 500).mapToObj(i -> UUID.randomUUID()).toList();
+
+        List<String> payloads = PostgresJobEventRelay.payloads("node-1", ids);
+
+        assertThat(payloads).hasSizeGreaterThan(1);
+        assertThat(payloads).allSatisfy(p -> {
+            assertThat(p).startsWith("node-1:");
+            assertThat(p.length()).isLessThan(8_000);
+        });
+        List<String> carried = payloads.stream()
+                .flatMap(p -> List.of(p.substring("node-1:".length()).split(",")).stream())
+                .toList();
+        assertThat(carried).containsExactlyElementsOf(ids.stream().map(UUID::toString).toList());
+    }
+
+    @Test
+    void relay_recognisesTransactionPoolerUrls() {
+        assertThat(PostgresJobEventRelay.isTransactionPooler(
+                "jdbc:postgresql://aws-0-eu-west-1.pooler.supabase.com:6543/postgres?sslmode=require")).isTrue();
+        assertThat(PostgresJobEventRelay.isTransactionPooler(
+                "jdbc:postgresql://pgbouncer.internal:5432/app?pgbouncer=true")).isTrue();
+        assertThat(PostgresJobEventRelay.isTransactionPooler(
+                "jdbc:postgresql://aws-0-eu-west-1.pooler.supabase.com:5432/postgres")).isFalse();
+        assertThat(PostgresJobEventRelay.isTransactionPooler("jdbc:postgresql://db.example.com/app")).isFalse();
+    }
+}
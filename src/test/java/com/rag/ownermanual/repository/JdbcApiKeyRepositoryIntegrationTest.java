@@ -0,0 +1,65 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.TestVectorStoreConfig;
+import com.rag.ownermanual.domain.ApiKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for JdbcApiKeyRepository against the real api_keys table.
+ */
+@SpringBootTest(
+        properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
+)
+@Import(TestVectorStoreConfig.class)
+class JdbcApiKeyRepositoryIntegrationTest {
+
+    @Autowired
+    private ApiKeyRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findActive_returnsKeysWithScopes_andSkipsRevokedOnes() {
+        String active = "active-" + UUID.randomUUID();
+        String revoked = "revoked-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO api_keys (id, name, key_prefix, key_hash, tier, scopes) VALUES (?, ?, ?, ?, ?, ?)",
+                UUID.randomUUID(), active, "omr_abcd", "a".repeat(64), "partner", "query, ingest");
+        jdbcTemplate.update("INSERT INTO api_keys (id, name, key_prefix, key_hash, revoked_at) VALUES (?, ?, ?, ?, ?)",
+                UUID.randomUUID(), revoked, "omr_efgh", "b".repeat(64), Timestamp.from(Instant.now()));
+
+        assertThat(repository.findActive())
+                .extracting(ApiKey::name)
+                .contains(active)
+                .doesNotContain(revoked);
+        ApiKey key = repository.findActive().stream().filter(k -> k.name().equals(active)).findFirst().orElseThrow();
+        assertThat(key.prefix()).isEqualTo("omr_abcd");
+        assertThat(key.tier()).isEqualTo("partner");
+        assertThat(key.scopes()).containsExactlyInAnyOrder("query", "ingest");
+    }
+
+    @Test
+    void findActive_afterReissuingARevokedKeyUnderTheSameName_returnsTheNewKey() {
+        String name = "rotated-" + UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO api_keys (id, name, key_prefix, key_hash, revoked_at) VALUES (?, ?, ?, ?, ?)",
+                UUID.randomUUID(), name, "omr_old1", "c".repeat(64), Timestamp.from(Instant.now()));
+        jdbcTemplate.update("INSERT INTO api_keys (id, name, key_prefix, key_hash) VALUES (?, ?, ?, ?)",
+                UUID.randomUUID(), name, "omr_new1", "d".repeat(64));
+
+        assertThat(repository.findActive())
+                .filteredOn(key -> key.name().equals(name))
+                .singleElement()
+                .extracting(ApiKey::prefix)
+                .isEqualTo("omr_new1");
+    }
+}
@@ -0,0 +1,54 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.TestVectorStoreConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for JdbcEmbeddingCacheRepository against the real embedding_cache table.
+ */
+@SpringBootTest(
+        properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
+)
+@Import(TestVectorStoreConfig.class)
+class JdbcEmbeddingCacheRepositoryIntegrationTest {
+
+    @Autowired
+    private EmbeddingCacheRepository repository;
+
+    @Test
+    void saveAll_thenFindAll_roundTripsVectorsWithinNamespace() {
+        String key = uniqueKey();
+        float[] vector = {0.25f, -1.5f, 3.0e-7f};
+
+        repository.saveAll("text-embedding-3-small", 3, Map.of(key, vector));
+
+        assertThat(repository.findAll("text-embedding-3-small", 3, List.of(key, uniqueKey())))
+                .containsOnlyKeys(key)
+                .hasEntrySatisfying(key, found -> assertThat(found).containsExactly(vector));
+        assertThat(repository.findAll("text-embedding-3-large", 3, List.of(key))).isEmpty();
+        assertThat(repository.findAll("text-embedding-3-small", 1536, List.of(key))).isEmpty();
+    }
+
+    @Test
+    void saveAll_withExistingKey_keepsFirstVector() {
+        String key = uniqueKey();
+
+        repository.saveAll("m", 1, Map.of(key, new float[]{1f}));
+        repository.saveAll("m", 1, Map.of(key, new float[]{2f}, uniqueKey(), new float[]{3f}));
+
+        assertThat(repository.findAll("m", 1, List.of(key)).get(key)).containsExactly(1f);
+    }
+
+    private static String uniqueKey() {
+        return (UUID.randomUUID().toString().replace("-", "") + UUID.randomUUID().toString().replace("-", ""));
+    }
+}
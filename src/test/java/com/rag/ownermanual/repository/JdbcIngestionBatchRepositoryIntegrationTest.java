@@ -0,0 +1,101 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.TestVectorStoreConfig;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionBatch;
+import com.rag.ownermanual.domain.IngestionBatchProgress;
+import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.JobLease;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for JdbcIngestionBatchRepository against the real ingestion_batches and
+ * ingestion_jobs tables.
+ */
+@SpringBootTest(
+        properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
+)
+@Import(TestVectorStoreConfig.class)
+class JdbcIngestionBatchRepositoryIntegrationTest {
+
+    private static final String DOCUMENT_URL = "https://example.com/manual.pdf";
+
+    @Autowired
+    private IngestionBatchRepository batchRepository;
+
+    @Autowired
+    private IngestionJobQueueRepository queue;
+
+    @Test
+    void create_enqueuesChildJobsForTheBatchTenant() {
+        String tenant = "oem-" + UUID.randomUUID();
+        IngestionBatch batch = batch(tenant, 3);
+
+        batchRepository.create(batch);
+
+        assertThat(queue.countDueByTenant()).containsEntry(tenant, 3);
+        List<JobLease> claimed = queue.claimNext("worker-a", tenant, 10);
+        assertThat(claimed).extracting(JobLease::jobId)
+                .containsExactlyInAnyOrderElementsOf(batch.children().stream().map(IngestionBatch.Child::jobId).toList());
+        assertThat(claimed).allSatisfy(lease -> assertThat(lease.documentUrl()).isEqualTo(DOCUMENT_URL));
+    }
+
+    @Test
+    void findProgress_aggregatesChildStatusesAndChunkChanges() {
+        IngestionBatch batch = batch("oem-" + UUID.randomUUID(), 4);
+        batchRepository.create(batch);
+        List<UUID> jobIds = batch.children().stream().map(IngestionBatch.Child::jobId).toList();
+
+        assertThat(batchRepository.findProgress(batch.id())).hasValueSatisfying(progress -> {
+            assertThat(progress.status()).isEqualTo(IngestionJobStatus.CREATED);
+            assertThat(progress.count(IngestionJobStatus.CREATED)).isEqualTo(4);
+        });
+
+        complete(jobIds.get(0), new ChunkChangeCounts(10, 1, 0, 0));
+        complete(jobIds.get(1), new ChunkChangeCounts(5, 0, 2, 1));
+        queue.claim(jobIds.get(2), "worker-a").orElseThrow();
+        queue.fail(jobIds.get(2), "worker-a", "404 Not Found");
+        queue.claim(jobIds.get(3), "worker-a").orElseThrow();
+
+        IngestionBatchProgress progress = batchRepository.findProgress(batch.id()).orElseThrow();
+        assertThat(progress.tenant()).isEqualTo(batch.tenant());
+        assertThat(progress.jobCount()).isEqualTo(4);
+        assertThat(progress.status()).isEqualTo(IngestionJobStatus.PROCESSING);
+        assertThat(progress.count(IngestionJobStatus.COMPLETED)).isEqualTo(2);
+        assertThat(progress.count(IngestionJobStatus.FAILED)).isEqualTo(1);
+        assertThat(progress.count(IngestionJobStatus.PROCESSING)).isEqualTo(1);
+        assertThat(progress.count(IngestionJobStatus.CREATED)).isZero();
+        assertThat(progress.chunkChanges()).isEqualTo(new ChunkChangeCounts(15, 1, 2, 1));
+        assertThat(progress.updatedAt()).isAfterOrEqualTo(progress.createdAt());
+
+        queue.complete(jobIds.get(3), "worker-a", new ChunkChangeCounts(0, 0, 0, 0));
+        assertThat(batchRepository.findProgress(batch.id()).orElseThrow().status()).isEqualTo(IngestionJobStatus.COMPLETED);
+    }
+
+    @Test
+    void findProgress_unknownBatch_returnsEmpty() {
+        assertThat(batchRepository.findProgress(UUID.randomUUID())).isEmpty();
+    }
+
+    private void complete(UUID jobId, ChunkChangeCounts changes) {
+        queue.claim(jobId, "worker-a").orElseThrow();
+        queue.complete(jobId, "worker-a", changes);
+    }
+
+    private static IngestionBatch batch(String tenant, int jobs) {
+        List<IngestionBatch.Child> children = IntStream.rangeClosed(1, jobs)
+                .mapToObj(i -> new IngestionBatch.Child(UUID.randomUUID(), "manual-" + i, DOCUMENT_URL))
+                .toList();
+        return new IngestionBatch(UUID.randomUUID(), tenant, Instant.now(), children);
+    }
+}
@@ -0,0 +1,57 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.TestVectorStoreConfig;
+import com.rag.ownermanual.domain.IngestionCheckpoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for JdbcIngestionCheckpointRepository against the real ingestion_checkpoints tables.
+ */
+@SpringBootTest(
+        properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
+)
+@Import(TestVectorStoreConfig.class)
+class JdbcIngestionCheckpointRepositoryIntegrationTest {
+
+    private static final String HASH_A = "a".repeat(64);
+    private static final String HASH_B = "b".repeat(64);
+    private static final String DOCUMENT_SHA256 = "d".repeat(64);
+
+    @Autowired
+    private IngestionCheckpointRepository repository;
+
+    @Test
+    void commitBatch_accumulatesProgressAcrossBatches() {
+        UUID jobId = UUID.randomUUID();
+
+        repository.commitBatch(jobId, null, 64, Map.of(1, HASH_A));
+        repository.commitBatch(jobId, DOCUMENT_SHA256, 64, Map.of());
+        repository.commitBatch(jobId, null, 10, Map.of(2, HASH_A, 3, HASH_B));
+        repository.commitBatch(jobId, null, 5, Map.of(2, HASH_B)); // page re-committed with a new hash
+
+        IngestionCheckpoint checkpoint = repository.findByJobId(jobId).orElseThrow();
+        assertThat(checkpoint.documentSha256()).isEqualTo(DOCUMENT_SHA256);
+        assertThat(checkpoint.lastPageKey()).isEqualTo(3);
+        assertThat(checkpoint.batchesCommitted()).isEqualTo(4);
+        assertThat(checkpoint.chunksCommitted()).isEqualTo(143);
+        assertThat(checkpoint.pageHashes()).isEqualTo(Map.of(1, HASH_A, 2, HASH_B, 3, HASH_B));
+    }
+
+    @Test
+    void delete_removesCheckpointAndPages() {
+        UUID jobId = UUID.randomUUID();
+        repository.commitBatch(jobId, DOCUMENT_SHA256, 1, Map.of(1, HASH_A));
+
+        repository.delete(jobId);
+
+        assertThat(repository.findByJobId(jobId)).isEmpty();
+    }
+}
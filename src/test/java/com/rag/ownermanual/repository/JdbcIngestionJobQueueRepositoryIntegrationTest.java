@@ -0,0 +1,224 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.TestVectorStoreConfig;
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionProgress;
+import com.rag.ownermanual.domain.IngestionStage;
+import com.rag.ownermanual.domain.JobLease;
+import com.rag.ownermanual.events.JobEventBus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for JdbcIngestionJobQueueRepository against the real ingestion_jobs table: atomic
+ * claims, disjoint concurrent claims, lease takeover with fencing, retry scheduling and exhaustion,
+ * and fenced progress writes.
+ * Each test only looks at jobs of its own manual id, since the table is shared.
+ */
+@SpringBootTest(
+        properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
+)
+@Import(TestVectorStoreConfig.class)
+class JdbcIngestionJobQueueRepositoryIntegrationTest {
+
+    private static final String DOCUMENT_URL = "https://example.com/manual.pdf";
+    private static final ChunkChangeCounts NO_CHANGES = new ChunkChangeCounts(0, 0, 0, 0);
+
+    @Autowired
+    private IngestionJobQueueRepository queue;
+
+    @Autowired
+    private IngestionJobRepository jobRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JobEventBus jobEventBus;
+
+    @Test
+    void claim_transitionsCreatedJobOnce() {
+        UUID jobId = enqueue("manual-" + UUID.randomUUID());
+
+        Optional<JobLease> first = queue.claim(jobId, "worker-a");
+        Optional<JobLease> second = queue.claim(jobId, "worker-b");
+
+        assertThat(first).hasValueSatisfying(lease -> {
+            assertThat(lease.documentUrl()).isEqualTo(DOCUMENT_URL);
+            assertThat(lease.owner()).isEqualTo("worker-a");
+            assertThat(lease.attempt()).isEqualTo(1);
+        });
+        assertThat(second).isEmpty();
+        assertThat(status(jobId)).isEqualTo(IngestionJobStatus.PROCESSING);
+    }
+
+    @Test
+    void claimNext_concurrentWorkers_receiveDisjointJobs() throws Exception {
+        String manualId = "manual-" + UUID.randomUUID();
+        Set<UUID> enqueued = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            enqueued.add(enqueue(manualId));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<UUID>>> results = new ArrayList<>();
+            for (int w = 0; w < 4; w++) {
+                String owner = "worker-" + w;
+                Callable<List<UUID>> drain = () -> {
+                    List<UUID> mine = new ArrayList<>();
+                    List<JobLease> batch;
+                    while (!(batch = queue.claimNext(owner, 2)).isEmpty()) {
+                        batch.stream().filter(lease -> lease.manualId().equals(manualId))
+                                .forEach(lease -> mine.add(lease.jobId()));
+                    }
+                    return mine;
+                };
+                results.add(pool.submit(drain));
+            }
+
+            List<UUID> claimed = new ArrayList<>();
+            for (Future<List<UUID>> result : results) {
+                claimed.addAll(result.get());
+            }
+            assertThat(claimed).doesNotHaveDuplicates();
+            assertThat(claimed).containsExactlyInAnyOrderElementsOf(enqueued);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void expiredLease_isTakenOver_andOldOwnerIsFenced() throws InterruptedException {
+        JdbcIngestionJobQueueRepository shortLeases = queueWith(Duration.ZERO, 5);
+        String manualId = "manual-" + UUID.randomUUID();
+        UUID jobId = enqueue(manualId);
+        shortLeases.claim(jobId, "worker-a").orElseThrow();
+        Thread.sleep(5);
+
+        List<JobLease> takenOver = shortLeases.claimNext("worker-b", 100).stream()
+                .filter(lease -> lease.jobId().equals(jobId))
+                .toList();
+
+        assertThat(takenOver).singleElement().satisfies(lease -> {
+            assertThat(lease.owner()).isEqualTo("worker-b");
+            assertThat(lease.attempt()).isEqualTo(2);
+        });
+        assertThat(shortLeases.renewLease(jobId, "worker-a")).isFalse();
+        assertThat(shortLeases.complete(jobId, "worker-a", NO_CHANGES)).isFalse();
+        assertThat(status(jobId)).isEqualTo(IngestionJobStatus.PROCESSING);
+
+        assertThat(shortLeases.complete(jobId, "worker-b", NO_CHANGES)).isTrue();
+        assertThat(status(jobId)).isEqualTo(IngestionJobStatus.COMPLETED);
+    }
+
+    @Test
+    void retryLater_requeuesJobWithError_claimableOnlyWhenDue() {
+        UUID jobId = enqueue("manual-" + UUID.randomUUID());
+        queue.claim(jobId, "worker-a").orElseThrow();
+
+        assertThat(queue.retryLater(jobId, "worker-a", "Qdrant unavailable", Instant.now().plusSeconds(3600))).isTrue();
+
+        IngestionJob job = jobRepository.findById(jobId).orElseThrow();
+        assertThat(job.status()).isEqualTo(IngestionJobStatus.CREATED);
+        assertThat(job.errorMessage()).isEqualTo("Qdrant unavailable");
+        assertThat(queue.claimNext("worker-b", 100)).noneMatch(lease -> lease.jobId().equals(jobId));
+
+        queue.retryLater(jobId, "worker-a", "ignored", Instant.now()); // not leased: no-op
+        assertThat(jobRepository.findById(jobId).orElseThrow().errorMessage()).isEqualTo("Qdrant unavailable");
+    }
+
+    @Test
+    void failExhausted_failsExpiredJobOnLastAttempt() throws InterruptedException {
+        JdbcIngestionJobQueueRepository singleAttempt = queueWith(Duration.ZERO, 1);
+        UUID jobId = enqueue("manual-" + UUID.randomUUID());
+        singleAttempt.claim(jobId, "worker-a").orElseThrow();
+        Thread.sleep(5);
+
+        assertThat(singleAttempt.claimNext("worker-b", 100)).noneMatch(lease -> lease.jobId().equals(jobId));
+        assertThat(singleAttempt.failExhausted()).isPositive();
+
+        IngestionJob job = jobRepository.findById(jobId).orElseThrow();
+        assertThat(job.status()).isEqualTo(IngestionJobStatus.FAILED);
+        assertThat(job.errorMessage()).contains("lease expired");
+    }
+
+    @Test
+    void requeueFailed_resetsAttemptsOnlyForFailedJobs() {
+        JdbcIngestionJobQueueRepository singleAttempt = queueWith(Duration.ofSeconds(60), 1);
+        UUID jobId = enqueue("manual-" + UUID.randomUUID());
+        singleAttempt.claim(jobId, "worker-a").orElseThrow();
+        assertThat(singleAttempt.requeueFailed(jobId)).isFalse();
+        singleAttempt.fail(jobId, "worker-a", "Qdrant unavailable");
+
+        assertThat(singleAttempt.requeueFailed(jobId)).isTrue();
+
+        IngestionJob job = jobRepository.findById(jobId).orElseThrow();
+        assertThat(job.status()).isEqualTo(IngestionJobStatus.CREATED);
+        assertThat(job.errorMessage()).isNull();
+        assertThat(singleAttempt.claim(jobId, "worker-b")).hasValueSatisfying(lease ->
+                assertThat(lease.attempt()).isEqualTo(1));
+    }
+
+    @Test
+    void updateProgress_writesOnlyJobsLeasedByOwner() {
+        UUID leased = enqueue("manual-" + UUID.randomUUID());
+        UUID otherOwner = enqueue("manual-" + UUID.randomUUID());
+        queue.claim(leased, "worker-a").orElseThrow();
+        queue.claim(otherOwner, "worker-b").orElseThrow();
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        IngestionProgress progress = new IngestionProgress(IngestionStage.PARSING, 12, 40, 30, 24, null,
+                1_048_576L, now.plusSeconds(60), now);
+
+        int updated = jobRepository.updateProgress("worker-a", Map.of(leased, progress, otherOwner, progress));
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(jobRepository.findById(leased).orElseThrow().progress()).isEqualTo(progress);
+        assertThat(jobRepository.findById(otherOwner).orElseThrow().progress()).isNull();
+    }
+
+    private UUID enqueue(String manualId) {
+        Instant now = Instant.now();
+        UUID jobId = UUID.randomUUID();
+        queue.enqueue(new IngestionJob(jobId, manualId, IngestionJobStatus.CREATED, null, now, now), DOCUMENT_URL);
+        return jobId;
+    }
+
+    private IngestionJobStatus status(UUID jobId) {
+        return jobRepository.findById(jobId).orElseThrow().status();
+    }
+
+    private JdbcIngestionJobQueueRepository queueWith(Duration leaseDuration, int maxAttempts) {
+        IngestionProperties properties = new IngestionProperties();
+        properties.getQueue().setLeaseDuration(leaseDuration);
+        properties.getQueue().setMaxAttempts(maxAttempts);
+        return new JdbcIngestionJobQueueRepository(jdbcTemplate, transactionTemplate, properties, jobEventBus);
+    }
+}
@@ -1,7 +1,12 @@
 package com.rag.ownermanual.repository;
 
+import com.rag.ownermanual.domain.ChunkChangeCounts;
 import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.IngestionJobCursor;
+import com.rag.ownermanual.domain.IngestionJobFilter;
 import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionJobSummary;
+import com.rag.ownermanual.domain.JobIds;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +16,9 @@ import org.springframework.context.annotation.Import;
 import com.rag.ownermanual.TestVectorStoreConfig;
 
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -87,10 +95,79 @@ class JdbcIngestionJobRepositoryIntegrationTest {
         assertThat(afterFailed.get().errorMessage()).isEqualTo("Parse error: not a PDF");
     }
 
+    @Test
+    @DisplayName("time-stamped job ids are found and updated through their created_at window")
+    void timeStampedIds_areFoundAndUpdated() {
+        Instant now = Instant.now();
+        UUID id = JobIds.newId(now);
+        repository.save(new IngestionJob(id, "manual-v7", IngestionJobStatus.CREATED, null, now, now));
+
+        repository.updateStatus(id, IngestionJobStatus.COMPLETED, null);
+
+        assertThat(repository.findById(id).orElseThrow().status()).isEqualTo(IngestionJobStatus.COMPLETED);
+        // No replica configured: replica reads are served by the primary.
+        assertThat(repository.findByIdOnReplica(id).orElseThrow().status()).isEqualTo(IngestionJobStatus.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("updateChunkChanges stores counts; jobs without counts load with null")
+    void updateChunkChanges_roundTripsCounts() {
+        UUID id = UUID.randomUUID();
+        Instant now = Instant.now();
+        repository.save(new IngestionJob(id, "manual-3", IngestionJobStatus.PROCESSING, null, now, now));
+        assertThat(repository.findById(id).orElseThrow().chunkChanges()).isNull();
+
+        repository.updateChunkChanges(id, new ChunkChangeCounts(5, 2, 40, 3));
+
+        assertThat(repository.findById(id).orElseThrow().chunkChanges())
+                .isEqualTo(new ChunkChangeCounts(5, 2, 40, 3));
+    }
+
     @Test
     @DisplayName("findById for non-existent id returns empty")
     void findById_whenNotFound_returnsEmpty() {
         Optional<IngestionJob> found = repository.findById(UUID.randomUUID());
         assertThat(found).isEmpty();
     }
+
+    @Test
+    @DisplayName("findPage lists newest first, pages by (created_at, id) and applies every filter")
+    void findPage_keysetPaginatesAndFilters() {
+        String manualId = "manual-list-" + UUID.randomUUID();
+        Instant base = Instant.parse("2026-03-01T00:00:00Z");
+        List<UUID> newestFirst = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            UUID id = UUID.randomUUID();
+            // Two jobs share each instant, so ties are broken by id.
+            Instant createdAt = base.plus(i / 2, ChronoUnit.MINUTES);
+            IngestionJobStatus status = i % 2 == 0 ? IngestionJobStatus.COMPLETED : IngestionJobStatus.FAILED;
+            repository.save(new IngestionJob(id, manualId, status, status == IngestionJobStatus.FAILED ? "boom" : null,
+                    createdAt, createdAt));
+            newestFirst.add(0, id);
+        }
+        IngestionJobFilter byManual = new IngestionJobFilter(manualId, null, null, null);
+
+        List<IngestionJobSummary> first = repository.findPage(byManual, null, 2);
+        List<IngestionJobSummary> second = repository.findPage(byManual, first.get(1).cursor(), 2);
+        List<IngestionJobSummary> third = repository.findPage(byManual, second.get(1).cursor(), 2);
+        List<UUID> paged = new ArrayList<>();
+        for (List<IngestionJobSummary> page : List.of(first, second, third)) {
+            page.forEach(job -> paged.add(job.id()));
+        }
+        assertThat(third).hasSize(1);
+        assertThat(paged).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(newestFirst);
+        assertThat(paged).extracting(id -> repository.findById(id).orElseThrow().createdAt())
+                .isSortedAccordingTo((a, b) -> b.compareTo(a));
+        assertThat(first.get(0).tenant()).isEqualTo("default");
+
+        assertThat(repository.findPage(new IngestionJobFilter(manualId, IngestionJobStatus.FAILED, null, null), null, 10))
+                .hasSize(2)
+                .allSatisfy(job -> assertThat(job.status()).isEqualTo(IngestionJobStatus.FAILED));
+        assertThat(repository.findPage(new IngestionJobFilter(manualId, null,
+                base.plus(1, ChronoUnit.MINUTES), base.plus(2, ChronoUnit.MINUTES)), null, 10))
+                .hasSize(2);
+
+        IngestionJobCursor decoded = IngestionJobCursor.decode(first.get(1).cursor().encode());
+        assertThat(decoded).isEqualTo(first.get(1).cursor());
+    }
 }
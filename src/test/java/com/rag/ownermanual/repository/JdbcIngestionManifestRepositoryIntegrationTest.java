@@ -0,0 +1,77 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.TestVectorStoreConfig;
+import com.rag.ownermanual.domain.ManifestEntry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for JdbcIngestionManifestRepository against the real ingestion_manifest table.
+ */
+@SpringBootTest(
+        properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
+)
+@Import(TestVectorStoreConfig.class)
+class JdbcIngestionManifestRepositoryIntegrationTest {
+
+    private static final String HASH_A = "a".repeat(64);
+    private static final String HASH_B = "b".repeat(64);
+    private static final String SETTINGS_A = "1".repeat(64);
+    private static final String SETTINGS_B = "2".repeat(64);
+
+    @Autowired
+    private IngestionManifestRepository repository;
+
+    @Test
+    void findByManualId_whenNeverIngested_returnsEmpty() {
+        String manualId = "manual-" + UUID.randomUUID();
+
+        assertThat(repository.findByManualId(manualId)).isEmpty();
+        assertThat(repository.findDocumentHash(manualId, SETTINGS_A)).isEmpty();
+    }
+
+    @Test
+    void replace_overwritesPreviousManifestOfSameManualOnly() {
+        String manualId = "manual-" + UUID.randomUUID();
+        String otherManualId = "manual-" + UUID.randomUUID();
+        repository.replace(otherManualId, HASH_A, SETTINGS_A, List.of(new ManifestEntry(otherManualId + "-p1-0", 1, HASH_A)));
+        repository.replace(manualId, HASH_A, SETTINGS_A, List.of(
+                new ManifestEntry(manualId + "-p1-0", 1, HASH_A),
+                new ManifestEntry(manualId + "-p2-0", 2, HASH_A)));
+
+        repository.replace(manualId, HASH_B, SETTINGS_A, List.of(new ManifestEntry(manualId + "-p1-0", 1, HASH_B)));
+
+        assertThat(repository.findByManualId(manualId))
+                .containsExactly(new ManifestEntry(manualId + "-p1-0", 1, HASH_B));
+        assertThat(repository.findDocumentHash(manualId, SETTINGS_A)).contains(HASH_B);
+        assertThat(repository.findByManualId(otherManualId)).hasSize(1);
+        assertThat(repository.findDocumentHash(otherManualId, SETTINGS_A)).contains(HASH_A);
+    }
+
+    @Test
+    void findDocumentHash_withOtherProcessingSettings_returnsEmpty() {
+        String manualId = "manual-" + UUID.randomUUID();
+        repository.replace(manualId, HASH_A, SETTINGS_A, List.of(new ManifestEntry(manualId + "-p1-0", 1, HASH_A)));
+
+        assertThat(repository.findDocumentHash(manualId, SETTINGS_A)).contains(HASH_A);
+        assertThat(repository.findDocumentHash(manualId, SETTINGS_B)).isEmpty();
+    }
+
+    @Test
+    void replace_roundTripsOccurrencePages() {
+        String manualId = "manual-" + UUID.randomUUID();
+        ManifestEntry canonical = new ManifestEntry(manualId + "-p2-0", 2, HASH_A, List.of(7, 12));
+        ManifestEntry plain = new ManifestEntry(manualId + "-p3-0", 3, HASH_A);
+
+        repository.replace(manualId, HASH_A, SETTINGS_A, List.of(canonical, plain));
+
+        assertThat(repository.findByManualId(manualId)).containsExactlyInAnyOrder(canonical, plain);
+    }
+}
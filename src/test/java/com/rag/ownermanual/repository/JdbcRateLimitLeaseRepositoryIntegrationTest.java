@@ -0,0 +1,72 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.TestVectorStoreConfig;
+import com.rag.ownermanual.domain.RateLimitLease;
+import com.rag.ownermanual.domain.RateLimitPolicy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for JdbcRateLimitLeaseRepository against the real rate_limit_buckets table.
+ */
+@SpringBootTest(
+        properties = "spring.autoconfigure.exclude=org.springframework.ai.vectorstore.qdrant.autoconfigure.QdrantVectorStoreAutoConfiguration"
+)
+@Import(TestVectorStoreConfig.class)
+class JdbcRateLimitLeaseRepositoryIntegrationTest {
+
+    /** Refills one token a day, so nothing refills during the test. */
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy(20, 1, Duration.ofDays(1));
+
+    @Autowired
+    private RateLimitLeaseRepository repository;
+
+    @Test
+    void lease_grantsFromAFullBucket_untilEmpty_andReleaseIsCappedAtCapacity() {
+        String identity = "apiKey:" + UUID.randomUUID();
+
+        RateLimitLease first = repository.lease(identity, POLICY, 15);
+        assertThat(first.granted()).isEqualTo(15);
+        assertThat(first.remaining()).isEqualTo(5);
+        assertThat(first.untilFull()).isGreaterThan(Duration.ofDays(14));
+
+        assertThat(repository.lease(identity, POLICY, 15).granted()).isEqualTo(5);
+        assertThat(repository.lease(identity, POLICY, 15).granted()).isZero();
+
+        repository.release(identity, POLICY, 50);
+        RateLimitLease refilled = repository.lease(identity, POLICY, 1);
+        assertThat(refilled.granted()).isEqualTo(1);
+        assertThat(refilled.remaining()).isEqualTo(19);
+    }
+
+    @Test
+    void concurrentLeases_neverGrantMoreThanTheBucket() throws Exception {
+        String identity = "apiKey:" + UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> leases = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                leases.add(executor.submit(() -> repository.lease(identity, POLICY, 3).granted()));
+            }
+            int granted = 0;
+            for (Future<Integer> lease : leases) {
+                granted += lease.get();
+            }
+            assertThat(granted).isEqualTo(20);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.JobIds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests JobIds and JobIdPredicate: the id carries its creation time, and the predicate's window
+ * around it contains the stored created_at (so the lookup prunes to one partition without missing
+ * the row), while random legacy ids match any created_at.
+ */
+class JobIdPredicateTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JobIdPredicateTest.class);
+
+    @Test
+    void newId_isVersion7_andCarriesCreationTimeToTheMillisecond() {
+        Instant createdAt = Instant.parse("2026-03-31T23:59:59.123456Z");
+
+        UUID id = JobIds.newId(createdAt);
+
+        assertThat(id.version()).isEqualTo(7);
+        assertThat(id.variant()).isEqualTo(2);
+        assertThat(JobIds.createdAt(id)).contains(Instant.parse("2026-03-31T23:59:59.123Z"));
+        assertThat(JobIds.newId(createdAt)).isNotEqualTo(id);
+        assertThat(JobIds.createdAt(UUID.randomUUID())).isEmpty();
+    }
+
+    @Test
+    void args_boundCreatedAtAroundTheIdsTime_afterLeadingValues() {
+        Instant createdAt = Instant.parse("2026-03-31T23:59:59.123456Z");
+        UUID id = JobIds.newId(createdAt);
+
+        Object[] args = JobIdPredicate.args(id, "COMPLETED", "worker-1");
+
+        assertThat(args).hasSize(5);
+        assertThat(args[0]).isEqualTo("COMPLETED");
+        assertThat(args[1]).isEqualTo("worker-1");
+        assertThat(args[2]).isEqualTo(id);
+        Instant from = ((Timestamp) args[3]).toInstant();
+        Instant to = ((Timestamp) args[4]).toInstant();
+        assertThat(from).isBefore(createdAt);
+        assertThat(to).isAfter(createdAt);
+    }
+
+    @Test
+    void args_leaveLegacyIdsUnbounded() {
+        Object[] args = JobIdPredicate.args(UUID.randomUUID());
+
+        assertThat(((Timestamp) args[1]).toInstant()).isBefore(Instant.parse("2000-01-01T00:00:00Z"));
+        assertThat(((Timestamp) args[2]).toInstant()).isAfter(Instant.parse("3000-01-01T00:00:00Z"));
+    }
+
+    /**
+     * Lookups by id on a flat table, on a monthly-partitioned one with the created_at window
+     * (pruned to one partition), and on the partitioned one by id only (every partition probed).
+     * Needs a scratch Postgres: BENCHMARK_POSTGRES_URL (plus _USER/_PASSWORD); BENCHMARK_ROWS
+     * defaults to 10,000,000 over 24 months. Every variant must find every sampled row; the measured
+     * round ends with each variant's time relative to the flat table. Run with RUN_BENCHMARKS=true.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK_POSTGRES_URL", matches = ".+")
+    void benchmark_partitionPrunedLookups() throws SQLException {
+        long rows = Long.parseLong(System.getenv().getOrDefault("BENCHMARK_ROWS", "10000000"));
+        int months = 24;
+        int lookups = 2_000;
+        try (Connection connection = DriverManager.getConnection(System.getenv("BENCHMARK_POSTGRES_URL"),
+                System.getenv("BENCHMARK_POSTGRES_USER"), System.getenv("BENCHMARK_POSTGRES_PASSWORD"));
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bench_jobs_flat, bench_jobs_part");
+            statement.execute("""
+                CREATE TABLE bench_jobs_flat (id UUID PRIMARY KEY, status VARCHAR(32) NOT NULL,
+                    created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL)""");
+            statement.execute("""
+                CREATE TABLE bench_jobs_part (id UUID NOT NULL, status VARCHAR(32) NOT NULL,
+                    created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL, PRIMARY KEY (id, created_at))
+                PARTITION BY RANGE (created_at)""");
+            for (int m = 0; m < months; m++) {
+                statement.execute("""
+                    CREATE TABLE bench_jobs_part_%d PARTITION OF bench_jobs_part
+                    FOR VALUES FROM (date '2024-01-01' + interval '%d months') TO (date '2024-01-01' + interval '%d months')"""
+                        .formatted(m, m, m + 1));
+            }
+            // Version 7 ids built in SQL: 48-bit millisecond timestamp, version nibble, random rest.
+            String seed = """
+                INSERT INTO %s
+                SELECT (lpad(to_hex((extract(epoch FROM ts) * 1000)::bigint), 12, '0') || '7'
+                        || substr(h, 1, 3) || '8' || substr(h, 4, 15))::uuid,
+                       CASE WHEN g %% 50 = 0 THEN 'FAILED' ELSE 'COMPLETED' END, ts, ts
+                FROM (SELECT g, md5(g::text) AS h,
+                             timestamp '2024-01-01' + (g::double precision / %d) * interval '%d months' * 0.999 AS ts
+                      FROM generate_series(0, %d) g) s""";
+            statement.execute(seed.formatted("bench_jobs_flat", rows, months, rows - 1));
+            statement.execute(seed.formatted("bench_jobs_part", rows, months, rows - 1));
+            statement.execute("ANALYZE bench_jobs_flat");
+            statement.execute("ANALYZE bench_jobs_part");
+
+            List<UUID> ids = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT id FROM bench_jobs_flat TABLESAMPLE SYSTEM (1) LIMIT " + lookups)) {
+                while (rs.next()) {
+                    ids.add(rs.getObject(1, UUID.class));
+                }
+            }
+
+            log.info("partitioning: {} rows, {} months, {} lookups by id", "%,d".formatted(rows), months, ids.size());
+            for (int round = 0; round < 2; round++) {
+                String label = round == 0 ? "warm-up" : "measured";
+                double flat = report(label, "flat, id only", connection,
+                        "SELECT status FROM bench_jobs_flat WHERE id = ?", ids, false);
+                double pruned = report(label, "partitioned, id + created_at window", connection,
+                        "SELECT status FROM bench_jobs_part WHERE " + JobIdPredicate.SQL, ids, true);
+                double unpruned = report(label, "partitioned, id only", connection,
+                        "SELECT status FROM bench_jobs_part WHERE id = ?", ids, false);
+                double updateFlat = report(label, "update flat", connection,
+                        "UPDATE bench_jobs_flat SET updated_at = now() WHERE id = ?", ids, false);
+                double updatePruned = report(label, "update partitioned, pruned", connection,
+                        "UPDATE bench_jobs_part SET updated_at = now() WHERE " + JobIdPredicate.SQL, ids, true);
+                if (round == 1) {
+                    log.info("relative to flat: lookup pruned {}x, lookup id only {}x, update pruned {}x",
+                            "%.2f".formatted(pruned / flat), "%.2f".formatted(unpruned / flat),
+                            "%.2f".formatted(updatePruned / updateFlat));
+                }
+            }
+            statement.execute("DROP TABLE bench_jobs_flat, bench_jobs_part");
+        }
+    }
+
+    /**
+     * @return microseconds per lookup or update
+     */
+    private static double report(String round, String label, Connection connection, String sql,
+                                 List<UUID> ids, boolean pruned) throws SQLException {
+        long start = System.nanoTime();
+        int found = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (UUID id : ids) {
+                Object[] args = pruned ? JobIdPredicate.args(id) : new Object[] {id};
+                for (int i = 0; i < args.length; i++) {
+                    statement.setObject(i + 1, args[i]);
+                }
+                if (statement.execute()) {
+                    try (ResultSet rs = statement.getResultSet()) {
+                        found += rs.next() ? 1 : 0;
+                    }
+                } else {
+                    found += statement.getUpdateCount();
+                }
+            }
+        }
+        double micros = (System.nanoTime() - start) / 1e3 / ids.size();
+        log.info("{} {}: {} us/op ({}/{} rows)", round, label, "%.1f".formatted(micros), found, ids.size());
+        // A window that missed a row would look fast; only a complete result counts.
+        assertThat(found).as(label).isEqualTo(ids.size());
+        return micros;
+    }
+}
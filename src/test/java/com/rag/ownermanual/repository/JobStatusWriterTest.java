@@ -0,0 +1,146 @@
+package com.rag.ownermanual.repository;
+
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionProgress;
+import com.rag.ownermanual.domain.IngestionStage;
+import com.rag.ownermanual.domain.JobLease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests JobStatusWriter: staged updates coalesce per job and are written in one batch per owner,
+ * and transitions out of PROCESSING write the job's pending update first, synchronously.
+ */
+@ExtendWith(MockitoExtension.class)
+class JobStatusWriterTest {
+
+    private static final String OWNER = "worker-1";
+
+    @Mock
+    private IngestionJobRepository jobRepository;
+
+    @Mock
+    private IngestionJobQueueRepository jobQueue;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void flush_writesLatestUpdatePerJob_inOneBatch() {
+        JobStatusWriter writer = new JobStatusWriter(jobRepository, jobQueue, meterRegistry);
+        JobLease first = lease();
+        JobLease second = lease();
+        writer.stage(first, progress(1));
+        writer.stage(first, progress(2));
+        writer.stage(second, progress(7));
+
+        assertThat(writer.flush()).isEqualTo(2);
+        assertThat(writer.flush()).isZero();
+
+        verify(jobRepository).updateProgress(OWNER, Map.of(first.jobId(), progress(2), second.jobId(), progress(7)));
+        assertThat(meterRegistry.get("ingestion.job.writes.coalesced").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("ingestion.job.writes.batch.size").summary().max()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("ingestion.job.writes.flush").tag("trigger", "scheduled").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void complete_writesPendingUpdateBeforeTheTransition_andLeavesOtherJobsBuffered() {
+        JobStatusWriter writer = new JobStatusWriter(jobRepository, jobQueue, meterRegistry);
+        JobLease finishing = lease();
+        JobLease running = lease();
+        writer.stage(finishing, progress(3));
+        writer.stage(running, progress(4));
+        ChunkChangeCounts changes = new ChunkChangeCounts(3, 0, 0, 0);
+        when(jobQueue.complete(finishing.jobId(), OWNER, changes)).thenReturn(true);
+
+        assertThat(writer.complete(finishing, changes)).isTrue();
+
+        InOrder order = inOrder(jobRepository, jobQueue);
+        order.verify(jobRepository).updateProgress(OWNER, Map.of(finishing.jobId(), progress(3)));
+        order.verify(jobQueue).complete(finishing.jobId(), OWNER, changes);
+        assertThat(writer.flush()).isEqualTo(1);
+    }
+
+    @Test
+    void fail_withoutPendingUpdate_onlyWritesTheTransition() {
+        JobStatusWriter writer = new JobStatusWriter(jobRepository, jobQueue, meterRegistry);
+        JobLease lease = lease();
+
+        writer.fail(lease, "not a PDF");
+
+        verify(jobRepository, never()).updateProgress(any(), any());
+        verify(jobQueue).fail(lease.jobId(), OWNER, "not a PDF");
+    }
+
+    @Test
+    void flush_whenTheBatchFails_keepsUpdatesForTheNextFlush() {
+        JobStatusWriter writer = new JobStatusWriter(jobRepository, jobQueue, meterRegistry);
+        JobLease lease = lease();
+        writer.stage(lease, progress(5));
+        when(jobRepository.updateProgress(any(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+
+        writer.flush();
+        assertThat(writer.flush()).isEqualTo(1);
+
+        verify(jobRepository, times(2)).updateProgress(OWNER, Map.of(lease.jobId(), progress(5)));
+    }
+
+    @Test
+    void complete_duringAScheduledFlushOfItsProgress_waitsForThatWriteBeforeTheTransition() throws Exception {
+        JobStatusWriter writer = new JobStatusWriter(jobRepository, jobQueue, meterRegistry);
+        JobLease lease = lease();
+        writer.stage(lease, progress(9));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jobRepository.updateProgress(any(), any())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 1;
+        });
+        ChunkChangeCounts changes = new ChunkChangeCounts(1, 0, 0, 0);
+        Thread scheduled = new Thread(writer::flush);
+        scheduled.start();
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Boolean> completed = CompletableFuture.supplyAsync(() -> writer.complete(lease, changes));
+        Thread.sleep(100);
+        verify(jobQueue, never()).complete(any(), any(), any());
+
+        release.countDown();
+        completed.get(5, TimeUnit.SECONDS);
+        scheduled.join(5_000);
+        InOrder order = inOrder(jobRepository, jobQueue);
+        order.verify(jobRepository).updateProgress(OWNER, Map.of(lease.jobId(), progress(9)));
+        order.verify(jobQueue).complete(lease.jobId(), OWNER, changes);
+    }
+
+    private static JobLease lease() {
+        return new JobLease(UUID.randomUUID(), "manual-1", "https://example.com/manual.pdf", OWNER, 1);
+    }
+
+    private static IngestionProgress progress(int pages) {
+        return new IngestionProgress(IngestionStage.PARSING, pages, null, 0, 0, null, 0L, null,
+                Instant.parse("2026-01-01T00:00:00Z"));
+    }
+}
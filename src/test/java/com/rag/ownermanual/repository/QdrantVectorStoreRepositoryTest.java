@@ -1,44 +1,77 @@
 package com.rag.ownermanual.repository;
 
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.config.QdrantVectorStoreProperties;
 import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.exception.DownstreamVectorStoreException;
 import com.rag.ownermanual.resilience.ResilienceService;
+import com.google.common.util.concurrent.Futures;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.qdrant.client.QdrantClient;
+import io.qdrant.client.grpc.Points.PointsUpdateOperation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.function.Supplier;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
  * Unit tests for QdrantVectorStoreRepository: Chunk ↔ Document mapping,
- * search with optional vehicle_model filter, and upsert behavior.
+ * search with optional vehicle_model filter, batched upsert behavior and occurrence page updates.
  */
 class QdrantVectorStoreRepositoryTest {
 
     private StubVectorStore stubVectorStore;
+    private QdrantClient qdrantClient;
     private QdrantVectorStoreRepository repository;
     private ResilienceService resilienceService;
+    private IngestionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
 
     @BeforeEach
     void setUp() {
         stubVectorStore = new StubVectorStore();
+        qdrantClient = mock(QdrantClient.class);
+        when(qdrantClient.batchUpdateAsync(anyString(), any(), any(), any(), any()))
+                .thenReturn(Futures.immediateFuture(List.of()));
         resilienceService = mock(ResilienceService.class);
         when(resilienceService.execute(anyString(), any()))
                 .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
-        repository = new QdrantVectorStoreRepository(stubVectorStore, resilienceService);
+        properties = new IngestionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        repository = newRepository();
+    }
+
+    private QdrantVectorStoreRepository newRepository() {
+        QdrantVectorStoreProperties qdrantProperties = new QdrantVectorStoreProperties();
+        qdrantProperties.setCollectionName("manuals");
+        return new QdrantVectorStoreRepository(stubVectorStore, qdrantClient, qdrantProperties, resilienceService, properties,
+                new SimpleAsyncTaskExecutor("embed-"), meterRegistry);
     }
 
     @Test
@@ -59,7 +92,8 @@ class QdrantVectorStoreRepositoryTest {
                         "manual_id", "manual-1",
                         "vehicle_model", "Model-X",
                         "section", "Maintenance",
-                        "page", 42
+                        "page", 42,
+                        "occurrence_pages", List.of(77, 130.0)
                 )
         );
         stubVectorStore.searchResults = List.of(doc1);
@@ -74,6 +108,7 @@ class QdrantVectorStoreRepositoryTest {
         assertThat(chunk.vehicleModel()).isEqualTo("Model-X");
         assertThat(chunk.section()).isEqualTo("Maintenance");
         assertThat(chunk.page()).isEqualTo(42);
+        assertThat(chunk.occurrencePages()).containsExactly(77, 130);
         assertThat(stubVectorStore.lastSearchRequest.getQuery()).isEqualTo("How often to change oil?");
         assertThat(stubVectorStore.lastSearchRequest.getTopK()).isEqualTo(5);
     }
@@ -88,6 +123,19 @@ class QdrantVectorStoreRepositoryTest {
         assertThat(stubVectorStore.lastSearchRequest.getFilterExpression()).isNotNull();
     }
 
+    @Test
+    void search_withSection_filtersOnSectionScopeAndVehicleModel() {
+        stubVectorStore.searchResults = List.of();
+
+        repository.search("tire pressure", "Model-Y", " Maintenance > Tyres ", 10);
+
+        assertThat(stubVectorStore.lastSearchRequest.getFilterExpression()).isEqualTo(new Filter.Expression(
+                Filter.ExpressionType.AND,
+                new Filter.Expression(Filter.ExpressionType.EQ, new Filter.Key("vehicle_model"), new Filter.Value("Model-Y")),
+                new Filter.Expression(Filter.ExpressionType.EQ, new Filter.Key("section_scope"),
+                        new Filter.Value("Maintenance > Tyres"))));
+    }
+
     @Test
     void search_withNullVehicleModel_doesNotRequireFilter() {
         stubVectorStore.searchResults = List.of();
@@ -98,6 +146,64 @@ class QdrantVectorStoreRepositoryTest {
         assertThat(stubVectorStore.lastSearchRequest.getTopK()).isEqualTo(5);
     }
 
+    @Test
+    void deleteChunks_deletesAllPointIdsInOneCall() {
+        repository.deleteChunks(List.of("chunk-1", "chunk-2"));
+
+        assertThat(stubVectorStore.deleteCalls).containsExactly(List.of(
+                UUID.nameUUIDFromBytes("chunk-1".getBytes(StandardCharsets.UTF_8)).toString(),
+                UUID.nameUUIDFromBytes("chunk-2".getBytes(StandardCharsets.UTF_8)).toString()));
+    }
+
+    @Test
+    void deleteChunks_withNoIds_doesNotCallStore() {
+        repository.deleteChunks(List.of());
+
+        assertThat(stubVectorStore.deleteCalls).isEmpty();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void setOccurrencePages_setsOrDeletesThePayloadFieldInOneBatch_withoutReembedding() {
+        Map<String, List<Integer>> occurrencePages = new LinkedHashMap<>();
+        occurrencePages.put("chunk-1", List.of(4, 9));
+        occurrencePages.put("chunk-2", List.of());
+
+        repository.setOccurrencePages(occurrencePages);
+
+        ArgumentCaptor<List<PointsUpdateOperation>> operations = ArgumentCaptor.forClass(List.class);
+        verify(qdrantClient).batchUpdateAsync(eq("manuals"), operations.capture(), eq(true), isNull(), any());
+        assertThat(operations.getValue()).hasSize(2);
+        PointsUpdateOperation.SetPayload set = operations.getValue().get(0).getSetPayload();
+        assertThat(set.getPointsSelector().getPoints().getIds(0).getUuid())
+                .isEqualTo(UUID.nameUUIDFromBytes("chunk-1".getBytes(StandardCharsets.UTF_8)).toString());
+        assertThat(set.getPayloadMap().get("occurrence_pages").getListValue().getValuesList())
+                .extracting(value -> value.getIntegerValue()).containsExactly(4L, 9L);
+        PointsUpdateOperation.DeletePayload delete = operations.getValue().get(1).getDeletePayload();
+        assertThat(delete.getPointsSelector().getPoints().getIds(0).getUuid())
+                .isEqualTo(UUID.nameUUIDFromBytes("chunk-2".getBytes(StandardCharsets.UTF_8)).toString());
+        assertThat(delete.getKeysList()).containsExactly("occurrence_pages");
+        assertThat(stubVectorStore.addedDocuments).isEmpty();
+    }
+
+    @Test
+    void setOccurrencePages_withNoChunks_doesNotCallQdrant() {
+        repository.setOccurrencePages(Map.of());
+
+        verify(qdrantClient, never()).batchUpdateAsync(anyString(), any(), any(), any(), any());
+    }
+
+    @Test
+    void setOccurrencePages_whenQdrantFails_throwsDownstreamVectorStoreException() {
+        when(qdrantClient.batchUpdateAsync(anyString(), any(), any(), any(), any()))
+                .thenReturn(Futures.immediateFailedFuture(new IllegalStateException("UNAVAILABLE")));
+
+        assertThatThrownBy(() -> repository.setOccurrencePages(Map.of("chunk-1", List.of(4))))
+                .isInstanceOf(DownstreamVectorStoreException.class)
+                .hasMessage("Vector store payload update failed")
+                .hasRootCauseMessage("UNAVAILABLE");
+    }
+
     @Test
     void upsertChunks_mapsChunksToDocumentsAndCallsAdd() {
         Chunk chunk = new Chunk(
@@ -105,8 +211,9 @@ class QdrantVectorStoreRepositoryTest {
                 "Check coolant level monthly.",
                 "manual-1",
                 "Model-X",
-                "Cooling",
-                12
+                "Maintenance > Cooling",
+                12,
+                List.of(40, 88)
         );
 
         repository.upsertChunks(List.of(chunk));
@@ -119,8 +226,10 @@ class QdrantVectorStoreRepositoryTest {
                 .containsEntry("chunk_id", "chunk-99")
                 .containsEntry("manual_id", "manual-1")
                 .containsEntry("vehicle_model", "Model-X")
-                .containsEntry("section", "Cooling")
-                .containsEntry("page", 12);
+                .containsEntry("section", "Maintenance > Cooling")
+                .containsEntry("section_scope", List.of("Maintenance", "Maintenance > Cooling"))
+                .containsEntry("page", 12)
+                .containsEntry("occurrence_pages", List.of(40, 88));
     }
 
     @Test
@@ -143,7 +252,9 @@ class QdrantVectorStoreRepositoryTest {
                 .containsEntry("manual_id", "manual-1")
                 .containsEntry("vehicle_model", "Model-X")
                 .doesNotContainKey("section")
-                .doesNotContainKey("page");
+                .doesNotContainKey("section_scope")
+                .doesNotContainKey("page")
+                .doesNotContainKey("occurrence_pages");
     }
 
     @Test
@@ -153,6 +264,65 @@ class QdrantVectorStoreRepositoryTest {
         assertThat(stubVectorStore.addedDocuments).isEmpty();
     }
 
+    @Test
+    void upsertChunks_splitsIntoBatchesWithinTokenBudget_andUpsertsEachBatch() {
+        properties.getEmbedding().setMaxTokensPerBatch(250);
+        repository = newRepository();
+        // ~100 tokens each ("word " is one token), so two fit in a batch of 250.
+        List<Chunk> chunks = chunks(5, 100);
+
+        repository.upsertChunks(chunks);
+
+        assertThat(stubVectorStore.addCalls).hasSize(3);
+        assertThat(stubVectorStore.addCalls).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+        assertThat(stubVectorStore.addedDocuments).extracting(doc -> doc.getMetadata().get("chunk_id"))
+                .containsExactlyInAnyOrder("chunk-0", "chunk-1", "chunk-2", "chunk-3", "chunk-4");
+        assertThat(meterRegistry.get("ingest.embedding.batch.latency").timer().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("ingest.embedding.chunks").counter().count()).isEqualTo(5.0);
+        assertThat(meterRegistry.get("ingest.embedding.tokens").counter().count()).isGreaterThanOrEqualTo(500.0);
+    }
+
+    @Test
+    void upsertChunks_respectsMaxChunksPerBatch() {
+        properties.getEmbedding().setMaxChunksPerBatch(3);
+        repository = newRepository();
+
+        repository.upsertChunks(chunks(7, 5));
+
+        assertThat(stubVectorStore.addCalls).extracting(List::size).containsExactlyInAnyOrder(3, 3, 1);
+    }
+
+    @Test
+    void upsertChunks_retriesEachBatchSeparately() {
+        properties.getEmbedding().setMaxChunksPerBatch(2);
+        repository = newRepository();
+
+        repository.upsertChunks(chunks(4, 5));
+
+        // One resilience-wrapped call per batch, so a retry only repeats that batch.
+        verify(resilienceService, times(2)).execute(eq("vectorUpsert"), any());
+    }
+
+    @Test
+    void upsertChunks_whenABatchFails_propagatesFailureAsDownstreamVectorStoreException() {
+        properties.getEmbedding().setMaxChunksPerBatch(1);
+        repository = newRepository();
+        stubVectorStore.failOnChunkId = "chunk-1";
+
+        assertThatThrownBy(() -> repository.upsertChunks(chunks(3, 5)))
+                .isInstanceOf(DownstreamVectorStoreException.class)
+                .hasMessage("Vector store upsert failed")
+                .hasCauseInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("embedding failed");
+    }
+
+    private static List<Chunk> chunks(int count, int wordsEach) {
+        String text = "word ".repeat(wordsEach).strip();
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Chunk("chunk-" + i, text, "manual-1", "Model-X", null, i + 1))
+                .toList();
+    }
+
     /**
      * Stub VectorStore: records the last SearchRequest and all documents passed to
      * add(List) so tests can assert request shape (query, topK, filter) and
@@ -161,10 +331,17 @@ class QdrantVectorStoreRepositoryTest {
     private static final class StubVectorStore implements VectorStore {
         SearchRequest lastSearchRequest;
         List<Document> searchResults = List.of();
-        final List<Document> addedDocuments = new ArrayList<>();
+        final List<Document> addedDocuments = Collections.synchronizedList(new ArrayList<>());
+        final List<List<Document>> addCalls = Collections.synchronizedList(new ArrayList<>());
+        final List<List<String>> deleteCalls = new ArrayList<>();
+        volatile String failOnChunkId;
 
         @Override
         public void add(List<Document> documents) {
+            if (documents.stream().anyMatch(doc -> doc.getMetadata().get("chunk_id").equals(failOnChunkId))) {
+                throw new IllegalStateException("embedding failed");
+            }
+            addCalls.add(List.copyOf(documents));
             addedDocuments.addAll(documents);
         }
 
@@ -176,7 +353,7 @@ class QdrantVectorStoreRepositoryTest {
 
         @Override
         public void delete(List<String> idList) {
-            // no-op for tests
+            deleteCalls.add(List.copyOf(idList));
         }
 
         @Override
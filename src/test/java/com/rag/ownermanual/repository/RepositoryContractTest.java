@@ -1,12 +1,19 @@
 package com.rag.ownermanual.repository;
 
 import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
 import com.rag.ownermanual.domain.IngestionJob;
+import com.rag.ownermanual.domain.IngestionJobCursor;
+import com.rag.ownermanual.domain.IngestionJobFilter;
 import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.IngestionJobSummary;
+import com.rag.ownermanual.domain.IngestionProgress;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,7 +26,7 @@ class RepositoryContractTest {
         // Stub: no real embedding or Qdrant; just satisfies the interface.
         VectorStoreRepository repo = new VectorStoreRepository() {
             @Override
-            public List<Chunk> search(String queryText, String vehicleModel, int topK) {
+            public List<Chunk> search(String queryText, String vehicleModel, String section, int topK) {
                 return List.of();
             }
 
@@ -27,11 +34,23 @@ class RepositoryContractTest {
             public void upsertChunks(List<Chunk> chunks) {
                 // no-op stub
             }
+
+            @Override
+            public void deleteChunks(Collection<String> chunkIds) {
+                // no-op stub
+            }
+
+            @Override
+            public void setOccurrencePages(Map<String, List<Integer>> occurrencePages) {
+                // no-op stub
+            }
         };
 
         List<Chunk> result = repo.search("How do I change the oil?", "Model-X", 5);
         assertThat(result).isEmpty();
         repo.upsertChunks(List.of());
+        repo.deleteChunks(List.of());
+        repo.setOccurrencePages(Map.of());
     }
 
     @Test
@@ -48,10 +67,30 @@ class RepositoryContractTest {
                 return Optional.empty();
             }
 
+            @Override
+            public Optional<IngestionJob> findByIdOnReplica(UUID id) {
+                return Optional.empty();
+            }
+
+            @Override
+            public List<IngestionJobSummary> findPage(IngestionJobFilter filter, IngestionJobCursor after, int limit) {
+                return List.of();
+            }
+
             @Override
             public void updateStatus(UUID id, IngestionJobStatus status, String errorMessage) {
                 // no-op stub
             }
+
+            @Override
+            public void updateChunkChanges(UUID id, ChunkChangeCounts changes) {
+                // no-op stub
+            }
+
+            @Override
+            public int updateProgress(String leaseOwner, Map<UUID, IngestionProgress> progress) {
+                return 0;
+            }
         };
 
         Instant now = Instant.now();
@@ -66,6 +105,7 @@ class RepositoryContractTest {
         IngestionJob saved = repo.save(job);
         assertThat(saved).isEqualTo(job);
         assertThat(repo.findById(job.id())).isEmpty();
+        assertThat(repo.findPage(IngestionJobFilter.all(), null, 10)).isEmpty();
         repo.updateStatus(job.id(), IngestionJobStatus.PROCESSING, null);
     }
 }
@@ -0,0 +1,92 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ParsedPage;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests BoilerplateFilter: learning repeated edge lines from a sample and stripping them from every page.
+ */
+class BoilerplateFilterTest {
+
+    private final List<ParsedPage> emitted = new ArrayList<>();
+
+    @Test
+    void stripsRepeatedHeadersFootersAndPageNumbers_butKeepsBodyText() {
+        BoilerplateFilter filter = new BoilerplateFilter(settings(5), emitted::add);
+
+        for (int page = 1; page <= 8; page++) {
+            filter.accept(new ParsedPage(page, manualPage(page, body(page)), null));
+        }
+        int count = filter.finish();
+
+        assertThat(count).isEqualTo(8);
+        assertThat(emitted).extracting(ParsedPage::pageNumber).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+        for (ParsedPage page : emitted) {
+            assertThat(page.text()).isEqualTo(body(page.pageNumber()));
+        }
+        assertThat(filter.removedRatio()).isGreaterThan(0.5).isLessThan(1.0);
+    }
+
+    @Test
+    void keepsLinesRepeatedOnlyOnSomePages_andDropsPagesLeftBlank() {
+        BoilerplateFilter filter = new BoilerplateFilter(settings(40), emitted::add);
+
+        filter.accept(new ParsedPage(1, "Owner's Manual\nWARNING: Hot surface.\nPage 1", null));
+        filter.accept(new ParsedPage(2, "Owner's Manual\nRefuel with 95 RON.\nPage 2", null));
+        filter.accept(new ParsedPage(3, "Owner's Manual\nWARNING: Hot surface.\nPage 3", null));
+        filter.accept(new ParsedPage(4, "Owner's Manual\nTow only with the ring provided.\nPage 4", null));
+        filter.accept(new ParsedPage(5, "Owner's Manual\nPage 5", null));
+        int count = filter.finish();
+
+        assertThat(count).isEqualTo(4);
+        assertThat(emitted).extracting(ParsedPage::text).containsExactly(
+                "WARNING: Hot surface.", "Refuel with 95 RON.", "WARNING: Hot surface.", "Tow only with the ring provided.");
+    }
+
+    @Test
+    void passesShortOrDisabledDocumentsThroughUnchanged() {
+        BoilerplateFilter shortDocument = new BoilerplateFilter(settings(40), emitted::add);
+        ParsedPage first = new ParsedPage(1, manualPage(1, "Body one"), null);
+        ParsedPage second = new ParsedPage(2, manualPage(2, "Body two"), null);
+        shortDocument.accept(first);
+        shortDocument.accept(second);
+        shortDocument.finish();
+
+        IngestionProperties.Boilerplate disabled = settings(2);
+        disabled.setEnabled(false);
+        BoilerplateFilter disabledFilter = new BoilerplateFilter(disabled, emitted::add);
+        for (int page = 1; page <= 4; page++) {
+            disabledFilter.accept(new ParsedPage(page, manualPage(page, "Body"), null));
+        }
+        disabledFilter.finish();
+
+        assertThat(emitted).hasSize(6);
+        assertThat(emitted.get(0)).isSameAs(first);
+        assertThat(emitted.get(1)).isSameAs(second);
+        assertThat(emitted.subList(2, 6)).allSatisfy(page -> assertThat(page.text()).startsWith("2024 Model X"));
+        assertThat(disabledFilter.removedRatio()).isZero();
+    }
+
+    private static String body(int page) {
+        return "Section " + (char) ('A' + page) + " covers the tyres.\nTrim " + (char) ('a' + page) + " uses run-flat tyres.";
+    }
+
+    private static IngestionProperties.Boilerplate settings(int samplePages) {
+        IngestionProperties.Boilerplate settings = new IngestionProperties.Boilerplate();
+        settings.setSamplePages(samplePages);
+        return settings;
+    }
+
+    private static String manualPage(int page, String body) {
+        return "2024 Model X   Owner's Manual\n\n"
+                + body + "\n\n"
+                + "© 2024 Example Motors. All rights reserved.\n"
+                + "   Page " + page + " of 412   \n";
+    }
+}
@@ -2,18 +2,30 @@ package com.rag.ownermanual.service;
 
 import com.rag.ownermanual.domain.Chunk;
 import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.domain.TextSlice;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.tokenizer.JTokkitTokenCountEstimator;
+import org.springframework.ai.tokenizer.TokenCountEstimator;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.IntSummaryStatistics;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
- * Unit tests for Chunker: verifies chunk boundaries, metadata propagation, and id stability for re-ingestion.
+ * Unit tests for Chunker: verifies chunk boundaries (fixed windows and token-budgeted structured
+ * chunks), metadata propagation, and id stability for re-ingestion.
  */
 class ChunkerTest {
 
+    private static final Logger log = LoggerFactory.getLogger(ChunkerTest.class);
+
     private static final String MANUAL_ID = "manual-123";
     private static final String VEHICLE_MODEL = "Model-X";
 
@@ -122,5 +134,181 @@ class ChunkerTest {
             assertThat(c1.section()).isEqualTo(c2.section());
         }
     }
-}
 
+    @Test
+    void structured_splitsAtSentenceBoundaries_withinTokenBudget_andOverlapsWholeSentences() {
+        Chunker chunker = Chunker.structured(40, 12);
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= 12; i++) {
+            text.append("Sentence number ").append(i).append(" describes the tyre pressure check. ");
+        }
+
+        List<Chunk> chunks = chunker.chunkPage(new ParsedPage(4, text.toString(), null), 0, MANUAL_ID, VEHICLE_MODEL);
+
+        assertThat(chunks).hasSizeGreaterThan(2);
+        for (Chunk chunk : chunks) {
+            assertThat(TOKENS.estimate(chunk.text())).isLessThanOrEqualTo(40);
+            assertThat(chunk.text()).startsWith("Sentence number").endsWith("check.");
+        }
+        String firstChunk = chunks.get(0).text();
+        String lastSentence = firstChunk.substring(firstChunk.lastIndexOf("Sentence number"));
+        assertThat(chunks.get(1).text()).startsWith(lastSentence);
+    }
+
+    @Test
+    void structured_neverSplitsInsideProcedureStepsOrWarnings() {
+        Chunker chunker = Chunker.structured(60, 0);
+        List<String> blocks = new ArrayList<>();
+        blocks.add("To replace the cabin air filter, park the vehicle and switch off the engine.");
+        for (int step = 1; step <= 6; step++) {
+            blocks.add(step + ". Open the glove box and release retainer " + step + " by pressing it firmly\n"
+                    + "   towards the centre console until it clicks, then lower the cover.");
+        }
+        blocks.add("WARNING: Do not operate the climate control\nwithout a filter installed.");
+        String text = String.join("\n", blocks);
+
+        List<Chunk> chunks = chunker.chunkPage(new ParsedPage(7, text, "Maintenance"), 0, MANUAL_ID, VEHICLE_MODEL);
+
+        assertThat(chunks).hasSizeGreaterThan(1);
+        for (String block : blocks) {
+            assertThat(chunks).anySatisfy(chunk -> assertThat(chunk.text()).contains(block));
+        }
+        assertThat(chunks).allSatisfy(chunk -> assertThat(chunk.text()).matches("(?s)(To replace|\\d\\.|WARNING).*"));
+        assertThat(chunks.getLast().id()).isEqualTo(MANUAL_ID + "-p7-" + chunks.size());
+    }
+
+    @Test
+    void structured_keepsAnOversizeStepWhole_asAChunkOfItsOwn() {
+        Chunker chunker = Chunker.structured(40, 10);
+        String intro = "Before you start, park on level ground and let the engine cool down.";
+        String step = "3. Remove the drain plug with a 17 mm socket and let the oil drain completely into the pan. "
+                .repeat(8).strip();
+        String next = "4. Refit the drain plug with a new washer and tighten it to 30 Nm.";
+        String text = String.join("\n", intro, step, next);
+        assertThat(TOKENS.estimate(step)).isGreaterThan(40 * 4);
+
+        List<Chunk> chunks = chunker.chunkPage(new ParsedPage(12, text, null), 0, MANUAL_ID, VEHICLE_MODEL);
+
+        assertThat(chunks).extracting(Chunk::text).containsExactly(intro, step, next);
+    }
+
+    @Test
+    void chunkPage_referencesPageText_andMatchesStreamingChunks() {
+        Chunker chunker = new Chunker(50, 10);
+        String pageText = "  " + "Check the coolant level when the engine is cold. ".repeat(4) + "\n";
+        ParsedPage page = new ParsedPage(2, pageText, null);
+
+        List<Chunk> chunks = chunker.chunkPage(page, 0, MANUAL_ID, VEHICLE_MODEL);
+        List<Chunk> streamed = new ArrayList<>();
+        chunker.chunks(page, 0, MANUAL_ID, VEHICLE_MODEL).forEachRemaining(streamed::add);
+
+        assertThat(streamed).isEqualTo(chunks);
+        assertThat(chunks).allSatisfy(chunk -> {
+            assertThat(chunk.content()).isInstanceOf(TextSlice.class);
+            assertThat(pageText).contains(chunk.text());
+        });
+        assertThat(chunks.get(0).text()).startsWith("Check");
+        assertThat(chunks.getLast().text()).endsWith("cold.");
+    }
+
+    @Test
+    void chunkBackedBySlice_equalsAndHashesLikeChunkBackedByString() {
+        Chunk slice = new Chunker(2_000, 200).chunkPage(new ParsedPage(1, " Fuel: 95 RON, 50 l – see page 9. ", "Fuel"),
+                0, MANUAL_ID, VEHICLE_MODEL).get(0);
+        Chunk copy = new Chunk(slice.id(), slice.text(), MANUAL_ID, VEHICLE_MODEL, "Fuel", 1);
+
+        assertThat(slice.content()).isInstanceOf(TextSlice.class);
+        assertThat(slice).isEqualTo(copy).hasSameHashCodeAs(copy);
+        assertThat(ManualManifestDiff.pageHash(List.of(slice))).isEqualTo(ManualManifestDiff.pageHash(List.of(copy)));
+    }
+
+    /**
+     * Bytes allocated per page by chunking with views of the page text vs copying each chunk's text
+     * (the previous behaviour), for both strategies. Run with RUN_BENCHMARKS=true.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    void benchmark_allocationPerPage_viewsVersusCopies() {
+        List<ParsedPage> pages = new ArrayList<>();
+        for (int p = 1; p <= 400; p++) {
+            pages.add(new ParsedPage(p, syntheticManualPage(p), null));
+        }
+        allocationBenchmark("fixed", new Chunker(2_000, 200), pages);
+        allocationBenchmark("structured", Chunker.structured(512, 64), pages);
+    }
+
+    private static void allocationBenchmark(String name, Chunker chunker, List<ParsedPage> pages) {
+        measureAllocation(chunker, pages, false); // warm-up
+        measureAllocation(chunker, pages, true);
+        log.info("chunker {}: bytes/page views={} copies={}",
+                name, measureAllocation(chunker, pages, false), measureAllocation(chunker, pages, true));
+    }
+
+    private static long measureAllocation(Chunker chunker, List<ParsedPage> pages, boolean copyText) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        long sink = 0;
+        for (ParsedPage page : pages) {
+            for (Chunk chunk : chunker.chunkPage(page, 0, MANUAL_ID, VEHICLE_MODEL)) {
+                CharSequence content = copyText ? chunk.text() : chunk.content();
+                sink += content.length();
+            }
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertThat(sink).isPositive();
+        return allocated / pages.size();
+    }
+
+    /**
+     * Chunks/sec, chunk count and token spread of fixed windows vs structured chunks on synthetic
+     * manual pages. Run with RUN_BENCHMARKS=true.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    void benchmark_fixedVersusStructured() {
+        List<ParsedPage> pages = new ArrayList<>();
+        for (int p = 1; p <= 400; p++) {
+            pages.add(new ParsedPage(p, syntheticManualPage(p), null));
+        }
+        benchmark("fixed", new Chunker(2_000, 200), pages);
+        benchmark("structured", Chunker.structured(512, 64), pages);
+    }
+
+    private static final TokenCountEstimator TOKENS = new JTokkitTokenCountEstimator();
+
+    private static void benchmark(String name, Chunker chunker, List<ParsedPage> pages) {
+        chunker.chunk(pages, MANUAL_ID, VEHICLE_MODEL); // warm-up
+        int rounds = 5;
+        long start = System.nanoTime();
+        List<Chunk> chunks = List.of();
+        for (int i = 0; i < rounds; i++) {
+            chunks = chunker.chunk(pages, MANUAL_ID, VEHICLE_MODEL);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        IntSummaryStatistics tokens = chunks.stream().mapToInt(chunk -> TOKENS.estimate(chunk.text())).summaryStatistics();
+        log.info("chunker {}: chunks={} chunks/sec={} tokens min={} avg={} max={}",
+                name, chunks.size(), "%.0f".formatted(chunks.size() * rounds / seconds), tokens.getMin(),
+                "%.0f".formatted(tokens.getAverage()), tokens.getMax());
+    }
+
+    private static String syntheticManualPage(int page) {
+        StringBuilder text = new StringBuilder();
+        text.append("Section ").append(page).append(" covers routine maintenance of the vehicle. ")
+                .append("Read every step before starting and keep the vehicle on level ground.\n\n");
+        for (int paragraph = 0; paragraph < page % 6; paragraph++) {
+            text.append("The service interval depends on driving conditions; towing, short trips and dusty roads ")
+                    .append("count as severe use. In that case halve the interval shown in the maintenance table. ")
+                    .append("A dealer can reset the service reminder after the inspection.\n\n");
+        }
+        for (int step = 1; step <= 4 + page % 12; step++) {
+            text.append(step).append(". Remove fastener ").append(step)
+                    .append(" using the supplied wrench and store it in the tray provided.\n");
+        }
+        text.append("\nCAUTION: Tighten all fasteners to 25 Nm. Over-tightening can damage the threads.\n\n");
+        for (int row = 0; row < page % 40; row++) {
+            text.append("Tyre size 2").append(row).append("5/55 R17    Front 2.3 bar    Rear 2.1 bar\n");
+        }
+        return text.toString();
+    }
+}
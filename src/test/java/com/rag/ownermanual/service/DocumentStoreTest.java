@@ -0,0 +1,151 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ParsedPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests DocumentStore: page round trip, URL validators, size-bounded LRU eviction and reloading the
+ * index from disk.
+ */
+class DocumentStoreTest {
+
+    @TempDir
+    Path storeDir;
+
+    @TempDir
+    Path downloadDir;
+
+    private IngestionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new IngestionProperties();
+        properties.getDocumentStore().setDirectory(storeDir.toString());
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void put_thenReplayPages_returnsPagesInOrder() throws IOException {
+        DocumentStore store = store();
+        List<ParsedPage> pages = List.of(
+                new ParsedPage(1, "Check tire pressure\nmonthly.", null),
+                new ParsedPage(2, "Coolant \"50/50\" mix", "Cooling"));
+
+        put(store, "a", 100, pages);
+        List<ParsedPage> replayed = new ArrayList<>();
+
+        assertThat(store.hasPages("a")).isTrue();
+        assertThat(store.replayPages("a", replayed::add)).isEqualTo(2);
+        assertThat(replayed).containsExactlyElementsOf(pages);
+        assertThat(store.replayPages("missing", replayed::add)).isEqualTo(-1);
+    }
+
+    @Test
+    void recordUrl_thenFindByUrl_returnsLatestValidators() {
+        DocumentStore store = store();
+        String url = "https://example.com/manual.pdf";
+
+        store.recordUrl(new DocumentStore.UrlEntry(url, "\"v1\"", null, "a"));
+        store.recordUrl(new DocumentStore.UrlEntry(url, "\"v2\"", "Wed, 21 Oct 2026 07:28:00 GMT", "b"));
+
+        assertThat(store.findByUrl(url)).contains(
+                new DocumentStore.UrlEntry(url, "\"v2\"", "Wed, 21 Oct 2026 07:28:00 GMT", "b"));
+        assertThat(store.findByUrl("https://example.com/other.pdf")).isEmpty();
+    }
+
+    @Test
+    void put_beyondMaxSize_evictsLeastRecentlyUsedDocument() throws IOException {
+        properties.getDocumentStore().setMaxSize(DataSize.ofBytes(2_500));
+        DocumentStore store = store();
+        put(store, "a", 1_000, List.of(page()));
+        put(store, "b", 1_000, List.of(page()));
+        store.hasPages("a"); // a is now more recently used than b
+
+        put(store, "c", 1_000, List.of(page()));
+
+        assertThat(store.hasPages("a")).isTrue();
+        assertThat(store.hasPages("b")).isFalse();
+        assertThat(store.hasPages("c")).isTrue();
+        assertThat(store.totalBytes()).isLessThanOrEqualTo(2_500);
+        assertThat(meterRegistry.get("ingest.document.store.evictions").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void put_documentLargerThanStore_isNotStored() throws IOException {
+        properties.getDocumentStore().setMaxSize(DataSize.ofBytes(500));
+        DocumentStore store = store();
+
+        put(store, "a", 1_000, List.of(page()));
+
+        assertThat(store.hasPages("a")).isFalse();
+        assertThat(store.totalBytes()).isZero();
+    }
+
+    @Test
+    void newStore_reloadsStoredDocumentsFromDisk() throws IOException {
+        DocumentStore first = store();
+        put(first, "a", 100, List.of(page()));
+
+        DocumentStore reopened = store();
+
+        assertThat(reopened.hasPages("a")).isTrue();
+        assertThat(reopened.totalBytes()).isEqualTo(first.totalBytes());
+    }
+
+    @Test
+    void newStore_withOtherSectionDetection_dropsStoredPages() throws IOException {
+        DocumentStore first = store();
+        put(first, "a", 100, List.of(page()));
+
+        properties.getExtraction().setSectionDetection(IngestionProperties.Extraction.SectionDetection.OUTLINE);
+        DocumentStore reopened = store();
+
+        assertThat(reopened.hasPages("a")).isFalse();
+        assertThat(reopened.totalBytes()).isZero();
+        try (Stream<Path> files = Files.list(storeDir.resolve("documents"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void disabledStore_findsNothing() {
+        properties.getDocumentStore().setEnabled(false);
+        DocumentStore store = store();
+        store.recordUrl(new DocumentStore.UrlEntry("https://example.com/manual.pdf", "\"v1\"", null, "a"));
+
+        assertThat(store.findByUrl("https://example.com/manual.pdf")).isEmpty();
+        assertThat(store.hasPages("a")).isFalse();
+        assertThat(store.replayPages("a", page -> { })).isEqualTo(-1);
+    }
+
+    private DocumentStore store() {
+        return new DocumentStore(properties, meterRegistry);
+    }
+
+    private void put(DocumentStore store, String sha256, int documentBytes, List<ParsedPage> pages) throws IOException {
+        Path document = Files.write(downloadDir.resolve(sha256 + ".download"), new byte[documentBytes]);
+        try (DocumentStore.PageRecorder recorder = store.startRecording()) {
+            pages.forEach(recorder);
+            store.put(sha256, document, recorder);
+        }
+    }
+
+    private static ParsedPage page() {
+        return new ParsedPage(1, "Page text", null);
+    }
+}
@@ -0,0 +1,62 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests FairShareScheduler: weighted shares, interleaving across polls, and due-count limits.
+ */
+class FairShareSchedulerTest {
+
+    private FairShareScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties properties = new IngestionProperties();
+        properties.getScheduler().setTenantWeights(Map.of("oem-a", 3));
+        scheduler = new FairShareScheduler(properties);
+    }
+
+    @Test
+    void allocate_singleSlotPolls_rotateTenantsByWeight() {
+        Map<String, Integer> due = Map.of("oem-a", 300, "oem-b", 300);
+
+        List<String> picks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            picks.add(scheduler.allocate(1, due).keySet().iterator().next());
+        }
+
+        assertThat(picks).containsExactly("oem-a", "oem-a", "oem-b", "oem-a", "oem-a", "oem-a", "oem-b", "oem-a");
+    }
+
+    @Test
+    void allocate_neverExceedsDueJobs_andGivesLeftoverToOthers() {
+        Map<String, Integer> allocation = scheduler.allocate(6, Map.of("oem-a", 1, "oem-b", 10, "oem-c", 0));
+
+        assertThat(allocation).isEqualTo(Map.of("oem-a", 1, "oem-b", 5));
+    }
+
+    @Test
+    void allocate_whenFewerJobsThanSlots_allocatesAllDueJobs() {
+        assertThat(scheduler.allocate(10, Map.of("oem-b", 2))).isEqualTo(Map.of("oem-b", 2));
+        assertThat(scheduler.allocate(10, Map.of())).isEmpty();
+    }
+
+    @Test
+    void allocate_dropsCreditOfTenantsWithoutDueJobs() {
+        // oem-b banks credit while losing picks to oem-a...
+        scheduler.allocate(1, Map.of("oem-a", 5, "oem-b", 5));
+        scheduler.allocate(1, Map.of("oem-a", 5, "oem-b", 5));
+        // ...then has nothing due, and starts from zero when it comes back.
+        scheduler.allocate(1, Map.of("oem-a", 5));
+
+        assertThat(scheduler.allocate(1, Map.of("oem-a", 5, "oem-b", 5))).containsOnlyKeys("oem-a");
+    }
+}
@@ -0,0 +1,69 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.IngestionJobPartitionChanges;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests IngestionJobPartitionMaintenance: the months passed to the repository follow from the
+ * settings and the current month, and changes are counted.
+ */
+class IngestionJobPartitionMaintenanceTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-10-19T12:00:00Z"), ZoneOffset.UTC);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IngestionProperties properties = new IngestionProperties();
+    private final List<YearMonth[]> calls = new ArrayList<>();
+
+    @Test
+    void maintain_createsAheadAndKeepsRetentionMonths_andCountsChanges() {
+        IngestionJobPartitionMaintenance maintenance = maintenance(Optional.of(new IngestionJobPartitionChanges(
+                List.of(YearMonth.of(2027, 1)), List.of(YearMonth.of(2025, 9)), List.of())));
+
+        maintenance.maintain();
+
+        assertThat(calls).singleElement().satisfies(months -> {
+            assertThat(months[0]).isEqualTo(YearMonth.of(2027, 1));
+            assertThat(months[1]).isEqualTo(YearMonth.of(2025, 10));
+        });
+        assertThat(meterRegistry.get("ingestion.jobs.partitions").tag("action", "created").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("ingestion.jobs.partitions").tag("action", "dropped").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void maintain_whenDisabled_doesNothing_andWhenTheRepositoryFails_doesNotThrow() {
+        properties.getRetention().setEnabled(false);
+        maintenance(Optional.empty()).maintain();
+        assertThat(calls).isEmpty();
+
+        properties.getRetention().setEnabled(true);
+        IngestionJobPartitionMaintenance failing = new IngestionJobPartitionMaintenance((createThrough, keepFrom) -> {
+            throw new QueryTimeoutException("statement timeout");
+        }, properties, meterRegistry, clock);
+        failing.maintain();
+        IngestionJobPartitionMaintenance lockTimeout = new IngestionJobPartitionMaintenance((createThrough, keepFrom) -> {
+            throw new CannotAcquireLockException("canceling statement due to lock timeout");
+        }, properties, meterRegistry, clock);
+        lockTimeout.maintain();
+    }
+
+    private IngestionJobPartitionMaintenance maintenance(Optional<IngestionJobPartitionChanges> result) {
+        return new IngestionJobPartitionMaintenance((createThrough, keepFrom) -> {
+            calls.add(new YearMonth[] {createThrough, keepFrom});
+            return result;
+        }, properties, meterRegistry, clock);
+    }
+}
@@ -0,0 +1,543 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionCheckpoint;
+import com.rag.ownermanual.domain.ManifestEntry;
+import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.exception.DownstreamVectorStoreException;
+import com.rag.ownermanual.repository.IngestionCheckpointRepository;
+import com.rag.ownermanual.repository.IngestionManifestRepository;
+import com.rag.ownermanual.repository.VectorStoreRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests IngestionPipeline with a real Chunker and stubbed parser / vector store: batching,
+ * backpressure through the bounded queues, failure propagation, stage metrics, incremental
+ * re-ingestion against the manifest and resuming a job from its checkpoint.
+ */
+class IngestionPipelineTest {
+
+    private static final String MANUAL_ID = "manual-123";
+    private static final String DOCUMENT_URL = "https://example.com/manual.pdf";
+    private static final String DOCUMENT_SHA256 = "d".repeat(64);
+
+    private RemoteDocumentParser documentParser;
+    private VectorStoreRepository vectorStoreRepository;
+    private IngestionProperties properties;
+    private InMemoryManifestRepository manifestRepository;
+    private InMemoryCheckpointRepository checkpointRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        documentParser = mock(RemoteDocumentParser.class);
+        vectorStoreRepository = mock(VectorStoreRepository.class);
+        manifestRepository = new InMemoryManifestRepository();
+        checkpointRepository = new InMemoryCheckpointRepository();
+        properties = new IngestionProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void run_upsertsChunksInOrderedBatchesOfConfiguredSize() {
+        properties.getPipeline().setUpsertBatchSize(4);
+        parserEmits(pages(10));
+        List<List<Chunk>> upserts = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> upserts.add(List.copyOf(invocation.getArgument(0))))
+                .when(vectorStoreRepository).upsertChunks(any());
+
+        IngestionPipeline.Result result = pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(result.pagesParsed()).isEqualTo(10);
+        assertThat(result.chunksUpserted()).isEqualTo(10);
+        assertThat(upserts).extracting(List::size).containsExactly(4, 4, 2);
+        assertThat(upserts.stream().flatMap(List::stream).map(Chunk::page))
+                .containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    }
+
+    @Test
+    void run_whenUpsertIsSlow_parserIsHeldBackByBoundedQueues() throws Exception {
+        IngestionProperties.Pipeline settings = properties.getPipeline();
+        settings.setPageQueueCapacity(2);
+        settings.setBatchQueueCapacity(1);
+        settings.setUpsertBatchSize(1);
+
+        AtomicInteger emitted = new AtomicInteger();
+        List<ParsedPage> pages = pages(100);
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<ParsedPage> sink = invocation.getArgument(2);
+            for (ParsedPage page : pages) {
+                sink.accept(page);
+                emitted.incrementAndGet();
+            }
+            return new RemoteDocumentParser.FetchResult(pages.size(), DOCUMENT_SHA256, false, 0);
+        });
+        CountDownLatch upsertStarted = new CountDownLatch(1);
+        CountDownLatch releaseUpsert = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            upsertStarted.countDown();
+            releaseUpsert.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(vectorStoreRepository).upsertChunks(any());
+
+        IngestionPipeline pipeline = pipeline();
+        Thread runner = new Thread(() -> pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL));
+        runner.start();
+
+        assertThat(upsertStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+        // One batch upserting, one queued, a full batch held by the chunker until the next page's
+        // chunk arrives, that page, and two queued pages.
+        assertThat(emitted.get()).isLessThanOrEqualTo(6);
+        assertThat(meterRegistry.get("ingest.pipeline.queue.depth").tag("queue", "pages").gauge().value())
+                .isEqualTo(2.0);
+
+        releaseUpsert.countDown();
+        runner.join(5_000);
+        assertThat(emitted.get()).isEqualTo(100);
+    }
+
+    @Test
+    void run_whenUpsertFails_cancelsParsingAndRethrowsOriginalException() {
+        properties.getPipeline().setUpsertBatchSize(1);
+        properties.getPipeline().setPageQueueCapacity(1);
+        properties.getPipeline().setBatchQueueCapacity(1);
+        AtomicInteger emitted = new AtomicInteger();
+        List<ParsedPage> pages = pages(1_000);
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<ParsedPage> sink = invocation.getArgument(2);
+            for (ParsedPage page : pages) {
+                sink.accept(page);
+                emitted.incrementAndGet();
+            }
+            return new RemoteDocumentParser.FetchResult(pages.size(), DOCUMENT_SHA256, false, 0);
+        });
+        DownstreamVectorStoreException failure = new DownstreamVectorStoreException("Vector store unavailable", null);
+        doThrow(failure).when(vectorStoreRepository).upsertChunks(any());
+
+        assertThatThrownBy(() -> pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL)).isSameAs(failure);
+        assertThat(emitted.get()).isLessThan(pages.size());
+    }
+
+    @Test
+    void run_recordsStageItemsAndDurations() {
+        properties.getPipeline().setUpsertBatchSize(2);
+        parserEmits(pages(3));
+
+        pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(meterRegistry.get("ingest.pipeline.stage.items").tag("stage", "parse").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("ingest.pipeline.stage.items").tag("stage", "chunk").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("ingest.pipeline.stage.items").tag("stage", "upsert").counter().count()).isEqualTo(3.0);
+        for (String stage : List.of("parse", "chunk", "upsert")) {
+            assertThat(meterRegistry.get("ingest.pipeline.stage.duration").tag("stage", stage).timer().count()).isEqualTo(1);
+        }
+        assertThat(meterRegistry.get("ingest.pipeline.queue.depth").tag("queue", "batches").gauge().value()).isZero();
+    }
+
+    @Test
+    void run_whenParserFails_doesNotChunkOrUpsert() {
+        Chunker chunker = mock(Chunker.class);
+        when(documentParser.fetchAndParse(anyString(), any(), any(), any()))
+                .thenThrow(new IllegalStateException("boom"));
+
+        IngestionPipeline pipeline = pipeline(chunker);
+
+        assertThatThrownBy(() -> pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL)).hasMessage("boom");
+        verify(chunker, never()).chunkPage(any(), anyInt(), any(), any());
+        verify(vectorStoreRepository, never()).upsertChunks(any());
+    }
+
+    @Test
+    void run_firstIngestion_addsEveryChunkAndRecordsManifest() {
+        parserEmits(pages(3));
+
+        IngestionPipeline.Result result = pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(result.chunkChanges()).isEqualTo(new ChunkChangeCounts(3, 0, 0, 0));
+        assertThat(manifestRepository.findByManualId(MANUAL_ID)).extracting(ManifestEntry::pageKey)
+                .containsExactlyInAnyOrder(1, 2, 3);
+        verify(vectorStoreRepository).deleteChunks(Set.of());
+    }
+
+    @Test
+    void run_reingestingUnchangedDocument_upsertsNothing() {
+        parserEmits(pages(3));
+        IngestionPipeline pipeline = pipeline();
+        pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        List<List<Chunk>> upserts = recordUpserts();
+
+        IngestionPipeline.Result result = pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(result.chunkChanges()).isEqualTo(new ChunkChangeCounts(0, 0, 3, 0));
+        assertThat(result.chunksUpserted()).isZero();
+        assertThat(upserts).isEmpty();
+    }
+
+    @Test
+    void run_afterDocumentChanged_upsertsChangedPagesAndDeletesOrphansInOneCall() {
+        parserEmits(pages(4));
+        IngestionPipeline pipeline = pipeline();
+        pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        List<List<Chunk>> upserts = recordUpserts();
+
+        List<ParsedPage> revised = new ArrayList<>(pages(2));
+        revised.set(1, new ParsedPage(2, "Page 2 revised text", null));
+        parserEmits(revised);
+        IngestionPipeline.Result result = pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(result.chunkChanges()).isEqualTo(new ChunkChangeCounts(0, 1, 1, 2));
+        assertThat(upserts.stream().flatMap(List::stream).map(Chunk::text)).containsExactly("Page 2 revised text");
+        verify(vectorStoreRepository).deleteChunks(Set.of(MANUAL_ID + "-p3-1", MANUAL_ID + "-p4-1"));
+        assertThat(manifestRepository.findByManualId(MANUAL_ID)).extracting(ManifestEntry::pageKey)
+                .containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    void run_whenUpsertFails_keepsPreviousManifestAndDeletesNothing() {
+        parserEmits(pages(2));
+        IngestionPipeline pipeline = pipeline();
+        pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        List<ManifestEntry> before = manifestRepository.findByManualId(MANUAL_ID);
+
+        parserEmits(List.of(new ParsedPage(1, "Page 1 revised text", null)));
+        doThrow(new DownstreamVectorStoreException("Vector store unavailable", null))
+                .when(vectorStoreRepository).upsertChunks(any());
+
+        assertThatThrownBy(() -> pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL))
+                .isInstanceOf(DownstreamVectorStoreException.class);
+        assertThat(manifestRepository.findByManualId(MANUAL_ID)).isEqualTo(before);
+        verify(vectorStoreRepository, never()).deleteChunks(Set.of(MANUAL_ID + "-p2-1"));
+    }
+
+    @Test
+    void run_whenParserReportsDocumentUnchanged_keepsManifestAndSkipsStore() {
+        parserEmits(pages(3));
+        IngestionPipeline pipeline = pipeline();
+        pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        List<ManifestEntry> before = manifestRepository.findByManualId(MANUAL_ID);
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), eq(DOCUMENT_SHA256), any(), any()))
+                .thenReturn(new RemoteDocumentParser.FetchResult(0, DOCUMENT_SHA256, true, 0));
+
+        IngestionPipeline.Result result = pipeline.run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(result.documentUnchanged()).isTrue();
+        assertThat(result.chunkChanges()).isEqualTo(new ChunkChangeCounts(0, 0, 3, 0));
+        assertThat(manifestRepository.findByManualId(MANUAL_ID)).isEqualTo(before);
+        verify(vectorStoreRepository).upsertChunks(any());
+        verify(vectorStoreRepository).deleteChunks(any());
+    }
+
+    @Test
+    void run_sameDocumentWithDifferentChunkingSettings_reupsertsChunks() {
+        parserSkipsIngestedDocument(List.of(new ParsedPage(1, longPageText(), null)));
+        pipeline(new Chunker(properties)).run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        List<List<Chunk>> upserts = recordUpserts();
+
+        IngestionPipeline.Result unchanged = pipeline(new Chunker(properties)).run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        properties.getChunking().setMaxTokens(64);
+        properties.getChunking().setOverlapTokens(0);
+        IngestionPipeline.Result rechunked = pipeline(new Chunker(properties)).run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(unchanged.documentUnchanged()).isTrue();
+        assertThat(rechunked.documentUnchanged()).isFalse();
+        assertThat(rechunked.chunksUpserted()).isGreaterThan(1);
+        assertThat(upserts.stream().flatMap(List::stream))
+                .allSatisfy(chunk -> assertThat(chunk.text().length()).isLessThan(longPageText().length()));
+    }
+
+    @Test
+    void run_sameDocumentAfterSwitchingToFixedStrategy_reupsertsChunksAsWindows() {
+        String text = pageText(70);
+        parserSkipsIngestedDocument(List.of(new ParsedPage(1, text, null)));
+        pipeline(new Chunker(properties)).run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        List<List<Chunk>> upserts = recordUpserts();
+
+        properties.getChunking().setStrategy(IngestionProperties.Chunking.Strategy.FIXED);
+        IngestionPipeline.Result result = pipeline(new Chunker(properties)).run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(result.documentUnchanged()).isFalse();
+        assertThat(upserts.stream().flatMap(List::stream).map(Chunk::text))
+                .containsExactlyElementsOf(new Chunker(properties).chunkPage(
+                        new ParsedPage(1, text, null), 0, MANUAL_ID, MANUAL_ID).stream().map(Chunk::text).toList())
+                .hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void run_withJob_afterFailure_resumesAfterLastCommittedBatch() {
+        UUID jobId = UUID.randomUUID();
+        properties.getPipeline().setUpsertBatchSize(2);
+        parserEmits(pages(6));
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new DownstreamVectorStoreException("Vector store unavailable", null);
+            }
+            return null;
+        }).when(vectorStoreRepository).upsertChunks(any());
+        IngestionPipeline pipeline = pipeline();
+
+        assertThatThrownBy(() -> pipeline.run(jobId, MANUAL_ID, MANUAL_ID, DOCUMENT_URL))
+                .isInstanceOf(DownstreamVectorStoreException.class);
+        IngestionCheckpoint checkpoint = checkpointRepository.findByJobId(jobId).orElseThrow();
+        assertThat(checkpoint.pageHashes()).containsOnlyKeys(1, 2, 3, 4);
+        assertThat(checkpoint.lastPageKey()).isEqualTo(4);
+        assertThat(checkpoint.batchesCommitted()).isEqualTo(2);
+        assertThat(checkpoint.documentSha256()).isEqualTo(DOCUMENT_SHA256);
+
+        List<List<Chunk>> upserts = recordUpserts();
+        IngestionPipeline.Result result = pipeline.run(jobId, MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(upserts.stream().flatMap(List::stream).map(Chunk::page)).containsExactly(5, 6);
+        assertThat(result.chunksResumed()).isEqualTo(4);
+        assertThat(result.chunkChanges()).isEqualTo(new ChunkChangeCounts(6, 0, 0, 0));
+        assertThat(manifestRepository.findByManualId(MANUAL_ID)).hasSize(6);
+        assertThat(checkpointRepository.findByJobId(jobId)).isEmpty();
+    }
+
+    @Test
+    void run_withJob_whenCommittedPageChangedBeforeResume_upsertsItAgain() {
+        UUID jobId = UUID.randomUUID();
+        properties.getPipeline().setUpsertBatchSize(2);
+        checkpointRepository.commitBatch(jobId, DOCUMENT_SHA256, 2, Map.of(
+                1, ManualManifestDiff.pageHash(new Chunker(new IngestionProperties()).chunkPage(pages(1).get(0), 0, MANUAL_ID, MANUAL_ID)),
+                2, "0".repeat(64)));
+        parserEmits(pages(3));
+        List<List<Chunk>> upserts = recordUpserts();
+
+        IngestionPipeline.Result result = pipeline().run(jobId, MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(upserts.stream().flatMap(List::stream).map(Chunk::page)).containsExactly(2, 3);
+        assertThat(result.chunksResumed()).isEqualTo(1);
+    }
+
+    @Test
+    void run_storesRepeatedChunksOnce_withTheirPagesOnTheCanonicalChunk() {
+        String warning = "WARNING: Do not use the vehicle jack to support the vehicle while working underneath it. "
+                + "Place axle stands at the reinforced jacking points on firm level ground before you start.";
+        List<ParsedPage> pages = new ArrayList<>(pages(4));
+        pages.set(1, new ParsedPage(2, warning, null));
+        pages.set(3, new ParsedPage(4, warning, null));
+        parserEmits(pages);
+        List<List<Chunk>> upserts = recordUpserts();
+        List<Map<String, List<Integer>>> occurrenceUpdates = recordOccurrenceUpdates();
+
+        IngestionPipeline.Result result = pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(upserts).hasSize(1);
+        assertThat(upserts.getFirst()).extracting(Chunk::page).containsExactly(1, 2, 3);
+        String canonicalId = upserts.getFirst().get(1).id();
+        assertThat(occurrenceUpdates).containsExactly(Map.of(canonicalId, List.of(4)));
+        assertThat(result.chunksDeduplicated()).isEqualTo(1);
+        assertThat(result.dedupRatio()).isEqualTo(0.25);
+        assertThat(result.chunkChanges()).isEqualTo(new ChunkChangeCounts(3, 0, 0, 0));
+        assertThat(manifestRepository.findByManualId(MANUAL_ID)).extracting(ManifestEntry::pageKey).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void reRun_whenDuplicatesDisappear_rewritesTheCanonicalChunkWithoutOccurrencePages() {
+        String warning = "WARNING: Do not use the vehicle jack to support the vehicle while working underneath it. "
+                + "Place axle stands at the reinforced jacking points on firm level ground before you start.";
+        List<ParsedPage> pages = new ArrayList<>(pages(4));
+        pages.set(1, new ParsedPage(2, warning, null));
+        pages.set(3, new ParsedPage(4, warning, null));
+        parserEmits(pages);
+        pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        assertThat(manifestRepository.findByManualId(MANUAL_ID)).filteredOn(entry -> entry.pageKey() == 2)
+                .singleElement().extracting(ManifestEntry::occurrencePages).isEqualTo(List.of(4));
+
+        // Same document: the stored occurrence pages are still right, nothing is rewritten.
+        List<List<Chunk>> upserts = recordUpserts();
+        List<Map<String, List<Integer>>> occurrenceUpdates = recordOccurrenceUpdates();
+        pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+        assertThat(upserts).isEmpty();
+        assertThat(occurrenceUpdates).isEmpty();
+
+        // Page 4 no longer repeats the warning; page 2 is unchanged but its chunk loses page 4 in place.
+        pages.set(3, new ParsedPage(4, "Page 4 text", null));
+        parserEmits(pages);
+        pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(upserts).hasSize(1);
+        assertThat(upserts.getFirst()).extracting(Chunk::page).containsExactly(4);
+        String canonicalId = manifestRepository.findByManualId(MANUAL_ID).stream()
+                .filter(entry -> entry.pageKey() == 2).findFirst().orElseThrow().chunkId();
+        assertThat(occurrenceUpdates).containsExactly(Map.of(canonicalId, List.of()));
+        assertThat(manifestRepository.findByManualId(MANUAL_ID))
+                .allSatisfy(entry -> assertThat(entry.occurrencePages()).isEmpty());
+    }
+
+    @Test
+    void run_withoutJob_doesNotCheckpoint() {
+        properties.getPipeline().setUpsertBatchSize(1);
+        parserEmits(pages(2));
+
+        pipeline().run(MANUAL_ID, MANUAL_ID, DOCUMENT_URL);
+
+        assertThat(checkpointRepository.commits).isZero();
+    }
+
+    private List<List<Chunk>> recordUpserts() {
+        List<List<Chunk>> upserts = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> upserts.add(List.copyOf(invocation.getArgument(0))))
+                .when(vectorStoreRepository).upsertChunks(any());
+        return upserts;
+    }
+
+    private List<Map<String, List<Integer>>> recordOccurrenceUpdates() {
+        List<Map<String, List<Integer>>> updates = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> updates.add(Map.copyOf(invocation.getArgument(0))))
+                .when(vectorStoreRepository).setOccurrencePages(any());
+        return updates;
+    }
+
+    private IngestionPipeline pipeline() {
+        return pipeline(new Chunker(new IngestionProperties()));
+    }
+
+    private IngestionPipeline pipeline(Chunker chunker) {
+        return new IngestionPipeline(
+                documentParser,
+                chunker,
+                vectorStoreRepository,
+                manifestRepository,
+                checkpointRepository,
+                properties,
+                new SimpleAsyncTaskExecutor("parse-"),
+                new SimpleAsyncTaskExecutor("chunk-"),
+                new SimpleAsyncTaskExecutor("upsert-"),
+                meterRegistry
+        );
+    }
+
+    private void parserEmits(List<ParsedPage> pages) {
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<ParsedPage> sink = invocation.getArgument(2);
+            pages.forEach(sink);
+            return new RemoteDocumentParser.FetchResult(pages.size(), DOCUMENT_SHA256, false, 0);
+        });
+    }
+
+    /**
+     * Like {@link #parserEmits(List)}, but reports the document unchanged, as RemoteDocumentParser
+     * does, when the pipeline passes the hash of this very document as the one already ingested.
+     */
+    private void parserSkipsIngestedDocument(List<ParsedPage> pages) {
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), any(), any(), any())).thenAnswer(invocation -> {
+            if (DOCUMENT_SHA256.equals(invocation.getArgument(1))) {
+                return new RemoteDocumentParser.FetchResult(0, DOCUMENT_SHA256, true, 0);
+            }
+            Consumer<ParsedPage> sink = invocation.getArgument(2);
+            pages.forEach(sink);
+            return new RemoteDocumentParser.FetchResult(pages.size(), DOCUMENT_SHA256, false, 0);
+        });
+    }
+
+    /** About 1,500 characters of distinct sentences: one structured chunk at the default budget. */
+    private static String longPageText() {
+        return pageText(30);
+    }
+
+    /** Distinct sentences of about 50 characters each. */
+    private static String pageText(int sentences) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= sentences; i++) {
+            text.append("Sentence ").append(i).append(" describes maintenance step number ").append(i).append(". ");
+        }
+        return text.toString().strip();
+    }
+
+    private static List<ParsedPage> pages(int count) {
+        List<ParsedPage> pages = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            pages.add(new ParsedPage(i, "Page " + i + " text", null));
+        }
+        return pages;
+    }
+
+    private static final class InMemoryManifestRepository implements IngestionManifestRepository {
+        private final Map<String, List<ManifestEntry>> manifests = new ConcurrentHashMap<>();
+        private final Map<String, String> documentHashes = new ConcurrentHashMap<>();
+        private final Map<String, String> processingFingerprints = new ConcurrentHashMap<>();
+
+        @Override
+        public List<ManifestEntry> findByManualId(String manualId) {
+            return manifests.getOrDefault(manualId, List.of());
+        }
+
+        @Override
+        public Optional<String> findDocumentHash(String manualId, String processingFingerprint) {
+            return Optional.ofNullable(documentHashes.get(manualId))
+                    .filter(hash -> processingFingerprint.equals(processingFingerprints.get(manualId)));
+        }
+
+        @Override
+        public void replace(String manualId, String documentSha256, String processingFingerprint,
+                            List<ManifestEntry> entries) {
+            manifests.put(manualId, List.copyOf(entries));
+            documentHashes.put(manualId, documentSha256);
+            processingFingerprints.put(manualId, processingFingerprint);
+        }
+    }
+
+    private static final class InMemoryCheckpointRepository implements IngestionCheckpointRepository {
+        private final Map<UUID, IngestionCheckpoint> checkpoints = new ConcurrentHashMap<>();
+        private int commits;
+
+        @Override
+        public Optional<IngestionCheckpoint> findByJobId(UUID jobId) {
+            return Optional.ofNullable(checkpoints.get(jobId));
+        }
+
+        @Override
+        public synchronized void commitBatch(UUID jobId, String documentSha256, int chunks, Map<Integer, String> completedPages) {
+            commits++;
+            IngestionCheckpoint previous = checkpoints.getOrDefault(jobId,
+                    new IngestionCheckpoint(jobId, null, 0, 0, 0, Map.of()));
+            Map<Integer, String> pageHashes = new HashMap<>(previous.pageHashes());
+            pageHashes.putAll(completedPages);
+            int lastPageKey = Math.max(previous.lastPageKey(),
+                    completedPages.keySet().stream().mapToInt(Integer::intValue).max().orElse(0));
+            checkpoints.put(jobId, new IngestionCheckpoint(jobId,
+                    documentSha256 != null ? documentSha256 : previous.documentSha256(), lastPageKey,
+                    previous.batchesCommitted() + 1, previous.chunksCommitted() + chunks, pageHashes));
+        }
+
+        @Override
+        public void delete(UUID jobId) {
+            checkpoints.remove(jobId);
+        }
+    }
+}
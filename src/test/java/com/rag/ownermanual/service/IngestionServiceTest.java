@@ -1,13 +1,28 @@
 package com.rag.ownermanual.service;
 
+import com.rag.ownermanual.config.IngestionProperties;
 import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.domain.ChunkChangeCounts;
+import com.rag.ownermanual.domain.IngestionBatch;
 import com.rag.ownermanual.domain.IngestionJob;
 import com.rag.ownermanual.domain.IngestionJobStatus;
+import com.rag.ownermanual.domain.JobLease;
+import com.rag.ownermanual.domain.ManifestEntry;
 import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.dto.ingest.BulkIngestRequest;
+import com.rag.ownermanual.dto.ingest.BulkIngestResponse;
 import com.rag.ownermanual.dto.ingest.IngestRequest;
 import com.rag.ownermanual.dto.ingest.IngestResponse;
 import com.rag.ownermanual.exception.DocumentProcessingException;
+import com.rag.ownermanual.exception.DownstreamVectorStoreException;
+import com.rag.ownermanual.exception.InvalidJobStateException;
+import com.rag.ownermanual.exception.ResourceNotFoundException;
+import com.rag.ownermanual.repository.IngestionBatchRepository;
+import com.rag.ownermanual.repository.IngestionCheckpointRepository;
+import com.rag.ownermanual.repository.IngestionJobQueueRepository;
 import com.rag.ownermanual.repository.IngestionJobRepository;
+import com.rag.ownermanual.repository.IngestionManifestRepository;
+import com.rag.ownermanual.repository.JobStatusWriter;
 import com.rag.ownermanual.repository.VectorStoreRepository;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
@@ -16,15 +31,31 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -34,10 +65,18 @@ class IngestionServiceTest {
 
     private static final String MANUAL_ID = "manual-123";
     private static final String DOCUMENT_URL = "https://example.com/manual.pdf";
+    private static final String DOCUMENT_SHA256 = "d".repeat(64);
+    private static final String WORKER_ID = "worker-1";
 
     @Mock
     private IngestionJobRepository ingestionJobRepository;
 
+    @Mock
+    private IngestionBatchRepository ingestionBatchRepository;
+
+    @Mock
+    private IngestionJobQueueRepository jobQueue;
+
     @Mock
     private RemoteDocumentParser documentParser;
 
@@ -47,28 +86,59 @@ class IngestionServiceTest {
     @Mock
     private VectorStoreRepository vectorStoreRepository;
 
+    @Mock
+    private IngestionManifestRepository manifestRepository;
+
+    @Mock
+    private IngestionCheckpointRepository checkpointRepository;
+
+    private IngestionProperties properties;
     private IngestionService ingestionService;
 
     @BeforeEach
     void setUp() {
-        ingestionService = new IngestionService(
-                ingestionJobRepository,
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        properties = new IngestionProperties();
+        IngestionPipeline pipeline = new IngestionPipeline(
                 documentParser,
                 chunker,
                 vectorStoreRepository,
-                new SimpleMeterRegistry()
+                manifestRepository,
+                checkpointRepository,
+                properties,
+                new SimpleAsyncTaskExecutor("parse-"),
+                new SimpleAsyncTaskExecutor("chunk-"),
+                new SimpleAsyncTaskExecutor("upsert-"),
+                meterRegistry
         );
+        JobStatusWriter statusWriter = new JobStatusWriter(ingestionJobRepository, jobQueue, meterRegistry);
+        ingestionService = new IngestionService(ingestionJobRepository, ingestionBatchRepository, jobQueue, pipeline,
+                new IngestionProgressReporter(statusWriter, meterRegistry), statusWriter, properties, meterRegistry);
+    }
+
+    private JobLease claimed(UUID jobId, int attempt) {
+        JobLease lease = new JobLease(jobId, MANUAL_ID, DOCUMENT_URL, WORKER_ID, attempt);
+        when(jobQueue.claim(jobId, WORKER_ID)).thenReturn(Optional.of(lease));
+        return lease;
+    }
+
+    private void parserEmits(List<ParsedPage> pages) {
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), any(), any(), any())).thenAnswer(invocation -> {
+            Consumer<ParsedPage> sink = invocation.getArgument(2);
+            pages.forEach(sink);
+            return new RemoteDocumentParser.FetchResult(pages.size(), DOCUMENT_SHA256, false, 0);
+        });
     }
 
     @Test
-    void startIngestion_createsJobInCreatedState_andReturnsJobId() {
+    void startIngestion_enqueuesJobInCreatedStateWithDocumentUrl_andReturnsJobId() {
         IngestRequest request = new IngestRequest(MANUAL_ID, DOCUMENT_URL);
         ArgumentCaptor<IngestionJob> jobCaptor = ArgumentCaptor.forClass(IngestionJob.class);
 
         IngestResponse response = ingestionService.startIngestion(request);
 
         assertThat(response.jobId()).isNotNull();
-        verify(ingestionJobRepository).save(jobCaptor.capture());
+        verify(jobQueue).enqueue(jobCaptor.capture(), eq(DOCUMENT_URL));
         IngestionJob saved = jobCaptor.getValue();
         assertThat(saved.id()).isEqualTo(response.jobId());
         assertThat(saved.manualId()).isEqualTo(MANUAL_ID);
@@ -76,117 +146,242 @@ class IngestionServiceTest {
         assertThat(saved.errorMessage()).isNull();
         assertThat(saved.createdAt()).isNotNull();
         assertThat(saved.updatedAt()).isNotNull();
-        verify(documentParser, never()).fetchAndParse(any());
+        verify(documentParser, never()).fetchAndParse(any(), any(), any(), any());
     }
 
     @Test
-    void processJob_whenJobExistsAndCreated_runsPipelineAndSetsCompleted() {
-        UUID jobId = UUID.randomUUID();
-        Instant now = Instant.now();
-        IngestionJob job = new IngestionJob(jobId, MANUAL_ID, IngestionJobStatus.CREATED, null, now, now);
+    void startBatch_createsBatchWithOneJobPerManual_inRequestOrder() {
+        BulkIngestRequest request = new BulkIngestRequest("oem-a", List.of(
+                new IngestRequest("manual-1", "https://example.com/1.pdf"),
+                new IngestRequest("manual-2", "https://example.com/2.pdf")));
+        ArgumentCaptor<IngestionBatch> batchCaptor = ArgumentCaptor.forClass(IngestionBatch.class);
+
+        BulkIngestResponse response = ingestionService.startBatch(request);
+
+        verify(ingestionBatchRepository).create(batchCaptor.capture());
+        IngestionBatch batch = batchCaptor.getValue();
+        assertThat(batch.id()).isEqualTo(response.batchId());
+        assertThat(batch.tenant()).isEqualTo("oem-a");
+        assertThat(batch.children()).extracting(IngestionBatch.Child::manualId, IngestionBatch.Child::documentUrl)
+                .containsExactly(tuple("manual-1", "https://example.com/1.pdf"), tuple("manual-2", "https://example.com/2.pdf"));
+        assertThat(response.jobs()).extracting(BulkIngestResponse.BatchJob::manualId, BulkIngestResponse.BatchJob::jobId)
+                .containsExactly(tuple("manual-1", batch.children().get(0).jobId()), tuple("manual-2", batch.children().get(1).jobId()));
+        verify(jobQueue, never()).enqueue(any(), any());
+    }
 
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(job));
-        List<ParsedPage> pages = List.of(new ParsedPage(1, "Page one text", null));
-        when(documentParser.fetchAndParse(DOCUMENT_URL)).thenReturn(pages);
+    @Test
+    void processJob_whenClaimed_runsPipelineAndCompletes() {
+        UUID jobId = UUID.randomUUID();
+        claimed(jobId, 1);
+        ParsedPage page = new ParsedPage(1, "Page one text", null);
+        parserEmits(List.of(page));
         List<Chunk> chunks = List.of(
                 new Chunk(MANUAL_ID + "-p1-1", "Page one text", MANUAL_ID, MANUAL_ID, null, 1)
         );
-        when(chunker.chunk(pages, MANUAL_ID, MANUAL_ID)).thenReturn(chunks);
+        when(chunker.chunkPage(page, 0, MANUAL_ID, MANUAL_ID)).thenReturn(chunks);
 
-        ingestionService.processJob(jobId, DOCUMENT_URL);
+        ingestionService.processJob(jobId, WORKER_ID);
 
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.PROCESSING, null);
-        verify(documentParser).fetchAndParse(DOCUMENT_URL);
-        verify(chunker).chunk(pages, MANUAL_ID, MANUAL_ID);
+        verify(documentParser).fetchAndParse(eq(DOCUMENT_URL), any(), any(), any());
+        verify(chunker).chunkPage(page, 0, MANUAL_ID, MANUAL_ID);
         verify(vectorStoreRepository).upsertChunks(chunks);
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.COMPLETED, null);
+        verify(jobQueue).complete(jobId, WORKER_ID, new ChunkChangeCounts(1, 0, 0, 0));
     }
 
     @Test
-    void processJob_whenJobNotFound_doesNothing() {
+    void processJob_whenClaimFails_doesNothing() {
         UUID jobId = UUID.randomUUID();
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.empty());
+        when(jobQueue.claim(jobId, WORKER_ID)).thenReturn(Optional.empty());
 
-        ingestionService.processJob(jobId, DOCUMENT_URL);
+        ingestionService.processJob(jobId, WORKER_ID);
 
-        verify(ingestionJobRepository, never()).updateStatus(any(), any(), any());
-        verify(documentParser, never()).fetchAndParse(any());
+        verify(documentParser, never()).fetchAndParse(any(), any(), any(), any());
         verify(vectorStoreRepository, never()).upsertChunks(any());
+        verify(jobQueue, never()).complete(any(), any(), any());
+        verify(jobQueue, never()).fail(any(), any(), any());
     }
 
     @Test
-    void processJob_whenJobNotInCreatedState_skipsPipeline() {
+    void processJob_whenDocumentIsBad_failsWithoutRetry() {
         UUID jobId = UUID.randomUUID();
-        Instant now = Instant.now();
-        IngestionJob job = new IngestionJob(jobId, MANUAL_ID, IngestionJobStatus.PROCESSING, null, now, now);
-
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        claimed(jobId, 1);
+        String errorMessage = "Failed to parse document";
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), any(), any(), any())).thenThrow(new DocumentProcessingException(errorMessage));
 
-        ingestionService.processJob(jobId, DOCUMENT_URL);
+        ingestionService.processJob(jobId, WORKER_ID);
 
-        verify(ingestionJobRepository, never()).updateStatus(eq(jobId), eq(IngestionJobStatus.PROCESSING), any());
-        verify(documentParser, never()).fetchAndParse(any());
+        verify(chunker, never()).chunkPage(any(), anyInt(), any(), any());
         verify(vectorStoreRepository, never()).upsertChunks(any());
+        verify(jobQueue).fail(jobId, WORKER_ID, errorMessage);
+        verify(jobQueue, never()).retryLater(any(), any(), any(), any());
+        verify(jobQueue, never()).complete(any(), any(), any());
     }
 
     @Test
-    void processJob_whenParserThrows_setsFailedWithErrorMessage() {
+    void processJob_whenChunksEmpty_doesNotUpsert_stillCompletes() {
         UUID jobId = UUID.randomUUID();
-        Instant now = Instant.now();
-        IngestionJob job = new IngestionJob(jobId, MANUAL_ID, IngestionJobStatus.CREATED, null, now, now);
-        String errorMessage = "Failed to fetch document from URL";
+        claimed(jobId, 1);
+        parserEmits(List.of());
+
+        ingestionService.processJob(jobId, WORKER_ID);
+
+        verify(documentParser).fetchAndParse(eq(DOCUMENT_URL), any(), any(), any());
+        verify(chunker, never()).chunkPage(any(), anyInt(), any(), any());
+        verify(vectorStoreRepository, never()).upsertChunks(any());
+        verify(jobQueue).complete(eq(jobId), eq(WORKER_ID), any());
+    }
 
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(job));
-        when(documentParser.fetchAndParse(DOCUMENT_URL)).thenThrow(new DocumentProcessingException(errorMessage));
+    @Test
+    void processJob_whenDocumentUnchanged_completesWithUnchangedCounts() {
+        UUID jobId = UUID.randomUUID();
+        claimed(jobId, 1);
+        when(manifestRepository.findDocumentHash(eq(MANUAL_ID), any())).thenReturn(Optional.of(DOCUMENT_SHA256));
+        when(manifestRepository.findByManualId(MANUAL_ID)).thenReturn(List.of(
+                new ManifestEntry(MANUAL_ID + "-p1-1", 1, "a".repeat(64)),
+                new ManifestEntry(MANUAL_ID + "-p2-1", 2, "b".repeat(64))));
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), eq(DOCUMENT_SHA256), any(), any()))
+                .thenReturn(new RemoteDocumentParser.FetchResult(0, DOCUMENT_SHA256, true, 0));
 
-        ingestionService.processJob(jobId, DOCUMENT_URL);
+        ingestionService.processJob(jobId, WORKER_ID);
 
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.PROCESSING, null);
-        verify(documentParser).fetchAndParse(DOCUMENT_URL);
-        verify(chunker, never()).chunk(any(), any(), any());
+        verify(chunker, never()).chunkPage(any(), anyInt(), any(), any());
         verify(vectorStoreRepository, never()).upsertChunks(any());
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.FAILED, errorMessage);
+        verify(vectorStoreRepository, never()).deleteChunks(any());
+        verify(manifestRepository, never()).replace(any(), any(), any(), any());
+        verify(jobQueue).complete(jobId, WORKER_ID, new ChunkChangeCounts(0, 0, 2, 0));
     }
 
     @Test
-    void processJob_whenChunksEmpty_doesNotUpsert_stillSetsCompleted() {
+    void process_whenUpsertFailsTransiently_reschedulesWithBackoff() {
         UUID jobId = UUID.randomUUID();
-        Instant now = Instant.now();
-        IngestionJob job = new IngestionJob(jobId, MANUAL_ID, IngestionJobStatus.CREATED, null, now, now);
+        JobLease lease = new JobLease(jobId, MANUAL_ID, DOCUMENT_URL, WORKER_ID, 2);
+        ParsedPage page = new ParsedPage(1, "Page one text", null);
+        parserEmits(List.of(page));
+        when(chunker.chunkPage(page, 0, MANUAL_ID, MANUAL_ID)).thenReturn(List.of(
+                new Chunk(MANUAL_ID + "-p1-1", "Page one text", MANUAL_ID, MANUAL_ID, null, 1)));
+        doThrow(new DownstreamVectorStoreException("Qdrant unavailable", new RuntimeException("UNAVAILABLE")))
+                .when(vectorStoreRepository).upsertChunks(any());
+        Instant before = Instant.now();
+
+        ingestionService.process(lease);
+
+        ArgumentCaptor<Instant> nextAttempt = ArgumentCaptor.forClass(Instant.class);
+        verify(jobQueue).retryLater(eq(jobId), eq(WORKER_ID), anyString(), nextAttempt.capture());
+        // Second attempt: 10s initial backoff doubled once.
+        assertThat(nextAttempt.getValue()).isAfterOrEqualTo(before.plusSeconds(20));
+        verify(jobQueue, never()).fail(any(), any(), any());
+        verify(jobQueue, never()).complete(any(), any(), any());
+    }
 
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(job));
-        when(documentParser.fetchAndParse(DOCUMENT_URL)).thenReturn(List.of());
-        when(chunker.chunk(List.of(), MANUAL_ID, MANUAL_ID)).thenReturn(List.of());
+    @Test
+    void process_whenTransientFailureOnLastAttempt_fails() {
+        UUID jobId = UUID.randomUUID();
+        JobLease lease = new JobLease(jobId, MANUAL_ID, DOCUMENT_URL, WORKER_ID, properties.getQueue().getMaxAttempts());
+        when(documentParser.fetchAndParse(eq(DOCUMENT_URL), any(), any(), any())).thenThrow(new DocumentProcessingException(
+                "Failed to fetch document from URL", new ResourceAccessException("Connection reset")));
 
-        ingestionService.processJob(jobId, DOCUMENT_URL);
+        ingestionService.process(lease);
 
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.PROCESSING, null);
-        verify(documentParser).fetchAndParse(DOCUMENT_URL);
-        verify(chunker).chunk(List.of(), MANUAL_ID, MANUAL_ID);
-        verify(vectorStoreRepository, never()).upsertChunks(any());
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.COMPLETED, null);
+        verify(jobQueue).fail(jobId, WORKER_ID, "Failed to fetch document from URL");
+        verify(jobQueue, never()).retryLater(any(), any(), any(), any());
     }
 
     @Test
-    void processJobAsync_delegatesToProcessJobPipeline() {
+    void process_whenTheEmbeddingProviderRejectsTheKey_failsWithoutRetry() {
+        UUID jobId = UUID.randomUUID();
+        JobLease lease = new JobLease(jobId, MANUAL_ID, DOCUMENT_URL, WORKER_ID, 1);
+        ParsedPage page = new ParsedPage(1, "Page one text", null);
+        parserEmits(List.of(page));
+        when(chunker.chunkPage(page, 0, MANUAL_ID, MANUAL_ID)).thenReturn(List.of(
+                new Chunk(MANUAL_ID + "-p1-1", "Page one text", MANUAL_ID, MANUAL_ID, null, 1)));
+        doThrow(new NonTransientAiException("HTTP 401 - Incorrect API key provided"))
+                .when(vectorStoreRepository).upsertChunks(any());
+
+        ingestionService.process(lease);
+
+        verify(jobQueue).fail(jobId, WORKER_ID, "HTTP 401 - Incorrect API key provided");
+        verify(jobQueue, never()).retryLater(any(), any(), any(), any());
+    }
+
+    @Test
+    void processJob_passesJobIdToPipelineForCheckpointing() {
+        UUID jobId = UUID.randomUUID();
+        claimed(jobId, 1);
+        parserEmits(List.of());
+
+        ingestionService.processJob(jobId, WORKER_ID);
+
+        verify(checkpointRepository).findByJobId(jobId);
+        verify(checkpointRepository).delete(jobId);
+    }
+
+    @Test
+    void resumeJob_whenFailed_requeuesJob() {
         UUID jobId = UUID.randomUUID();
         Instant now = Instant.now();
-        IngestionJob job = new IngestionJob(jobId, MANUAL_ID, IngestionJobStatus.CREATED, null, now, now);
+        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(
+                new IngestionJob(jobId, MANUAL_ID, IngestionJobStatus.FAILED, "Qdrant unavailable", now, now)));
+        when(jobQueue.requeueFailed(jobId)).thenReturn(true);
 
-        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(job));
-        List<ParsedPage> pages = List.of(new ParsedPage(1, "Async page text", null));
-        when(documentParser.fetchAndParse(DOCUMENT_URL)).thenReturn(pages);
-        List<Chunk> chunks = List.of(
-                new Chunk(MANUAL_ID + "-p1-1", "Async page text", MANUAL_ID, MANUAL_ID, null, 1)
-        );
-        when(chunker.chunk(pages, MANUAL_ID, MANUAL_ID)).thenReturn(chunks);
+        ingestionService.resumeJob(jobId);
 
-        ingestionService.processJobAsync(jobId, DOCUMENT_URL);
+        verify(jobQueue).requeueFailed(jobId);
+    }
 
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.PROCESSING, null);
-        verify(documentParser).fetchAndParse(DOCUMENT_URL);
-        verify(chunker).chunk(pages, MANUAL_ID, MANUAL_ID);
-        verify(vectorStoreRepository).upsertChunks(chunks);
-        verify(ingestionJobRepository).updateStatus(jobId, IngestionJobStatus.COMPLETED, null);
+    @Test
+    void resumeJob_whenNotFailed_throwsInvalidJobState() {
+        UUID jobId = UUID.randomUUID();
+        Instant now = Instant.now();
+        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.of(
+                new IngestionJob(jobId, MANUAL_ID, IngestionJobStatus.COMPLETED, null, now, now)));
+
+        assertThatThrownBy(() -> ingestionService.resumeJob(jobId)).isInstanceOf(InvalidJobStateException.class);
+        verify(jobQueue, never()).requeueFailed(any());
+    }
+
+    @Test
+    void resumeJob_whenMissing_throwsNotFound() {
+        UUID jobId = UUID.randomUUID();
+        when(ingestionJobRepository.findById(jobId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> ingestionService.resumeJob(jobId)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void isRetryable_distinguishesTransientFromPermanentFailures() {
+        assertThat(IngestionService.isRetryable(new DownstreamVectorStoreException("down", null))).isTrue();
+        assertThat(IngestionService.isRetryable(new DocumentProcessingException("fetch",
+                new ResourceAccessException("timeout")))).isTrue();
+        assertThat(IngestionService.isRetryable(new DocumentProcessingException("fetch",
+                httpError(HttpStatus.SERVICE_UNAVAILABLE)))).isTrue();
+        assertThat(IngestionService.isRetryable(new DocumentProcessingException("fetch",
+                httpError(HttpStatus.TOO_MANY_REQUESTS)))).isTrue();
+        assertThat(IngestionService.isRetryable(new DocumentProcessingException("fetch",
+                httpError(HttpStatus.NOT_FOUND)))).isFalse();
+        assertThat(IngestionService.isRetryable(new DocumentProcessingException("empty body"))).isFalse();
+        assertThat(IngestionService.isRetryable(new TransientAiException("HTTP 503"))).isTrue();
+        assertThat(IngestionService.isRetryable(new QueryTimeoutException("checkpoint write"))).isTrue();
+        assertThat(IngestionService.isRetryable(new NonTransientAiException("HTTP 401"))).isFalse();
+        assertThat(IngestionService.isRetryable(new DownstreamVectorStoreException("upsert",
+                new NonTransientAiException("HTTP 401")))).isFalse();
+        assertThat(IngestionService.isRetryable(new IllegalStateException("bug"))).isFalse();
+        assertThat(IngestionService.isRetryable(new DataIntegrityViolationException("duplicate key"))).isFalse();
+    }
+
+    @Test
+    void retryBackoff_doublesPerAttempt_cappedAtMax() {
+        properties.getQueue().setRetryBackoffInitial(Duration.ofSeconds(10));
+        properties.getQueue().setRetryBackoffMax(Duration.ofSeconds(60));
+
+        assertThat(ingestionService.retryBackoff(1)).isEqualTo(Duration.ofSeconds(10));
+        assertThat(ingestionService.retryBackoff(2)).isEqualTo(Duration.ofSeconds(20));
+        assertThat(ingestionService.retryBackoff(3)).isEqualTo(Duration.ofSeconds(40));
+        assertThat(ingestionService.retryBackoff(4)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(ingestionService.retryBackoff(100)).isEqualTo(Duration.ofSeconds(60));
+    }
+
+    private static RestClientResponseException httpError(HttpStatus status) {
+        return new RestClientResponseException("Failed to fetch document", status, status.getReasonPhrase(),
+                new HttpHeaders(), null, null);
     }
 }
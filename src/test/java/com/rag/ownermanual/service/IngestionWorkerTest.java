@@ -0,0 +1,168 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.JobLease;
+import com.rag.ownermanual.repository.IngestionJobQueueRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests IngestionWorker: claims only free slots, shares them between tenants, runs claimed jobs,
+ * and interrupts a job whose lease was lost.
+ */
+@ExtendWith(MockitoExtension.class)
+class IngestionWorkerTest {
+
+    @Mock
+    private IngestionService ingestionService;
+
+    @Mock
+    private IngestionJobQueueRepository jobQueue;
+
+    private static final String TENANT = "default";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private IngestionWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        IngestionProperties properties = new IngestionProperties();
+        properties.getPipeline().setMaxConcurrentJobs(2);
+        properties.getScheduler().setTenantWeights(Map.of("oem-a", 2));
+        worker = new IngestionWorker(ingestionService, jobQueue, new FairShareScheduler(properties),
+                new SimpleAsyncTaskExecutor("worker-test-"), properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void poll_claimsFreeSlotsOnly_andRunsClaimedJobs() throws InterruptedException {
+        JobLease first = lease();
+        JobLease second = lease();
+        when(jobQueue.countDueByTenant()).thenReturn(Map.of(TENANT, 5));
+        when(jobQueue.claimNext(anyString(), eq(TENANT), anyInt())).thenReturn(List.of(first, second));
+        CountDownLatch started = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(ingestionService).process(any());
+
+        worker.poll();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.poll(); // both slots busy: nothing claimed
+
+        verify(jobQueue).claimNext(worker.workerId(), TENANT, 2);
+        verify(ingestionService).process(first);
+        verify(ingestionService).process(second);
+    }
+
+    @Test
+    void heartbeat_whenLeaseLost_interruptsJob() throws InterruptedException {
+        JobLease lease = lease();
+        when(jobQueue.countDueByTenant()).thenReturn(Map.of(TENANT, 1));
+        when(jobQueue.claimNext(anyString(), eq(TENANT), anyInt())).thenReturn(List.of(lease));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return null;
+        }).when(ingestionService).process(lease);
+        when(jobQueue.renewLease(lease.jobId(), worker.workerId())).thenReturn(false);
+
+        worker.poll();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.heartbeat();
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void cancelledJob_keepsItsSlotUntilTheRunReturns() throws InterruptedException {
+        JobLease lease = lease();
+        when(jobQueue.countDueByTenant()).thenReturn(Map.of(TENANT, 5));
+        when(jobQueue.claimNext(anyString(), eq(TENANT), anyInt())).thenReturn(List.of(lease));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            started.countDown();
+            // Uninterruptible, like a socket read: cancel(true) does not end the run.
+            while (blocked.getCount() > 0) {
+                Thread.onSpinWait();
+            }
+            return null;
+        }).when(ingestionService).process(lease);
+        when(jobQueue.renewLease(lease.jobId(), worker.workerId())).thenReturn(false);
+
+        worker.poll();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        worker.heartbeat();
+        worker.poll();
+
+        verify(jobQueue, times(1)).claimNext(worker.workerId(), TENANT, 2);
+        verify(jobQueue).claimNext(worker.workerId(), TENANT, 1);
+        blocked.countDown();
+    }
+
+    @Test
+    void poll_afterStop_claimsNothing() {
+        worker.stop();
+
+        worker.poll();
+
+        verify(jobQueue, never()).claimNext(anyString(), anyString(), anyInt());
+    }
+
+    @Test
+    void poll_sharesFreeSlotsBetweenTenants() throws InterruptedException {
+        when(jobQueue.countDueByTenant()).thenReturn(Map.of("oem-a", 300, "oem-b", 3));
+        when(jobQueue.claimNext(anyString(), anyString(), eq(1))).thenReturn(List.of(lease()));
+        CountDownLatch started = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        }).when(ingestionService).process(any());
+
+        worker.poll();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        verify(jobQueue).claimNext(worker.workerId(), "oem-a", 1);
+        verify(jobQueue).claimNext(worker.workerId(), "oem-b", 1);
+    }
+
+    private static JobLease lease() {
+        return new JobLease(UUID.randomUUID(), "manual-123", "https://example.com/manual.pdf", "worker", 1);
+    }
+}
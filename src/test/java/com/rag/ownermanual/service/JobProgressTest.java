@@ -0,0 +1,116 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.domain.IngestionProgress;
+import com.rag.ownermanual.domain.IngestionStage;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests JobProgress: completion estimate from parse and upsert rates, throughput, and stage timers.
+ */
+class JobProgressTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JobProgress progress = new JobProgress(clock, meterRegistry);
+
+    @Test
+    void snapshot_projectsCompletionFromSlowerOfParseAndUpsert() {
+        progress.downloaded(4096);
+        progress.parsingStarted(100);
+        clock.advance(Duration.ofSeconds(10));
+        for (int i = 0; i < 20; i++) {
+            progress.pageParsed();
+            progress.pageChunked(3);
+        }
+        progress.chunksUpserted(30);
+
+        IngestionProgress snapshot = progress.snapshot();
+
+        // Parse: 80 pages at 2/s = 40s. Upsert: ~300 chunks expected, 270 left at 3/s = 90s.
+        assertThat(snapshot.stage()).isEqualTo(IngestionStage.PARSING);
+        assertThat(snapshot.pagesParsed()).isEqualTo(20);
+        assertThat(snapshot.pagesTotal()).isEqualTo(100);
+        assertThat(snapshot.chunksTotal()).isNull();
+        assertThat(snapshot.bytesDownloaded()).isEqualTo(4096);
+        assertThat(snapshot.estimatedCompletionAt()).isEqualTo(clock.instant().plusSeconds(90));
+        assertThat(progress.pagesPerSecond()).isEqualTo(2.0);
+        assertThat(progress.chunksPerSecond()).isEqualTo(3.0);
+    }
+
+    @Test
+    void snapshot_withoutRates_hasNoEstimate() {
+        assertThat(progress.snapshot().estimatedCompletionAt()).isNull();
+
+        progress.parsingStarted(null);
+        progress.pageParsed();
+
+        assertThat(progress.snapshot().estimatedCompletionAt()).isNull();
+    }
+
+    @Test
+    void enter_recordsStageDurations_andIgnoresEarlierStages() {
+        clock.advance(Duration.ofSeconds(2));
+        progress.parsingStarted(10);
+        clock.advance(Duration.ofSeconds(5));
+        progress.enter(IngestionStage.UPSERTING);
+        progress.enter(IngestionStage.PARSING);
+        clock.advance(Duration.ofSeconds(1));
+        progress.enter(IngestionStage.FINALIZING);
+        clock.advance(Duration.ofSeconds(1));
+        progress.finish();
+        progress.finish();
+
+        assertThat(progress.snapshot().stage()).isEqualTo(IngestionStage.FINALIZING);
+        assertThat(stageSeconds("downloading")).isEqualTo(2.0);
+        assertThat(stageSeconds("parsing")).isEqualTo(5.0);
+        assertThat(stageSeconds("upserting")).isEqualTo(1.0);
+        assertThat(stageSeconds("finalizing")).isEqualTo(1.0);
+        assertThat(progress.takeDirty()).isTrue();
+        assertThat(progress.takeDirty()).isFalse();
+    }
+
+    private double stageSeconds(String stage) {
+        Timer timer = meterRegistry.get("ingest.job.stage.duration").tag("stage", stage).timer();
+        assertThat(timer.count()).isEqualTo(1);
+        return timer.totalTime(TimeUnit.SECONDS);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.Chunk;
+import com.rag.ownermanual.domain.ParsedPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests NearDuplicateIndex: suppressing repeated chunks, recording their pages on the canonical chunk,
+ * and keeping chunks that differ in their numbers.
+ */
+class NearDuplicateIndexTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NearDuplicateIndexTest.class);
+
+    private static final String WARNING = "WARNING: Never open the radiator cap while the engine is hot. "
+            + "Pressurised coolant can escape and cause serious burns. Let the engine cool down first, then "
+            + "cover the cap with a thick cloth and turn it slowly counterclockwise to the first stop so that the "
+            + "remaining pressure can escape before you remove it completely.";
+
+    private final NearDuplicateIndex index = new NearDuplicateIndex(new IngestionProperties.Dedup());
+
+    @Test
+    void keep_suppressesRepeatedChunks_andRecordsTheirPagesOnTheCanonicalChunk() {
+        Chunk canonical = chunk(3, 1, WARNING);
+        assertThat(index.keep(List.of(canonical, chunk(3, 2, "Open the hood using the lever below the steering column "
+                + "and secure it with the prop rod before checking any fluid levels.")))).hasSize(2);
+
+        assertThat(index.keep(List.of(chunk(40, 1, WARNING)))).isEmpty();
+        // Reflowed and with one word changed: still the same warning.
+        assertThat(index.keep(List.of(chunk(17, 1, WARNING.replace("serious", "severe").replace(". ", ".\n"))))).isEmpty();
+
+        assertThat(index.duplicates()).isEqualTo(2);
+        assertThat(index.ratio()).isEqualTo(0.5);
+        assertThat(index.occurrencePages()).containsExactly(
+                Map.entry(canonical.id(), List.of(17, 40)),
+                Map.entry("manual-1-p3-2", List.of()));
+    }
+
+    @Test
+    void keep_keepsChunksThatDifferInNumbers_shortChunks_andEverythingWhenDisabled() {
+        String torque = "Tighten the wheel nuts in a cross pattern to 120 Nm using a torque wrench, then check them "
+                + "again after driving 50 km.";
+        assertThat(index.keep(List.of(chunk(1, 1, torque)))).hasSize(1);
+        assertThat(index.keep(List.of(chunk(2, 1, torque.replace("120", "140"))))).hasSize(1);
+        assertThat(index.keep(List.of(chunk(3, 1, "See page 12."), chunk(4, 1, "See page 12.")))).hasSize(2);
+
+        IngestionProperties.Dedup disabled = new IngestionProperties.Dedup();
+        disabled.setEnabled(false);
+        NearDuplicateIndex off = new NearDuplicateIndex(disabled);
+        assertThat(off.keep(List.of(chunk(1, 1, WARNING), chunk(2, 1, WARNING)))).hasSize(2);
+
+        assertThat(index.duplicates()).isZero();
+        assertThat(index.occurrencePages()).hasSize(2).allSatisfy((id, pages) -> assertThat(pages).isEmpty());
+        assertThat(off.ratio()).isZero();
+    }
+
+    /**
+     * Chunks and stored text before and after suppression on a synthetic manual whose pages repeat a
+     * handful of warning and specification pages. Run with RUN_BENCHMARKS=true.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    void benchmark_indexSizeReduction() {
+        Chunker chunker = Chunker.structured(512, 64);
+        NearDuplicateIndex benchmarkIndex = new NearDuplicateIndex(new IngestionProperties.Dedup());
+        List<Chunk> all = new ArrayList<>();
+        List<Chunk> kept = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int p = 1; p <= 400; p++) {
+            List<Chunk> pageChunks = chunker.chunkPage(new ParsedPage(p, syntheticPage(p), null), 0, "bench", "Model-X");
+            all.addAll(pageChunks);
+            kept.addAll(benchmarkIndex.keep(pageChunks));
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        long allChars = all.stream().mapToLong(chunk -> chunk.content().length()).sum();
+        long keptChars = kept.stream().mapToLong(chunk -> chunk.content().length()).sum();
+        log.info("dedup: chunks {} -> {} (ratio {}), text chars {} -> {} ({}% smaller), {} ms incl. chunking",
+                all.size(), kept.size(), "%.3f".formatted(benchmarkIndex.ratio()), allChars, keptChars,
+                "%.1f".formatted(100.0 * (allChars - keptChars) / allChars), "%.0f".formatted(millis));
+    }
+
+    private static String syntheticPage(int page) {
+        if (page % 5 == 0) {
+            return WARNING + "\n\nDANGER: Keep children away from the airbag deployment zone. An inflating airbag "
+                    + "can cause serious injury to a child seated in front of it.";
+        }
+        if (page % 7 == 0) {
+            StringBuilder table = new StringBuilder("Recommended tyre pressures (cold tyres)\n");
+            for (int row = 0; row < 12; row++) {
+                table.append("Tyre size 2").append(row).append("5/55 R17    Front 2.3 bar    Rear 2.1 bar\n");
+            }
+            return table.toString();
+        }
+        return "Section " + page + " explains the " + (page % 2 == 0 ? "climate control" : "infotainment system")
+                + " on trim level " + page + ". Press and hold the button for " + page % 9 + " seconds to reset "
+                + "the setting to its factory value and confirm on the display.";
+    }
+
+    private static Chunk chunk(int page, int index, String text) {
+        return new Chunk("manual-1-p" + page + "-" + index, text, "manual-1", "Model-X", null, page);
+    }
+}
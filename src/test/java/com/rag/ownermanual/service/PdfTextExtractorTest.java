@@ -0,0 +1,270 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.exception.DocumentProcessingException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDDocumentOutline;
+import org.apache.pdfbox.pdmodel.interactive.documentnavigation.outline.PDOutlineItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests PdfTextExtractor: parallel extraction must produce exactly the sequential output, in page
+ * order, and stop when the sink fails; sections come from the outline, or else from heading fonts.
+ */
+class PdfTextExtractorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfTextExtractorTest.class);
+
+    private static final int PAGES = 120;
+
+    @TempDir
+    static Path tempDir;
+
+    private static Path pdfFile;
+
+    private final List<ThreadPoolTaskExecutor> executors = new ArrayList<>();
+
+    @BeforeAll
+    static void writePdf() throws IOException {
+        pdfFile = Files.write(tempDir.resolve("manual.pdf"), RemoteDocumentParserTest.createPdf(PAGES));
+    }
+
+    @AfterEach
+    void shutdownExecutors() {
+        executors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Test
+    void extract_inParallel_matchesSequentialOutputInPageOrder() {
+        List<ParsedPage> sequential = extractAll(extractor(1, 16));
+        List<ParsedPage> parallel = extractAll(extractor(4, 7));
+
+        assertThat(sequential).hasSize(PAGES);
+        assertThat(parallel).containsExactlyElementsOf(sequential);
+    }
+
+    @Test
+    void extract_reportsProgressForEveryPage() {
+        AtomicInteger progress = new AtomicInteger();
+
+        int emitted = extractor(3, 10).extract(pdfFile, page -> { }, progress::incrementAndGet);
+
+        assertThat(emitted).isEqualTo(PAGES);
+        assertThat(progress.get()).isEqualTo(PAGES);
+    }
+
+    @Test
+    void extract_whenSinkFails_stopsAndPropagates() {
+        AtomicInteger accepted = new AtomicInteger();
+
+        assertThatThrownBy(() -> extractor(4, 8).extract(pdfFile, page -> {
+            if (accepted.incrementAndGet() == 10) {
+                throw new CancellationException("Ingestion pipeline cancelled");
+            }
+        }, () -> { })).isInstanceOf(CancellationException.class);
+        assertThat(accepted.get()).isEqualTo(10);
+    }
+
+    @Test
+    void extract_whenFileIsNotPdf_throwsDocumentProcessingException() throws IOException {
+        Path notPdf = Files.writeString(tempDir.resolve("not.pdf"), "plain text");
+
+        assertThatThrownBy(() -> extractor(4, 8).extract(notPdf, page -> { }, () -> { }))
+                .isInstanceOf(DocumentProcessingException.class)
+                .hasMessage("Failed to parse PDF content");
+    }
+
+    @Test
+    void extract_withoutOutline_assignsSectionPathsFromHeadingFonts() throws IOException {
+        Path file = Files.write(tempDir.resolve("headings.pdf"), createPdfWithHeadings(false));
+
+        List<ParsedPage> sequential = extractAll(extractor(1, 16), file);
+        List<ParsedPage> parallel = extractAll(extractor(3, 1), file);
+
+        assertThat(sequential).extracting(ParsedPage::section).containsExactly(
+                "Maintenance", "Maintenance > Tyres", "Maintenance > Brake fluid", "Driving");
+        assertThat(parallel).containsExactlyElementsOf(sequential);
+    }
+
+    @Test
+    void extract_withOutline_prefersOutlineUnlessLayoutOrNoneIsConfigured() throws IOException {
+        Path file = Files.write(tempDir.resolve("outline.pdf"), createPdfWithHeadings(true));
+
+        assertThat(extractAll(extractor(1, 16), file)).extracting(ParsedPage::section).containsExactly(
+                "Maintenance", "Maintenance > Tyre care", "Maintenance > Tyre care", "Driving");
+        assertThat(extractAll(extractor(1, 16, IngestionProperties.Extraction.SectionDetection.LAYOUT), file))
+                .extracting(ParsedPage::section)
+                .containsExactly("Maintenance", "Maintenance > Tyres", "Maintenance > Brake fluid", "Driving");
+        assertThat(extractAll(extractor(1, 16, IngestionProperties.Extraction.SectionDetection.NONE), file))
+                .extracting(ParsedPage::section)
+                .containsOnlyNulls();
+        assertThat(extractAll(extractor(1, 16), pdfFile)).extracting(ParsedPage::section).containsOnlyNulls();
+    }
+
+    @Test
+    void workersFor_isCappedByNumberOfRanges() {
+        PdfTextExtractor extractor = extractor(8, 16);
+
+        assertThat(extractor.workersFor(10)).isEqualTo(1);
+        assertThat(extractor.workersFor(40)).isEqualTo(3);
+        assertThat(extractor.workersFor(1_000)).isEqualTo(8);
+    }
+
+    /**
+     * Pages/second against worker count on a synthetic manual. Run with RUN_BENCHMARKS=true;
+     * rates stop improving once workers exceed the machine's cores.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    void benchmark_pagesPerSecondByWorkerCount() throws IOException {
+        int pages = 1_200;
+        Path large = Files.write(tempDir.resolve("large.pdf"), RemoteDocumentParserTest.createPdf(pages));
+        extractAll(extractor(4, 16), large); // warm-up
+        for (int workers : new int[] {1, 2, 4, 8}) {
+            PdfTextExtractor extractor = extractor(workers, 16);
+            long start = System.nanoTime();
+            int emitted = extractor.extract(large, page -> { }, () -> { });
+            double seconds = (System.nanoTime() - start) / 1e9;
+            log.info("pdf extraction: workers={} pages={} seconds={} pages/sec={}",
+                    workers, emitted, "%.2f".formatted(seconds), "%.1f".formatted(emitted / seconds));
+        }
+    }
+
+    /**
+     * Pages/second of one worker with each section detection mode on a manual without an outline,
+     * so auto and layout find headings by font. Run with RUN_BENCHMARKS=true.
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "RUN_BENCHMARKS", matches = "true")
+    void benchmark_pagesPerSecondBySectionDetection() throws IOException {
+        int pages = 600;
+        String[][] headings = new String[pages][];
+        for (int page = 0; page < pages; page++) {
+            headings[page] = page % 20 == 0 ? new String[] {"Chapter " + (page / 20 + 1), "Overview"}
+                    : page % 4 == 0 ? new String[] {null, "Topic " + page} : new String[0];
+        }
+        Path manual = Files.write(tempDir.resolve("sections.pdf"), createPdf(headings, false));
+        for (int round = 0; round < 3; round++) {
+            for (IngestionProperties.Extraction.SectionDetection mode : IngestionProperties.Extraction.SectionDetection.values()) {
+                PdfTextExtractor extractor = extractor(1, 16, mode);
+                long start = System.nanoTime();
+                int emitted = extractor.extract(manual, page -> { }, () -> { });
+                double seconds = (System.nanoTime() - start) / 1e9;
+                log.info("pdf extraction {}: sections={} pages={} seconds={} pages/sec={}",
+                        round < 2 ? "warm-up" : "measured", mode, emitted, "%.2f".formatted(seconds),
+                        "%.1f".formatted(emitted / seconds));
+            }
+        }
+    }
+
+    private PdfTextExtractor extractor(int workersPerDocument, int pagesPerTask) {
+        return extractor(workersPerDocument, pagesPerTask, IngestionProperties.Extraction.SectionDetection.AUTO);
+    }
+
+    private PdfTextExtractor extractor(int workersPerDocument, int pagesPerTask,
+                                       IngestionProperties.Extraction.SectionDetection sectionDetection) {
+        IngestionProperties properties = new IngestionProperties();
+        properties.getExtraction().setWorkersPerDocument(workersPerDocument);
+        properties.getExtraction().setPagesPerTask(pagesPerTask);
+        properties.getExtraction().setSectionDetection(sectionDetection);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workersPerDocument);
+        executor.initialize();
+        executors.add(executor);
+        return new PdfTextExtractor(properties, executor);
+    }
+
+    private static List<ParsedPage> extractAll(PdfTextExtractor extractor) {
+        return extractAll(extractor, pdfFile);
+    }
+
+    private static List<ParsedPage> extractAll(PdfTextExtractor extractor, Path file) {
+        List<ParsedPage> pages = new ArrayList<>();
+        extractor.extract(file, pages::add, () -> { });
+        return pages;
+    }
+
+    /**
+     * Four pages: chapter headings at 18 pt, section headings at 14 pt bold, body text at 10 pt.
+     * Page 2 has no heading. The outline, when added, names section "Tyre care" on page 2.
+     */
+    private static byte[] createPdfWithHeadings(boolean withOutline) throws IOException {
+        return createPdf(new String[][] {{"Maintenance", "Tyres"}, {}, {null, "Brake fluid"}, {"Driving"}}, withOutline);
+    }
+
+    /**
+     * One page per entry of headings: the entry's chapter (18 pt) and section (14 pt bold) heading
+     * where not null, then twelve lines of 10 pt body text.
+     */
+    private static byte[] createPdf(String[][] headings, boolean withOutline) throws IOException {
+        PDType1Font body = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+        PDType1Font bold = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+        try (PDDocument document = new PDDocument()) {
+            for (String[] pageHeadings : headings) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.newLineAtOffset(40, 740);
+                    for (int level = 0; level < pageHeadings.length; level++) {
+                        if (pageHeadings[level] != null) {
+                            content.setFont(bold, level == 0 ? 18 : 14);
+                            content.showText(pageHeadings[level]);
+                            content.newLineAtOffset(0, -24);
+                        }
+                    }
+                    content.setFont(body, 10);
+                    for (int line = 1; line <= 12; line++) {
+                        content.showText("Line " + line + " explains how to check the vehicle before a long trip.");
+                        content.newLineAtOffset(0, -14);
+                    }
+                    content.endText();
+                }
+            }
+            if (withOutline) {
+                PDDocumentOutline outline = new PDDocumentOutline();
+                PDOutlineItem maintenance = outlineItem("Maintenance", document.getPage(0));
+                maintenance.addLast(outlineItem("Tyre care", document.getPage(1)));
+                outline.addLast(maintenance);
+                outline.addLast(outlineItem("Driving", document.getPage(3)));
+                document.getDocumentCatalog().setDocumentOutline(outline);
+            }
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                document.save(out);
+                return out.toByteArray();
+            }
+        }
+    }
+
+    private static PDOutlineItem outlineItem(String title, PDPage page) {
+        PDOutlineItem item = new PDOutlineItem();
+        item.setTitle(title);
+        item.setDestination(page);
+        return item;
+    }
+}
@@ -67,13 +67,13 @@ class QueryServiceTest {
         List<Chunk> expected = List.of(
                 new Chunk("c1", "Oil change every 5000 miles.", "manual-1", "Model-X", "Maintenance", 10)
         );
-        when(vectorStoreRepository.search(eq("How often oil change?"), isNull(), eq(5)))
+        when(vectorStoreRepository.search(eq("How often oil change?"), isNull(), isNull(), eq(5)))
                 .thenReturn(expected);
 
         List<Chunk> result = queryService.searchChunks("How often oil change?", null);
 
         assertThat(result).isSameAs(expected);
-        verify(vectorStoreRepository).search("How often oil change?", null, 5);
+        verify(vectorStoreRepository).search("How often oil change?", null, null, 5);
     }
 
     /** Non-blank vehicleModel must be passed to the repo so Qdrant can filter by metadata. */
@@ -82,23 +82,35 @@ class QueryServiceTest {
         List<Chunk> expected = List.of(
                 new Chunk("c1", "Tire pressure 32 psi.", "manual-1", "Model-Y", "Tires", 5)
         );
-        when(vectorStoreRepository.search(eq("tire pressure"), eq("Model-Y"), eq(5)))
+        when(vectorStoreRepository.search(eq("tire pressure"), eq("Model-Y"), isNull(), eq(5)))
                 .thenReturn(expected);
 
         List<Chunk> result = queryService.searchChunks("tire pressure", "Model-Y");
 
         assertThat(result).isSameAs(expected);
-        verify(vectorStoreRepository).search("tire pressure", "Model-Y", 5);
+        verify(vectorStoreRepository).search("tire pressure", "Model-Y", null, 5);
+    }
+
+    @Test
+    void searchChunks_withSection_passesTrimmedSectionToRepository() {
+        when(vectorStoreRepository.search(anyString(), eq("Model-Y"), eq("Maintenance > Tyres"), anyInt()))
+                .thenReturn(List.of());
+
+        queryService.searchChunks("tire pressure", "Model-Y", "  Maintenance > Tyres ");
+        queryService.searchChunks("tire pressure", "Model-Y", " ");
+
+        verify(vectorStoreRepository).search("tire pressure", "Model-Y", "Maintenance > Tyres", 5);
+        verify(vectorStoreRepository).search("tire pressure", "Model-Y", null, 5);
     }
 
     /** Blank/whitespace vehicleModel → null so repo does not apply a filter (per interface contract). */
     @Test
     void searchChunks_withBlankVehicleModel_passesNullToRepository() {
-        when(vectorStoreRepository.search(anyString(), isNull(), anyInt())).thenReturn(List.of());
+        when(vectorStoreRepository.search(anyString(), isNull(), isNull(), anyInt())).thenReturn(List.of());
 
         queryService.searchChunks("query", "   ");
 
-        verify(vectorStoreRepository).search(eq("query"), isNull(), eq(5));
+        verify(vectorStoreRepository).search(eq("query"), isNull(), isNull(), eq(5));
     }
 
     @Test
@@ -111,11 +123,11 @@ class QueryServiceTest {
                 resilienceService,
                 new SimpleMeterRegistry()
         );
-        when(vectorStoreRepository.search(anyString(), isNull(), eq(10))).thenReturn(List.of());
+        when(vectorStoreRepository.search(anyString(), isNull(), isNull(), eq(10))).thenReturn(List.of());
 
         queryService.searchChunks("q", null);
 
-        verify(vectorStoreRepository).search("q", null, 10);
+        verify(vectorStoreRepository).search("q", null, null, 10);
     }
 
     /**
@@ -123,7 +135,7 @@ class QueryServiceTest {
      */
     @Test
     void query_withNoChunks_returnsNoRelevantSectionsAndEmptyCitations() {
-        when(vectorStoreRepository.search(anyString(), isNull(), anyInt())).thenReturn(List.of());
+        when(vectorStoreRepository.search(anyString(), isNull(), isNull(), anyInt())).thenReturn(List.of());
 
         QueryResponse response = queryService.query("How often oil change?", null);
 
@@ -139,9 +151,9 @@ class QueryServiceTest {
     void query_withChunks_returnsAnswerAndCitationsFromMockedChatClient() {
         List<Chunk> chunks = List.of(
                 new Chunk("c1", "Oil change every 5000 miles.", "manual-1", "Model-X", "Maintenance", 10),
-                new Chunk("c2", "Check tire pressure monthly.", "manual-1", "Model-X", "Tires", 5)
+                new Chunk("c2", "Check tire pressure monthly.", "manual-1", "Model-X", "Tires", 5, List.of(48, 112))
         );
-        when(vectorStoreRepository.search(eq("How often oil change?"), isNull(), eq(5))).thenReturn(chunks);
+        when(vectorStoreRepository.search(eq("How often oil change?"), isNull(), isNull(), eq(5))).thenReturn(chunks);
         ChatResponse mockResponse = new ChatResponse(List.of(
                 new Generation(new AssistantMessage("You should change the oil every 5000 miles."))
         ));
@@ -159,6 +171,8 @@ class QueryServiceTest {
         assertThat(response.citations().get(0).snippet()).isEqualTo("Oil change every 5000 miles.");
         assertThat(response.citations().get(1).section()).isEqualTo("Tires");
         assertThat(response.citations().get(1).page()).isEqualTo(5);
+        assertThat(response.citations().get(0).pages()).containsExactly(10);
+        assertThat(response.citations().get(1).pages()).containsExactly(5, 48, 112);
 
         ArgumentCaptor<Prompt> promptCaptor = ArgumentCaptor.forClass(Prompt.class);
         verify(chatModel).call(promptCaptor.capture());
@@ -173,7 +187,7 @@ class QueryServiceTest {
         List<Chunk> chunks = List.of(
                 new Chunk("c1", "Oil change every 5000 miles.", "manual-1", "Model-X", "Maintenance", 10)
         );
-        when(vectorStoreRepository.search(eq("How often oil change?"), isNull(), eq(5))).thenReturn(chunks);
+        when(vectorStoreRepository.search(eq("How often oil change?"), isNull(), isNull(), eq(5))).thenReturn(chunks);
         when(resilienceService.executeWithTimeLimit(eq("llm"), any()))
                 .thenThrow(new RuntimeException("LLM timeout"));
 
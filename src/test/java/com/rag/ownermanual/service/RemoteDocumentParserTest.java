@@ -0,0 +1,268 @@
+package com.rag.ownermanual.service;
+
+import com.rag.ownermanual.config.IngestionProperties;
+import com.rag.ownermanual.domain.ParsedPage;
+import com.rag.ownermanual.exception.DocumentProcessingException;
+import com.rag.ownermanual.resilience.ResilienceService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.font.Standard14Fonts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests RemoteDocumentParser against a local HTTP stub: streamed download to a temp file,
+ * size limit enforcement, temp file cleanup, page-ordered extraction of a large synthetic PDF and
+ * conditional fetches backed by the document store.
+ */
+class RemoteDocumentParserTest {
+
+    private static final int LARGE_PDF_PAGES = 300;
+
+    private static final String ETAG = "\"v1\"";
+
+    private static byte[] largePdf;
+    private static byte[] smallPdf;
+
+    @TempDir
+    Path tempDir;
+
+    @TempDir
+    Path storeDir;
+
+    private HttpServer server;
+    private ThreadPoolTaskExecutor extractionExecutor;
+    private SimpleMeterRegistry meterRegistry;
+    private IngestionProperties properties;
+    private RemoteDocumentParser parser;
+    private final List<String> ifNoneMatchHeaders = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    static void createLargePdf() throws IOException {
+        largePdf = createPdf(LARGE_PDF_PAGES);
+        smallPdf = createPdf(3);
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/manual.pdf", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, largePdf.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(largePdf);
+            }
+        });
+        server.createContext("/chunked.pdf", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, 0); // chunked: no Content-Length to check up front
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(largePdf);
+            }
+        });
+        server.createContext("/etag.pdf", exchange -> {
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            ifNoneMatchHeaders.add(String.valueOf(ifNoneMatch));
+            exchange.getResponseHeaders().add("ETag", ETAG);
+            if (ETAG.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, smallPdf.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(smallPdf);
+            }
+        });
+        server.createContext("/missing.pdf", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        ResilienceService resilienceService = mock(ResilienceService.class);
+        when(resilienceService.execute(anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+
+        extractionExecutor = new ThreadPoolTaskExecutor();
+        extractionExecutor.setCorePoolSize(4);
+        extractionExecutor.initialize();
+
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new IngestionProperties();
+        properties.setTempDirectory(tempDir.toString());
+        properties.getDocumentStore().setDirectory(storeDir.toString());
+        // Every line of the generated PDFs is the same template, which the boilerplate filter would strip.
+        properties.getBoilerplate().setEnabled(false);
+        parser = new RemoteDocumentParser(RestClient.create(), resilienceService, properties,
+                new PdfTextExtractor(properties, extractionExecutor),
+                new DocumentStore(properties, meterRegistry), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        extractionExecutor.shutdown();
+    }
+
+    @Test
+    void fetchAndParse_largePdf_returnsEveryPageInOrder_andRemovesTempFile() throws IOException {
+        List<ParsedPage> pages = parser.fetchAndParse(url("/manual.pdf"));
+
+        assertThat(pages).hasSize(LARGE_PDF_PAGES);
+        for (int i = 0; i < LARGE_PDF_PAGES; i++) {
+            assertThat(pages.get(i).pageNumber()).isEqualTo(i + 1);
+            // The layout stripper pads words with spaces to preserve columns.
+            assertThat(pages.get(i).text()).containsPattern("Page\\s+" + (i + 1) + "\\s+line\\s+1:");
+        }
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void fetchAndParse_recordsPeakHeapPerIngest() {
+        parser.fetchAndParse(url("/manual.pdf"));
+
+        DistributionSummary summary = meterRegistry.find("ingest.document.heap.peak").summary();
+        assertThat(summary).isNotNull();
+        assertThat(summary.count()).isEqualTo(1);
+    }
+
+    @Test
+    void fetchAndParse_whenDeclaredLengthExceedsLimit_failsWithoutWritingFile() throws IOException {
+        properties.setMaxDocumentSize(DataSize.ofBytes(largePdf.length - 1));
+
+        assertThatThrownBy(() -> parser.fetchAndParse(url("/manual.pdf")))
+                .isInstanceOf(DocumentProcessingException.class)
+                .hasMessageContaining("exceeds maximum size");
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void fetchAndParse_whenStreamedBodyExceedsLimit_abortsAndRemovesPartialFile() throws IOException {
+        properties.setMaxDocumentSize(DataSize.ofBytes(largePdf.length / 2));
+
+        assertThatThrownBy(() -> parser.fetchAndParse(url("/chunked.pdf")))
+                .isInstanceOf(DocumentProcessingException.class)
+                .hasMessageContaining("exceeds maximum size");
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void fetchAndParse_whenServerReturns404_throwsDocumentProcessingException() {
+        assertThatThrownBy(() -> parser.fetchAndParse(url("/missing.pdf")))
+                .isInstanceOf(DocumentProcessingException.class)
+                .hasMessage("Failed to fetch document from URL");
+    }
+
+    @Test
+    void fetchAndParse_whenIngestedVersionHasEtag_sendsConditionalGetAndReturnsUnchangedOn304() {
+        List<ParsedPage> first = new ArrayList<>();
+        RemoteDocumentParser.FetchResult initial = parser.fetchAndParse(url("/etag.pdf"), null, first::add);
+        List<ParsedPage> second = new ArrayList<>();
+
+        RemoteDocumentParser.FetchResult result = parser.fetchAndParse(url("/etag.pdf"), initial.documentSha256(), second::add);
+
+        assertThat(first).hasSize(3);
+        assertThat(initial.unchanged()).isFalse();
+        assertThat(result).isEqualTo(new RemoteDocumentParser.FetchResult(0, initial.documentSha256(), true, 0));
+        assertThat(second).isEmpty();
+        assertThat(ifNoneMatchHeaders).containsExactly("null", ETAG);
+        assertThat(fetchOutcomes("not_modified")).isEqualTo(1.0);
+    }
+
+    @Test
+    void fetchAndParse_whenIngestedVersionDiffers_fetchesUnconditionallyAndReplaysStoredPages() {
+        List<ParsedPage> extracted = new ArrayList<>();
+        RemoteDocumentParser.FetchResult initial = parser.fetchAndParse(url("/etag.pdf"), null, extracted::add);
+        List<ParsedPage> replayed = new ArrayList<>();
+
+        RemoteDocumentParser.FetchResult result = parser.fetchAndParse(url("/etag.pdf"), "0".repeat(64), replayed::add);
+
+        assertThat(result).isEqualTo(new RemoteDocumentParser.FetchResult(3, initial.documentSha256(), false, 0));
+        assertThat(replayed).containsExactlyElementsOf(extracted);
+        assertThat(ifNoneMatchHeaders).containsExactly("null", "null");
+        assertThat(fetchOutcomes("extracted")).isEqualTo(1.0);
+        assertThat(fetchOutcomes("replayed")).isEqualTo(1.0);
+    }
+
+    @Test
+    void fetchAndParse_whenServerHasNoValidatorsButContentIsIngestedVersion_returnsUnchangedWithoutExtracting() {
+        RemoteDocumentParser.FetchResult initial = parser.fetchAndParse(url("/manual.pdf"), null, page -> { });
+        List<ParsedPage> pages = new ArrayList<>();
+
+        RemoteDocumentParser.FetchResult result = parser.fetchAndParse(url("/manual.pdf"), initial.documentSha256(), pages::add);
+
+        assertThat(result.unchanged()).isTrue();
+        assertThat(pages).isEmpty();
+        assertThat(fetchOutcomes("same_content")).isEqualTo(1.0);
+    }
+
+    private double fetchOutcomes(String outcome) {
+        return meterRegistry.get("ingest.document.fetch").tag("outcome", outcome).counter().count();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+
+    private List<Path> tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.toList();
+        }
+    }
+
+    static byte[] createPdf(int pageCount) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            PDType1Font font = new PDType1Font(Standard14Fonts.FontName.COURIER);
+            for (int p = 1; p <= pageCount; p++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(font, 10);
+                    content.newLineAtOffset(40, 740);
+                    for (int line = 1; line <= 40; line++) {
+                        content.showText("Page " + p + " line " + line + ": check tire pressure and coolant level.");
+                        content.newLineAtOffset(0, -14);
+                    }
+                    content.endText();
+                }
+            }
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                document.save(out);
+                return out.toByteArray();
+            }
+        }
+    }
+}